@@ -0,0 +1,116 @@
+package org.example.bench;
+
+import org.example.datagen.DataGenerator;
+import org.example.datagen.GeneratorConfig;
+import org.example.datagen.Sizes;
+import org.example.db.Db;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * The database the benchmarks run against (-Ddb.url, as for the app). Every table is truncated
+ * and refilled with synthetic rows when a benchmark asks for a different scale, so the database
+ * name must contain "bench" unless -Dbench.force=true. An empty database gets the schema from
+ * "postgresql DB create tables.txt" (or -Dbench.schema) first.
+ *
+ * Scale is the number of properties; the other tables are sized from it as in Sizes.forProperties.
+ */
+public final class BenchDatabase {
+
+    public static final String SCHEMA_PROPERTY = "bench.schema";
+    public static final String FORCE_PROPERTY = "bench.force";
+
+    /** Generated persons start with the clients, so the delete blocker checks always find something for id 1. */
+    public static final long BLOCKED_PERSON = 1;
+
+
+    private BenchDatabase() {}
+
+    /** Opens a connection without Db's offline fallback, so an unreachable server fails the run. */
+    public static Connection connect() throws SQLException {
+        return DriverManager.getConnection(Db.url(), Db.properties());
+    }
+
+    /** A person nothing refers to: every delete blocker check runs and finds nothing. */
+    public static long freePerson(int scale) {
+        return Sizes.forProperties(scale).persons() + 1;
+    }
+
+    public static synchronized void ensureScale(int scale) throws SQLException, IOException {
+        try (Connection c = connect()) {
+            checkTarget(c);
+            if (!tableExists(c, "person")) createSchema(c);
+            try (Statement st = c.createStatement()) {
+                st.execute("CREATE TABLE IF NOT EXISTS bench_scale (properties INT NOT NULL)");
+            }
+            if (currentScale(c) == scale) return;
+            seed(c, scale);
+        }
+    }
+
+    private static void checkTarget(Connection c) throws SQLException {
+        try (Statement st = c.createStatement();
+             ResultSet rs = st.executeQuery("SELECT current_database()")) {
+            rs.next();
+            String name = rs.getString(1);
+            if (!name.toLowerCase().contains("bench") && !Boolean.getBoolean(FORCE_PROPERTY)) {
+                throw new IllegalStateException("Benchmarks replace all data in " + name
+                        + "; point -Ddb.url at a database whose name contains 'bench' (or set -D" + FORCE_PROPERTY + "=true)");
+            }
+        }
+    }
+
+    private static boolean tableExists(Connection c, String table) throws SQLException {
+        try (PreparedStatement ps = c.prepareStatement("SELECT to_regclass(?) IS NOT NULL")) {
+            ps.setString(1, table);
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return rs.getBoolean(1);
+            }
+        }
+    }
+
+    private static void createSchema(Connection c) throws SQLException, IOException {
+        Path schema = Path.of(System.getProperty(SCHEMA_PROPERTY, "../postgresql DB create tables.txt"));
+        try (Statement st = c.createStatement()) {
+            st.execute(Files.readString(schema));
+        }
+    }
+
+    private static int currentScale(Connection c) throws SQLException {
+        try (Statement st = c.createStatement();
+             ResultSet rs = st.executeQuery("SELECT properties FROM bench_scale")) {
+            return rs.next() ? rs.getInt(1) : -1;
+        }
+    }
+
+    /** Generated data (DataGenerator, default skew and seed) plus one person nothing refers to. */
+    private static void seed(Connection c, int scale) throws SQLException, IOException {
+        GeneratorConfig d = GeneratorConfig.defaults(Sizes.forProperties(scale));
+        try {
+            new DataGenerator(new GeneratorConfig(d.seed(), d.sizes(), d.threads(), d.chunkRows(), d.citySkew(),
+                    d.luxuryShare(), d.luxuryAlpha(), d.dealMonths(), true)).run();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while generating data", ex);
+        }
+        run(c, "INSERT INTO person (first_name, last_name) VALUES ('Free', 'Person')");
+        run(c, "DELETE FROM bench_scale");
+        run(c, "INSERT INTO bench_scale (properties) VALUES (?)", scale);
+    }
+
+    private static void run(Connection c, String sql, int... params) throws SQLException {
+        try (PreparedStatement ps = c.prepareStatement(sql)) {
+            for (int i = 0; i < params.length; i++) ps.setInt(i + 1, params[i]);
+            ps.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package org.example.bench;
+
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * The JMH command line, except that results are written as JSON to
+ * results/&lt;label&gt;.json unless -rf/-rff say otherwise. label is -Dbench.label (e.g. a git tag or
+ * commit) or the current time, so runs of two versions can be diffed file against file.
+ */
+public final class BenchMain {
+
+    public static final String LABEL_PROPERTY = "bench.label";
+
+    private BenchMain() {}
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cmd = new CommandLineOptions(args);
+        if (cmd.shouldHelp() || cmd.shouldList() || cmd.shouldListWithParams()
+                || cmd.shouldListProfilers() || cmd.shouldListResultFormats()) {
+            Main.main(args);
+            return;
+        }
+
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(cmd);
+        if (!cmd.getResultFormat().hasValue()) options.resultFormat(ResultFormatType.JSON);
+        if (!cmd.getResult().hasValue()) {
+            String label = System.getProperty(LABEL_PROPERTY,
+                    LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")));
+            Path file = Path.of("results", label + ".json");
+            Files.createDirectories(file.getParent());
+            options.result(file.toString());
+        }
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,86 @@
+package org.example.bench;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.example.db.Db;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/** Cost of getting a usable connection: Db.getConnection (a new DriverManager connection per call) against a pool. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConnectionBenchmark {
+
+    private HikariDataSource pool;
+
+    @Setup
+    public void setUp() throws SQLException {
+        BenchDatabase.connect().close();
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(Db.url());
+        config.setDataSourceProperties(Db.properties());
+        config.setMaximumPoolSize(4);
+        pool = new HikariDataSource(config);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.close();
+    }
+
+    @Benchmark
+    public boolean driverManager() throws SQLException {
+        try (Connection c = Db.getConnection()) {
+            return c.isClosed();
+        }
+    }
+
+    @Benchmark
+    public boolean pooled() throws SQLException {
+        try (Connection c = pool.getConnection()) {
+            return c.isClosed();
+        }
+    }
+
+    /** Acquire plus one round trip, what the smallest DAO call pays. */
+    @Benchmark
+    public int driverManagerSelect1() throws SQLException {
+        try (Connection c = Db.getConnection()) {
+            return select1(c);
+        }
+    }
+
+    @Benchmark
+    public int pooledSelect1() throws SQLException {
+        try (Connection c = pool.getConnection()) {
+            return select1(c);
+        }
+    }
+
+    private static int select1(Connection c) throws SQLException {
+        try (Statement st = c.createStatement();
+             ResultSet rs = st.executeQuery("SELECT 1")) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package org.example.bench;
+
+import org.example.dao.PersonDao;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/** PersonDao.getDeleteBlockers for a heavily referenced person and for one nothing refers to. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DeleteBlockersBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int scale;
+
+    private final PersonDao dao = new PersonDao();
+    private long free;
+
+    @Setup
+    public void setUp() throws SQLException, IOException {
+        BenchDatabase.ensureScale(scale);
+        free = BenchDatabase.freePerson(scale);
+    }
+
+    @Benchmark
+    public String referenced() throws SQLException {
+        return dao.getDeleteBlockers(BenchDatabase.BLOCKED_PERSON);
+    }
+
+    @Benchmark
+    public String unreferenced() throws SQLException {
+        return dao.getDeleteBlockers(free);
+    }
+}
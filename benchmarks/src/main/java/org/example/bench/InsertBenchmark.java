@@ -0,0 +1,143 @@
+package org.example.bench;
+
+import org.example.dao.PersonDao;
+import org.example.db.Db;
+import org.example.model.Person;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Inserting {@value #ROWS} people: through PersonDao one call at a time (a connection per row, as
+ * the UI does), one statement per row on a shared connection, and as a JDBC batch with and
+ * without the driver's multi-row rewrite (reWriteBatchedInserts). Scores are per row.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InsertBenchmark {
+
+    static final int ROWS = 500;
+
+    private static final String INSERT_SQL =
+            "INSERT INTO person (first_name, last_name, email, phone_number) VALUES (?, ?, ?, ?)";
+
+    private final PersonDao dao = new PersonDao();
+    private final Person[] people = new Person[ROWS];
+    private Connection plain;
+    private Connection rewriting;
+    private long lastSeeded;
+
+    @Setup
+    public void setUp() throws SQLException, IOException {
+        // the DAO path appends to the change journal; keep that out of the user's home directory
+        System.setProperty("journal.dir", Files.createTempDirectory("bench-journal").toString());
+        BenchDatabase.ensureScale(1000);
+        for (int i = 0; i < ROWS; i++) {
+            people[i] = new Person(0, "Bench" + i, "Insert" + i, "bench" + i + "@example.com", "+359000" + i);
+        }
+        plain = BenchDatabase.connect();
+        Properties props = Db.properties();
+        props.setProperty("reWriteBatchedInserts", "true");
+        rewriting = DriverManager.getConnection(Db.url(), props);
+        try (Statement st = plain.createStatement();
+             ResultSet rs = st.executeQuery("SELECT max(person_id) FROM person")) {
+            rs.next();
+            lastSeeded = rs.getLong(1);
+        }
+    }
+
+    /** Keeps the table at its seeded size so later iterations do not insert into a bigger one. */
+    @TearDown(Level.Iteration)
+    public void removeInserted() throws SQLException {
+        try (PreparedStatement ps = plain.prepareStatement("DELETE FROM person WHERE person_id > ?")) {
+            ps.setLong(1, lastSeeded);
+            ps.executeUpdate();
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        plain.close();
+        rewriting.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public long daoInsertEach() throws SQLException {
+        long last = 0;
+        for (Person p : people) last = dao.insert(p);
+        return last;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public int statementPerRow() throws SQLException {
+        int n = 0;
+        try (PreparedStatement ps = plain.prepareStatement(INSERT_SQL)) {
+            for (Person p : people) {
+                bind(ps, p);
+                n += ps.executeUpdate();
+            }
+        }
+        return n;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public int batched() throws SQLException {
+        return batch(plain);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public int batchedRewritten() throws SQLException {
+        return batch(rewriting);
+    }
+
+    private int batch(Connection c) throws SQLException {
+        c.setAutoCommit(false);
+        try (PreparedStatement ps = c.prepareStatement(INSERT_SQL)) {
+            for (Person p : people) {
+                bind(ps, p);
+                ps.addBatch();
+            }
+            int n = ps.executeBatch().length;
+            c.commit();
+            return n;
+        } finally {
+            c.setAutoCommit(true);
+        }
+    }
+
+    private static void bind(PreparedStatement ps, Person p) throws SQLException {
+        ps.setString(1, p.firstName());
+        ps.setString(2, p.lastName());
+        ps.setString(3, p.email());
+        ps.setString(4, p.phoneNumber());
+    }
+}
@@ -0,0 +1,70 @@
+package org.example.bench;
+
+import org.example.journal.ChangeJournal;
+import org.example.journal.ChangeType;
+import org.example.model.Property;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * ChangeJournal.append of a property update from one thread, no database: the record encoding,
+ * the CRC and the copy into the mapped segment, with the flush thread forcing to disk every 50 ms
+ * as in the app. Segments the run has filled are deleted after each iteration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JournalAppendBenchmark {
+
+    private Path dir;
+    private ChangeJournal journal;
+    private Property row;
+    private long key;
+
+    @Setup
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("journal-bench");
+        journal = ChangeJournal.open(dir, ChangeJournal.DEFAULT_SEGMENT_BYTES, ChangeJournal.DEFAULT_FLUSH_INTERVAL_MILLIS);
+        row = new Property(1, new BigDecimal("249000.00"), new BigDecimal("84.50"), 42.6977, 23.3219,
+                "Sofia", "apartment", 17L);
+    }
+
+    @Benchmark
+    public void appendUpdate() {
+        journal.append(ChangeType.UPDATE, "property", ++key, row);
+    }
+
+    @TearDown(Level.Iteration)
+    public void dropFilledSegments() throws IOException {
+        journal.deleteSegmentsBefore(journal.endOffset());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        journal.close();
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package org.example.bench;
+
+import org.example.dao.QueryDao;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Each Queries-tab report, end to end (connection, query, mapping to rows), at several data sizes. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReportBenchmark {
+
+    /** Number of properties; see BenchDatabase for the other tables. */
+    @Param({"1000", "10000", "100000"})
+    public int scale;
+
+    @Param
+    public QueryDao.Report report;
+
+    private final QueryDao dao = new QueryDao();
+
+    @Setup
+    public void setUp() throws SQLException, IOException {
+        BenchDatabase.ensureScale(scale);
+    }
+
+    @Benchmark
+    public List<?> run() throws SQLException {
+        return switch (report) {
+            case PROPERTIES_WITH_OPTIONAL_OWNER -> dao.propertiesWithOptionalOwner();
+            case TOP_AGENTS_BY_SALES -> dao.topAgentsBySales();
+            case PROPERTIES_UNDER_CLIENT_BUDGET -> dao.propertiesUnderClientBudget(BenchDatabase.BLOCKED_PERSON);
+            case AVG_SALE_PRICE_BY_TYPE -> dao.avgSalePriceByPropertyType();
+            case TOP_CLIENTS_BY_DEALS -> dao.topClientsByDeals();
+            case UNSOLD_PROPERTIES -> dao.unsoldProperties();
+        };
+    }
+}
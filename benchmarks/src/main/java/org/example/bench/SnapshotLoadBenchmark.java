@@ -0,0 +1,75 @@
+package org.example.bench;
+
+import org.example.model.Property;
+import org.example.snapshot.SnapshotStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What the Properties tab waits for at start-up before the database answers: opening a saved
+ * snapshot file of generated Property rows and decoding them with {@link SnapshotStore#get}.
+ * The file stays in the page cache, so this is the warm-start figure, not a cold disk read.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SnapshotLoadBenchmark {
+
+    private static final String[] CITIES = {"Sofia", "Plovdiv", "Varna", "Burgas", "Ruse"};
+    private static final String[] TYPES = {"garage", "house", "apartment"};
+
+    @Param({"200000"})
+    public int rows;
+
+    private Path file;
+
+    @Setup
+    public void setUp() throws IOException {
+        SplittableRandom random = new SplittableRandom(42);
+        List<Property> list = new ArrayList<>(rows);
+        for (int i = 1; i <= rows; i++) {
+            list.add(new Property(i, BigDecimal.valueOf(4_000_000 + random.nextInt(40_000_000), 2),
+                    BigDecimal.valueOf(300 + random.nextInt(2_700), 1),
+                    random.nextInt(5) == 0 ? null : 41 + random.nextDouble() * 3,
+                    random.nextInt(5) == 0 ? null : 22 + random.nextDouble() * 6,
+                    CITIES[random.nextInt(CITIES.length)], TYPES[random.nextInt(TYPES.length)],
+                    random.nextInt(10) == 0 ? null : (long) random.nextInt(rows)));
+        }
+        file = Files.createTempFile("snapshot-bench", ".bin");
+        SnapshotStore store = SnapshotStore.open(file);
+        store.put(Property.class, list);
+        store.save();
+    }
+
+    @Benchmark
+    public List<Property> openAndDecode() {
+        return SnapshotStore.open(file).get(Property.class);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+}
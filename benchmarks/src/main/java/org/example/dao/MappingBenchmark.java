@@ -0,0 +1,90 @@
+package org.example.dao;
+
+import org.example.bench.BenchDatabase;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Each DAO's map(rs) alone: {@value #ROWS} rows are fetched once into a scrollable result set
+ * (held in memory by the driver) and re-read on every invocation, so the score is the per-row
+ * cost of decoding the columns and building the record. Lives in org.example.dao because the
+ * map methods are package-private.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MappingBenchmark {
+
+    static final int ROWS = 1000;
+
+    @FunctionalInterface
+    interface Mapper {
+        Object map(ResultSet rs) throws SQLException;
+    }
+
+    @Param({"person", "client", "agent", "property", "property_owner", "listing", "preferences", "successful_deals"})
+    public String table;
+
+    private Connection connection;
+    private PreparedStatement statement;
+    private ResultSet rows;
+    private Mapper mapper;
+
+    @Setup
+    public void setUp() throws SQLException, IOException {
+        BenchDatabase.ensureScale(100_000);
+        mapper = switch (table) {
+            case "person" -> PersonDao::map;
+            case "client" -> ClientDao::map;
+            case "agent" -> AgentDao::map;
+            case "property" -> PropertyDao::map;
+            case "property_owner" -> PropertyOwnerDao::map;
+            case "listing" -> ListingDao::map;
+            case "preferences" -> PreferenceDao::map;
+            case "successful_deals" -> SuccessfulDealDao::map;
+            default -> throw new IllegalArgumentException(table);
+        };
+        connection = BenchDatabase.connect();
+        statement = connection.prepareStatement("SELECT * FROM " + table + " LIMIT " + ROWS,
+                ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
+        rows = statement.executeQuery();
+        rows.last();
+        if (rows.getRow() != ROWS) throw new IllegalStateException(table + " has fewer than " + ROWS + " rows");
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        rows.close();
+        statement.close();
+        connection.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void map(Blackhole bh) throws SQLException {
+        rows.beforeFirst();
+        while (rows.next()) bh.consume(mapper.map(rows));
+    }
+}
@@ -0,0 +1,92 @@
+package org.example.importer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * The import's parse and validate stages on one thread, no database: {@value #ROWS} generated
+ * property rows are read from memory with Csv, and in the second method also checked by
+ * RowValidator against an owner id set built with IdSet.of. Scores are rows/s for one parser or
+ * one validator thread; the write stage (COPY) is not included. Lives in org.example.importer
+ * because the stages are package-private.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ImportStagesBenchmark {
+
+    static final int ROWS = 100_000;
+    private static final String[] CITIES = {"Sofia", "Plovdiv", "Varna", "\"Burgas, Port\"", "Ruse"};
+    private static final String[] TYPES = {"garage", "house", "apartment"};
+
+    private String csv;
+    private RowValidator validator;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        StringBuilder sb = new StringBuilder("price,square_meters,latitude,longitude,city,property_type,owner_id,is_sold\n");
+        for (int i = 0; i < ROWS; i++) {
+            sb.append(40_000 + random.nextInt(400_000)).append(".00,")
+                    .append(30 + random.nextInt(270)).append('.').append(random.nextInt(10)).append(',')
+                    .append(41 + random.nextDouble() * 3).append(',')
+                    .append(22 + random.nextDouble() * 6).append(',')
+                    .append(CITIES[random.nextInt(CITIES.length)]).append(',')
+                    .append(TYPES[random.nextInt(TYPES.length)]).append(',');
+            if (random.nextInt(10) > 0) sb.append(1 + random.nextInt(200_000));
+            sb.append(',').append(random.nextBoolean() ? 't' : 'f').append('\n');
+        }
+        csv = sb.toString();
+
+        String[] header = csv.substring(0, csv.indexOf('\n')).split(",");
+        IdSet persons = IdSet.of(LongStream.rangeClosed(1, 200_000).toArray());
+        validator = new RowValidator(ImportTable.PROPERTY, ImportTable.PROPERTY.columnsFor(header),
+                Map.of(ImportTable.Ref.PERSON, persons));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public long parse() throws IOException {
+        Csv in = new Csv(new StringReader(csv));
+        in.next();
+        long fields = 0;
+        for (String[] r; (r = in.next()) != null; ) fields += r.length;
+        return fields;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public int parseAndValidate() throws IOException, SQLException {
+        Csv in = new Csv(new StringReader(csv));
+        in.next();
+        int accepted = 0;
+        long record = 0;
+        for (String[] r; (r = in.next()) != null; ) {
+            Batch.Row row = new Batch.Row(++record, r);
+            validator.check(row);
+            if (!row.rejected()) accepted++;
+        }
+        if (accepted != ROWS) throw new IllegalStateException(ROWS - accepted + " rows rejected");
+        return accepted;
+    }
+}
@@ -0,0 +1,193 @@
+package org.example.analytics;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Column-oriented, read-only snapshot of successful_deals joined with property.
+ *
+ * Every column is a primitive array indexed by row; strings and ids that are only used for
+ * grouping are dictionary-encoded into dense int codes so group-by keys are plain array indexes.
+ * Missing numeric values are stored as NaN.
+ */
+public final class DealColumns {
+
+    public enum Dimension { CITY, PROPERTY_TYPE, AGENT, CLIENT }
+
+    final int size;
+
+    final long[] dealId;
+    final long[] propertyId;
+    final double[] finalPrice;
+    final double[] listPrice;
+    final double[] squareMeters;
+
+    final int[] city;
+    final int[] propertyType;
+    final int[] agent;
+    final int[] client;
+
+    final String[] cityDict;
+    final String[] propertyTypeDict;
+    final long[] agentDict;
+    final long[] clientDict;
+
+    final long loadedAtMillis;
+
+    private DealColumns(Builder b) {
+        size = b.size;
+        dealId = Arrays.copyOf(b.dealId, size);
+        propertyId = Arrays.copyOf(b.propertyId, size);
+        finalPrice = Arrays.copyOf(b.finalPrice, size);
+        listPrice = Arrays.copyOf(b.listPrice, size);
+        squareMeters = Arrays.copyOf(b.squareMeters, size);
+        city = Arrays.copyOf(b.city, size);
+        propertyType = Arrays.copyOf(b.propertyType, size);
+        agent = Arrays.copyOf(b.agent, size);
+        client = Arrays.copyOf(b.client, size);
+        cityDict = b.cities.values();
+        propertyTypeDict = b.types.values();
+        agentDict = b.agents.values();
+        clientDict = b.clients.values();
+        loadedAtMillis = System.currentTimeMillis();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long loadedAtMillis() {
+        return loadedAtMillis;
+    }
+
+    public String[] cities() {
+        return cityDict.clone();
+    }
+
+    public String[] propertyTypes() {
+        return propertyTypeDict.clone();
+    }
+
+    /** Dictionary code of a city, or -1 if no deal has it. */
+    public int cityCode(String name) {
+        return indexOf(cityDict, name);
+    }
+
+    public int propertyTypeCode(String name) {
+        return indexOf(propertyTypeDict, name);
+    }
+
+    int[] codes(Dimension d) {
+        return switch (d) {
+            case CITY -> city;
+            case PROPERTY_TYPE -> propertyType;
+            case AGENT -> agent;
+            case CLIENT -> client;
+        };
+    }
+
+    int cardinality(Dimension d) {
+        return switch (d) {
+            case CITY -> cityDict.length;
+            case PROPERTY_TYPE -> propertyTypeDict.length;
+            case AGENT -> agentDict.length;
+            case CLIENT -> clientDict.length;
+        };
+    }
+
+    String label(Dimension d, int code) {
+        return switch (d) {
+            case CITY -> cityDict[code];
+            case PROPERTY_TYPE -> propertyTypeDict[code];
+            case AGENT -> String.valueOf(agentDict[code]);
+            case CLIENT -> String.valueOf(clientDict[code]);
+        };
+    }
+
+    private static int indexOf(String[] dict, String name) {
+        for (int i = 0; i < dict.length; i++) {
+            if (dict[i].equals(name)) return i;
+        }
+        return -1;
+    }
+
+    /** Appends rows into growable arrays; used by AnalyticsDao while streaming the result set. */
+    public static final class Builder {
+        private int size;
+        private long[] dealId = new long[1024];
+        private long[] propertyId = new long[1024];
+        private double[] finalPrice = new double[1024];
+        private double[] listPrice = new double[1024];
+        private double[] squareMeters = new double[1024];
+        private int[] city = new int[1024];
+        private int[] propertyType = new int[1024];
+        private int[] agent = new int[1024];
+        private int[] client = new int[1024];
+
+        private final StringDict cities = new StringDict();
+        private final StringDict types = new StringDict();
+        private final LongDict agents = new LongDict();
+        private final LongDict clients = new LongDict();
+
+        public void add(long dealId, long propertyId, double finalPrice, double listPrice, double squareMeters,
+                        String city, String propertyType, long agentId, long clientId) {
+            if (size == this.dealId.length) grow();
+            this.dealId[size] = dealId;
+            this.propertyId[size] = propertyId;
+            this.finalPrice[size] = finalPrice;
+            this.listPrice[size] = listPrice;
+            this.squareMeters[size] = squareMeters;
+            this.city[size] = cities.code(city == null ? "" : city);
+            this.propertyType[size] = types.code(propertyType == null ? "" : propertyType);
+            this.agent[size] = agents.code(agentId);
+            this.client[size] = clients.code(clientId);
+            size++;
+        }
+
+        public DealColumns build() {
+            return new DealColumns(this);
+        }
+
+        private void grow() {
+            int n = dealId.length * 2;
+            dealId = Arrays.copyOf(dealId, n);
+            propertyId = Arrays.copyOf(propertyId, n);
+            finalPrice = Arrays.copyOf(finalPrice, n);
+            listPrice = Arrays.copyOf(listPrice, n);
+            squareMeters = Arrays.copyOf(squareMeters, n);
+            city = Arrays.copyOf(city, n);
+            propertyType = Arrays.copyOf(propertyType, n);
+            agent = Arrays.copyOf(agent, n);
+            client = Arrays.copyOf(client, n);
+        }
+    }
+
+    private static final class StringDict {
+        private final Map<String, Integer> codes = new HashMap<>();
+
+        int code(String value) {
+            return codes.computeIfAbsent(value, k -> codes.size());
+        }
+
+        String[] values() {
+            String[] out = new String[codes.size()];
+            codes.forEach((k, v) -> out[v] = k);
+            return out;
+        }
+    }
+
+    private static final class LongDict {
+        private final Map<Long, Integer> codes = new HashMap<>();
+
+        int code(long value) {
+            return codes.computeIfAbsent(value, k -> codes.size());
+        }
+
+        long[] values() {
+            long[] out = new long[codes.size()];
+            codes.forEach((k, v) -> out[v] = k);
+            return out;
+        }
+    }
+}
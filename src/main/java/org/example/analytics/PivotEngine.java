@@ -0,0 +1,282 @@
+package org.example.analytics;
+
+import org.example.analytics.DealColumns.Dimension;
+import org.example.analytics.PivotQuery.Aggregate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Filter + group-by over a {@link DealColumns} snapshot.
+ *
+ * The rows are cut into one slice per worker; each slice is scanned by a tight loop over
+ * primitive arrays into its own accumulators (no sharing, no boxing), and the partial results
+ * are merged at the end. Group keys are dictionary codes, so when the group space is small the
+ * accumulators are flat arrays indexed by rowCode * columnCardinality + columnCode; larger
+ * spaces (e.g. client x agent) fall back to a hash map per slice.
+ */
+public final class PivotEngine {
+
+    private static final int MIN_SLICE = 1 << 15;
+    private static final int MAX_DENSE_CELLS = 1 << 16;
+
+    private PivotEngine() {}
+
+    public static PivotResult run(DealColumns d, PivotQuery q) {
+        long started = System.nanoTime();
+
+        Scan scan = new Scan(d, q);
+        int workers = Runtime.getRuntime().availableProcessors();
+        int slices = Math.max(1, Math.min(workers * 2, (d.size + MIN_SLICE - 1) / MIN_SLICE));
+        int sliceSize = (d.size + slices - 1) / slices;
+
+        Acc total = IntStream.range(0, slices).parallel()
+                .mapToObj(s -> scan.run(s * sliceSize, Math.min(d.size, (s + 1) * sliceSize)))
+                .reduce(Acc::merge)
+                .orElseGet(scan::newAcc);
+
+        return toResult(d, q, scan, total, (System.nanoTime() - started) / 1_000_000.0);
+    }
+
+    /** Everything the inner loop needs, resolved once per query. */
+    private static final class Scan {
+        final int[] rowCodes;
+        final int[] colCodes;       // null when grouping by one dimension
+        final int colCard;
+        final long cells;
+        final boolean dense;
+
+        final double[] numerator;
+        final double[] denominator; // null unless the measure is a ratio
+
+        final int[] city;
+        final int[] type;
+        final int cityFilter;       // -1 = any
+        final int typeFilter;
+        final boolean noMatch;      // a filter names a value that does not occur
+
+        final double[] sqm;
+        final boolean sqmFilter;
+        final double minSqm;
+        final double maxSqm;
+
+        final double[] finalPrice;
+        final boolean priceFilter;
+        final double minPrice;
+        final double maxPrice;
+
+        Scan(DealColumns d, PivotQuery q) {
+            rowCodes = d.codes(q.rows());
+            colCodes = q.columns() == null ? null : d.codes(q.columns());
+            colCard = q.columns() == null ? 1 : Math.max(1, d.cardinality(q.columns()));
+            cells = (long) Math.max(1, d.cardinality(q.rows())) * colCard;
+            dense = cells <= MAX_DENSE_CELLS;
+
+            switch (q.measure()) {
+                case FINAL_PRICE -> { numerator = d.finalPrice; denominator = null; }
+                case LIST_PRICE -> { numerator = d.listPrice; denominator = null; }
+                case SQUARE_METERS -> { numerator = d.squareMeters; denominator = null; }
+                case PRICE_PER_SQM -> { numerator = d.finalPrice; denominator = d.squareMeters; }
+                default -> throw new IllegalArgumentException("Unknown measure: " + q.measure());
+            }
+
+            city = d.city;
+            type = d.propertyType;
+            cityFilter = isBlank(q.cityEquals()) ? -1 : d.cityCode(q.cityEquals().trim());
+            typeFilter = isBlank(q.propertyTypeEquals()) ? -1 : d.propertyTypeCode(q.propertyTypeEquals().trim());
+            noMatch = (!isBlank(q.cityEquals()) && cityFilter < 0)
+                    || (!isBlank(q.propertyTypeEquals()) && typeFilter < 0);
+
+            sqm = d.squareMeters;
+            sqmFilter = q.minSquareMeters() != null || q.maxSquareMeters() != null;
+            minSqm = q.minSquareMeters() == null ? Double.NEGATIVE_INFINITY : q.minSquareMeters();
+            maxSqm = q.maxSquareMeters() == null ? Double.POSITIVE_INFINITY : q.maxSquareMeters();
+
+            finalPrice = d.finalPrice;
+            priceFilter = q.minFinalPrice() != null || q.maxFinalPrice() != null;
+            minPrice = q.minFinalPrice() == null ? Double.NEGATIVE_INFINITY : q.minFinalPrice();
+            maxPrice = q.maxFinalPrice() == null ? Double.POSITIVE_INFINITY : q.maxFinalPrice();
+        }
+
+        Acc newAcc() {
+            return dense ? new DenseAcc((int) cells) : new SparseAcc();
+        }
+
+        Acc run(int from, int to) {
+            Acc acc = newAcc();
+            if (noMatch) return acc;
+            for (int i = from; i < to; i++) {
+                if (cityFilter >= 0 && city[i] != cityFilter) continue;
+                if (typeFilter >= 0 && type[i] != typeFilter) continue;
+                // written as !(in range) so NaN (unknown) never passes an active filter
+                if (sqmFilter && !(sqm[i] >= minSqm && sqm[i] <= maxSqm)) continue;
+                if (priceFilter && !(finalPrice[i] >= minPrice && finalPrice[i] <= maxPrice)) continue;
+
+                double v = denominator == null ? numerator[i] : numerator[i] / denominator[i];
+                long cell = (long) rowCodes[i] * colCard + (colCodes == null ? 0 : colCodes[i]);
+                acc.add(cell, v);
+            }
+            return acc;
+        }
+    }
+
+    /** Per-slice accumulators. NaN / infinite measure values count as matched rows but are left out of sum/min/max. */
+    private interface Acc {
+        void add(long cell, double v);
+
+        Acc merge(Acc other);
+
+        /** cell -> {rows, valueCount, sum, min, max} for every touched cell */
+        Map<Long, double[]> cells();
+    }
+
+    private static final class DenseAcc implements Acc {
+        final long[] rows;
+        final long[] n;
+        final double[] sum;
+        final double[] min;
+        final double[] max;
+
+        DenseAcc(int cells) {
+            rows = new long[cells];
+            n = new long[cells];
+            sum = new double[cells];
+            min = new double[cells];
+            max = new double[cells];
+            Arrays.fill(min, Double.POSITIVE_INFINITY);
+            Arrays.fill(max, Double.NEGATIVE_INFINITY);
+        }
+
+        @Override
+        public void add(long key, double v) {
+            int cell = (int) key;
+            rows[cell]++;
+            if (!Double.isFinite(v)) return;
+            n[cell]++;
+            sum[cell] += v;
+            if (v < min[cell]) min[cell] = v;
+            if (v > max[cell]) max[cell] = v;
+        }
+
+        @Override
+        public Acc merge(Acc other) {
+            DenseAcc o = (DenseAcc) other;
+            for (int c = 0; c < rows.length; c++) {
+                rows[c] += o.rows[c];
+                n[c] += o.n[c];
+                sum[c] += o.sum[c];
+                min[c] = Math.min(min[c], o.min[c]);
+                max[c] = Math.max(max[c], o.max[c]);
+            }
+            return this;
+        }
+
+        @Override
+        public Map<Long, double[]> cells() {
+            Map<Long, double[]> out = new HashMap<>();
+            for (int c = 0; c < rows.length; c++) {
+                if (rows[c] > 0) out.put((long) c, new double[]{rows[c], n[c], sum[c], min[c], max[c]});
+            }
+            return out;
+        }
+    }
+
+    private static final class SparseAcc implements Acc {
+        final Map<Long, double[]> cells = new HashMap<>();
+
+        @Override
+        public void add(long cell, double v) {
+            double[] a = cells.computeIfAbsent(cell, k -> new double[]{0, 0, 0, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY});
+            a[0]++;
+            if (!Double.isFinite(v)) return;
+            a[1]++;
+            a[2] += v;
+            if (v < a[3]) a[3] = v;
+            if (v > a[4]) a[4] = v;
+        }
+
+        @Override
+        public Acc merge(Acc other) {
+            ((SparseAcc) other).cells.forEach((cell, b) -> cells.merge(cell, b, (a, x) -> {
+                a[0] += x[0];
+                a[1] += x[1];
+                a[2] += x[2];
+                a[3] = Math.min(a[3], x[3]);
+                a[4] = Math.max(a[4], x[4]);
+                return a;
+            }));
+            return this;
+        }
+
+        @Override
+        public Map<Long, double[]> cells() {
+            return cells;
+        }
+    }
+
+    private static PivotResult toResult(DealColumns d, PivotQuery q, Scan scan, Acc acc, double elapsedMillis) {
+        Map<Long, double[]> cells = acc.cells();
+
+        // keep only row / column codes that actually occur, ordered by label
+        List<Integer> rowCodes = new ArrayList<>();
+        List<Integer> colCodes = new ArrayList<>();
+        boolean[] seenRow = new boolean[Math.max(1, d.cardinality(q.rows()))];
+        boolean[] seenCol = new boolean[scan.colCard];
+        long matched = 0;
+        for (Map.Entry<Long, double[]> e : cells.entrySet()) {
+            int r = (int) (e.getKey() / scan.colCard);
+            int c = (int) (e.getKey() % scan.colCard);
+            if (!seenRow[r]) { seenRow[r] = true; rowCodes.add(r); }
+            if (!seenCol[c]) { seenCol[c] = true; colCodes.add(c); }
+            matched += (long) e.getValue()[0];
+        }
+        rowCodes.sort(labelOrder(d, q.rows()));
+        if (q.columns() != null) colCodes.sort(labelOrder(d, q.columns()));
+
+        String[] rowLabels = new String[rowCodes.size()];
+        for (int i = 0; i < rowLabels.length; i++) rowLabels[i] = d.label(q.rows(), rowCodes.get(i));
+        String[] colLabels;
+        if (q.columns() == null) {
+            colLabels = new String[]{q.aggregate() + " " + q.measure()};
+            colCodes = List.of(0);
+        } else {
+            colLabels = new String[colCodes.size()];
+            for (int i = 0; i < colLabels.length; i++) colLabels[i] = d.label(q.columns(), colCodes.get(i));
+        }
+
+        double[][] values = new double[rowLabels.length][colLabels.length];
+        for (int r = 0; r < rowLabels.length; r++) {
+            for (int c = 0; c < colLabels.length; c++) {
+                double[] a = cells.get((long) rowCodes.get(r) * scan.colCard + colCodes.get(c));
+                values[r][c] = a == null ? Double.NaN : aggregate(q.aggregate(), a);
+            }
+        }
+        return new PivotResult(rowLabels, colLabels, values, d.size, matched, elapsedMillis);
+    }
+
+    private static double aggregate(Aggregate agg, double[] a) {
+        return switch (agg) {
+            case COUNT -> a[0];
+            case SUM -> a[2];
+            case AVG -> a[1] == 0 ? Double.NaN : a[2] / a[1];
+            case MIN -> a[1] == 0 ? Double.NaN : a[3];
+            case MAX -> a[1] == 0 ? Double.NaN : a[4];
+        };
+    }
+
+    private static Comparator<Integer> labelOrder(DealColumns d, Dimension dim) {
+        if (dim == Dimension.AGENT || dim == Dimension.CLIENT) {
+            return Comparator.comparingLong(code -> Long.parseLong(d.label(dim, code)));
+        }
+        return Comparator.comparing(code -> d.label(dim, code));
+    }
+
+    private static boolean isBlank(String s) {
+        return s == null || s.isBlank();
+    }
+}
@@ -0,0 +1,26 @@
+package org.example.analytics;
+
+import org.example.analytics.DealColumns.Dimension;
+
+/**
+ * An ad-hoc aggregation over {@link DealColumns}: group by one or two dimensions,
+ * aggregate one measure, after applying simple equality / range filters.
+ * Null filter fields mean "no filter".
+ */
+public record PivotQuery(
+        Dimension rows,
+        Dimension columns,          // nullable: single-dimension group-by
+        Measure measure,
+        Aggregate aggregate,
+        String cityEquals,
+        String propertyTypeEquals,
+        Double minSquareMeters,
+        Double maxSquareMeters,
+        Double minFinalPrice,
+        Double maxFinalPrice
+) {
+
+    public enum Measure { FINAL_PRICE, LIST_PRICE, PRICE_PER_SQM, SQUARE_METERS }
+
+    public enum Aggregate { COUNT, SUM, AVG, MIN, MAX }
+}
@@ -0,0 +1,11 @@
+package org.example.analytics;
+
+/** Pivot output: values[row][column], NaN where a cell has no matching deals. */
+public record PivotResult(
+        String[] rowLabels,
+        String[] columnLabels,      // a single "value" column when the query has no column dimension
+        double[][] values,
+        long rowsScanned,
+        long rowsMatched,
+        double elapsedMillis
+) {}
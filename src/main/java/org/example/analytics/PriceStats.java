@@ -0,0 +1,192 @@
+package org.example.analytics;
+
+import org.example.dao.AnalyticsDao;
+import org.example.model.PriceStatsRow;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Streaming price statistics per (city, property type): a t-digest over final_price, one over
+ * final_price / square_meters, and a HyperLogLog of client ids. Medians and p90 are read from the
+ * sketches without sorting anything; coarser groupings (per type, overall) merge the fine ones.
+ *
+ * Built lazily from one streamed pass over the deals. New deals are added as they are written,
+ * from the values the DAO already has. Sketches cannot forget a value, so a deal update or delete,
+ * or a property update that moves deals between groups, marks just the groups involved stale and
+ * the next read rebuilds those from their own deals. Only {@link #invalidate} (an offline sync)
+ * rebuilds everything.
+ */
+public final class PriceStats {
+
+    private static final PriceStats SHARED = new PriceStats(new AnalyticsDao());
+
+    private final AnalyticsDao dao;
+    private final Map<GroupKey, Group> groups = new HashMap<>();
+
+    private boolean loaded;
+    private boolean stale;
+    private final Set<GroupKey> staleGroups = new HashSet<>();
+    /**
+     * Ids of the deals already counted, so a notification for a deal the last load already saw
+     * is ignored. Not a high-water mark: identity values are handed out before commit, so a
+     * deal with a lower id can commit (and be notified) after a higher one was loaded.
+     */
+    private final BitSet counted = new BitSet();
+
+    PriceStats(AnalyticsDao dao) {
+        this.dao = dao;
+    }
+
+    public static PriceStats shared() {
+        return SHARED;
+    }
+
+    public synchronized boolean isLoaded() {
+        return loaded;
+    }
+
+    public synchronized void reload() throws SQLException {
+        DealColumns d = dao.loadDealColumns();
+        groups.clear();
+        counted.clear();
+        staleGroups.clear();
+        add(d, false);
+        loaded = true;
+        stale = false;
+    }
+
+    /** Rebuilds the stale groups from their own deals; the rest stay as they are. */
+    private void reloadStaleGroups() throws SQLException {
+        for (GroupKey k : List.copyOf(staleGroups)) {
+            DealColumns d = dao.loadDealColumns(k.city().isEmpty() ? null : k.city(),
+                    k.propertyType().isEmpty() ? null : k.propertyType());
+            groups.remove(k);
+            add(d, true);
+            staleGroups.remove(k);
+        }
+    }
+
+    /**
+     * Per-group statistics, ordered by city then type.
+     * byCity / byType choose the grouping; a dimension that is not grouped on is merged away.
+     */
+    public synchronized List<PriceStatsRow> rows(boolean byCity, boolean byType) throws SQLException {
+        if (!loaded || stale) reload();
+        else if (!staleGroups.isEmpty()) reloadStaleGroups();
+
+        Map<GroupKey, Group> merged = new HashMap<>();
+        for (Map.Entry<GroupKey, Group> e : groups.entrySet()) {
+            GroupKey k = new GroupKey(byCity ? e.getKey().city() : null, byType ? e.getKey().propertyType() : null);
+            merged.computeIfAbsent(k, x -> new Group()).merge(e.getValue());
+        }
+
+        List<PriceStatsRow> out = new ArrayList<>();
+        merged.forEach((k, g) -> out.add(new PriceStatsRow(
+                k.city(),
+                k.propertyType(),
+                g.deals,
+                g.clients.estimate(),
+                g.price.quantile(0.5),
+                g.price.quantile(0.9),
+                g.pricePerSqm.quantile(0.5),
+                g.pricePerSqm.quantile(0.9)
+        )));
+        out.sort(Comparator.comparing((PriceStatsRow r) -> nvl(r.city())).thenComparing(r -> nvl(r.propertyType())));
+        return out;
+    }
+
+    /**
+     * Called by SuccessfulDealDao after a deal insert has committed, with the values it wrote and
+     * its property's city, type and size. A missing price or size is NaN.
+     */
+    public synchronized void dealInserted(long dealId, String city, String propertyType,
+                                          double finalPrice, double squareMeters, long clientId) {
+        if (!loaded || stale) return;
+        GroupKey k = GroupKey.of(city, propertyType);
+        if (staleGroups.contains(k)) return;            // its rebuild reads the deal
+        if (dealId < 0 || dealId > Integer.MAX_VALUE) {
+            staleGroups.add(k);                         // outside what the id set can hold
+            return;
+        }
+        if (counted.get((int) dealId)) return;
+        counted.set((int) dealId);
+        groups.computeIfAbsent(k, x -> new Group()).add(clientId, finalPrice, squareMeters);
+    }
+
+    /**
+     * The deals of properties in this city and of this type changed: one was updated or deleted,
+     * or a property moved into or out of the group.
+     */
+    public synchronized void groupChanged(String city, String propertyType) {
+        if (loaded && !stale) staleGroups.add(GroupKey.of(city, propertyType));
+    }
+
+    /** Rebuilds everything on the next read, e.g. after an offline sync replayed unknown changes. */
+    public synchronized void invalidate() {
+        if (loaded) stale = true;
+    }
+
+    /** recount: the deals are a rebuilt group's, counted again even if seen before. */
+    private void add(DealColumns d, boolean recount) {
+        // resolve each (city, type) code pair to its group once instead of once per row
+        Group[] byCode = new Group[d.cityDict.length * Math.max(1, d.propertyTypeDict.length)];
+        for (int i = 0; i < d.size; i++) {
+            long id = d.dealId[i];
+            if (id < 0 || id > Integer.MAX_VALUE) {
+                stale = true;
+            } else {
+                if (counted.get((int) id) && !recount) continue;
+                counted.set((int) id);
+            }
+            int slot = d.city[i] * d.propertyTypeDict.length + d.propertyType[i];
+            Group g = byCode[slot];
+            if (g == null) {
+                GroupKey k = new GroupKey(d.cityDict[d.city[i]], d.propertyTypeDict[d.propertyType[i]]);
+                g = groups.computeIfAbsent(k, x -> new Group());
+                byCode[slot] = g;
+            }
+            g.add(d.clientDict[d.client[i]], d.finalPrice[i], d.squareMeters[i]);
+        }
+    }
+
+    private static String nvl(String s) {
+        return s == null ? "" : s;
+    }
+
+    private record GroupKey(String city, String propertyType) {
+        /** As DealColumns codes them: a missing city or type is "". */
+        static GroupKey of(String city, String propertyType) {
+            return new GroupKey(nvl(city), nvl(propertyType));
+        }
+    }
+
+    /** NaN and infinite values (missing price or size) are skipped by the digests themselves. */
+    private static final class Group {
+        long deals;
+        final TDigest price = new TDigest();
+        final TDigest pricePerSqm = new TDigest();
+        final HyperLogLog clients = new HyperLogLog();
+
+        void add(long clientId, double finalPrice, double squareMeters) {
+            deals++;
+            clients.add(clientId);
+            price.add(finalPrice);
+            pricePerSqm.add(finalPrice / squareMeters);
+        }
+
+        void merge(Group other) {
+            deals += other.deals;
+            price.merge(other.price);
+            pricePerSqm.merge(other.pricePerSqm);
+            clients.merge(other.clients);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package org.example.analytics;
+
+import java.util.Arrays;
+
+/**
+ * Merging t-digest (Dunning &amp; Ertl) for streaming quantiles.
+ *
+ * Values are buffered and periodically merged into a sorted list of centroids whose sizes are
+ * bounded by the arcsine scale function, so the tails (p1, p99) stay accurate while the middle is
+ * compressed hard. Memory is O(compression) regardless of how many values were added, and two
+ * digests can be merged, e.g. per-city digests into a country-wide one.
+ */
+public final class TDigest {
+
+    private final double compression;
+
+    private double[] mean;
+    private double[] weight;
+    private int centroids;
+
+    private final double[] bufMean;
+    private final double[] bufWeight;
+    private int buffered;
+
+    private double totalWeight;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public TDigest() {
+        this(100);
+    }
+
+    public TDigest(double compression) {
+        this.compression = compression;
+        int capacity = (int) Math.ceil(compression * Math.PI / 2) + 10;
+        mean = new double[capacity];
+        weight = new double[capacity];
+        bufMean = new double[capacity * 5];
+        bufWeight = new double[capacity * 5];
+    }
+
+    public void add(double x) {
+        add(x, 1);
+    }
+
+    public void add(double x, double w) {
+        if (Double.isNaN(x) || Double.isInfinite(x) || w <= 0) return;
+        if (buffered == bufMean.length) compress();
+        bufMean[buffered] = x;
+        bufWeight[buffered] = w;
+        buffered++;
+        totalWeight += w;
+        if (x < min) min = x;
+        if (x > max) max = x;
+    }
+
+    /** Folds another digest into this one; the other digest is not modified. */
+    public void merge(TDigest other) {
+        other.compress();
+        for (int i = 0; i < other.centroids; i++) {
+            add(other.mean[i], other.weight[i]);
+        }
+        if (other.totalWeight > 0) {
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+        }
+    }
+
+    public long count() {
+        return Math.round(totalWeight);
+    }
+
+    /** Estimated value at quantile q in [0, 1]; NaN when empty. */
+    public double quantile(double q) {
+        compress();
+        if (centroids == 0) return Double.NaN;
+        if (centroids == 1) return mean[0];
+        if (q <= 0) return min;
+        if (q >= 1) return max;
+
+        double index = q * totalWeight;
+
+        // left of the first centroid's center: interpolate from the minimum
+        double firstHalf = weight[0] / 2;
+        if (index < firstHalf) {
+            return min + (mean[0] - min) * (index / firstHalf);
+        }
+
+        double cumulative = firstHalf; // weight up to the center of centroid i
+        for (int i = 0; i < centroids - 1; i++) {
+            double step = (weight[i] + weight[i + 1]) / 2;
+            if (index < cumulative + step) {
+                return mean[i] + (mean[i + 1] - mean[i]) * ((index - cumulative) / step);
+            }
+            cumulative += step;
+        }
+
+        double lastHalf = weight[centroids - 1] / 2;
+        double z = Math.min(1, (index - cumulative) / lastHalf);
+        return mean[centroids - 1] + (max - mean[centroids - 1]) * z;
+    }
+
+    private void compress() {
+        if (buffered == 0) return;
+
+        int n = centroids + buffered;
+        double[] m = new double[n];
+        double[] w = new double[n];
+        System.arraycopy(mean, 0, m, 0, centroids);
+        System.arraycopy(weight, 0, w, 0, centroids);
+        System.arraycopy(bufMean, 0, m, centroids, buffered);
+        System.arraycopy(bufWeight, 0, w, centroids, buffered);
+        buffered = 0;
+
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> Double.compare(m[a], m[b]));
+
+        double[] outMean = new double[Math.max(mean.length, 16)];
+        double[] outWeight = new double[outMean.length];
+        int out = 0;
+
+        double total = 0;
+        for (int i = 0; i < n; i++) total += w[i];
+
+        double curMean = m[order[0]];
+        double curWeight = w[order[0]];
+        double weightSoFar = 0;
+        for (int k = 1; k < n; k++) {
+            int i = order[k];
+            double proposed = curWeight + w[i];
+            double q0 = weightSoFar / total;
+            double q2 = (weightSoFar + proposed) / total;
+            if (scale(q2) - scale(q0) <= 1) {
+                curMean += (m[i] - curMean) * w[i] / proposed;
+                curWeight = proposed;
+            } else {
+                if (out == outMean.length) {
+                    outMean = Arrays.copyOf(outMean, out * 2);
+                    outWeight = Arrays.copyOf(outWeight, out * 2);
+                }
+                outMean[out] = curMean;
+                outWeight[out] = curWeight;
+                out++;
+                weightSoFar += curWeight;
+                curMean = m[i];
+                curWeight = w[i];
+            }
+        }
+        if (out == outMean.length) {
+            outMean = Arrays.copyOf(outMean, out + 1);
+            outWeight = Arrays.copyOf(outWeight, out + 1);
+        }
+        outMean[out] = curMean;
+        outWeight[out] = curWeight;
+        out++;
+
+        mean = outMean;
+        weight = outWeight;
+        centroids = out;
+    }
+
+    /** k1 scale function: centroids near q = 0 and q = 1 stay small. */
+    private double scale(double q) {
+        return compression / (2 * Math.PI) * Math.asin(2 * Math.min(1, Math.max(0, q)) - 1);
+    }
+}
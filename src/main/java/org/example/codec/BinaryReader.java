@@ -0,0 +1,62 @@
+package org.example.codec;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/** Reads what {@link BinaryWriter} wrote, from a ByteBuffer position onwards (heap or mapped). */
+public final class BinaryReader {
+
+    private final ByteBuffer buf;
+
+    public BinaryReader(ByteBuffer buf) {
+        this.buf = buf;
+    }
+
+    public BinaryReader(byte[] bytes) {
+        this(ByteBuffer.wrap(bytes));
+    }
+
+    public int position() {
+        return buf.position();
+    }
+
+    public int readByte() {
+        return buf.get();
+    }
+
+    public long readLongFixed() {
+        return buf.getLong();
+    }
+
+    public double readDouble() {
+        return buf.getDouble();
+    }
+
+    public long readVarLong() {
+        long v = 0;
+        int shift = 0;
+        while (true) {
+            byte b = buf.get();
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return v;
+            shift += 7;
+            if (shift > 63) throw new IllegalStateException("Malformed varint");
+        }
+    }
+
+    public long readSignedVarLong() {
+        long v = readVarLong();
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    public byte[] readByteArray() {
+        int len = Math.toIntExact(readVarLong());
+        byte[] b = new byte[len];
+        buf.get(b);
+        return b;
+    }
+
+    public String readString() {
+        return new String(readByteArray(), StandardCharsets.UTF_8);
+    }
+}
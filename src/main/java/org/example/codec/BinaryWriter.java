@@ -0,0 +1,88 @@
+package org.example.codec;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/** Growable byte array with the primitive encodings used by {@link RecordCodec}. Reusable via {@link #reset()}. */
+public final class BinaryWriter {
+
+    private byte[] buf;
+    private int size;
+
+    public BinaryWriter() {
+        this(256);
+    }
+
+    public BinaryWriter(int initialCapacity) {
+        buf = new byte[initialCapacity];
+    }
+
+    public void reset() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** Backing array; only the first {@link #size()} bytes are valid. */
+    public byte[] array() {
+        return buf;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buf, size);
+    }
+
+    public void writeByte(int v) {
+        ensure(1);
+        buf[size++] = (byte) v;
+    }
+
+    public void writeBytes(byte[] b, int off, int len) {
+        ensure(len);
+        System.arraycopy(b, off, buf, size, len);
+        size += len;
+    }
+
+    public void writeLongFixed(long v) {
+        ensure(8);
+        for (int i = 7; i >= 0; i--) {
+            buf[size++] = (byte) (v >>> (i * 8));
+        }
+    }
+
+    public void writeDouble(double v) {
+        writeLongFixed(Double.doubleToRawLongBits(v));
+    }
+
+    /** Unsigned LEB128. */
+    public void writeVarLong(long v) {
+        ensure(10);
+        while ((v & ~0x7FL) != 0) {
+            buf[size++] = (byte) ((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        buf[size++] = (byte) v;
+    }
+
+    /** Zig-zag then LEB128, so small negative numbers stay small. */
+    public void writeSignedVarLong(long v) {
+        writeVarLong((v << 1) ^ (v >> 63));
+    }
+
+    public void writeByteArray(byte[] b) {
+        writeVarLong(b.length);
+        writeBytes(b, 0, b.length);
+    }
+
+    public void writeString(String s) {
+        writeByteArray(s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void ensure(int extra) {
+        if (size + extra > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(buf.length * 2, size + extra));
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package org.example.codec;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.RecordComponent;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDate;
+
+/**
+ * Compact binary encoding of the model records, driven by their components.
+ *
+ * Components are written in declaration order with no names or type tags: ids and other
+ * longs as zig-zag varints, doubles as 8 bytes, strings and byte[] length-prefixed, BigDecimal as
+ * scale + unscaled bytes, LocalDate as epoch day. Nullable (reference) components get a one-byte
+ * presence flag. Because the layout follows the declaration, adding or reordering components
+ * changes the format; readers of stored data must use the same model version.
+ */
+public final class RecordCodec<R extends Record> {
+
+    private static final ClassValue<RecordCodec<?>> CACHE = new ClassValue<>() {
+        @Override
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        protected RecordCodec<?> computeValue(Class<?> type) {
+            return new RecordCodec(type);
+        }
+    };
+
+    private enum Kind { LONG, INT, DOUBLE, BOOLEAN, BOXED_LONG, BOXED_INT, BOXED_DOUBLE, BOXED_BOOLEAN,
+        STRING, BIG_DECIMAL, LOCAL_DATE, BYTES }
+
+    private final Class<R> type;
+    private final Kind[] kinds;
+    // adapted to (Object)Object and (Object[])Object so calls can use invokeExact
+    private final MethodHandle[] accessors;
+    private final MethodHandle constructor;
+
+    @SuppressWarnings("unchecked")
+    public static <R extends Record> RecordCodec<R> of(Class<R> type) {
+        return (RecordCodec<R>) CACHE.get(type);
+    }
+
+    private RecordCodec(Class<R> type) {
+        if (!type.isRecord()) throw new IllegalArgumentException(type + " is not a record");
+        this.type = type;
+
+        RecordComponent[] components = type.getRecordComponents();
+        kinds = new Kind[components.length];
+        accessors = new MethodHandle[components.length];
+        Class<?>[] params = new Class<?>[components.length];
+        MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        try {
+            for (int i = 0; i < components.length; i++) {
+                Class<?> t = components[i].getType();
+                kinds[i] = kindOf(t, components[i].getName());
+                accessors[i] = lookup.unreflect(components[i].getAccessor())
+                        .asType(MethodType.methodType(Object.class, Object.class));
+                params[i] = t;
+            }
+            constructor = lookup.findConstructor(type, MethodType.methodType(void.class, params))
+                    .asSpreader(Object[].class, params.length)
+                    .asType(MethodType.methodType(Object.class, Object[].class));
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalArgumentException("Cannot access record " + type.getName(), ex);
+        }
+    }
+
+    public Class<R> type() {
+        return type;
+    }
+
+    public byte[] toBytes(R r) {
+        BinaryWriter out = new BinaryWriter();
+        encode(r, out);
+        return out.toByteArray();
+    }
+
+    public R fromBytes(byte[] bytes) {
+        return decode(new BinaryReader(bytes));
+    }
+
+    public void encode(R r, BinaryWriter out) {
+        try {
+            for (int i = 0; i < kinds.length; i++) {
+                write(out, kinds[i], (Object) accessors[i].invokeExact((Object) r));
+            }
+        } catch (RuntimeException | Error ex) {
+            throw ex;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    public R decode(BinaryReader in) {
+        Object[] args = new Object[kinds.length];
+        for (int i = 0; i < kinds.length; i++) {
+            args[i] = read(in, kinds[i]);
+        }
+        try {
+            return type.cast((Object) constructor.invokeExact(args));
+        } catch (RuntimeException | Error ex) {
+            throw ex;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    private static void write(BinaryWriter out, Kind kind, Object v) {
+        switch (kind) {
+            case LONG -> out.writeSignedVarLong((Long) v);
+            case INT -> out.writeSignedVarLong((Integer) v);
+            case DOUBLE -> out.writeDouble((Double) v);
+            case BOOLEAN -> out.writeByte((Boolean) v ? 1 : 0);
+            default -> {
+                if (v == null) {
+                    out.writeByte(0);
+                    return;
+                }
+                out.writeByte(1);
+                switch (kind) {
+                    case BOXED_LONG -> out.writeSignedVarLong((Long) v);
+                    case BOXED_INT -> out.writeSignedVarLong((Integer) v);
+                    case BOXED_DOUBLE -> out.writeDouble((Double) v);
+                    case BOXED_BOOLEAN -> out.writeByte((Boolean) v ? 1 : 0);
+                    case STRING -> out.writeString((String) v);
+                    case BIG_DECIMAL -> {
+                        BigDecimal d = (BigDecimal) v;
+                        out.writeSignedVarLong(d.scale());
+                        out.writeByteArray(d.unscaledValue().toByteArray());
+                    }
+                    case LOCAL_DATE -> out.writeSignedVarLong(((LocalDate) v).toEpochDay());
+                    case BYTES -> out.writeByteArray((byte[]) v);
+                    default -> throw new IllegalStateException(kind.name());
+                }
+            }
+        }
+    }
+
+    private static Object read(BinaryReader in, Kind kind) {
+        return switch (kind) {
+            case LONG -> in.readSignedVarLong();
+            case INT -> (int) in.readSignedVarLong();
+            case DOUBLE -> in.readDouble();
+            case BOOLEAN -> in.readByte() != 0;
+            default -> in.readByte() == 0 ? null : readPresent(in, kind);
+        };
+    }
+
+    private static Object readPresent(BinaryReader in, Kind kind) {
+        return switch (kind) {
+            case BOXED_LONG -> in.readSignedVarLong();
+            case BOXED_INT -> (int) in.readSignedVarLong();
+            case BOXED_DOUBLE -> in.readDouble();
+            case BOXED_BOOLEAN -> in.readByte() != 0;
+            case STRING -> in.readString();
+            case BIG_DECIMAL -> {
+                int scale = (int) in.readSignedVarLong();
+                yield new BigDecimal(new BigInteger(in.readByteArray()), scale);
+            }
+            case LOCAL_DATE -> LocalDate.ofEpochDay(in.readSignedVarLong());
+            case BYTES -> in.readByteArray();
+            default -> throw new IllegalStateException(kind.name());
+        };
+    }
+
+    private static Kind kindOf(Class<?> t, String component) {
+        if (t == long.class) return Kind.LONG;
+        if (t == int.class) return Kind.INT;
+        if (t == double.class) return Kind.DOUBLE;
+        if (t == boolean.class) return Kind.BOOLEAN;
+        if (t == Long.class) return Kind.BOXED_LONG;
+        if (t == Integer.class) return Kind.BOXED_INT;
+        if (t == Double.class) return Kind.BOXED_DOUBLE;
+        if (t == Boolean.class) return Kind.BOXED_BOOLEAN;
+        if (t == String.class) return Kind.STRING;
+        if (t == BigDecimal.class) return Kind.BIG_DECIMAL;
+        if (t == LocalDate.class) return Kind.LOCAL_DATE;
+        if (t == byte[].class) return Kind.BYTES;
+        throw new IllegalArgumentException("Unsupported component type " + t.getName() + " for " + component);
+    }
+}
@@ -1,7 +1,10 @@
 package org.example.dao;
 
 import org.example.db.Db;
+import org.example.journal.ChangeJournal;
+import org.example.journal.ChangeType;
 import org.example.model.Agent;
+import org.example.offline.OfflineEngine;
 
 import java.math.BigDecimal;
 import java.sql.*;
@@ -12,6 +15,7 @@ import java.util.List;
 public class AgentDao {
 
     public List<Agent> findAll() throws SQLException {
+        if (OfflineEngine.shared().isOffline()) return OfflineEngine.shared().findAll(Agent.class);
         String sql = """
             SELECT person_id, salary, hire_date
             FROM agent
@@ -23,18 +27,14 @@ public class AgentDao {
 
             List<Agent> out = new ArrayList<>();
             while (rs.next()) {
-                Date d = rs.getDate("hire_date");
-                out.add(new Agent(
-                        rs.getLong("person_id"),
-                        rs.getBigDecimal("salary"),
-                        d == null ? null : d.toLocalDate()
-                ));
+                out.add(map(rs));
             }
             return out;
         }
     }
 
     public Agent findById(long personId) throws SQLException {
+        if (OfflineEngine.shared().isOffline()) return OfflineEngine.shared().findByKey(Agent.class, personId);
         String sql = """
             SELECT person_id, salary, hire_date
             FROM agent
@@ -46,18 +46,17 @@ public class AgentDao {
             ps.setLong(1, personId);
             try (ResultSet rs = ps.executeQuery()) {
                 if (!rs.next()) return null;
-                Date d = rs.getDate("hire_date");
-                return new Agent(
-                        rs.getLong("person_id"),
-                        rs.getBigDecimal("salary"),
-                        d == null ? null : d.toLocalDate()
-                );
+                return map(rs);
             }
         }
     }
 
     /** Note: person_id must already exist in person table. */
     public void insert(Agent agent) throws SQLException {
+        if (OfflineEngine.shared().isOffline()) {
+            OfflineEngine.shared().insert(agent);
+            return;
+        }
         String sql = """
             INSERT INTO agent (person_id, salary, hire_date)
             VALUES (?, ?, ?)
@@ -70,9 +69,14 @@ public class AgentDao {
             setLocalDateOrNull(ps, 3, agent.hireDate());
             ps.executeUpdate();
         }
+        ChangeJournal.shared().append(ChangeType.INSERT, "agent", agent.personId(), agent);
     }
 
     public void update(Agent agent) throws SQLException {
+        if (OfflineEngine.shared().isOffline()) {
+            OfflineEngine.shared().update(agent);
+            return;
+        }
         String sql = """
             UPDATE agent
             SET salary = ?, hire_date = ?
@@ -86,15 +90,30 @@ public class AgentDao {
             ps.setLong(3, agent.personId());
             ps.executeUpdate();
         }
+        ChangeJournal.shared().append(ChangeType.UPDATE, "agent", agent.personId(), agent);
     }
 
     public void delete(long personId) throws SQLException {
+        if (OfflineEngine.shared().isOffline()) {
+            OfflineEngine.shared().delete(Agent.class, personId);
+            return;
+        }
         String sql = "DELETE FROM agent WHERE person_id = ?";
         try (Connection c = Db.getConnection();
              PreparedStatement ps = c.prepareStatement(sql)) {
             ps.setLong(1, personId);
             ps.executeUpdate();
         }
+        ChangeJournal.shared().append(ChangeType.DELETE, "agent", personId, null);
+    }
+
+    static Agent map(ResultSet rs) throws SQLException {
+        Date d = rs.getDate("hire_date");
+        return new Agent(
+                rs.getLong("person_id"),
+                rs.getBigDecimal("salary"),
+                d == null ? null : d.toLocalDate()
+        );
     }
 
     private static void setBigDecimalOrNull(PreparedStatement ps, int idx, BigDecimal v) throws SQLException {
@@ -0,0 +1,82 @@
+package org.example.dao;
+
+import org.example.analytics.DealColumns;
+import org.example.db.Db;
+
+import java.sql.*;
+
+public class AnalyticsDao {
+
+    private static final int FETCH_SIZE = 10_000;
+
+    private static final String DEAL_COLUMNS_SQL = """
+        SELECT d.deal_id, d.property_id, d.agent_id, d.client_id,
+               d.final_price::float8 AS final_price,
+               p.price::float8 AS list_price,
+               p.square_meters::float8 AS square_meters,
+               p.city, p.property_type
+        FROM successful_deals d
+        INNER JOIN property p ON p.property_id = d.property_id
+    """;
+
+    /**
+     * Streams every deal joined with its property into a columnar snapshot.
+     * Runs with autocommit off so the driver uses a cursor and never holds the whole result in memory.
+     */
+    public DealColumns loadDealColumns() throws SQLException {
+        try (Connection c = Db.getConnection()) {
+            c.setAutoCommit(false);
+            try (PreparedStatement ps = c.prepareStatement(DEAL_COLUMNS_SQL)) {
+                ps.setFetchSize(FETCH_SIZE);
+                try (ResultSet rs = ps.executeQuery()) {
+                    return read(rs);
+                }
+            } finally {
+                c.rollback();
+            }
+        }
+    }
+
+    /**
+     * Same shape as {@link #loadDealColumns()} for the deals of properties in one city and of one
+     * type, read through idx_property_city_type_price; rebuilds one group of the price statistics.
+     * null matches null and empty, which DealColumns does not tell apart either.
+     */
+    public DealColumns loadDealColumns(String city, String propertyType) throws SQLException {
+        String sql = DEAL_COLUMNS_SQL
+                + " WHERE " + (city == null ? "(p.city IS NULL OR p.city = '')" : "p.city = ?")
+                + " AND " + (propertyType == null ? "(p.property_type IS NULL OR p.property_type = '')" : "p.property_type = ?");
+        try (Connection c = Db.getConnection();
+             PreparedStatement ps = c.prepareStatement(sql)) {
+            int i = 1;
+            if (city != null) ps.setString(i++, city);
+            if (propertyType != null) ps.setString(i, propertyType);
+            try (ResultSet rs = ps.executeQuery()) {
+                return read(rs);
+            }
+        }
+    }
+
+    private static DealColumns read(ResultSet rs) throws SQLException {
+        DealColumns.Builder b = new DealColumns.Builder();
+        while (rs.next()) {
+            b.add(
+                    rs.getLong(1),
+                    rs.getLong(2),
+                    doubleOrNaN(rs, 5),
+                    doubleOrNaN(rs, 6),
+                    doubleOrNaN(rs, 7),
+                    rs.getString(8),
+                    rs.getString(9),
+                    rs.getLong(3),
+                    rs.getLong(4)
+            );
+        }
+        return b.build();
+    }
+
+    private static double doubleOrNaN(ResultSet rs, int idx) throws SQLException {
+        double v = rs.getDouble(idx);
+        return rs.wasNull() ? Double.NaN : v;
+    }
+}
@@ -1,7 +1,11 @@
 package org.example.dao;
 
 import org.example.db.Db;
+import org.example.journal.ChangeJournal;
+import org.example.journal.ChangeType;
+import org.example.matching.MatchingEngine;
 import org.example.model.Client;
+import org.example.offline.OfflineEngine;
 
 import java.math.BigDecimal;
 import java.sql.*;
@@ -11,6 +15,7 @@ import java.util.List;
 public class ClientDao {
 
     public List<Client> findAll() throws SQLException {
+        if (OfflineEngine.shared().isOffline()) return OfflineEngine.shared().findAll(Client.class);
         String sql = """
             SELECT person_id, budget, area_interested_in
             FROM client
@@ -22,17 +27,14 @@ public class ClientDao {
 
             List<Client> out = new ArrayList<>();
             while (rs.next()) {
-                out.add(new Client(
-                        rs.getLong("person_id"),
-                        rs.getBigDecimal("budget"),
-                        rs.getString("area_interested_in")
-                ));
+                out.add(map(rs));
             }
             return out;
         }
     }
 
     public Client findById(long personId) throws SQLException {
+        if (OfflineEngine.shared().isOffline()) return OfflineEngine.shared().findByKey(Client.class, personId);
         String sql = """
             SELECT person_id, budget, area_interested_in
             FROM client
@@ -44,17 +46,17 @@ public class ClientDao {
             ps.setLong(1, personId);
             try (ResultSet rs = ps.executeQuery()) {
                 if (!rs.next()) return null;
-                return new Client(
-                        rs.getLong("person_id"),
-                        rs.getBigDecimal("budget"),
-                        rs.getString("area_interested_in")
-                );
+                return map(rs);
             }
         }
     }
 
     /** Note: person_id must already exist in person table. */
     public void insert(Client client) throws SQLException {
+        if (OfflineEngine.shared().isOffline()) {
+            OfflineEngine.shared().insert(client);
+            return;
+        }
         String sql = """
             INSERT INTO client (person_id, budget, area_interested_in)
             VALUES (?, ?, ?)
@@ -67,9 +69,15 @@ public class ClientDao {
             ps.setString(3, client.areaInterestedIn());
             ps.executeUpdate();
         }
+        ChangeJournal.shared().append(ChangeType.INSERT, "client", client.personId(), client);
+        MatchingEngine.shared().clientChanged(client.personId());
     }
 
     public void update(Client client) throws SQLException {
+        if (OfflineEngine.shared().isOffline()) {
+            OfflineEngine.shared().update(client);
+            return;
+        }
         String sql = """
             UPDATE client
             SET budget = ?, area_interested_in = ?
@@ -83,15 +91,31 @@ public class ClientDao {
             ps.setLong(3, client.personId());
             ps.executeUpdate();
         }
+        ChangeJournal.shared().append(ChangeType.UPDATE, "client", client.personId(), client);
+        MatchingEngine.shared().clientChanged(client.personId());
     }
 
     public void delete(long personId) throws SQLException {
+        if (OfflineEngine.shared().isOffline()) {
+            OfflineEngine.shared().delete(Client.class, personId);
+            return;
+        }
         String sql = "DELETE FROM client WHERE person_id = ?";
         try (Connection c = Db.getConnection();
              PreparedStatement ps = c.prepareStatement(sql)) {
             ps.setLong(1, personId);
             ps.executeUpdate();
         }
+        ChangeJournal.shared().append(ChangeType.DELETE, "client", personId, null);
+        MatchingEngine.shared().clientChanged(personId);
+    }
+
+    static Client map(ResultSet rs) throws SQLException {
+        return new Client(
+                rs.getLong("person_id"),
+                rs.getBigDecimal("budget"),
+                rs.getString("area_interested_in")
+        );
     }
 
     private static void setBigDecimalOrNull(PreparedStatement ps, int idx, BigDecimal v) throws SQLException {
@@ -1,15 +1,22 @@
 package org.example.dao;
 
 import org.example.db.Db;
+import org.example.journal.ChangeJournal;
+import org.example.journal.ChangeType;
 import org.example.model.Listing;
+import org.example.model.ListingSearchHit;
+import org.example.model.ListingSearchPage;
+import org.example.offline.OfflineEngine;
 
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 
 public class ListingDao {
 
     public List<Listing> findAll() throws SQLException {
+        if (OfflineEngine.shared().isOffline()) return OfflineEngine.shared().findAll(Listing.class);
         String sql = """
             SELECT listing_id, type_of_listing, description, notes
             FROM listing
@@ -22,18 +29,14 @@ public class ListingDao {
 
             List<Listing> out = new ArrayList<>();
             while (rs.next()) {
-                out.add(new Listing(
-                        rs.getLong("listing_id"),
-                        rs.getString("type_of_listing"),
-                        rs.getString("description"),
-                        rs.getString("notes")
-                ));
+                out.add(map(rs));
             }
             return out;
         }
     }
 
     public long insert(Listing l) throws SQLException {
+        if (OfflineEngine.shared().isOffline()) return OfflineEngine.shared().insert(l);
         String sql = """
             INSERT INTO listing (type_of_listing, description, notes)
             VALUES (?, ?, ?)
@@ -47,14 +50,22 @@ public class ListingDao {
             ps.setString(2, l.description());
             ps.setString(3, l.notes());
 
+            long id;
             try (ResultSet rs = ps.executeQuery()) {
                 rs.next();
-                return rs.getLong(1);
+                id = rs.getLong(1);
             }
+            ChangeJournal.shared().append(ChangeType.INSERT, "listing", id,
+                    new Listing(id, l.typeOfListing(), l.description(), l.notes()));
+            return id;
         }
     }
 
     public void update(Listing l) throws SQLException {
+        if (OfflineEngine.shared().isOffline()) {
+            OfflineEngine.shared().update(l);
+            return;
+        }
         String sql = """
             UPDATE listing
             SET type_of_listing = ?, description = ?, notes = ?
@@ -71,15 +82,94 @@ public class ListingDao {
 
             ps.executeUpdate();
         }
+        ChangeJournal.shared().append(ChangeType.UPDATE, "listing", l.listingId(), l);
     }
 
     public void delete(long listingId) throws SQLException {
+        if (OfflineEngine.shared().isOffline()) {
+            OfflineEngine.shared().delete(Listing.class, listingId);
+            return;
+        }
         String sql = "DELETE FROM listing WHERE listing_id = ?";
         try (Connection c = Db.getConnection();
              PreparedStatement ps = c.prepareStatement(sql)) {
             ps.setLong(1, listingId);
             ps.executeUpdate();
         }
+        ChangeJournal.shared().append(ChangeType.DELETE, "listing", listingId, null);
     }
-}
 
+    /**
+     * Ranked full-text search over type, description and notes (GIN index on search_vector).
+     * Every word is matched as a prefix, so "apart par" finds "Two-room apartment near park".
+     */
+    public ListingSearchPage search(String text, int offset, int pageSize) throws SQLException {
+        long started = System.nanoTime();
+        String tsQuery = toPrefixQuery(text);
+        if (tsQuery.isEmpty()) {
+            return new ListingSearchPage(text, offset, pageSize, List.of(), false, 0);
+        }
+
+        String sql = """
+            WITH q AS (SELECT to_tsquery('simple', ?) AS query),
+            hits AS (
+                SELECT l.listing_id, l.type_of_listing, l.description, l.notes,
+                       ts_rank_cd(l.search_vector, q.query) AS rank
+                FROM listing l, q
+                WHERE l.search_vector @@ q.query
+                ORDER BY rank DESC, l.listing_id
+                LIMIT ? OFFSET ?
+            )
+            SELECT h.listing_id, h.type_of_listing, h.description, h.notes, h.rank,
+                   ts_headline('simple', concat_ws(' | ', h.description, h.notes), q.query,
+                               'StartSel=[, StopSel=], MaxWords=20, MinWords=5, MaxFragments=2') AS snippet
+            FROM hits h, q
+            ORDER BY h.rank DESC, h.listing_id
+        """;
+
+        try (Connection c = Db.getConnection();
+             PreparedStatement ps = c.prepareStatement(sql)) {
+
+            ps.setString(1, tsQuery);
+            ps.setInt(2, pageSize + 1); // one extra row tells us whether a next page exists
+            ps.setInt(3, offset);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                List<ListingSearchHit> hits = new ArrayList<>();
+                while (rs.next()) {
+                    hits.add(new ListingSearchHit(
+                            map(rs),
+                            rs.getDouble("rank"),
+                            rs.getString("snippet")
+                    ));
+                }
+                boolean hasMore = hits.size() > pageSize;
+                if (hasMore) hits.remove(hits.size() - 1);
+
+                double elapsedMillis = (System.nanoTime() - started) / 1_000_000.0;
+                return new ListingSearchPage(text, offset, pageSize, hits, hasMore, elapsedMillis);
+            }
+        }
+    }
+
+    /** "Open house sat" -> "open:* & house:* & sat:*". Only letters and digits survive, so the result is always valid tsquery syntax. */
+    static Listing map(ResultSet rs) throws SQLException {
+        return new Listing(
+                rs.getLong("listing_id"),
+                rs.getString("type_of_listing"),
+                rs.getString("description"),
+                rs.getString("notes")
+        );
+    }
+
+    private static String toPrefixQuery(String text) {
+        if (text == null) return "";
+        StringBuilder sb = new StringBuilder();
+        for (String term : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (term.isEmpty()) continue;
+            if (sb.length() > 0) sb.append(" & ");
+            sb.append(term).append(":*");
+        }
+        return sb.toString();
+    }
+}
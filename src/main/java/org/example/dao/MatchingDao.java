@@ -0,0 +1,122 @@
+package org.example.dao;
+
+import org.example.db.Db;
+import org.example.model.ClientProfile;
+import org.example.model.PropertyProfile;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/** Read-side queries that feed the preference matching engine. */
+public class MatchingDao {
+
+    private static final String PROPERTY_PROFILE_SQL = """
+        SELECT p.property_id, p.price, p.city, p.property_type, p.is_sold,
+               a.floor,
+               COALESCE(a.number_of_rooms, h.number_of_rooms) AS number_of_rooms,
+               COALESCE(a.number_of_bathrooms, h.number_of_bathrooms) AS number_of_bathrooms,
+               h.number_of_floors,
+               h.garden_size_m2
+        FROM property p
+        LEFT JOIN apartment a ON a.property_id = p.property_id
+        LEFT JOIN house h ON h.property_id = p.property_id
+    """;
+
+    private static final String CLIENT_PROFILE_SQL = """
+        SELECT c.person_id, c.budget, c.area_interested_in, pr.preference_type
+        FROM client c
+        LEFT JOIN preferences pr ON pr.client_id = c.person_id
+    """;
+
+    public List<PropertyProfile> findPropertyProfiles() throws SQLException {
+        String sql = PROPERTY_PROFILE_SQL + " ORDER BY p.property_id";
+        try (Connection c = Db.getConnection();
+             PreparedStatement ps = c.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+
+            List<PropertyProfile> out = new ArrayList<>();
+            while (rs.next()) {
+                out.add(mapProperty(rs));
+            }
+            return out;
+        }
+    }
+
+    /** The profiles of these properties, in one query; ids with no property are left out. */
+    public List<PropertyProfile> findPropertyProfiles(Collection<Long> propertyIds) throws SQLException {
+        String sql = PROPERTY_PROFILE_SQL + " WHERE p.property_id = ANY(?) ORDER BY p.property_id";
+        try (Connection c = Db.getConnection();
+             PreparedStatement ps = c.prepareStatement(sql)) {
+            Array ids = c.createArrayOf("bigint", propertyIds.toArray());
+            ps.setArray(1, ids);
+            try (ResultSet rs = ps.executeQuery()) {
+                List<PropertyProfile> out = new ArrayList<>();
+                while (rs.next()) {
+                    out.add(mapProperty(rs));
+                }
+                return out;
+            } finally {
+                ids.free();
+            }
+        }
+    }
+
+    public List<ClientProfile> findClientProfiles() throws SQLException {
+        String sql = CLIENT_PROFILE_SQL + " ORDER BY c.person_id, pr.preference_id";
+        try (Connection c = Db.getConnection();
+             PreparedStatement ps = c.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            return mapClients(rs);
+        }
+    }
+
+    /** The profiles of these clients, in one query; ids with no client are left out. */
+    public List<ClientProfile> findClientProfiles(Collection<Long> clientIds) throws SQLException {
+        String sql = CLIENT_PROFILE_SQL + " WHERE c.person_id = ANY(?) ORDER BY c.person_id, pr.preference_id";
+        try (Connection c = Db.getConnection();
+             PreparedStatement ps = c.prepareStatement(sql)) {
+            Array ids = c.createArrayOf("bigint", clientIds.toArray());
+            ps.setArray(1, ids);
+            try (ResultSet rs = ps.executeQuery()) {
+                return mapClients(rs);
+            } finally {
+                ids.free();
+            }
+        }
+    }
+
+    private static PropertyProfile mapProperty(ResultSet rs) throws SQLException {
+        return new PropertyProfile(
+                rs.getLong("property_id"),
+                rs.getBigDecimal("price"),
+                rs.getString("city"),
+                rs.getString("property_type"),
+                rs.getBoolean("is_sold"),
+                rs.getBigDecimal("floor"),
+                rs.getBigDecimal("number_of_rooms"),
+                rs.getBigDecimal("number_of_bathrooms"),
+                rs.getBigDecimal("number_of_floors"),
+                rs.getBigDecimal("garden_size_m2")
+        );
+    }
+
+    /** Folds the one-row-per-preference join back into one profile per client (rows are ordered by client). */
+    private static List<ClientProfile> mapClients(ResultSet rs) throws SQLException {
+        Map<Long, ClientProfile> byId = new LinkedHashMap<>();
+        while (rs.next()) {
+            long id = rs.getLong("person_id");
+            ClientProfile cp = byId.get(id);
+            if (cp == null) {
+                cp = new ClientProfile(id, rs.getBigDecimal("budget"), rs.getString("area_interested_in"), new ArrayList<>());
+                byId.put(id, cp);
+            }
+            String pref = rs.getString("preference_type");
+            if (pref != null) cp.preferenceTypes().add(pref);
+        }
+        return new ArrayList<>(byId.values());
+    }
+}
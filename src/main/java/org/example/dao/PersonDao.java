@@ -1,15 +1,26 @@
 package org.example.dao;
 
 import org.example.db.Db;
+import org.example.journal.ChangeJournal;
+import org.example.journal.ChangeType;
+import org.example.metrics.CacheEvent;
 import org.example.model.Person;
+import org.example.offline.OfflineEngine;
+import org.example.search.PersonSearchIndex;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
 
 public class PersonDao {
 
+    private static final int SCAN_FETCH_SIZE = 10_000;
+
     public List<Person> findAll() throws SQLException {
+        if (OfflineEngine.shared().isOffline()) return OfflineEngine.shared().findAll(Person.class);
         String sql = "SELECT person_id, first_name, last_name, email, phone_number FROM person ORDER BY person_id";
         try (Connection c = Db.getConnection();
              PreparedStatement ps = c.prepareStatement(sql);
@@ -17,19 +28,79 @@ public class PersonDao {
 
             List<Person> out = new ArrayList<>();
             while (rs.next()) {
-                out.add(new Person(
-                        rs.getLong("person_id"),
-                        rs.getString("first_name"),
-                        rs.getString("last_name"),
-                        rs.getString("email"),
-                        rs.getString("phone_number")
-                ));
+                out.add(map(rs));
             }
             return out;
         }
     }
 
+    /**
+     * Streams every person to sink in person_id order without holding the table in memory
+     * (autocommit off, so the driver reads through a cursor). Feeds the search index of a
+     * table too large to load whole.
+     */
+    public void scanAll(Consumer<Person> sink) throws SQLException {
+        String sql = "SELECT person_id, first_name, last_name, email, phone_number FROM person ORDER BY person_id";
+        try (Connection c = Db.getConnection()) {
+            c.setAutoCommit(false);
+            try (PreparedStatement ps = c.prepareStatement(sql)) {
+                ps.setFetchSize(SCAN_FETCH_SIZE);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        sink.accept(map(rs));
+                    }
+                }
+            } finally {
+                c.rollback();
+            }
+        }
+    }
+
+    /**
+     * Up to limit persons with person_id above afterId, in person_id order, after skipping the first skip
+     * of them. Keyset paging: pass the last id of the previous page and skip 0; skip only bridges
+     * pages the caller has not loaded.
+     */
+    public List<Person> findPage(long afterId, int skip, int limit) throws SQLException {
+        if (OfflineEngine.shared().isOffline()) {
+            return OfflineEngine.shared().findAll(Person.class).stream()
+                    .filter(r -> r.personId() > afterId)
+                    .sorted(Comparator.comparingLong(Person::personId))
+                    .skip(skip)
+                    .limit(limit)
+                    .toList();
+        }
+        String sql = """
+            SELECT person_id, first_name, last_name, email, phone_number
+            FROM person
+            WHERE person_id > ?
+            ORDER BY person_id
+            OFFSET ? LIMIT ?
+        """;
+        try (Connection c = Db.getConnection();
+             PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setLong(1, afterId);
+            ps.setInt(2, skip);
+            ps.setInt(3, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                List<Person> out = new ArrayList<>(limit);
+                while (rs.next()) {
+                    out.add(map(rs));
+                }
+                OfflineEngine.shared().remember(Person.class, out);
+                return out;
+            }
+        }
+    }
+
+    /** Row count from the planner statistics, good enough to size a scrollbar. */
+    public long estimateCount() throws SQLException {
+        if (OfflineEngine.shared().isOffline()) return OfflineEngine.shared().findAll(Person.class).size();
+        return Db.estimateRowCount("person");
+    }
+
     public long insert(Person p) throws SQLException {
+        if (OfflineEngine.shared().isOffline()) return OfflineEngine.shared().insert(p);
         String sql = """
             INSERT INTO person (first_name, last_name, email, phone_number)
             VALUES (?, ?, ?, ?)
@@ -45,12 +116,20 @@ public class PersonDao {
 
             try (ResultSet rs = ps.executeQuery()) {
                 rs.next();
-                return rs.getLong(1);
+                long id = rs.getLong(1);
+                Person saved = new Person(id, p.firstName(), p.lastName(), p.email(), p.phoneNumber());
+                ChangeJournal.shared().append(ChangeType.INSERT, "person", id, saved);
+                PersonSearchIndex.shared().put(saved);
+                return id;
             }
         }
     }
 
     public void update(Person p) throws SQLException {
+        if (OfflineEngine.shared().isOffline()) {
+            OfflineEngine.shared().update(p);
+            return;
+        }
         String sql = """
             UPDATE person
             SET first_name=?, last_name=?, email=?, phone_number=?
@@ -66,15 +145,99 @@ public class PersonDao {
             ps.setLong(5, p.personId());
             ps.executeUpdate();
         }
+        ChangeJournal.shared().append(ChangeType.UPDATE, "person", p.personId(), p);
+        PersonSearchIndex.shared().put(p);
     }
 
     public void delete(long personId) throws SQLException {
+        if (OfflineEngine.shared().isOffline()) {
+            OfflineEngine.shared().delete(Person.class, personId);
+            return;
+        }
         String sql = "DELETE FROM person WHERE person_id=?";
         try (Connection c = Db.getConnection();
              PreparedStatement ps = c.prepareStatement(sql)) {
             ps.setLong(1, personId);
             ps.executeUpdate();
         }
+        ChangeJournal.shared().append(ChangeType.DELETE, "person", personId, null);
+        PersonSearchIndex.shared().remove(personId);
+    }
+
+    /**
+     * Typeahead search over name, email and phone. Served from the in-memory index once it is
+     * loaded, otherwise from the pg_trgm index on person. Either way every term must match: terms of
+     * 3+ characters anywhere, shorter ones at the start of a word.
+     */
+    public List<Person> search(String query, int limit) throws SQLException {
+        PersonSearchIndex index = PersonSearchIndex.shared();
+        CacheEvent.record("person-search-index", null, index.isLoaded());    // typed text may be personal data
+        if (index.isLoaded()) {
+            List<Person> hits = index.search(query, limit);
+            OfflineEngine.shared().remember(Person.class, hits);
+            return hits;
+        }
+
+        List<String> terms = new ArrayList<>();
+        for (String t : (query == null ? "" : query).toLowerCase(Locale.ROOT).trim().split("\\s+")) {
+            if (!t.isEmpty()) terms.add(t);
+        }
+        if (terms.isEmpty()) return List.of();
+
+        StringBuilder sql = new StringBuilder("""
+            SELECT person_id, first_name, last_name, email, phone_number
+            FROM person
+            WHERE true
+        """);
+        for (String t : terms) {
+            sql.append("""
+                  AND lower(coalesce(first_name, '') || ' ' || coalesce(last_name, '') || ' ' ||
+                            coalesce(email, '') || ' ' || coalesce(phone_number, ''))
+            """).append(t.length() < 3 ? " ~ ?\n" : " LIKE ?\n");
+        }
+        sql.append("ORDER BY person_id LIMIT ?");
+
+        try (Connection c = Db.getConnection();
+             PreparedStatement ps = c.prepareStatement(sql.toString())) {
+            int idx = 1;
+            for (String t : terms) {
+                ps.setString(idx++, t.length() < 3 ? wordPrefix(t) : "%" + escapeLike(t) + "%");
+            }
+            ps.setInt(idx, limit);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                List<Person> out = new ArrayList<>();
+                while (rs.next()) {
+                    out.add(map(rs));
+                }
+                OfflineEngine.shared().remember(Person.class, out);
+                return out;
+            }
+        }
+    }
+
+    static Person map(ResultSet rs) throws SQLException {
+        return new Person(
+                rs.getLong("person_id"),
+                rs.getString("first_name"),
+                rs.getString("last_name"),
+                rs.getString("email"),
+                rs.getString("phone_number")
+        );
+    }
+
+    private static String escapeLike(String s) {
+        return s.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    /** A regex for a term at the start of a word, as the search index matches 1- and 2-character terms. */
+    private static String wordPrefix(String term) {
+        StringBuilder sb = new StringBuilder("(^|[^[:alnum:]])");
+        for (char ch : term.toCharArray()) {
+            if (!Character.isLetterOrDigit(ch)) sb.append('\\');
+            sb.append(ch);
+        }
+        return sb.toString();
     }
 
     public String getDeleteBlockers(long personId) throws SQLException {
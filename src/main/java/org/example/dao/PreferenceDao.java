@@ -1,7 +1,11 @@
 package org.example.dao;
 
 import org.example.db.Db;
+import org.example.journal.ChangeJournal;
+import org.example.journal.ChangeType;
+import org.example.matching.MatchingEngine;
 import org.example.model.Preference;
+import org.example.offline.OfflineEngine;
 
 import java.sql.*;
 import java.util.ArrayList;
@@ -10,6 +14,7 @@ import java.util.List;
 public class PreferenceDao {
 
     public List<Preference> findAll() throws SQLException {
+        if (OfflineEngine.shared().isOffline()) return OfflineEngine.shared().findAll(Preference.class);
         String sql = """
             SELECT preference_id, client_id, preference_type
             FROM preferences
@@ -22,17 +27,14 @@ public class PreferenceDao {
 
             List<Preference> out = new ArrayList<>();
             while (rs.next()) {
-                out.add(new Preference(
-                        rs.getLong("preference_id"),
-                        rs.getLong("client_id"),
-                        rs.getString("preference_type")
-                ));
+                out.add(map(rs));
             }
             return out;
         }
     }
 
     public long insert(Preference p) throws SQLException {
+        if (OfflineEngine.shared().isOffline()) return OfflineEngine.shared().insert(p);
         String sql = """
             INSERT INTO preferences (client_id, preference_type)
             VALUES (?, ?)
@@ -45,38 +47,81 @@ public class PreferenceDao {
             ps.setLong(1, p.clientId());
             ps.setString(2, p.preferenceType());
 
+            long id;
             try (ResultSet rs = ps.executeQuery()) {
                 rs.next();
-                return rs.getLong(1);
+                id = rs.getLong(1);
             }
+            ChangeJournal.shared().append(ChangeType.INSERT, "preferences", id,
+                    new Preference(id, p.clientId(), p.preferenceType()));
+            MatchingEngine.shared().clientChanged(p.clientId());
+            return id;
         }
     }
 
     public void update(Preference p) throws SQLException {
+        if (OfflineEngine.shared().isOffline()) {
+            OfflineEngine.shared().update(p);
+            return;
+        }
         String sql = """
             UPDATE preferences
             SET client_id = ?, preference_type = ?
             WHERE preference_id = ?
         """;
 
+        Long oldClientId;
         try (Connection c = Db.getConnection();
              PreparedStatement ps = c.prepareStatement(sql)) {
 
+            oldClientId = findClientId(c, p.preferenceId());
+
             ps.setLong(1, p.clientId());
             ps.setString(2, p.preferenceType());
             ps.setLong(3, p.preferenceId());
 
             ps.executeUpdate();
         }
+        ChangeJournal.shared().append(ChangeType.UPDATE, "preferences", p.preferenceId(), p);
+        if (oldClientId != null && oldClientId != p.clientId()) {
+            MatchingEngine.shared().clientChanged(oldClientId);
+        }
+        MatchingEngine.shared().clientChanged(p.clientId());
     }
 
     public void delete(long preferenceId) throws SQLException {
-        String sql = "DELETE FROM preferences WHERE preference_id = ?";
+        if (OfflineEngine.shared().isOffline()) {
+            OfflineEngine.shared().delete(Preference.class, preferenceId);
+            return;
+        }
+        String sql = "DELETE FROM preferences WHERE preference_id = ? RETURNING client_id";
+        Long clientId = null;
         try (Connection c = Db.getConnection();
              PreparedStatement ps = c.prepareStatement(sql)) {
             ps.setLong(1, preferenceId);
-            ps.executeUpdate();
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) clientId = rs.getLong(1);
+            }
         }
+        ChangeJournal.shared().append(ChangeType.DELETE, "preferences", preferenceId, null);
+        if (clientId != null) MatchingEngine.shared().clientChanged(clientId);
     }
-}
 
+    static Preference map(ResultSet rs) throws SQLException {
+        return new Preference(
+                rs.getLong("preference_id"),
+                rs.getLong("client_id"),
+                rs.getString("preference_type")
+        );
+    }
+
+    private static Long findClientId(Connection c, long preferenceId) throws SQLException {
+        String sql = "SELECT client_id FROM preferences WHERE preference_id = ?";
+        try (PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setLong(1, preferenceId);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : null;
+            }
+        }
+    }
+}
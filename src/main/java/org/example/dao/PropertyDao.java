@@ -1,16 +1,42 @@
 package org.example.dao;
 
+import org.example.analytics.PriceStats;
+import org.example.db.ColumnModel;
+import org.example.db.ColumnModel.Kind;
 import org.example.db.Db;
+import org.example.db.RowQuery;
+import org.example.journal.ChangeJournal;
+import org.example.journal.ChangeType;
+import org.example.matching.MatchingEngine;
 import org.example.model.Property;
+import org.example.offline.OfflineEngine;
 
 import java.math.BigDecimal;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Objects;
 
 public class PropertyDao {
 
+    /** What the Properties tab may filter and sort on. */
+    public static final ColumnModel<Property> COLUMNS = new ColumnModel<Property>(
+            "property",
+            "property_id, price, square_meters, latitude, longitude, city, property_type, owner_id",
+            "property_id", Property::propertyId)
+            .add("id", "property_id", Kind.INTEGER, false, Property::propertyId)
+            .add("type", "property_type", Kind.TEXT, true, Property::propertyType)
+            .add("price", "price", Kind.DECIMAL, true, Property::price)
+            .add("sqm", "square_meters", Kind.DECIMAL, true, Property::squareMeters)
+            .add("city", "city", Kind.TEXT, true, Property::city)
+            .add("owner", "owner_id", Kind.INTEGER, true, Property::ownerId);
+
+    private static final double EARTH_RADIUS_KM = 6371.0088;
+
     public List<Property> findAll() throws SQLException {
+        if (OfflineEngine.shared().isOffline()) return OfflineEngine.shared().findAll(Property.class);
         String sql = """
             SELECT property_id, price, square_meters, latitude, longitude, city,
                    property_type, owner_id
@@ -29,7 +55,38 @@ public class PropertyDao {
         }
     }
 
+    /** All properties matching the query, in its order. */
+    public List<Property> findAll(RowQuery query) throws SQLException {
+        if (OfflineEngine.shared().isOffline()) {
+            return COLUMNS.findAll(OfflineEngine.shared().findAll(Property.class), query);
+        }
+        return COLUMNS.findAll(query, PropertyDao::map);
+    }
+
+    /**
+     * Up to limit properties matching the query that come after the row after (from the start when it is
+     * null), in the query's order, after skipping the first skip of them. Keyset paging: pass the last row of
+     * the previous page and skip 0; skip only bridges pages the caller has not loaded.
+     */
+    public List<Property> findPage(RowQuery query, Property after, int skip, int limit) throws SQLException {
+        if (OfflineEngine.shared().isOffline()) {
+            return COLUMNS.findPage(OfflineEngine.shared().findAll(Property.class), query, after, skip, limit);
+        }
+        List<Property> page = COLUMNS.findPage(query, after, skip, limit, PropertyDao::map);
+        OfflineEngine.shared().remember(Property.class, page);
+        return page;
+    }
+
+    /** Matching row count, estimated by the planner; good enough to size a scrollbar. */
+    public long estimateCount(RowQuery query) throws SQLException {
+        if (OfflineEngine.shared().isOffline()) {
+            return COLUMNS.findAll(OfflineEngine.shared().findAll(Property.class), query).size();
+        }
+        return COLUMNS.estimateCount(query);
+    }
+
     public Property findById(long propertyId) throws SQLException {
+        if (OfflineEngine.shared().isOffline()) return OfflineEngine.shared().findByKey(Property.class, propertyId);
         String sql = """
             SELECT property_id, price, square_meters, latitude, longitude, city,
                    property_type, owner_id
@@ -41,12 +98,15 @@ public class PropertyDao {
             ps.setLong(1, propertyId);
             try (ResultSet rs = ps.executeQuery()) {
                 if (!rs.next()) return null;
-                return map(rs);
+                Property found = map(rs);
+                OfflineEngine.shared().remember(Property.class, List.of(found));
+                return found;
             }
         }
     }
 
     public long insert(Property p) throws SQLException {
+        if (OfflineEngine.shared().isOffline()) return OfflineEngine.shared().insert(p);
         String sql = """
             INSERT INTO property (
                 price, square_meters, latitude, longitude, city, property_type, owner_id
@@ -59,70 +119,279 @@ public class PropertyDao {
 
             setBigDecimalOrNull(ps, 1, p.price());
             setBigDecimalOrNull(ps, 2, p.squareMeters());
-            ps.setString(3, p.latitude());
-            ps.setString(4, p.longitude());
+            setDoubleOrNull(ps, 3, p.latitude());
+            setDoubleOrNull(ps, 4, p.longitude());
             ps.setString(5, p.city());
             ps.setString(6, p.propertyType());
             setLongOrNull(ps, 7, p.ownerId());
 
+            long id;
             try (ResultSet rs = ps.executeQuery()) {
                 rs.next();
-                return rs.getLong(1);
+                id = rs.getLong(1);
             }
+            ChangeJournal.shared().append(ChangeType.INSERT, "property", id, new Property(
+                    id, p.price(), p.squareMeters(), p.latitude(), p.longitude(),
+                    p.city(), p.propertyType(), p.ownerId()));
+            MatchingEngine.shared().propertyChanged(id);
+            return id;
         }
     }
 
     public void update(Property p) throws SQLException {
+        if (OfflineEngine.shared().isOffline()) {
+            OfflineEngine.shared().update(p);
+            return;
+        }
+        // the subselect locks the row and hands back its old city, type and size
         String sql = """
-            UPDATE property
+            UPDATE property p
             SET price=?, square_meters=?, latitude=?, longitude=?, city=?,
                 property_type=?, owner_id=?
-            WHERE property_id=?
+            FROM (
+                SELECT property_id, city, property_type, square_meters
+                FROM property
+                WHERE property_id=?
+                FOR UPDATE
+            ) old
+            WHERE p.property_id = old.property_id
+            RETURNING old.city, old.property_type, old.square_meters
         """;
+        String oldCity = null;
+        String oldType = null;
+        BigDecimal oldSquareMeters = null;
+        boolean found;
         try (Connection c = Db.getConnection();
              PreparedStatement ps = c.prepareStatement(sql)) {
 
             setBigDecimalOrNull(ps, 1, p.price());
             setBigDecimalOrNull(ps, 2, p.squareMeters());
-            ps.setString(3, p.latitude());
-            ps.setString(4, p.longitude());
+            setDoubleOrNull(ps, 3, p.latitude());
+            setDoubleOrNull(ps, 4, p.longitude());
             ps.setString(5, p.city());
             ps.setString(6, p.propertyType());
             setLongOrNull(ps, 7, p.ownerId());
             ps.setLong(8, p.propertyId());
 
-            ps.executeUpdate();
+            try (ResultSet rs = ps.executeQuery()) {
+                found = rs.next();
+                if (found) {
+                    oldCity = rs.getString(1);
+                    oldType = rs.getString(2);
+                    oldSquareMeters = rs.getBigDecimal(3);
+                }
+            }
+        }
+        ChangeJournal.shared().append(ChangeType.UPDATE, "property", p.propertyId(), p);
+        MatchingEngine.shared().propertyChanged(p.propertyId());
+        // its deals move to another price statistics group, or their price per m² changes
+        if (found && (!Objects.equals(oldCity, p.city()) || !Objects.equals(oldType, p.propertyType())
+                || !sameDecimal(oldSquareMeters, p.squareMeters()))) {
+            PriceStats.shared().groupChanged(oldCity, oldType);
+            PriceStats.shared().groupChanged(p.city(), p.propertyType());
         }
     }
 
     public void delete(long propertyId) throws SQLException {
+        if (OfflineEngine.shared().isOffline()) {
+            OfflineEngine.shared().delete(Property.class, propertyId);
+            return;
+        }
         String sql = "DELETE FROM property WHERE property_id = ?";
         try (Connection c = Db.getConnection();
              PreparedStatement ps = c.prepareStatement(sql)) {
             ps.setLong(1, propertyId);
             ps.executeUpdate();
         }
+        ChangeJournal.shared().append(ChangeType.DELETE, "property", propertyId, null);
+        MatchingEngine.shared().propertyRemoved(propertyId);
+    }
+
+    /**
+     * Properties inside the given rectangle (degrees), answered from the GiST index on
+     * point(longitude, latitude). A box with minLon greater than maxLon crosses the antimeridian
+     * and is searched as its two halves.
+     */
+    public List<Property> findInBoundingBox(double minLat, double minLon,
+                                            double maxLat, double maxLon) throws SQLException {
+        if (OfflineEngine.shared().isOffline()) {
+            List<Property> out = new ArrayList<>();
+            for (Property p : OfflineEngine.shared().findAll(Property.class)) {
+                if (p.latitude() == null || p.longitude() == null) continue;
+                double lon = p.longitude();
+                boolean inLon = minLon <= maxLon ? lon >= minLon && lon <= maxLon : lon >= minLon || lon <= maxLon;
+                if (inLon && p.latitude() >= minLat && p.latitude() <= maxLat) out.add(p);
+            }
+            out.sort(Comparator.comparingLong(Property::propertyId));
+            return out;
+        }
+        String sql = """
+            SELECT property_id, price, square_meters, latitude, longitude, city,
+                   property_type, owner_id
+            FROM property
+            WHERE point(longitude, latitude) <@ box(point(?, ?), point(?, ?))
+               OR point(longitude, latitude) <@ box(point(?, ?), point(?, ?))
+            ORDER BY property_id
+        """;
+        // [west, east] per box; both the same unless the box wraps past +-180
+        double[] first = {minLon, maxLon};
+        double[] second = first;
+        if (minLon > maxLon) {
+            first = new double[]{minLon, 180};
+            second = new double[]{-180, maxLon};
+        }
+        try (Connection c = Db.getConnection();
+             PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setDouble(1, first[0]);
+            ps.setDouble(2, minLat);
+            ps.setDouble(3, first[1]);
+            ps.setDouble(4, maxLat);
+            ps.setDouble(5, second[0]);
+            ps.setDouble(6, minLat);
+            ps.setDouble(7, second[1]);
+            ps.setDouble(8, maxLat);
+            try (ResultSet rs = ps.executeQuery()) {
+                List<Property> out = new ArrayList<>();
+                while (rs.next()) {
+                    out.add(map(rs));
+                }
+                OfflineEngine.shared().remember(Property.class, out);
+                return out;
+            }
+        }
     }
 
-    private static Property map(ResultSet rs) throws SQLException {
+    /**
+     * Properties within radiusKm of (lat, lon), nearest first.
+     * The index narrows the search to the enclosing box (two boxes when it crosses the
+     * antimeridian, every longitude when the circle contains a pole), then the great-circle
+     * distance is computed once per row, checked and sorted on.
+     */
+    public List<Property> findWithinRadius(double lat, double lon, double radiusKm) throws SQLException {
+        if (OfflineEngine.shared().isOffline()) {
+            List<Property> out = new ArrayList<>();
+            List<Double> distances = new ArrayList<>();
+            for (Property p : OfflineEngine.shared().findAll(Property.class)) {
+                if (p.latitude() == null || p.longitude() == null) continue;
+                double d = distanceKm(lat, lon, p.latitude(), p.longitude());
+                if (d <= radiusKm) {
+                    out.add(p);
+                    distances.add(d);
+                }
+            }
+            Integer[] order = new Integer[out.size()];
+            for (int i = 0; i < order.length; i++) order[i] = i;
+            Arrays.sort(order, Comparator.<Integer>comparingDouble(distances::get)
+                    .thenComparingLong(i -> out.get(i).propertyId()));
+            List<Property> sorted = new ArrayList<>(order.length);
+            for (int i : order) sorted.add(out.get(i));
+            return sorted;
+        }
+        String sql = """
+            SELECT property_id, price, square_meters, latitude, longitude, city,
+                   property_type, owner_id
+            FROM (
+                SELECT property_id, price, square_meters, latitude, longitude, city,
+                       property_type, owner_id,
+                       -- least(): rounding can push the haversine term just past 1 for antipodal points
+                       2 * 6371.0088 * asin(least(1, sqrt(
+                           power(sin(radians(latitude - ?) / 2), 2)
+                         + cos(radians(?)) * cos(radians(latitude))
+                         * power(sin(radians(longitude - ?) / 2), 2)
+                       ))) AS distance_km
+                FROM property
+                WHERE point(longitude, latitude) <@ box(point(?, ?), point(?, ?))
+                   OR point(longitude, latitude) <@ box(point(?, ?), point(?, ?))
+            ) p
+            WHERE distance_km <= ?
+            ORDER BY distance_km, property_id
+        """;
+        // bounding box of a spherical cap: the widest longitude is reached at the tangent
+        // meridians, not at the centre's latitude, so dLon = asin(sin r / cos lat), not r / cos lat
+        double r = radiusKm / EARTH_RADIUS_KM;
+        double dLat = Math.toDegrees(r);
+        boolean containsPole = lat + dLat >= 90 || lat - dLat <= -90;
+        double dLon = containsPole ? 180 : Math.toDegrees(Math.asin(Math.sin(r) / Math.cos(Math.toRadians(lat))));
+        double minLat = Math.max(-90, lat - dLat);
+        double maxLat = Math.min(90, lat + dLat);
+
+        // [west, east] per box; a box past +-180 wraps onto the other side
+        double west = lon - dLon;
+        double east = lon + dLon;
+        double[] first = {west, east};
+        double[] second = {west, east};
+        if (dLon >= 180) {
+            first = new double[]{-180, 180};
+            second = first;
+        } else if (west < -180) {
+            first = new double[]{west + 360, 180};
+            second = new double[]{-180, east};
+        } else if (east > 180) {
+            first = new double[]{west, 180};
+            second = new double[]{-180, east - 360};
+        }
+
+        try (Connection c = Db.getConnection();
+             PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setDouble(1, lat);
+            ps.setDouble(2, lat);
+            ps.setDouble(3, lon);
+            ps.setDouble(4, first[0]);
+            ps.setDouble(5, minLat);
+            ps.setDouble(6, first[1]);
+            ps.setDouble(7, maxLat);
+            ps.setDouble(8, second[0]);
+            ps.setDouble(9, minLat);
+            ps.setDouble(10, second[1]);
+            ps.setDouble(11, maxLat);
+            ps.setDouble(12, radiusKm);
+            try (ResultSet rs = ps.executeQuery()) {
+                List<Property> out = new ArrayList<>();
+                while (rs.next()) {
+                    out.add(map(rs));
+                }
+                OfflineEngine.shared().remember(Property.class, out);
+                return out;
+            }
+        }
+    }
+
+    /** The same haversine distance as the query in {@link #findWithinRadius}. */
+    static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+        double h = Math.pow(Math.sin(Math.toRadians(lat2 - lat1) / 2), 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.pow(Math.sin(Math.toRadians(lon2 - lon1) / 2), 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(h)));
+    }
+
+    static Property map(ResultSet rs) throws SQLException {
         Long ownerId = rs.getObject("owner_id", Long.class);
         return new Property(
                 rs.getLong("property_id"),
                 rs.getBigDecimal("price"),
                 rs.getBigDecimal("square_meters"),
-                rs.getString("latitude"),
-                rs.getString("longitude"),
+                rs.getObject("latitude", Double.class),
+                rs.getObject("longitude", Double.class),
                 rs.getString("city"),
                 rs.getString("property_type"),
                 ownerId
         );
     }
 
+    private static boolean sameDecimal(BigDecimal a, BigDecimal b) {
+        return a == null ? b == null : b != null && a.compareTo(b) == 0;
+    }
+
     private static void setBigDecimalOrNull(PreparedStatement ps, int idx, BigDecimal v) throws SQLException {
         if (v == null) ps.setNull(idx, Types.NUMERIC);
         else ps.setBigDecimal(idx, v);
     }
 
+    private static void setDoubleOrNull(PreparedStatement ps, int idx, Double v) throws SQLException {
+        if (v == null) ps.setNull(idx, Types.DOUBLE);
+        else ps.setDouble(idx, v);
+    }
+
     private static void setLongOrNull(PreparedStatement ps, int idx, Long v) throws SQLException {
         if (v == null) ps.setNull(idx, Types.BIGINT);
         else ps.setLong(idx, v);
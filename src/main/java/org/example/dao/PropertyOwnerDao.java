@@ -1,7 +1,10 @@
 package org.example.dao;
 
 import org.example.db.Db;
+import org.example.journal.ChangeJournal;
+import org.example.journal.ChangeType;
 import org.example.model.PropertyOwner;
+import org.example.offline.OfflineEngine;
 
 import java.sql.*;
 import java.util.ArrayList;
@@ -10,6 +13,7 @@ import java.util.List;
 public class PropertyOwnerDao {
 
     public List<PropertyOwner> findAll() throws SQLException {
+        if (OfflineEngine.shared().isOffline()) return OfflineEngine.shared().findAll(PropertyOwner.class);
         String sql = """
             SELECT person_id, property_id
             FROM property_owner
@@ -22,16 +26,17 @@ public class PropertyOwnerDao {
 
             List<PropertyOwner> out = new ArrayList<>();
             while (rs.next()) {
-                out.add(new PropertyOwner(
-                        rs.getLong("person_id"),
-                        rs.getLong("property_id")
-                ));
+                out.add(map(rs));
             }
             return out;
         }
     }
 
     public void insert(PropertyOwner po) throws SQLException {
+        if (OfflineEngine.shared().isOffline()) {
+            OfflineEngine.shared().insert(po);
+            return;
+        }
         String sql = """
             INSERT INTO property_owner (person_id, property_id)
             VALUES (?, ?)
@@ -44,6 +49,7 @@ public class PropertyOwnerDao {
             ps.setLong(2, po.propertyId());
             ps.executeUpdate();
         }
+        ChangeJournal.shared().append(ChangeType.INSERT, "property_owner", po.personId(), po);
     }
 
     /**
@@ -51,6 +57,11 @@ public class PropertyOwnerDao {
      * updating means: change to a new pair.
      */
     public void update(long oldPersonId, long oldPropertyId, PropertyOwner newPair) throws SQLException {
+        if (OfflineEngine.shared().isOffline()) {
+            OfflineEngine.shared().delete(PropertyOwner.class, List.of(oldPersonId, oldPropertyId));
+            OfflineEngine.shared().insert(newPair);
+            return;
+        }
         String sql = """
             UPDATE property_owner
             SET person_id = ?, property_id = ?
@@ -67,9 +78,17 @@ public class PropertyOwnerDao {
 
             ps.executeUpdate();
         }
+        // the key is the pair itself, so a change is journaled as remove old + add new
+        ChangeJournal.shared().append(ChangeType.DELETE, "property_owner", oldPersonId,
+                new PropertyOwner(oldPersonId, oldPropertyId));
+        ChangeJournal.shared().append(ChangeType.INSERT, "property_owner", newPair.personId(), newPair);
     }
 
     public void delete(long personId, long propertyId) throws SQLException {
+        if (OfflineEngine.shared().isOffline()) {
+            OfflineEngine.shared().delete(PropertyOwner.class, List.of(personId, propertyId));
+            return;
+        }
         String sql = """
             DELETE FROM property_owner
             WHERE person_id = ? AND property_id = ?
@@ -82,5 +101,14 @@ public class PropertyOwnerDao {
             ps.setLong(2, propertyId);
             ps.executeUpdate();
         }
+        ChangeJournal.shared().append(ChangeType.DELETE, "property_owner", personId,
+                new PropertyOwner(personId, propertyId));
+    }
+
+    static PropertyOwner map(ResultSet rs) throws SQLException {
+        return new PropertyOwner(
+                rs.getLong("person_id"),
+                rs.getLong("property_id")
+        );
     }
 }
@@ -10,26 +10,114 @@ import org.example.model.UnsoldPropertyRow;
 
 import java.math.BigDecimal;
 import java.sql.*;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 
 public class QueryDao {
 
-    public List<PropertyOwnerRow> propertiesWithOptionalOwner() throws SQLException {
-        String sql = """
-            SELECT
-                p.property_id,
-                p.property_type,
-                p.city,
-                p.owner_id,
-                (pe.first_name || ' ' || pe.last_name) AS owner_name
-            FROM property p
-            LEFT JOIN person pe ON pe.person_id = p.owner_id
-            ORDER BY p.property_id
-        """;
+    private static final int STREAM_FETCH_SIZE = 10_000;
+
+    /** The reports below, for callers that stream rows instead of building lists (e.g. export). */
+    public enum Report {
+        PROPERTIES_WITH_OPTIONAL_OWNER,
+        TOP_AGENTS_BY_SALES,
+        PROPERTIES_UNDER_CLIENT_BUDGET,
+        AVG_SALE_PRICE_BY_TYPE,
+        TOP_CLIENTS_BY_DEALS,
+        UNSOLD_PROPERTIES
+    }
+
+    @FunctionalInterface
+    public interface ResultSetConsumer {
+        void accept(ResultSet rs) throws SQLException;
+    }
+
+    private static final String PROPERTIES_WITH_OPTIONAL_OWNER_SQL = """
+        SELECT
+            p.property_id,
+            p.property_type,
+            p.city,
+            p.owner_id,
+            (pe.first_name || ' ' || pe.last_name) AS owner_name
+        FROM property p
+        LEFT JOIN person pe ON pe.person_id = p.owner_id
+        ORDER BY p.property_id
+    """;
+
+    private static final String TOP_AGENTS_BY_SALES_SQL = """
+        SELECT
+            a.person_id AS agent_id,
+            pe.first_name,
+            pe.last_name,
+            COUNT(*) AS deals,
+            COALESCE(SUM(d.final_price), 0) AS total_sales
+        FROM successful_deals d
+        INNER JOIN agent a ON a.person_id = d.agent_id
+        INNER JOIN person pe ON pe.person_id = a.person_id
+        WHERE d.deal_date >= ? AND d.deal_date < ?
+        GROUP BY a.person_id, pe.first_name, pe.last_name
+        ORDER BY total_sales DESC, deals DESC
+    """;
+
+    private static final String PROPERTIES_UNDER_CLIENT_BUDGET_SQL = """
+        SELECT
+            c.person_id AS client_id,
+            (pe.first_name || ' ' || pe.last_name) AS client_name,
+            p.property_id,
+            p.city,
+            p.property_type,
+            p.price
+        FROM client c
+        INNER JOIN person pe ON pe.person_id = c.person_id
+        INNER JOIN property p ON p.price <= c.budget
+        WHERE c.person_id = ?
+        ORDER BY p.price ASC
+    """;
+
+    private static final String AVG_SALE_PRICE_BY_TYPE_SQL = """
+        SELECT
+            p.property_type,
+            COUNT(*) AS deals,
+            AVG(d.final_price) AS avg_final_price
+        FROM successful_deals d
+        INNER JOIN property p ON p.property_id = d.property_id
+        WHERE d.deal_date >= ? AND d.deal_date < ?
+        GROUP BY p.property_type
+        ORDER BY avg_final_price DESC
+    """;
 
+    private static final String TOP_CLIENTS_BY_DEALS_SQL = """
+        SELECT
+            c.person_id AS client_id,
+            pe.first_name,
+            pe.last_name,
+            COUNT(*) AS deals,
+            COALESCE(SUM(d.final_price), 0) AS total_spent
+        FROM successful_deals d
+        INNER JOIN client c ON c.person_id = d.client_id
+        INNER JOIN person pe ON pe.person_id = c.person_id
+        WHERE d.deal_date >= ? AND d.deal_date < ?
+        GROUP BY c.person_id, pe.first_name, pe.last_name
+        ORDER BY deals DESC, total_spent DESC
+    """;
+
+    private static final String UNSOLD_PROPERTIES_SQL = """
+        SELECT
+            p.property_id,
+            p.property_type,
+            p.city,
+            p.price
+        FROM property p
+        WHERE NOT p.is_sold
+          AND p.property_id > ?
+        ORDER BY p.property_id
+        LIMIT ?
+    """;
+
+    public List<PropertyOwnerRow> propertiesWithOptionalOwner() throws SQLException {
         try (Connection c = Db.getConnection();
-             PreparedStatement ps = c.prepareStatement(sql);
+             PreparedStatement ps = c.prepareStatement(PROPERTIES_WITH_OPTIONAL_OWNER_SQL);
              ResultSet rs = ps.executeQuery()) {
 
             List<PropertyOwnerRow> out = new ArrayList<>();
@@ -48,56 +136,39 @@ public class QueryDao {
     }
 
     public List<AgentSalesRow> topAgentsBySales() throws SQLException {
-        String sql = """
-            SELECT
-                a.person_id AS agent_id,
-                pe.first_name,
-                pe.last_name,
-                COUNT(*) AS deals,
-                COALESCE(SUM(d.final_price), 0) AS total_sales
-            FROM successful_deals d
-            INNER JOIN agent a ON a.person_id = d.agent_id
-            INNER JOIN person pe ON pe.person_id = a.person_id
-            GROUP BY a.person_id, pe.first_name, pe.last_name
-            ORDER BY total_sales DESC, deals DESC
-        """;
+        return topAgentsBySales(null, null);
+    }
 
+    /**
+     * Deal-based reports take a window [from, to) on deal_date; null means unbounded on that side.
+     * The bounds are always bound (as -infinity / infinity when open) so the planner can prune
+     * the monthly partitions outside the window.
+     */
+    public List<AgentSalesRow> topAgentsBySales(LocalDate from, LocalDate to) throws SQLException {
         try (Connection c = Db.getConnection();
-             PreparedStatement ps = c.prepareStatement(sql);
-             ResultSet rs = ps.executeQuery()) {
+             PreparedStatement ps = c.prepareStatement(TOP_AGENTS_BY_SALES_SQL)) {
 
-            List<AgentSalesRow> out = new ArrayList<>();
-            while (rs.next()) {
-                out.add(new AgentSalesRow(
-                        rs.getLong("agent_id"),
-                        rs.getString("first_name"),
-                        rs.getString("last_name"),
-                        rs.getLong("deals"),
-                        rs.getBigDecimal("total_sales")
-                ));
+            setWindow(ps, 1, from, to);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                List<AgentSalesRow> out = new ArrayList<>();
+                while (rs.next()) {
+                    out.add(new AgentSalesRow(
+                            rs.getLong("agent_id"),
+                            rs.getString("first_name"),
+                            rs.getString("last_name"),
+                            rs.getLong("deals"),
+                            rs.getBigDecimal("total_sales")
+                    ));
+                }
+                return out;
             }
-            return out;
         }
     }
 
     public List<ClientBudgetMatchRow> propertiesUnderClientBudget(long clientId) throws SQLException {
-        String sql = """
-            SELECT
-                c.person_id AS client_id,
-                (pe.first_name || ' ' || pe.last_name) AS client_name,
-                p.property_id,
-                p.city,
-                p.property_type,
-                p.price
-            FROM client c
-            INNER JOIN person pe ON pe.person_id = c.person_id
-            INNER JOIN property p ON p.price <= c.budget
-            WHERE c.person_id = ?
-            ORDER BY p.price ASC
-        """;
-
         try (Connection c = Db.getConnection();
-             PreparedStatement ps = c.prepareStatement(sql)) {
+             PreparedStatement ps = c.prepareStatement(PROPERTIES_UNDER_CLIENT_BUDGET_SQL)) {
 
             ps.setLong(1, clientId);
 
@@ -119,93 +190,129 @@ public class QueryDao {
     }
 
     public List<AvgSaleByTypeRow> avgSalePriceByPropertyType() throws SQLException {
-        String sql = """
-        SELECT
-            p.property_type,
-            COUNT(*) AS deals,
-            AVG(d.final_price) AS avg_final_price
-        FROM successful_deals d
-        INNER JOIN property p ON p.property_id = d.property_id
-        GROUP BY p.property_type
-        ORDER BY avg_final_price DESC
-    """;
+        return avgSalePriceByPropertyType(null, null);
+    }
 
+    public List<AvgSaleByTypeRow> avgSalePriceByPropertyType(LocalDate from, LocalDate to) throws SQLException {
         try (Connection c = Db.getConnection();
-             PreparedStatement ps = c.prepareStatement(sql);
-             ResultSet rs = ps.executeQuery()) {
+             PreparedStatement ps = c.prepareStatement(AVG_SALE_PRICE_BY_TYPE_SQL)) {
 
-            List<AvgSaleByTypeRow> out = new ArrayList<>();
-            while (rs.next()) {
-                out.add(new AvgSaleByTypeRow(
-                        rs.getString("property_type"),
-                        rs.getLong("deals"),
-                        rs.getBigDecimal("avg_final_price")
-                ));
+            setWindow(ps, 1, from, to);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                List<AvgSaleByTypeRow> out = new ArrayList<>();
+                while (rs.next()) {
+                    out.add(new AvgSaleByTypeRow(
+                            rs.getString("property_type"),
+                            rs.getLong("deals"),
+                            rs.getBigDecimal("avg_final_price")
+                    ));
+                }
+                return out;
             }
-            return out;
         }
     }
 
     public List<ClientDealsRow> topClientsByDeals() throws SQLException {
-        String sql = """
-        SELECT
-            c.person_id AS client_id,
-            pe.first_name,
-            pe.last_name,
-            COUNT(*) AS deals,
-            COALESCE(SUM(d.final_price), 0) AS total_spent
-        FROM successful_deals d
-        INNER JOIN client c ON c.person_id = d.client_id
-        INNER JOIN person pe ON pe.person_id = c.person_id
-        GROUP BY c.person_id, pe.first_name, pe.last_name
-        ORDER BY deals DESC, total_spent DESC
-    """;
+        return topClientsByDeals(null, null);
+    }
 
+    public List<ClientDealsRow> topClientsByDeals(LocalDate from, LocalDate to) throws SQLException {
         try (Connection c = Db.getConnection();
-             PreparedStatement ps = c.prepareStatement(sql);
-             ResultSet rs = ps.executeQuery()) {
+             PreparedStatement ps = c.prepareStatement(TOP_CLIENTS_BY_DEALS_SQL)) {
 
-            List<ClientDealsRow> out = new ArrayList<>();
-            while (rs.next()) {
-                out.add(new ClientDealsRow(
-                        rs.getLong("client_id"),
-                        rs.getString("first_name"),
-                        rs.getString("last_name"),
-                        rs.getLong("deals"),
-                        rs.getBigDecimal("total_spent")
-                ));
+            setWindow(ps, 1, from, to);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                List<ClientDealsRow> out = new ArrayList<>();
+                while (rs.next()) {
+                    out.add(new ClientDealsRow(
+                            rs.getLong("client_id"),
+                            rs.getString("first_name"),
+                            rs.getString("last_name"),
+                            rs.getLong("deals"),
+                            rs.getBigDecimal("total_spent")
+                    ));
+                }
+                return out;
             }
-            return out;
         }
     }
 
     public List<UnsoldPropertyRow> unsoldProperties() throws SQLException {
-        String sql = """
-        SELECT
-            p.property_id,
-            p.property_type,
-            p.city,
-            p.price
-        FROM property p
-        LEFT JOIN successful_deals d ON d.property_id = p.property_id
-        WHERE d.deal_id IS NULL
-        ORDER BY p.property_id
-    """;
+        return unsoldProperties(0, Integer.MAX_VALUE);
+    }
 
+    /**
+     * One page of unsold properties after the given property_id (keyset paging: pass the last id of the
+     * previous page, or 0 for the first). Reads the partial index on is_sold instead of joining deals.
+     */
+    public List<UnsoldPropertyRow> unsoldProperties(long afterPropertyId, int limit) throws SQLException {
         try (Connection c = Db.getConnection();
-             PreparedStatement ps = c.prepareStatement(sql);
-             ResultSet rs = ps.executeQuery()) {
+             PreparedStatement ps = c.prepareStatement(UNSOLD_PROPERTIES_SQL)) {
 
-            List<UnsoldPropertyRow> out = new ArrayList<>();
-            while (rs.next()) {
-                out.add(new UnsoldPropertyRow(
-                        rs.getLong("property_id"),
-                        rs.getString("property_type"),
-                        rs.getString("city"),
-                        rs.getBigDecimal("price")
-                ));
+            ps.setLong(1, afterPropertyId);
+            ps.setInt(2, limit);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                List<UnsoldPropertyRow> out = new ArrayList<>();
+                while (rs.next()) {
+                    out.add(new UnsoldPropertyRow(
+                            rs.getLong("property_id"),
+                            rs.getString("property_type"),
+                            rs.getString("city"),
+                            rs.getBigDecimal("price")
+                    ));
+                }
+                return out;
             }
-            return out;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Runs a report through a server-side cursor and hands the open ResultSet to the consumer,
+     * which iterates it; rows are never collected in memory. clientId is only used by
+     * PROPERTIES_UNDER_CLIENT_BUDGET, from / to only by the deal-based reports.
+     */
+    public void streamReport(Report report, Long clientId, LocalDate from, LocalDate to,
+                             ResultSetConsumer consumer) throws SQLException {
+        String sql = switch (report) {
+            case PROPERTIES_WITH_OPTIONAL_OWNER -> PROPERTIES_WITH_OPTIONAL_OWNER_SQL;
+            case TOP_AGENTS_BY_SALES -> TOP_AGENTS_BY_SALES_SQL;
+            case PROPERTIES_UNDER_CLIENT_BUDGET -> PROPERTIES_UNDER_CLIENT_BUDGET_SQL;
+            case AVG_SALE_PRICE_BY_TYPE -> AVG_SALE_PRICE_BY_TYPE_SQL;
+            case TOP_CLIENTS_BY_DEALS -> TOP_CLIENTS_BY_DEALS_SQL;
+            case UNSOLD_PROPERTIES -> UNSOLD_PROPERTIES_SQL;
+        };
+        if (report == Report.PROPERTIES_UNDER_CLIENT_BUDGET && clientId == null) {
+            throw new IllegalArgumentException("clientId is required for " + report);
+        }
+
+        try (Connection c = Db.getConnection()) {
+            c.setAutoCommit(false);
+            try (PreparedStatement ps = c.prepareStatement(sql)) {
+                ps.setFetchSize(STREAM_FETCH_SIZE);
+                switch (report) {
+                    case TOP_AGENTS_BY_SALES, AVG_SALE_PRICE_BY_TYPE, TOP_CLIENTS_BY_DEALS -> setWindow(ps, 1, from, to);
+                    case PROPERTIES_UNDER_CLIENT_BUDGET -> ps.setLong(1, clientId);
+                    case UNSOLD_PROPERTIES -> {
+                        ps.setLong(1, 0);
+                        ps.setInt(2, Integer.MAX_VALUE);
+                    }
+                    default -> { }
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    consumer.accept(rs);
+                }
+            } finally {
+                c.rollback();
+            }
+        }
+    }
+
+    /** pgjdbc sends LocalDate.MIN / MAX as -infinity / infinity. */
+    private static void setWindow(PreparedStatement ps, int idx, LocalDate from, LocalDate to) throws SQLException {
+        ps.setObject(idx, from == null ? LocalDate.MIN : from);
+        ps.setObject(idx + 1, to == null ? LocalDate.MAX : to);
+    }
+}
@@ -1,18 +1,45 @@
 package org.example.dao;
 
+import org.example.analytics.PriceStats;
+import org.example.db.ColumnModel;
+import org.example.db.ColumnModel.Kind;
 import org.example.db.Db;
+import org.example.db.RowQuery;
+import org.example.db.PartitionManager;
+import org.example.journal.ChangeJournal;
+import org.example.journal.ChangeType;
+import org.example.matching.MatchingEngine;
 import org.example.model.SuccessfulDeal;
+import org.example.offline.OfflineEngine;
 
 import java.math.BigDecimal;
 import java.sql.*;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 public class SuccessfulDealDao {
 
+    /** What the Deals tab may filter and sort on. */
+    public static final ColumnModel<SuccessfulDeal> COLUMNS = new ColumnModel<SuccessfulDeal>(
+            "successful_deals",
+            "deal_id, deal_date, property_id, final_price, agent_id, client_id",
+            "deal_id", SuccessfulDeal::dealId)
+            .add("id", "deal_id", Kind.INTEGER, false, SuccessfulDeal::dealId)
+            .add("date", "deal_date", Kind.DATE, false, SuccessfulDeal::dealDate)
+            .add("property", "property_id", Kind.INTEGER, false, SuccessfulDeal::propertyId)
+            .add("price", "final_price", Kind.DECIMAL, true, SuccessfulDeal::finalPrice)
+            .add("agent", "agent_id", Kind.INTEGER, false, SuccessfulDeal::agentId)
+            .add("client", "client_id", Kind.INTEGER, false, SuccessfulDeal::clientId);
+
     public List<SuccessfulDeal> findAll() throws SQLException {
+        if (OfflineEngine.shared().isOffline()) return OfflineEngine.shared().findAll(SuccessfulDeal.class);
         String sql = """
-            SELECT deal_id, property_id, final_price, agent_id, client_id
+            SELECT deal_id, deal_date, property_id, final_price, agent_id, client_id
             FROM successful_deals
             ORDER BY deal_id
         """;
@@ -28,74 +55,295 @@ public class SuccessfulDealDao {
         }
     }
 
-    public SuccessfulDeal findById(long dealId) throws SQLException {
+    /** All deals matching the query, in its order. */
+    public List<SuccessfulDeal> findAll(RowQuery query) throws SQLException {
+        if (OfflineEngine.shared().isOffline()) {
+            return COLUMNS.findAll(OfflineEngine.shared().findAll(SuccessfulDeal.class), query);
+        }
+        return COLUMNS.findAll(query, SuccessfulDealDao::map);
+    }
+
+    /**
+     * Up to limit deals matching the query that come after the row after (from the start when it is
+     * null), in the query's order, after skipping the first skip of them. Keyset paging: pass the last row of
+     * the previous page and skip 0; skip only bridges pages the caller has not loaded.
+     */
+    public List<SuccessfulDeal> findPage(RowQuery query, SuccessfulDeal after, int skip, int limit) throws SQLException {
+        if (OfflineEngine.shared().isOffline()) {
+            return COLUMNS.findPage(OfflineEngine.shared().findAll(SuccessfulDeal.class), query, after, skip, limit);
+        }
+        List<SuccessfulDeal> page = COLUMNS.findPage(query, after, skip, limit, SuccessfulDealDao::map);
+        OfflineEngine.shared().remember(SuccessfulDeal.class, page);
+        return page;
+    }
+
+    /** Matching row count, estimated by the planner; good enough to size a scrollbar. */
+    public long estimateCount(RowQuery query) throws SQLException {
+        if (OfflineEngine.shared().isOffline()) {
+            return COLUMNS.findAll(OfflineEngine.shared().findAll(SuccessfulDeal.class), query).size();
+        }
+        return COLUMNS.estimateCount(query);
+    }
+
+    /** With the deal id, dealDate is the primary key, so only that month's partition is searched. */
+    public SuccessfulDeal findById(long dealId, LocalDate dealDate) throws SQLException {
+        Objects.requireNonNull(dealDate, "dealDate");
+        if (OfflineEngine.shared().isOffline()) {
+            return OfflineEngine.shared().findByKey(SuccessfulDeal.class, List.of(dealId, dealDate));
+        }
         String sql = """
-            SELECT deal_id, property_id, final_price, agent_id, client_id
+            SELECT deal_id, deal_date, property_id, final_price, agent_id, client_id
             FROM successful_deals
-            WHERE deal_id = ?
+            WHERE deal_id = ? AND deal_date = ?
         """;
         try (Connection c = Db.getConnection();
              PreparedStatement ps = c.prepareStatement(sql)) {
             ps.setLong(1, dealId);
+            ps.setObject(2, dealDate);
             try (ResultSet rs = ps.executeQuery()) {
                 if (!rs.next()) return null;
-                return map(rs);
+                SuccessfulDeal found = map(rs);
+                OfflineEngine.shared().remember(SuccessfulDeal.class, List.of(found));
+                return found;
             }
         }
     }
 
+    /**
+     * Inserts the deal and marks its property as sold in the same transaction.
+     * A missing deal date means today; the month's partition is created first if needed.
+     */
     public long insert(SuccessfulDeal d) throws SQLException {
+        if (OfflineEngine.shared().isOffline()) return OfflineEngine.shared().insert(d);
         String sql = """
-            INSERT INTO successful_deals (property_id, final_price, agent_id, client_id)
-            VALUES (?, ?, ?, ?)
+            INSERT INTO successful_deals (deal_date, property_id, final_price, agent_id, client_id)
+            VALUES (?, ?, ?, ?, ?)
             RETURNING deal_id
         """;
-        try (Connection c = Db.getConnection();
-             PreparedStatement ps = c.prepareStatement(sql)) {
+        LocalDate dealDate = d.dealDate() == null ? LocalDate.now() : d.dealDate();
+        PartitionManager.ensurePartitionFor(dealDate);
 
-            ps.setLong(1, d.propertyId());
-            setBigDecimalOrNull(ps, 2, d.finalPrice());
-            ps.setLong(3, d.agentId());
-            ps.setLong(4, d.clientId());
+        long dealId;
+        PropertyGroup group;
+        try (Connection c = Db.getConnection()) {
+            c.setAutoCommit(false);
+            try (PreparedStatement ps = c.prepareStatement(sql)) {
 
-            try (ResultSet rs = ps.executeQuery()) {
-                rs.next();
-                return rs.getLong(1);
+                group = lockProperties(c, d.propertyId()).get(d.propertyId());
+                ps.setObject(1, dealDate);
+                ps.setLong(2, d.propertyId());
+                setBigDecimalOrNull(ps, 3, d.finalPrice());
+                ps.setLong(4, d.agentId());
+                ps.setLong(5, d.clientId());
+
+                try (ResultSet rs = ps.executeQuery()) {
+                    rs.next();
+                    dealId = rs.getLong(1);
+                }
+                setSold(c, d.propertyId());
+                c.commit();
+            } catch (SQLException ex) {
+                c.rollback();
+                throw ex;
             }
         }
+        // committed: nothing from here on may report the saved deal as failed
+        ChangeJournal.shared().append(ChangeType.INSERT, "successful_deals", dealId, new SuccessfulDeal(
+                dealId, dealDate, d.propertyId(), d.finalPrice(), d.agentId(), d.clientId()));
+        MatchingEngine.shared().propertyChanged(d.propertyId());
+        if (group != null) {
+            PriceStats.shared().dealInserted(dealId, group.city(), group.propertyType(),
+                    d.finalPrice() == null ? Double.NaN : d.finalPrice().doubleValue(), group.squareMeters(), d.clientId());
+        }
+        return dealId;
     }
 
-    public void update(SuccessfulDeal d) throws SQLException {
+    /**
+     * Moving a deal to another property re-derives the sold flag of both properties.
+     * Changing the deal date moves the row to that month's partition. currentDate is the date
+     * the row has now; with the deal id it is the primary key, so only its partition is searched.
+     */
+    public void update(LocalDate currentDate, SuccessfulDeal d) throws SQLException {
+        if (OfflineEngine.shared().isOffline()) {
+            Objects.requireNonNull(currentDate, "currentDate");
+            SuccessfulDeal row = d.dealDate() != null ? d : new SuccessfulDeal(
+                    d.dealId(), currentDate, d.propertyId(), d.finalPrice(), d.agentId(), d.clientId());
+            OfflineEngine.shared().update(List.of(d.dealId(), currentDate), row);
+            return;
+        }
         String sql = """
             UPDATE successful_deals
-            SET property_id=?, final_price=?, agent_id=?, client_id=?
-            WHERE deal_id=?
+            SET deal_date=COALESCE(?, deal_date), property_id=?, final_price=?, agent_id=?, client_id=?
+            WHERE deal_id=? AND deal_date=?
         """;
-        try (Connection c = Db.getConnection();
-             PreparedStatement ps = c.prepareStatement(sql)) {
+        Objects.requireNonNull(currentDate, "currentDate");
+        if (d.dealDate() != null) PartitionManager.ensurePartitionFor(d.dealDate());
 
-            ps.setLong(1, d.propertyId());
-            setBigDecimalOrNull(ps, 2, d.finalPrice());
-            ps.setLong(3, d.agentId());
-            ps.setLong(4, d.clientId());
-            ps.setLong(5, d.dealId());
+        SuccessfulDeal old;
+        Map<Long, PropertyGroup> groups = Map.of();
+        try (Connection c = Db.getConnection()) {
+            c.setAutoCommit(false);
+            try (PreparedStatement ps = c.prepareStatement(sql)) {
 
-            ps.executeUpdate();
+                old = lockDeal(c, d.dealId(), currentDate);
+                if (old != null) groups = lockProperties(c, old.propertyId(), d.propertyId());
+
+                if (d.dealDate() == null) ps.setNull(1, Types.DATE);
+                else ps.setObject(1, d.dealDate());
+                ps.setLong(2, d.propertyId());
+                setBigDecimalOrNull(ps, 3, d.finalPrice());
+                ps.setLong(4, d.agentId());
+                ps.setLong(5, d.clientId());
+                ps.setLong(6, d.dealId());
+                ps.setObject(7, currentDate);
+                ps.executeUpdate();
+
+                if (old != null) {
+                    if (old.propertyId() != d.propertyId()) refreshSold(c, old.propertyId());
+                    setSold(c, d.propertyId());
+                }
+                c.commit();
+            } catch (SQLException ex) {
+                c.rollback();
+                throw ex;
+            }
+        }
+        if (old != null) {
+            SuccessfulDeal saved = d.dealDate() != null ? d : new SuccessfulDeal(
+                    d.dealId(), currentDate, d.propertyId(), d.finalPrice(), d.agentId(), d.clientId());
+            ChangeJournal.shared().append(ChangeType.UPDATE, "successful_deals", d.dealId(), saved);
+        }
+        if (old != null && old.propertyId() != d.propertyId()) {
+            MatchingEngine.shared().propertyChanged(old.propertyId());
+        }
+        MatchingEngine.shared().propertyChanged(d.propertyId());
+        // the statistics read price, client and property; a new date or agent leaves them as they are
+        if (old != null && (old.propertyId() != d.propertyId() || old.clientId() != d.clientId()
+                || !samePrice(old.finalPrice(), d.finalPrice()))) {
+            groupChanged(groups.get(old.propertyId()));
+            groupChanged(groups.get(d.propertyId()));
         }
     }
 
-    public void delete(long dealId) throws SQLException {
-        String sql = "DELETE FROM successful_deals WHERE deal_id = ?";
-        try (Connection c = Db.getConnection();
-             PreparedStatement ps = c.prepareStatement(sql)) {
+    /** dealDate is the row's date, which with the deal id is the primary key (one partition). */
+    public void delete(long dealId, LocalDate dealDate) throws SQLException {
+        if (OfflineEngine.shared().isOffline()) {
+            OfflineEngine.shared().delete(SuccessfulDeal.class, List.of(dealId, Objects.requireNonNull(dealDate, "dealDate")));
+            return;
+        }
+        String sql = "DELETE FROM successful_deals WHERE deal_id = ? AND deal_date = ? RETURNING property_id";
+        Objects.requireNonNull(dealDate, "dealDate");
+        Long propertyId = null;
+        PropertyGroup group = null;
+        try (Connection c = Db.getConnection()) {
+            c.setAutoCommit(false);
+            try (PreparedStatement ps = c.prepareStatement(sql)) {
+                ps.setLong(1, dealId);
+                ps.setObject(2, dealDate);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) {
+                        propertyId = rs.getLong("property_id");
+                        group = lockProperties(c, propertyId).get(propertyId);
+                        refreshSold(c, propertyId);
+                    }
+                }
+                c.commit();
+            } catch (SQLException ex) {
+                c.rollback();
+                throw ex;
+            }
+        }
+        if (propertyId != null) {
+            ChangeJournal.shared().append(ChangeType.DELETE, "successful_deals", dealId, null);
+            MatchingEngine.shared().propertyChanged(propertyId);
+            groupChanged(group);
+        }
+    }
+
+    /** The deal as it is before the update, locked; null if it does not exist. */
+    private static SuccessfulDeal lockDeal(Connection c, long dealId, LocalDate dealDate) throws SQLException {
+        String sql = """
+            SELECT deal_id, deal_date, property_id, final_price, agent_id, client_id
+            FROM successful_deals
+            WHERE deal_id = ? AND deal_date = ?
+            FOR UPDATE
+        """;
+        try (PreparedStatement ps = c.prepareStatement(sql)) {
             ps.setLong(1, dealId);
+            ps.setObject(2, dealDate);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? map(rs) : null;
+            }
+        }
+    }
+
+    /** What the price statistics group a property's deals by, and its size. */
+    private record PropertyGroup(String city, String propertyType, double squareMeters) {}
+
+    /**
+     * Locks the property rows before their sold flag is written. Under READ COMMITTED the flag's
+     * EXISTS recheck then runs in a snapshot taken after the lock, so it sees a deal another
+     * transaction committed for the same property meanwhile. Deal row first, then properties in
+     * ascending id order: the order every writer (and the offline replay) takes them in.
+     * Returns the price statistics group of each property found.
+     */
+    private static Map<Long, PropertyGroup> lockProperties(Connection c, long... propertyIds) throws SQLException {
+        String sql = """
+            SELECT property_id, city, property_type, square_meters::float8 AS square_meters
+            FROM property
+            WHERE property_id = ANY(?)
+            ORDER BY property_id
+            FOR UPDATE
+        """;
+        try (PreparedStatement ps = c.prepareStatement(sql)) {
+            Array ids = c.createArrayOf("bigint", Arrays.stream(propertyIds).boxed().toArray());
+            ps.setArray(1, ids);
+            Map<Long, PropertyGroup> out = new HashMap<>();
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    double sqm = rs.getDouble("square_meters");
+                    out.put(rs.getLong("property_id"), new PropertyGroup(rs.getString("city"),
+                            rs.getString("property_type"), rs.wasNull() ? Double.NaN : sqm));
+                }
+            }
+            ids.free();
+            return out;
+        }
+    }
+
+    private static void groupChanged(PropertyGroup group) {
+        if (group != null) PriceStats.shared().groupChanged(group.city(), group.propertyType());
+    }
+
+    private static boolean samePrice(BigDecimal a, BigDecimal b) {
+        return a == null ? b == null : b != null && a.compareTo(b) == 0;
+    }
+
+    private static void setSold(Connection c, long propertyId) throws SQLException {
+        String sql = "UPDATE property SET is_sold = TRUE WHERE property_id = ? AND NOT is_sold";
+        try (PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setLong(1, propertyId);
+            ps.executeUpdate();
+        }
+    }
+
+    /** A property stays sold while any other deal still references it. */
+    private static void refreshSold(Connection c, long propertyId) throws SQLException {
+        String sql = """
+            UPDATE property p
+            SET is_sold = EXISTS (SELECT 1 FROM successful_deals d WHERE d.property_id = p.property_id)
+            WHERE p.property_id = ?
+        """;
+        try (PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setLong(1, propertyId);
             ps.executeUpdate();
         }
     }
 
-    private static SuccessfulDeal map(ResultSet rs) throws SQLException {
+    static SuccessfulDeal map(ResultSet rs) throws SQLException {
         return new SuccessfulDeal(
                 rs.getLong("deal_id"),
+                rs.getObject("deal_date", LocalDate.class),
                 rs.getLong("property_id"),
                 rs.getBigDecimal("final_price"),
                 rs.getLong("agent_id"),
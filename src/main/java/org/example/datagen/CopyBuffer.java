@@ -0,0 +1,55 @@
+package org.example.datagen;
+
+import org.postgresql.PGConnection;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Rows in COPY text format. The generator never produces tabs, newlines or backslashes, so
+ * values are written without escaping.
+ */
+final class CopyBuffer {
+
+    private final String copySql;
+    private final StringBuilder sb;
+    private boolean rowStart = true;
+    private long rows;
+
+    CopyBuffer(String table, String columns, int expectedRows) {
+        this.copySql = "COPY " + table + " (" + columns + ") FROM STDIN";
+        this.sb = new StringBuilder(Math.max(1024, expectedRows * 48));
+    }
+
+    CopyBuffer add(Object v) {
+        if (!rowStart) sb.append('\t');
+        rowStart = false;
+        if (v == null) sb.append("\\N");
+        else sb.append(v);
+        return this;
+    }
+
+    CopyBuffer add(long v) {
+        if (!rowStart) sb.append('\t');
+        rowStart = false;
+        sb.append(v);
+        return this;
+    }
+
+    void endRow() {
+        sb.append('\n');
+        rowStart = true;
+        rows++;
+    }
+
+    long rows() {
+        return rows;
+    }
+
+    void copyInto(Connection c) throws SQLException, IOException {
+        if (rows == 0) return;
+        c.unwrap(PGConnection.class).getCopyAPI().copyIn(copySql, new StringReader(sb.toString()));
+    }
+}
@@ -0,0 +1,56 @@
+package org.example.datagen;
+
+/**
+ * Command-line data generation into the database Db points at (-Ddb.url=...):
+ * <pre>
+ * DataGenMain rows=1000000 [seed=42] [threads=8] [chunk=50000] [skew=1.1] [luxury=0.03] [alpha=1.5]
+ *             [months=24] [truncate]
+ * DataGenMain properties=200000 ...
+ * </pre>
+ * rows is the approximate total over all tables; properties sizes the run by property count
+ * instead. truncate empties the tables first.
+ */
+public final class DataGenMain {
+
+    private DataGenMain() {}
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("usage: rows=<n>|properties=<n> [seed=..] [threads=..] [chunk=..] [skew=..] [luxury=..] [alpha=..] [months=..] [truncate]");
+            System.exit(2);
+        }
+        Sizes sizes = null;
+        GeneratorConfig d = GeneratorConfig.defaults(Sizes.forProperties(0));
+        long seed = d.seed();
+        int threads = d.threads();
+        int chunk = d.chunkRows();
+        double skew = d.citySkew();
+        double luxury = d.luxuryShare();
+        double alpha = d.luxuryAlpha();
+        int months = d.dealMonths();
+        boolean truncate = false;
+        for (String arg : args) {
+            String[] kv = arg.split("=", 2);
+            switch (kv[0]) {
+                case "rows" -> sizes = Sizes.forRows(Long.parseLong(kv[1]));
+                case "properties" -> sizes = Sizes.forProperties(Long.parseLong(kv[1]));
+                case "seed" -> seed = Long.parseLong(kv[1]);
+                case "threads" -> threads = Integer.parseInt(kv[1]);
+                case "chunk" -> chunk = Integer.parseInt(kv[1]);
+                case "skew" -> skew = Double.parseDouble(kv[1]);
+                case "luxury" -> luxury = Double.parseDouble(kv[1]);
+                case "alpha" -> alpha = Double.parseDouble(kv[1]);
+                case "months" -> months = Integer.parseInt(kv[1]);
+                case "truncate" -> truncate = true;
+                default -> throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+        }
+        if (sizes == null) throw new IllegalArgumentException("rows=<n> or properties=<n> is required");
+
+        GenerationResult r = new DataGenerator(new GeneratorConfig(seed, sizes, threads, chunk, skew, luxury, alpha,
+                months, truncate)).run();
+
+        System.out.printf("Generated %,d rows in %.1f s%n", r.totalRows(), r.elapsedNanos() / 1e9);
+        r.rows().forEach((table, n) -> System.out.printf("  %-18s %,d%n", table, n));
+    }
+}
@@ -0,0 +1,207 @@
+package org.example.datagen;
+
+import org.example.db.Db;
+import org.example.db.PartitionManager;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Fills the database with synthetic data (see {@link SyntheticRows}) in foreign-key order:
+ * people; clients and agents; properties with their subtype and owner rows; listings,
+ * preferences and deals. Within a phase, chunks of {@link GeneratorConfig#chunkRows()} ids are
+ * generated and COPYed in parallel, each in its own transaction on its own connection.
+ *
+ * Ids are written explicitly (COPY may set identity columns), so the tables must be empty or
+ * config.truncate() set; identity sequences are moved past the loaded ids at the end.
+ */
+public final class DataGenerator {
+
+    private static final Logger LOG = Logger.getLogger(DataGenerator.class.getName());
+
+    private static final String[] TABLES = {
+            "person", "client", "agent", "property", "garage", "house", "apartment", "property_owner",
+            "listing", "preferences", "successful_deals"
+    };
+    /** Identity column per table whose sequence is advanced after the load. */
+    private static final Map<String, String> IDENTITIES = Map.of(
+            "person", "person_id", "property", "property_id", "listing", "listing_id",
+            "preferences", "preference_id", "successful_deals", "deal_id");
+
+    @FunctionalInterface
+    private interface RowWriter {
+        void write(long id, CopyBuffer out);
+    }
+
+    @FunctionalInterface
+    private interface Chunk {
+        void load(Connection c, long from, long to) throws SQLException, IOException;
+    }
+
+    private final GeneratorConfig config;
+    private final SyntheticRows rows;
+    private final Map<String, LongAdder> written = new LinkedHashMap<>();
+    private long phaseStarted;
+
+    public DataGenerator(GeneratorConfig config) {
+        this.config = config;
+        this.rows = new SyntheticRows(config);
+        for (String t : TABLES) written.put(t, new LongAdder());
+    }
+
+    public GenerationResult run() throws SQLException, IOException, InterruptedException {
+        long started = System.nanoTime();
+        Sizes s = config.sizes();
+        prepare();
+        phaseStarted = System.nanoTime();
+
+        AtomicInteger threadNo = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(config.threads(), r -> {
+            Thread t = new Thread(r, "datagen-" + threadNo.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            List<Future<?>> phase = new ArrayList<>();
+            submit(pool, phase, 1, s.persons(), copy("person",
+                    "person_id, first_name, last_name, email, phone_number", rows::person));
+            await(phase, "person");
+
+            submit(pool, phase, 1, s.clients(), copy("client",
+                    "person_id, budget, area_interested_in", rows::client));
+            submit(pool, phase, s.clients() + 1, s.clients() + s.agents(), copy("agent",
+                    "person_id, salary, hire_date", rows::agent));
+            await(phase, "client, agent");
+
+            submit(pool, phase, 1, s.properties(), this::properties);
+            await(phase, "property, garage, house, apartment, property_owner");
+
+            submit(pool, phase, 1, s.listings(), copy("listing",
+                    "listing_id, type_of_listing, description, notes", rows::listing));
+            submit(pool, phase, 1, s.preferences(), copy("preferences",
+                    "preference_id, client_id, preference_type", rows::preference));
+            submit(pool, phase, 1, s.deals(), copy("successful_deals",
+                    "deal_id, deal_date, property_id, final_price, agent_id, client_id", rows::deal));
+            await(phase, "listing, preferences, successful_deals");
+        } finally {
+            pool.shutdownNow();
+        }
+        finish();
+
+        Map<String, Long> counts = new LinkedHashMap<>();
+        written.forEach((t, n) -> counts.put(t, n.sum()));
+        return new GenerationResult(counts, System.nanoTime() - started);
+    }
+
+    private void prepare() throws SQLException {
+        try (Connection c = Db.getConnection();
+             Statement st = c.createStatement()) {
+            if (config.truncate()) {
+                st.execute("TRUNCATE " + String.join(", ", TABLES) + ", person_roles, property_images RESTART IDENTITY CASCADE");
+            } else {
+                for (String t : TABLES) {
+                    try (ResultSet rs = st.executeQuery("SELECT EXISTS (SELECT 1 FROM " + t + ")")) {
+                        rs.next();
+                        if (rs.getBoolean(1)) {
+                            throw new IllegalStateException(t + " is not empty; generate into an empty database or truncate first");
+                        }
+                    }
+                }
+            }
+        }
+        YearMonth last = YearMonth.now();
+        for (YearMonth m = YearMonth.from(rows.firstDealDate()); !m.isAfter(last); m = m.plusMonths(1)) {
+            PartitionManager.ensurePartitionFor(m.atDay(1));
+        }
+    }
+
+    private void finish() throws SQLException {
+        try (Connection c = Db.getConnection();
+             Statement st = c.createStatement()) {
+            for (Map.Entry<String, String> e : IDENTITIES.entrySet()) {
+                st.execute("SELECT setval(pg_get_serial_sequence('" + e.getKey() + "', '" + e.getValue() + "'), "
+                        + "(SELECT coalesce(max(" + e.getValue() + "), 0) + 1 FROM " + e.getKey() + "), false)");
+            }
+            for (String t : TABLES) st.execute("ANALYZE " + t);
+        }
+    }
+
+    private Chunk copy(String table, String columns, RowWriter writer) {
+        return (c, from, to) -> {
+            CopyBuffer out = new CopyBuffer(table, columns, (int) (to - from + 1));
+            for (long id = from; id <= to; id++) writer.write(id, out);
+            out.copyInto(c);
+            written.get(table).add(out.rows());
+        };
+    }
+
+    /** Properties first, then the rows that reference them, in the chunk's one transaction. */
+    private void properties(Connection c, long from, long to) throws SQLException, IOException {
+        int n = (int) (to - from + 1);
+        CopyBuffer property = new CopyBuffer("property",
+                "property_id, price, square_meters, latitude, longitude, city, property_type, owner_id, is_sold", n);
+        CopyBuffer garage = new CopyBuffer("garage", "property_id", n / 8);
+        CopyBuffer house = new CopyBuffer("house",
+                "property_id, number_of_floors, garden_size_m2, number_of_bathrooms, number_of_rooms", n / 3);
+        CopyBuffer apartment = new CopyBuffer("apartment",
+                "property_id, floor, number_of_bathrooms, number_of_rooms", n * 2 / 3);
+        CopyBuffer owners = new CopyBuffer("property_owner", "person_id, property_id", n);
+        for (long id = from; id <= to; id++) rows.property(id, property, garage, house, apartment, owners);
+
+        property.copyInto(c);
+        garage.copyInto(c);
+        house.copyInto(c);
+        apartment.copyInto(c);
+        owners.copyInto(c);
+        written.get("property").add(property.rows());
+        written.get("garage").add(garage.rows());
+        written.get("house").add(house.rows());
+        written.get("apartment").add(apartment.rows());
+        written.get("property_owner").add(owners.rows());
+    }
+
+    private void submit(ExecutorService pool, List<Future<?>> phase, long first, long last, Chunk chunk) {
+        for (long from = first; from <= last; from += config.chunkRows()) {
+            long start = from;
+            long end = Math.min(last, from + config.chunkRows() - 1);
+            phase.add(pool.submit(() -> {
+                try (Connection c = Db.getConnection()) {
+                    c.setAutoCommit(false);
+                    chunk.load(c, start, end);
+                    c.commit();
+                }
+                return null;
+            }));
+        }
+    }
+
+    private void await(List<Future<?>> phase, String tables) throws SQLException, IOException, InterruptedException {
+        try {
+            for (Future<?> f : phase) f.get();
+        } catch (ExecutionException ex) {
+            for (Future<?> f : phase) f.cancel(true);
+            if (ex.getCause() instanceof SQLException sql) throw sql;
+            if (ex.getCause() instanceof IOException io) throw io;
+            throw new IllegalStateException(ex.getCause());
+        }
+        phase.clear();
+        long ms = (System.nanoTime() - phaseStarted) / 1_000_000;
+        LOG.info(() -> "Generated " + tables + " (" + ms + " ms)");
+        phaseStarted = System.nanoTime();
+    }
+}
@@ -0,0 +1,11 @@
+package org.example.datagen;
+
+import java.util.Map;
+
+/** Rows written per table, in load order. */
+public record GenerationResult(Map<String, Long> rows, long elapsedNanos) {
+
+    public long totalRows() {
+        return rows.values().stream().mapToLong(Long::longValue).sum();
+    }
+}
@@ -0,0 +1,18 @@
+package org.example.datagen;
+
+/**
+ * seed fixes every generated value: the same seed and sizes always give the same rows, whatever
+ * the thread count. citySkew is the Zipf exponent of city popularity (0 = uniform, ~1 = a capital
+ * with about a third of the stock); luxuryShare of the properties get a Pareto(luxuryAlpha)
+ * price multiplier, so a smaller alpha means a heavier tail. chunkRows is the number of rows per
+ * COPY transaction.
+ */
+public record GeneratorConfig(long seed, Sizes sizes, int threads, int chunkRows,
+                              double citySkew, double luxuryShare, double luxuryAlpha,
+                              int dealMonths, boolean truncate) {
+
+    public static GeneratorConfig defaults(Sizes sizes) {
+        return new GeneratorConfig(42, sizes, Math.max(1, Runtime.getRuntime().availableProcessors()),
+                50_000, 1.1, 0.03, 1.5, 24, false);
+    }
+}
@@ -0,0 +1,30 @@
+package org.example.datagen;
+
+/**
+ * Row counts per table. Clients take person ids 1..clients and agents the next agents ids; every
+ * property has one subtype row and one or two owners, one property in four is sold.
+ */
+public record Sizes(long persons, long clients, long agents, long properties,
+                    long listings, long preferences, long deals) {
+
+    /** Rows per property across all tables, for {@link #forRows}. */
+    private static final double ROWS_PER_PROPERTY = 0.5 + 0.2 + 0.01 + 1 + 1 + 1.1 + 0.7 + 0.3 + 0.25;
+
+    public static Sizes forProperties(long properties) {
+        long p = Math.max(10, properties);
+        long persons = Math.max(20, p / 2);
+        long clients = Math.max(1, persons * 2 / 5);
+        long agents = Math.max(1, persons / 50);
+        return new Sizes(persons, clients, agents, p, p * 7 / 10, clients * 3 / 2, p / 4);
+    }
+
+    /** Sizes whose total over all tables is about {@code rows}. */
+    public static Sizes forRows(long rows) {
+        return forProperties(Math.round(rows / ROWS_PER_PROPERTY));
+    }
+
+    /** Approximate, as co-owners are drawn at random. */
+    public long totalRows() {
+        return persons + clients + agents + 2 * properties + properties * 11 / 10 + listings + preferences + deals;
+    }
+}
@@ -0,0 +1,218 @@
+package org.example.datagen;
+
+import java.math.BigInteger;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * Row contents. Every row draws from its own SplittableRandom, seeded from the run seed, the
+ * table and the row id, so a row can be generated (or regenerated: a deal reads the price of its
+ * property) anywhere without coordination between threads.
+ *
+ * Deals sell distinct properties: deal j sells property 1 + (j - 1) * stride mod properties, with
+ * stride coprime to properties, and the inverse of that permutation tells a property whether it
+ * is sold while it is generated, so is_sold needs no second pass.
+ */
+final class SyntheticRows {
+
+    private record City(String name, double lat, double lon, int pricePerSqm) {}
+
+    /** Most popular first; citySkew decides how much more popular. */
+    private static final City[] CITIES = {
+            new City("Sofia", 42.6977, 23.3219, 2400),
+            new City("Plovdiv", 42.1354, 24.7453, 1500),
+            new City("Varna", 43.2141, 27.9147, 1700),
+            new City("Burgas", 42.5048, 27.4626, 1500),
+            new City("Ruse", 43.8356, 25.9657, 1000),
+            new City("Stara Zagora", 42.4258, 25.6345, 950),
+            new City("Pleven", 43.4170, 24.6067, 800),
+            new City("Veliko Tarnovo", 43.0757, 25.6172, 1000),
+            new City("Blagoevgrad", 42.0209, 23.0943, 900),
+            new City("Sliven", 42.6817, 26.3229, 700),
+            new City("Shumen", 43.2712, 26.9361, 750),
+            new City("Dobrich", 43.5726, 27.8273, 650),
+            new City("Pernik", 42.6052, 23.0378, 700),
+            new City("Haskovo", 41.9344, 25.5554, 650),
+            new City("Pazardzhik", 42.1928, 24.3336, 650),
+            new City("Yambol", 42.4842, 26.5035, 600),
+            new City("Gabrovo", 42.8742, 25.3187, 600),
+            new City("Vratsa", 43.2102, 23.5529, 550),
+            new City("Bansko", 41.8383, 23.4885, 1300),
+            new City("Sozopol", 42.4167, 27.6950, 1800)
+    };
+    private static final String[] AREAS = {"Center", "North", "South", "East", "West", "Old Town", "Seaside", "Hills"};
+    private static final String[] FIRST_NAMES = {
+            "Ivan", "Maria", "Nikolay", "Elena", "George", "Ana", "Petar", "Dimitar", "Yana", "Stefan",
+            "Desislava", "Hristo", "Viktoria", "Todor", "Radostina", "Kaloyan", "Mila", "Boris", "Teodora", "Martin"
+    };
+    private static final String[] LAST_NAMES = {
+            "Petrov", "Georgieva", "Dimitrov", "Koleva", "Stoyanov", "Ivanova", "Nedev", "Todorov", "Angelova",
+            "Nikolov", "Hristova", "Popov", "Marinova", "Vasilev", "Atanasova", "Iliev", "Pavlova", "Kostov"
+    };
+    private static final String[] PREFERENCES = {
+            "apartment", "house", "garage", "near metro", "new build", "sea view", "garden", "parking",
+            "two bathrooms", "top floor", "quiet street", "near school"
+    };
+    private static final String[] NOTES = {"renovated", "needs renovation", "furnished", "with parking", "price negotiable"};
+    private static final LocalDate FIRST_HIRE = LocalDate.of(2005, 1, 1);
+
+    // row tags mixed into the per-row seed
+    private static final long PERSON = 1, CLIENT = 2, AGENT = 3, PROPERTY = 4, LISTING = 5, PREFERENCE = 6, DEAL = 7;
+
+    record PropertyRow(long id, long price, int squareMeters, double latitude, double longitude, String city,
+                       String type, long ownerId, boolean sold, SplittableRandom rest) {}
+
+    private final GeneratorConfig config;
+    private final Sizes sizes;
+    private final Zipf cities;
+    private final Zipf agents;
+    private final long stride;
+    private final long strideInverse;
+    private final LocalDate today = LocalDate.now();
+
+    SyntheticRows(GeneratorConfig config) {
+        this.config = config;
+        this.sizes = config.sizes();
+        this.cities = new Zipf(CITIES.length, config.citySkew());
+        this.agents = new Zipf((int) Math.min(Integer.MAX_VALUE, sizes.agents()), 1.0);
+        long n = sizes.properties();
+        long s = (long) (n * 0.6180339887) | 1;
+        while (BigInteger.valueOf(s).gcd(BigInteger.valueOf(n)).longValue() != 1) s++;
+        this.stride = s % n;
+        this.strideInverse = BigInteger.valueOf(stride).modInverse(BigInteger.valueOf(n)).longValue();
+    }
+
+    LocalDate firstDealDate() {
+        return today.minusMonths(config.dealMonths());
+    }
+
+    void person(long id, CopyBuffer out) {
+        SplittableRandom r = random(PERSON, id);
+        String first = FIRST_NAMES[r.nextInt(FIRST_NAMES.length)];
+        String last = LAST_NAMES[r.nextInt(LAST_NAMES.length)];
+        out.add(id).add(first).add(last)
+                .add(first.toLowerCase() + "." + last.toLowerCase() + id + "@example.com")
+                .add("+359" + (87 + r.nextInt(3)) + String.format(Locale.ROOT, "%07d", r.nextInt(10_000_000)));
+        out.endRow();
+    }
+
+    void client(long id, CopyBuffer out) {
+        SplittableRandom r = random(CLIENT, id);
+        City city = CITIES[cities.sample(r)];
+        long budget = Math.round(city.pricePerSqm() * (40 + r.nextInt(120)) / 1000.0) * 1000;
+        out.add(id).add(budget).add(city.name() + " - " + AREAS[r.nextInt(AREAS.length)]);
+        out.endRow();
+    }
+
+    void agent(long id, CopyBuffer out) {
+        SplittableRandom r = random(AGENT, id);
+        out.add(id).add(1500 + r.nextInt(45) * 100)
+                .add(FIRST_HIRE.plusDays(r.nextLong(ChronoUnit.DAYS.between(FIRST_HIRE, today))));
+        out.endRow();
+    }
+
+    PropertyRow property(long id) {
+        SplittableRandom r = random(PROPERTY, id);
+        City city = CITIES[cities.sample(r)];
+        double u = r.nextDouble();
+        String type = u < 0.6 ? "apartment" : u < 0.9 ? "house" : "garage";
+        int sqm = switch (type) {
+            case "apartment" -> 35 + r.nextInt(90);
+            case "house" -> 80 + r.nextInt(220);
+            default -> 12 + r.nextInt(20);
+        };
+        double price = sqm * city.pricePerSqm() * (0.8 + 0.4 * r.nextDouble());
+        if (r.nextDouble() < config.luxuryShare()) {
+            // Pareto(alpha) with minimum 1, capped so one draw cannot dominate every aggregate
+            price *= Math.min(100, Math.pow(1 - r.nextDouble(), -1 / config.luxuryAlpha()));
+        }
+        double lat = clamp(city.lat() + r.nextGaussian() * 0.03, -90, 90);
+        double lon = clamp(city.lon() + r.nextGaussian() * 0.04, -180, 180);
+        long owner = 1 + r.nextLong(sizes.persons());
+        boolean sold = Math.floorMod((id - 1) * strideInverse, sizes.properties()) < sizes.deals();
+        return new PropertyRow(id, Math.round(price / 100) * 100, sqm, lat, lon, city.name(), type, owner, sold, r);
+    }
+
+    /** The property row, its subtype row and its owners, one buffer each. */
+    void property(long id, CopyBuffer property, CopyBuffer garage, CopyBuffer house, CopyBuffer apartment,
+                  CopyBuffer owners) {
+        PropertyRow p = property(id);
+        property.add(id).add(p.price()).add(p.squareMeters())
+                .add(p.latitude()).add(p.longitude())
+                .add(p.city()).add(p.type()).add(p.ownerId()).add(p.sold() ? "t" : "f");
+        property.endRow();
+
+        SplittableRandom r = p.rest();
+        switch (p.type()) {
+            case "garage" -> {
+                garage.add(id);
+                garage.endRow();
+            }
+            case "house" -> {
+                house.add(id).add(1 + r.nextInt(3)).add(r.nextInt(100) < 20 ? 0 : 50 + r.nextInt(750))
+                        .add(1 + r.nextInt(3)).add(3 + r.nextInt(6));
+                house.endRow();
+            }
+            default -> {
+                apartment.add(id).add(r.nextInt(16)).add(1 + r.nextInt(2)).add(1 + r.nextInt(5));
+                apartment.endRow();
+            }
+        }
+
+        owners.add(p.ownerId()).add(id);
+        owners.endRow();
+        if (sizes.persons() > 1 && r.nextInt(10) == 0) {
+            long coOwner = 1 + (p.ownerId() + r.nextLong(sizes.persons() - 1)) % sizes.persons();
+            owners.add(coOwner).add(id);
+            owners.endRow();
+        }
+    }
+
+    void listing(long id, CopyBuffer out) {
+        SplittableRandom r = random(LISTING, id);
+        City city = CITIES[cities.sample(r)];
+        String kind = r.nextInt(10) < 7 ? "sale" : "rent";
+        int rooms = 1 + r.nextInt(5);
+        out.add(id).add(kind)
+                .add(rooms + "-room " + (r.nextBoolean() ? "apartment" : "house") + " in " + city.name()
+                        + " " + AREAS[r.nextInt(AREAS.length)] + ", " + (30 + r.nextInt(200)) + " m2")
+                .add(r.nextInt(3) == 0 ? NOTES[r.nextInt(NOTES.length)] : null);
+        out.endRow();
+    }
+
+    void preference(long id, CopyBuffer out) {
+        SplittableRandom r = random(PREFERENCE, id);
+        out.add(id).add(1 + r.nextLong(sizes.clients())).add(PREFERENCES[r.nextInt(PREFERENCES.length)]);
+        out.endRow();
+    }
+
+    /** Agents are Zipf-ranked too: a few top agents close most deals. */
+    void deal(long id, CopyBuffer out) {
+        SplittableRandom r = random(DEAL, id);
+        long propertyId = 1 + Math.floorMod((id - 1) * stride, sizes.properties());
+        long listPrice = property(propertyId).price();
+        LocalDate date = today.minusDays(r.nextLong(Math.max(1, ChronoUnit.DAYS.between(firstDealDate(), today))));
+        long finalPrice = Math.round(listPrice * (0.9 + 0.12 * r.nextDouble()) / 100) * 100;
+        long agent = sizes.clients() + 1 + agents.sample(r);
+        long client = 1 + r.nextLong(sizes.clients());
+        out.add(id).add(date).add(propertyId).add(finalPrice).add(agent).add(client);
+        out.endRow();
+    }
+
+    private SplittableRandom random(long table, long id) {
+        return new SplittableRandom(mix(config.seed() ^ mix(table * 0x9E3779B97F4A7C15L + id)));
+    }
+
+    /** SplitMix64 finalizer. */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static double clamp(double v, double min, double max) {
+        return Math.max(min, Math.min(max, v));
+    }
+}
@@ -0,0 +1,25 @@
+package org.example.datagen;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/** Zipf-distributed ranks 0..n-1: rank k is drawn with weight 1 / (k + 1)^s. */
+final class Zipf {
+
+    private final double[] cumulative;
+
+    Zipf(int n, double s) {
+        cumulative = new double[n];
+        double sum = 0;
+        for (int k = 0; k < n; k++) {
+            sum += 1 / Math.pow(k + 1, s);
+            cumulative[k] = sum;
+        }
+        for (int k = 0; k < n; k++) cumulative[k] /= sum;
+    }
+
+    int sample(RandomGenerator r) {
+        int i = Arrays.binarySearch(cumulative, r.nextDouble());
+        return Math.min(cumulative.length - 1, i >= 0 ? i : -i - 1);
+    }
+}
@@ -0,0 +1,313 @@
+package org.example.db;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The columns of one table that a {@link RowQuery} may filter and sort on, each with the SQL it
+ * stands for. Queries name columns only by these names, so nothing typed into the UI becomes SQL
+ * text: an unknown name is an IllegalArgumentException and every value is a bind parameter.
+ *
+ * Rows come in sort column order, then key order. Nulls come last ascending and first
+ * descending, the way a plain btree index on (column, key) returns them, so one index serves
+ * both directions. Pages are read by keyset on (column, key) after the previous page's last row.
+ */
+public final class ColumnModel<R> {
+
+    public enum Kind { INTEGER, DECIMAL, TEXT, DATE }
+
+    @FunctionalInterface
+    public interface RowMapper<R> {
+        R map(ResultSet rs) throws SQLException;
+    }
+
+    private record Column<R>(String sql, Kind kind, boolean nullable, Function<R, ?> value) {}
+
+    // a statement with its bind values in order
+    record Sql(String text, List<Object> params) {}
+
+    private static final Pattern PLAN_ROWS = Pattern.compile("rows=(\\d+)");
+
+    private final String table;
+    private final String select;
+    private final String keySql;
+    private final ToLongFunction<R> key;
+    private final Map<String, Column<R>> columns = new LinkedHashMap<>();
+
+    /** select is the column list every query reads; keySql the table's unique key. */
+    public ColumnModel(String table, String select, String keySql, ToLongFunction<R> key) {
+        this.table = table;
+        this.select = select;
+        this.keySql = keySql;
+        this.key = key;
+    }
+
+    /** Adds a column the UI may use; sql must be a constant. Called while the DAO class loads. */
+    public ColumnModel<R> add(String name, String sql, Kind kind, boolean nullable, Function<R, ?> value) {
+        columns.put(name, new Column<>(sql, kind, nullable, value));
+        return this;
+    }
+
+    public Set<String> names() {
+        return columns.keySet();
+    }
+
+    /**
+     * Reads a filter field: an optional =, &lt;, &lt;=, &gt; or &gt;= followed by a value of the
+     * column's kind; on text columns a trailing * matches a prefix, and numbers may end in k or m
+     * (thousands, millions). IllegalArgumentException says what was wrong.
+     */
+    public RowQuery.Filter filter(String name, String text) {
+        Column<R> c = column(name);
+        String t = text.trim();
+        RowQuery.Op op = RowQuery.Op.EQ;
+        if (t.startsWith(">=")) op = RowQuery.Op.GE;
+        else if (t.startsWith("<=")) op = RowQuery.Op.LE;
+        else if (t.startsWith(">")) op = RowQuery.Op.GT;
+        else if (t.startsWith("<")) op = RowQuery.Op.LT;
+        if (op != RowQuery.Op.EQ) t = t.substring(op == RowQuery.Op.GT || op == RowQuery.Op.LT ? 1 : 2).trim();
+        else if (t.startsWith("=")) t = t.substring(1).trim();
+        if (c.kind() == Kind.TEXT && op == RowQuery.Op.EQ && t.endsWith("*")) {
+            op = RowQuery.Op.PREFIX;
+            t = t.substring(0, t.length() - 1);
+        }
+        if (t.isEmpty()) throw new IllegalArgumentException("a value is missing");
+        try {
+            Object value = switch (c.kind()) {
+                case INTEGER -> Long.parseLong(t);
+                case DECIMAL -> decimal(t);
+                case TEXT -> t;
+                case DATE -> LocalDate.parse(t);
+            };
+            return new RowQuery.Filter(name, op, value);
+        } catch (NumberFormatException | DateTimeParseException ex) {
+            throw new IllegalArgumentException(switch (c.kind()) {
+                case INTEGER -> "'" + t + "' is not a whole number";
+                case DECIMAL -> "'" + t + "' is not a number";
+                case DATE -> "'" + t + "' is not a date (yyyy-mm-dd)";
+                case TEXT -> "'" + t + "' is not valid";
+            });
+        }
+    }
+
+    private static BigDecimal decimal(String t) {
+        char unit = Character.toLowerCase(t.charAt(t.length() - 1));
+        if (unit == 'k') return new BigDecimal(t.substring(0, t.length() - 1).trim()).scaleByPowerOfTen(3);
+        if (unit == 'm') return new BigDecimal(t.substring(0, t.length() - 1).trim()).scaleByPowerOfTen(6);
+        return new BigDecimal(t);
+    }
+
+    /** All matching rows, in the query's order. */
+    public List<R> findAll(RowQuery q, RowMapper<R> map) throws SQLException {
+        Sql where = where(q.filters(), null);
+        try (Connection c = Db.getConnection()) {
+            return query(c, where, orderBy(q.sort()), 0, -1, map);
+        }
+    }
+
+    /**
+     * Up to limit matching rows that come after the row after (from the start when it is null),
+     * in the query's order, skipping the first skip of them. Keyset paging: pass the last row of
+     * the previous page and skip 0; skip only bridges pages the caller has not loaded.
+     */
+    public List<R> findPage(RowQuery q, R after, int skip, int limit, RowMapper<R> map) throws SQLException {
+        String order = orderBy(q.sort());
+        List<Sql> keyset = after == null ? List.of() : after(q.sort(), after);
+        try (Connection c = Db.getConnection()) {
+            if (keyset.isEmpty()) return query(c, where(q.filters(), null), order, skip, limit, map);
+            if (keyset.size() == 1 || skip > 0) {
+                // one statement; ORed keyset conditions cannot seek an index, but a skip reads through rows anyway
+                return query(c, where(q.filters(), or(keyset)), order, skip, limit, map);
+            }
+            // the rows past the last non-null sort value, then the nulls; each part seeks its index
+            List<R> out = query(c, where(q.filters(), keyset.get(0)), order, 0, limit, map);
+            if (out.size() < limit) {
+                out.addAll(query(c, where(q.filters(), keyset.get(1)), order, 0, limit - out.size(), map));
+            }
+            return out;
+        }
+    }
+
+    /**
+     * Matching row count: the table's planner statistics without filters, else the planner's
+     * estimate for the filtered scan. Good enough to size a scrollbar.
+     */
+    public long estimateCount(RowQuery q) throws SQLException {
+        if (q.filters().isEmpty()) return Db.estimateRowCount(table);
+        Sql where = where(q.filters(), null);
+        try (Connection c = Db.getConnection();
+             PreparedStatement ps = c.prepareStatement("EXPLAIN SELECT 1 FROM " + table + where.text())) {
+            bind(ps, where.params());
+            try (ResultSet rs = ps.executeQuery()) {
+                Matcher m = rs.next() ? PLAN_ROWS.matcher(rs.getString(1)) : null;
+                return m != null && m.find() ? Long.parseLong(m.group(1)) : 0;
+            }
+        }
+    }
+
+    /** {@link #findAll(RowQuery, RowMapper)} over rows in memory (offline mode). */
+    public List<R> findAll(List<R> rows, RowQuery q) {
+        return rows.stream().filter(matches(q)).sorted(order(q.sort())).toList();
+    }
+
+    /** {@link #findPage(RowQuery, Object, int, int, RowMapper)} over rows in memory (offline mode). */
+    public List<R> findPage(List<R> rows, RowQuery q, R after, int skip, int limit) {
+        Comparator<R> order = order(q.sort());
+        return rows.stream()
+                .filter(matches(q))
+                .filter(r -> after == null || order.compare(r, after) > 0)
+                .sorted(order)
+                .skip(skip)
+                .limit(limit)
+                .toList();
+    }
+
+    private Column<R> column(String name) {
+        Column<R> c = columns.get(name);
+        if (c == null) throw new IllegalArgumentException("No column " + name + " in " + table);
+        return c;
+    }
+
+    private boolean sortsByKey(RowQuery.Sort sort) {
+        return sort == null || column(sort.column()).sql().equals(keySql);
+    }
+
+    private String orderBy(RowQuery.Sort sort) {
+        String dir = sort != null && sort.descending() ? " DESC" : "";
+        if (sortsByKey(sort)) return " ORDER BY " + keySql + dir;
+        return " ORDER BY " + column(sort.column()).sql() + dir + ", " + keySql + dir;
+    }
+
+    // the rows after this one in sort order, as one or two conditions to be tried in turn
+    List<Sql> after(RowQuery.Sort sort, R row) {
+        long k = key.applyAsLong(row);
+        String cmp = sort != null && sort.descending() ? " < " : " > ";
+        if (sortsByKey(sort)) return List.of(new Sql(keySql + cmp + "?", List.of(k)));
+
+        Column<R> c = column(sort.column());
+        Object v = c.value().apply(row);
+        if (v != null) {
+            Sql past = new Sql("(" + c.sql() + ", " + keySql + ")" + cmp + "(?, ?)", List.of(v, k));
+            if (sort.descending() || !c.nullable()) return List.of(past);
+            return List.of(past, new Sql(c.sql() + " IS NULL", List.of()));
+        }
+        Sql nulls = new Sql(c.sql() + " IS NULL AND " + keySql + cmp + "?", List.of(k));
+        if (!sort.descending()) return List.of(nulls);
+        return List.of(nulls, new Sql(c.sql() + " IS NOT NULL", List.of()));
+    }
+
+    private static Sql or(List<Sql> parts) {
+        List<String> text = new ArrayList<>();
+        List<Object> params = new ArrayList<>();
+        for (Sql p : parts) {
+            text.add("(" + p.text() + ")");
+            params.addAll(p.params());
+        }
+        return new Sql(String.join(" OR ", text), params);
+    }
+
+    private Sql where(List<RowQuery.Filter> filters, Sql extra) {
+        List<String> text = new ArrayList<>();
+        List<Object> params = new ArrayList<>();
+        for (RowQuery.Filter f : filters) {
+            Column<R> c = column(f.column());
+            Object value = f.value();
+            switch (f.op()) {
+                case EQ -> text.add(c.sql() + " = ?");
+                case LT -> text.add(c.sql() + " < ?");
+                case LE -> text.add(c.sql() + " <= ?");
+                case GT -> text.add(c.sql() + " > ?");
+                case GE -> text.add(c.sql() + " >= ?");
+                case PREFIX -> {
+                    text.add(c.sql() + " LIKE ?");
+                    value = value.toString().replaceAll("[\\\\%_]", "\\\\$0") + "%";
+                }
+            }
+            params.add(value);
+        }
+        if (extra != null) {
+            text.add("(" + extra.text() + ")");
+            params.addAll(extra.params());
+        }
+        return new Sql(text.isEmpty() ? "" : " WHERE " + String.join(" AND ", text), params);
+    }
+
+    private List<R> query(Connection c, Sql where, String orderBy, int skip, int limit, RowMapper<R> map)
+            throws SQLException {
+        String sql = "SELECT " + select + " FROM " + table + where.text() + orderBy
+                + (limit < 0 ? "" : " OFFSET ? LIMIT ?");
+        try (PreparedStatement ps = c.prepareStatement(sql)) {
+            int i = bind(ps, where.params());
+            if (limit >= 0) {
+                ps.setInt(i++, skip);
+                ps.setInt(i, limit);
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                List<R> out = new ArrayList<>(limit < 0 ? 16 : limit);
+                while (rs.next()) {
+                    out.add(map.map(rs));
+                }
+                return out;
+            }
+        }
+    }
+
+    private static int bind(PreparedStatement ps, List<Object> params) throws SQLException {
+        int i = 1;
+        for (Object p : params) ps.setObject(i++, p);
+        return i;
+    }
+
+    private Predicate<R> matches(RowQuery q) {
+        Predicate<R> all = r -> true;
+        for (RowQuery.Filter f : q.filters()) {
+            Column<R> c = column(f.column());
+            all = all.and(r -> {
+                Object v = c.value().apply(r);
+                if (v == null) return false;    // as in SQL, no comparison matches a null
+                return switch (f.op()) {
+                    case EQ -> compare(v, f.value()) == 0;
+                    case LT -> compare(v, f.value()) < 0;
+                    case LE -> compare(v, f.value()) <= 0;
+                    case GT -> compare(v, f.value()) > 0;
+                    case GE -> compare(v, f.value()) >= 0;
+                    case PREFIX -> v.toString().startsWith(f.value().toString());
+                };
+            });
+        }
+        return all;
+    }
+
+    private Comparator<R> order(RowQuery.Sort sort) {
+        Comparator<R> byKey = Comparator.comparingLong(key);
+        Comparator<R> asc = byKey;
+        if (!sortsByKey(sort)) {
+            Function<R, ?> value = column(sort.column()).value();
+            Comparator<Object> values = Comparator.nullsLast(ColumnModel::compare);
+            asc = Comparator.<R, Object>comparing(value::apply, values).thenComparing(byKey);
+        }
+        return sort != null && sort.descending() ? asc.reversed() : asc;
+    }
+
+    // column values and parsed filter values of one kind share a type (Long, BigDecimal, String, LocalDate)
+    @SuppressWarnings("unchecked")
+    private static int compare(Object a, Object b) {
+        return ((Comparable<Object>) a).compareTo(b);
+    }
+}
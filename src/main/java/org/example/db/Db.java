@@ -1,20 +1,81 @@
 package org.example.db;
 
+import org.example.metrics.DaoMetrics;
+import org.example.offline.OfflineEngine;
+
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Properties;
 
 public final class Db {
 
+    // -Ddb.url / -Ddb.user / -Ddb.password override these (benchmarks and tools point at other databases)
     private static final String URL =
-            "jdbc:postgresql://localhost:5432/REALESTATEDB";
-    private static final String USER = "postgres";
-    private static final String PASS = "4321";
+            System.getProperty("db.url", "jdbc:postgresql://localhost:5432/REALESTATEDB");
+    private static final String USER = System.getProperty("db.user", "postgres");
+    private static final String PASS = System.getProperty("db.password", "4321");
 
     private Db() {}
 
+    public static String url() {
+        return URL;
+    }
+
+    /** user and password as driver properties, for code that opens its own connections (pools, benchmarks). */
+    public static Properties properties() {
+        Properties p = new Properties();
+        p.setProperty("user", USER);
+        p.setProperty("password", PASS);
+        return p;
+    }
+
+    private static final boolean METRICS = DaoMetrics.enabled();
+
+    /**
+     * A connection failure also switches the app to offline mode; the caller still gets the exception.
+     * The connection is instrumented for DaoMetrics unless -Ddao.metrics=false.
+     */
     public static Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(URL, USER, PASS);
+        try {
+            if (METRICS) return DaoMetrics.shared().connect(() -> DriverManager.getConnection(URL, USER, PASS));
+            return DriverManager.getConnection(URL, USER, PASS);
+        } catch (SQLException ex) {
+            if (!OfflineEngine.enabled() || !OfflineEngine.isConnectionFailure(ex)) throw ex;
+            OfflineEngine.shared().connectionLost(ex);
+            throw new SQLException("Database unreachable; working offline, changes will be sent when it is back",
+                    ex.getSQLState(), ex);
+        }
+    }
+
+    /**
+     * The planner's row count for a table, summed over its partitions; cheap and stable between
+     * ANALYZE runs. Falls back to count(*) for a table that was never analyzed.
+     */
+    public static long estimateRowCount(String table) throws SQLException {
+        String sql = """
+            SELECT sum(c.reltuples)::bigint, bool_or(c.reltuples < 0)
+            FROM pg_class c
+            WHERE c.relkind <> 'p'
+              AND (c.oid = ?::regclass
+                   OR c.oid IN (SELECT inhrelid FROM pg_inherits WHERE inhparent = ?::regclass))
+        """;
+        try (Connection c = getConnection()) {
+            try (PreparedStatement ps = c.prepareStatement(sql)) {
+                ps.setString(1, table);
+                ps.setString(2, table);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next() && rs.getObject(1) != null && !rs.getBoolean(2)) return rs.getLong(1);
+                }
+            }
+            // table name is a constant from the calling DAO, never user input
+            try (PreparedStatement ps = c.prepareStatement("SELECT count(*) FROM " + table);
+                 ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return rs.getLong(1);
+            }
+        }
     }
 }
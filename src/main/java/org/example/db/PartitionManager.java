@@ -0,0 +1,175 @@
+package org.example.db;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Monthly range partitions of successful_deals, named successful_deals_yYYYYmMM.
+ *
+ * Partitions are created ahead of time on startup and on demand before a deal for a month
+ * without one is written. Old months can be detached: the table stays in the database as a
+ * plain table (archive), but reports and deal lookups no longer see it.
+ *
+ * DDL runs on its own autocommit connection so the lock on the parent table is held only for
+ * the statement, not for the caller's transaction.
+ */
+public final class PartitionManager {
+
+    /** Months created ahead of the current one by {@link #maintain()}. */
+    public static final int MONTHS_AHEAD = 3;
+
+    /** When set (e.g. -Ddeals.retentionMonths=36), {@link #maintain()} detaches older months. */
+    public static final String RETENTION_PROPERTY = "deals.retentionMonths";
+
+    private static final Logger LOG = Logger.getLogger(PartitionManager.class.getName());
+    private static final String PARENT = "successful_deals";
+    private static final DateTimeFormatter NAME = DateTimeFormatter.ofPattern("'successful_deals_y'uuuu'm'MM");
+
+    private static final Set<YearMonth> known = ConcurrentHashMap.newKeySet();
+
+    private PartitionManager() {}
+
+    public static String partitionName(YearMonth month) {
+        return NAME.format(month.atDay(1));
+    }
+
+    /** Creates the partition holding this date unless it is already known to exist. */
+    public static void ensurePartitionFor(LocalDate date) throws SQLException {
+        YearMonth month = YearMonth.from(date);
+        if (known.contains(month)) return;
+        try (Connection c = Db.getConnection()) {
+            create(c, month);
+        }
+    }
+
+    /** Creates partitions from the current month through monthsAhead months later. */
+    public static void ensureUpcoming(int monthsAhead) throws SQLException {
+        YearMonth now = YearMonth.now();
+        try (Connection c = Db.getConnection()) {
+            for (int i = 0; i <= monthsAhead; i++) {
+                YearMonth m = now.plusMonths(i);
+                if (!known.contains(m)) create(c, m);
+            }
+        }
+    }
+
+    /** Months that currently have an attached partition, oldest first. */
+    public static List<YearMonth> attachedMonths() throws SQLException {
+        String sql = """
+            SELECT c.relname
+            FROM pg_inherits i
+            INNER JOIN pg_class c ON c.oid = i.inhrelid
+            WHERE i.inhparent = 'successful_deals'::regclass
+            ORDER BY c.relname
+        """;
+        try (Connection c = Db.getConnection();
+             PreparedStatement ps = c.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+
+            List<YearMonth> out = new ArrayList<>();
+            while (rs.next()) {
+                YearMonth m = parse(rs.getString(1));
+                if (m != null) out.add(m);
+            }
+            known.addAll(out);
+            return out;
+        }
+    }
+
+    /**
+     * Detaches every partition for a month before the one containing cutoff.
+     * Returns the names of the detached tables.
+     */
+    public static List<String> detachOlderThan(LocalDate cutoff) throws SQLException {
+        YearMonth keepFrom = YearMonth.from(cutoff);
+        List<String> detached = new ArrayList<>();
+        for (YearMonth m : attachedMonths()) {
+            if (!m.isBefore(keepFrom)) break;
+            String name = partitionName(m);
+            try (Connection c = Db.getConnection();
+                 Statement st = c.createStatement()) {
+                st.execute("ALTER TABLE " + PARENT + " DETACH PARTITION " + name);
+            }
+            known.remove(m);
+            detached.add(name);
+        }
+        return detached;
+    }
+
+    /**
+     * Startup housekeeping: makes sure the coming months have partitions and applies the
+     * retention setting, if any. Failures are logged; deal inserts still create their own partition.
+     */
+    public static void maintain() {
+        try {
+            attachedMonths();
+            ensureUpcoming(MONTHS_AHEAD);
+
+            Integer retention = Integer.getInteger(RETENTION_PROPERTY);
+            if (retention != null && retention > 0) {
+                List<String> detached = detachOlderThan(LocalDate.now().minusMonths(retention));
+                if (!detached.isEmpty()) LOG.info("Detached deal partitions: " + detached);
+            }
+        } catch (SQLException ex) {
+            LOG.log(Level.WARNING, "Deal partition maintenance failed", ex);
+        }
+    }
+
+    /**
+     * IF NOT EXISTS also succeeds when a plain table of that name is left over, e.g. a detached
+     * (archived) month, and inserts would then fail with no partition found. So the result is
+     * checked in pg_inherits: an archived month is not reattached behind the user's back.
+     */
+    private static void create(Connection c, YearMonth month) throws SQLException {
+        String name = partitionName(month);
+        String sql = "CREATE TABLE IF NOT EXISTS " + name
+                + " PARTITION OF " + PARENT
+                + " FOR VALUES FROM ('" + month.atDay(1) + "') TO ('" + month.plusMonths(1).atDay(1) + "')";
+        try (Statement st = c.createStatement()) {
+            st.execute(sql);
+        }
+        if (!isAttached(c, name)) {
+            throw new SQLException("Table " + name + " exists but is not a partition of " + PARENT
+                    + " (a detached archive month?); reattach it with ALTER TABLE " + PARENT + " ATTACH PARTITION "
+                    + name + " FOR VALUES FROM ('" + month.atDay(1) + "') TO ('" + month.plusMonths(1).atDay(1)
+                    + "') or rename it");
+        }
+        known.add(month);
+    }
+
+    private static boolean isAttached(Connection c, String name) throws SQLException {
+        String sql = """
+            SELECT EXISTS (
+                SELECT 1 FROM pg_inherits
+                WHERE inhrelid = to_regclass(?) AND inhparent = 'successful_deals'::regclass
+            )
+        """;
+        try (PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setString(1, name);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    private static YearMonth parse(String relname) {
+        try {
+            return YearMonth.from(NAME.parse(relname));
+        } catch (DateTimeParseException ex) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package org.example.db;
+
+import java.util.List;
+
+/**
+ * Filters and a sort for a table's rows, run by the database through the table's
+ * {@link ColumnModel}. Columns are named as in the model; filters are ANDed. A null sort means
+ * key order.
+ */
+public record RowQuery(List<Filter> filters, Sort sort) {
+
+    public static final RowQuery ALL = new RowQuery(List.of(), null);
+
+    /** PREFIX is for text columns: the value is matched as the start of the column. */
+    public enum Op { EQ, LT, LE, GT, GE, PREFIX }
+
+    public record Filter(String column, Op op, Object value) {}
+
+    public record Sort(String column, boolean descending) {}
+
+    public RowQuery {
+        filters = List.copyOf(filters);
+    }
+
+    public boolean isAll() {
+        return filters.isEmpty() && sort == null;
+    }
+}
@@ -0,0 +1,126 @@
+package org.example.export;
+
+import org.example.codec.BinaryReader;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/** Reads files written by {@link ColumnarWriter}. Column values come back as Long, Double, BigDecimal, LocalDate, Boolean or String. */
+public final class ColumnarReader {
+
+    private final MappedByteBuffer file;
+    private final String[] names;
+    private final byte[] types;
+    private final long[] groupOffsets;
+    private final long rowCount;
+
+    private ColumnarReader(MappedByteBuffer file) throws IOException {
+        this.file = file;
+        int size = file.capacity();
+        byte[] magic = new byte[ColumnarWriter.MAGIC.length];
+        file.get(0, magic);
+        byte[] tail = new byte[magic.length];
+        file.get(size - magic.length, tail);
+        if (!Arrays.equals(magic, ColumnarWriter.MAGIC) || !Arrays.equals(tail, ColumnarWriter.MAGIC)) {
+            throw new IOException("Not a complete columnar export file");
+        }
+
+        BinaryReader header = new BinaryReader(file.slice(magic.length, size - magic.length));
+        int n = (int) header.readVarLong();
+        names = new String[n];
+        types = new byte[n];
+        for (int i = 0; i < n; i++) {
+            names[i] = header.readString();
+            types[i] = (byte) header.readByte();
+        }
+
+        int footerOffset = (int) file.getLong(size - magic.length - 8);
+        BinaryReader footer = new BinaryReader(file.slice(footerOffset, size - footerOffset));
+        int groups = (int) footer.readVarLong();
+        groupOffsets = new long[groups];
+        long rows = 0;
+        for (int g = 0; g < groups; g++) {
+            groupOffsets[g] = footer.readLongFixed();
+            rows += footer.readVarLong();
+        }
+        rowCount = rows;
+    }
+
+    /** Files up to 2 GB; larger exports should be split. */
+    public static ColumnarReader open(Path path) throws IOException {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new ColumnarReader(ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size()));
+        }
+    }
+
+    public String[] columnNames() {
+        return names.clone();
+    }
+
+    public long rowCount() {
+        return rowCount;
+    }
+
+    /** Decodes one row group at a time and hands out rows in file order; the array is reused. */
+    public void forEachRow(Consumer<Object[]> consumer) {
+        int n = names.length;
+        Object[] row = new Object[n];
+        for (long offset : groupOffsets) {
+            int pos = (int) offset;
+            BinaryReader head = reader(pos);
+            int rows = (int) head.readVarLong();
+            pos += head.position();
+
+            Object[][] columns = new Object[n][];
+            for (int c = 0; c < n; c++) {
+                BinaryReader len = reader(pos);
+                int blockLength = (int) len.readVarLong();
+                pos += len.position();
+                columns[c] = decode(file.slice(pos, blockLength), types[c], rows);
+                pos += blockLength;
+            }
+            for (int r = 0; r < rows; r++) {
+                for (int c = 0; c < n; c++) row[c] = columns[c][r];
+                consumer.accept(row);
+            }
+        }
+    }
+
+    private BinaryReader reader(int pos) {
+        return new BinaryReader(file.slice(pos, file.capacity() - pos));
+    }
+
+    private static Object[] decode(ByteBuffer block, byte type, int rows) {
+        int bitmapBytes = (rows + 7) / 8;
+        byte[] nulls = new byte[bitmapBytes];
+        block.get(nulls);
+        BinaryReader in = new BinaryReader(block);
+
+        Object[] out = new Object[rows];
+        long previous = 0;
+        for (int r = 0; r < rows; r++) {
+            if ((nulls[r >>> 3] & (1 << (r & 7))) != 0) continue;
+            out[r] = switch (type) {
+                case ColumnarWriter.LONG -> previous += in.readSignedVarLong();
+                case ColumnarWriter.DOUBLE -> in.readDouble();
+                case ColumnarWriter.DECIMAL -> {
+                    int scale = (int) in.readSignedVarLong();
+                    yield new BigDecimal(new BigInteger(in.readByteArray()), scale);
+                }
+                case ColumnarWriter.DATE -> LocalDate.ofEpochDay(in.readSignedVarLong());
+                case ColumnarWriter.BOOLEAN -> in.readByte() != 0;
+                default -> in.readString();
+            };
+        }
+        return out;
+    }
+}
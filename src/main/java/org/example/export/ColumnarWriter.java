@@ -0,0 +1,187 @@
+package org.example.export;
+
+import org.example.codec.BinaryWriter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+
+/**
+ * Writes a result set as a compact binary columnar file (.col), one row group at a time.
+ *
+ * Layout (big-endian; varints as in {@link BinaryWriter}):
+ * <pre>
+ * "RECOL1\0\0"
+ * varint columnCount, then per column: string name, byte type
+ * row groups: varint rowCount, then per column: varint blockLength, block
+ * footer: varint groupCount, per group: long offset, varint rowCount
+ * long footerOffset, "RECOL1\0\0"
+ * </pre>
+ * A block is a null bitmap (bit i set = row i is null) followed by the non-null values:
+ * LONG as zig-zag varint delta to the previous value in the block (ids compress to ~1 byte),
+ * DOUBLE as 8 bytes, DECIMAL as varint scale + length-prefixed unscaled bytes, DATE as zig-zag
+ * varint epoch day, BOOLEAN as one byte, STRING as length-prefixed UTF-8.
+ *
+ * Only one row group is held in memory, so the file size does not bound memory use.
+ */
+final class ColumnarWriter implements RowSink {
+
+    static final byte[] MAGIC = "RECOL1\0\0".getBytes(StandardCharsets.US_ASCII);
+    static final int ROW_GROUP_SIZE = 65_536;
+
+    static final byte LONG = 1;
+    static final byte DOUBLE = 2;
+    static final byte DECIMAL = 3;
+    static final byte DATE = 4;
+    static final byte BOOLEAN = 5;
+    static final byte STRING = 6;
+
+    private final WritableByteChannel out;
+    private long written;
+
+    private byte[] types;
+    private BinaryWriter[] blocks;
+    private byte[][] nulls;
+    private long[] previous;
+    private int rows;
+
+    private final BinaryWriter groups = new BinaryWriter();
+    private int groupCount;
+
+    ColumnarWriter(WritableByteChannel out) {
+        this.out = out;
+    }
+
+    @Override
+    public void begin(ResultSetMetaData md) throws SQLException, IOException {
+        int n = md.getColumnCount();
+        types = new byte[n];
+        blocks = new BinaryWriter[n];
+        nulls = new byte[n][ROW_GROUP_SIZE / 8];
+        previous = new long[n];
+
+        BinaryWriter header = new BinaryWriter();
+        header.writeBytes(MAGIC, 0, MAGIC.length);
+        header.writeVarLong(n);
+        for (int i = 0; i < n; i++) {
+            types[i] = typeOf(md.getColumnType(i + 1));
+            blocks[i] = new BinaryWriter(1 << 16);
+            header.writeString(md.getColumnLabel(i + 1));
+            header.writeByte(types[i]);
+        }
+        write(header);
+    }
+
+    @Override
+    public void row(ResultSet rs) throws SQLException, IOException {
+        for (int i = 0; i < types.length; i++) {
+            BinaryWriter b = blocks[i];
+            int col = i + 1;
+            switch (types[i]) {
+                case LONG -> {
+                    long v = rs.getLong(col);
+                    if (rs.wasNull()) { markNull(i); break; }
+                    b.writeSignedVarLong(v - previous[i]);
+                    previous[i] = v;
+                }
+                case DOUBLE -> {
+                    double v = rs.getDouble(col);
+                    if (rs.wasNull()) { markNull(i); break; }
+                    b.writeDouble(v);
+                }
+                case DECIMAL -> {
+                    BigDecimal v = rs.getBigDecimal(col);
+                    if (v == null) { markNull(i); break; }
+                    b.writeSignedVarLong(v.scale());
+                    b.writeByteArray(v.unscaledValue().toByteArray());
+                }
+                case DATE -> {
+                    Date v = rs.getDate(col);
+                    if (v == null) { markNull(i); break; }
+                    b.writeSignedVarLong(v.toLocalDate().toEpochDay());
+                }
+                case BOOLEAN -> {
+                    boolean v = rs.getBoolean(col);
+                    if (rs.wasNull()) { markNull(i); break; }
+                    b.writeByte(v ? 1 : 0);
+                }
+                default -> {
+                    String v = rs.getString(col);
+                    if (v == null) { markNull(i); break; }
+                    b.writeString(v);
+                }
+            }
+        }
+        if (++rows == ROW_GROUP_SIZE) flushGroup();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (types == null) return;
+        if (rows > 0) flushGroup();
+
+        long footerOffset = written;
+        BinaryWriter footer = new BinaryWriter();
+        footer.writeVarLong(groupCount);
+        footer.writeBytes(groups.array(), 0, groups.size());
+        footer.writeLongFixed(footerOffset);
+        footer.writeBytes(MAGIC, 0, MAGIC.length);
+        write(footer);
+    }
+
+    private void markNull(int col) {
+        nulls[col][rows >>> 3] |= (byte) (1 << (rows & 7));
+    }
+
+    private void flushGroup() throws IOException {
+        groups.writeLongFixed(written);
+        groups.writeVarLong(rows);
+        groupCount++;
+
+        BinaryWriter head = new BinaryWriter(16);
+        head.writeVarLong(rows);
+        write(head);
+
+        int bitmapBytes = (rows + 7) / 8;
+        for (int i = 0; i < types.length; i++) {
+            BinaryWriter len = new BinaryWriter(16);
+            len.writeVarLong(bitmapBytes + blocks[i].size());
+            write(len);
+            write(ByteBuffer.wrap(nulls[i], 0, bitmapBytes));
+            write(blocks[i]);
+
+            blocks[i].reset();
+            Arrays.fill(nulls[i], (byte) 0);
+            previous[i] = 0;
+        }
+        rows = 0;
+    }
+
+    private void write(BinaryWriter w) throws IOException {
+        write(ByteBuffer.wrap(w.array(), 0, w.size()));
+    }
+
+    private void write(ByteBuffer b) throws IOException {
+        written += b.remaining();
+        while (b.hasRemaining()) out.write(b);
+    }
+
+    private static byte typeOf(int sqlType) {
+        return switch (sqlType) {
+            case Types.BIGINT, Types.INTEGER, Types.SMALLINT, Types.TINYINT -> LONG;
+            case Types.DOUBLE, Types.FLOAT, Types.REAL -> DOUBLE;
+            case Types.NUMERIC, Types.DECIMAL -> DECIMAL;
+            case Types.DATE -> DATE;
+            case Types.BOOLEAN, Types.BIT -> BOOLEAN;
+            default -> STRING;
+        };
+    }
+}
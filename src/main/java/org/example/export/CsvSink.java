@@ -0,0 +1,93 @@
+package org.example.export;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+/**
+ * CSV in the same dialect as COPY ... (FORMAT csv, HEADER): comma separated, NULL as an empty
+ * field, empty strings as "", and fields containing a comma, quote or line break quoted.
+ * Values are the driver's text form (rs.getString), so both export paths produce the same file.
+ */
+final class CsvSink implements RowSink {
+
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    private final WritableByteChannel out;
+    private final ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER_BYTES);
+    private int columns;
+
+    CsvSink(WritableByteChannel out) {
+        this.out = out;
+    }
+
+    @Override
+    public void begin(ResultSetMetaData md) throws SQLException, IOException {
+        columns = md.getColumnCount();
+        for (int i = 1; i <= columns; i++) {
+            if (i > 1) put((byte) ',');
+            field(md.getColumnLabel(i));
+        }
+        put((byte) '\n');
+    }
+
+    @Override
+    public void row(ResultSet rs) throws SQLException, IOException {
+        for (int i = 1; i <= columns; i++) {
+            if (i > 1) put((byte) ',');
+            String v = rs.getString(i);
+            if (v != null) field(v);
+        }
+        put((byte) '\n');
+    }
+
+    @Override
+    public void close() throws IOException {
+        drain();
+    }
+
+    private void field(String v) throws IOException {
+        if (v.isEmpty() || needsQuotes(v)) {
+            put((byte) '"');
+            put(v.replace("\"", "\"\"").getBytes(StandardCharsets.UTF_8));
+            put((byte) '"');
+        } else {
+            put(v.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static boolean needsQuotes(String v) {
+        for (int i = 0; i < v.length(); i++) {
+            char ch = v.charAt(i);
+            if (ch == ',' || ch == '"' || ch == '\n' || ch == '\r') return true;
+        }
+        return false;
+    }
+
+    private void put(byte b) throws IOException {
+        if (!buf.hasRemaining()) drain();
+        buf.put(b);
+    }
+
+    private void put(byte[] b) throws IOException {
+        if (b.length > buf.remaining()) {
+            drain();
+            if (b.length > buf.capacity()) {
+                ByteBuffer big = ByteBuffer.wrap(b);
+                while (big.hasRemaining()) out.write(big);
+                return;
+            }
+        }
+        buf.put(b);
+    }
+
+    private void drain() throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) out.write(buf);
+        buf.clear();
+    }
+}
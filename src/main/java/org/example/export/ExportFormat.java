@@ -0,0 +1,24 @@
+package org.example.export;
+
+import java.nio.file.Path;
+
+public enum ExportFormat {
+    CSV(".csv"),
+    /** See {@link ColumnarWriter} for the layout. */
+    COLUMNAR(".col");
+
+    private final String extension;
+
+    ExportFormat(String extension) {
+        this.extension = extension;
+    }
+
+    public String extension() {
+        return extension;
+    }
+
+    /** Picks the format from the file extension; anything that is not .col is written as CSV. */
+    public static ExportFormat forFile(Path file) {
+        return file.getFileName().toString().toLowerCase().endsWith(COLUMNAR.extension) ? COLUMNAR : CSV;
+    }
+}
@@ -0,0 +1,52 @@
+package org.example.export;
+
+import org.example.dao.QueryDao.Report;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+/**
+ * Command-line export, for data too large to go through the UI:
+ * <pre>
+ * ExportMain table PROPERTY out/property.csv [parallelism]
+ * ExportMain report TOP_AGENTS_BY_SALES out/agents.col [from=2025-01-01] [to=2025-04-01] [client=42]
+ * </pre>
+ * The file extension picks the format (.csv or .col). Report windows are [from, to).
+ */
+public final class ExportMain {
+
+    private ExportMain() {}
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.err.println("usage: table <TABLE> <file> [parallelism] | report <REPORT> <file> [from=..] [to=..] [client=..]");
+            System.exit(2);
+        }
+        Path target = Path.of(args[2]);
+        long started = System.nanoTime();
+        long rows;
+
+        if (args[0].equals("table")) {
+            int parallelism = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+            rows = Exporter.exportTable(ExportTable.valueOf(args[1].toUpperCase()), target, parallelism);
+        } else if (args[0].equals("report")) {
+            LocalDate from = null;
+            LocalDate to = null;
+            Long client = null;
+            for (int i = 3; i < args.length; i++) {
+                String[] kv = args[i].split("=", 2);
+                switch (kv[0]) {
+                    case "from" -> from = LocalDate.parse(kv[1]);
+                    case "to" -> to = LocalDate.parse(kv[1]);
+                    case "client" -> client = Long.parseLong(kv[1]);
+                    default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+                }
+            }
+            rows = Exporter.exportReport(Report.valueOf(args[1].toUpperCase()), client, from, to, target);
+        } else {
+            throw new IllegalArgumentException("Expected 'table' or 'report', got " + args[0]);
+        }
+
+        System.out.printf("Exported %,d rows to %s in %.1f s%n", rows, target, (System.nanoTime() - started) / 1e9);
+    }
+}
@@ -0,0 +1,42 @@
+package org.example.export;
+
+/**
+ * Tables that can be exported, with the bigint key used to split them into ranges and the
+ * columns written: those of the matching model record, so internal columns (listing.search_vector,
+ * property.is_sold) stay out of the files and a new column does not silently change their layout.
+ */
+public enum ExportTable {
+    PERSON("person", "person_id", "person_id, first_name, last_name, email, phone_number"),
+    CLIENT("client", "person_id", "person_id, budget, area_interested_in"),
+    AGENT("agent", "person_id", "person_id, salary, hire_date"),
+    PROPERTY("property", "property_id",
+            "property_id, price, square_meters, latitude, longitude, city, property_type, owner_id"),
+    SUCCESSFUL_DEALS("successful_deals", "deal_id",
+            "deal_id, deal_date, property_id, final_price, agent_id, client_id"),
+    LISTING("listing", "listing_id", "listing_id, type_of_listing, description, notes"),
+    PREFERENCES("preferences", "preference_id", "preference_id, client_id, preference_type"),
+    PROPERTY_OWNER("property_owner", "property_id", "person_id, property_id");
+
+    private final String table;
+    private final String key;
+    private final String columns;
+
+    ExportTable(String table, String key, String columns) {
+        this.table = table;
+        this.key = key;
+        this.columns = columns;
+    }
+
+    public String table() {
+        return table;
+    }
+
+    public String key() {
+        return key;
+    }
+
+    /** Comma-separated select list. */
+    public String columns() {
+        return columns;
+    }
+}
@@ -0,0 +1,214 @@
+package org.example.export;
+
+import org.example.dao.QueryDao;
+import org.example.dao.QueryDao.Report;
+import org.example.db.Db;
+import org.postgresql.PGConnection;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Streams tables and QueryDao reports to CSV or columnar files without holding the result in memory.
+ *
+ * Table CSV goes through COPY ... TO STDOUT: the table is split into key ranges, each range is
+ * copied on its own connection into a part file, and the parts are appended to the target with
+ * FileChannel.transferTo. All workers import one exported snapshot, so the file is a consistent
+ * point-in-time copy even though it is read in parallel. Everything else (reports, columnar output)
+ * reads through a server-side cursor into a {@link RowSink}.
+ */
+public final class Exporter {
+
+    private static final int FETCH_SIZE = 10_000;
+    private static final int COPY_BUFFER_BYTES = 1 << 16;
+
+    private Exporter() {}
+
+    /** Returns the number of data rows written. */
+    public static long exportReport(Report report, Long clientId, LocalDate from, LocalDate to, Path target)
+            throws SQLException, IOException {
+        try (FileChannel ch = create(target);
+             RowSink sink = sinkFor(ExportFormat.forFile(target), ch)) {
+            long[] rows = {0};
+            new QueryDao().streamReport(report, clientId, from, to, rs -> copyRows(rs, sink, rows));
+            return rows[0];
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    /** Returns the number of data rows written. parallelism only applies to CSV. */
+    public static long exportTable(ExportTable table, Path target, int parallelism)
+            throws SQLException, IOException {
+        if (ExportFormat.forFile(target) == ExportFormat.CSV) {
+            return copyTable(table, target, Math.max(1, parallelism));
+        }
+
+        String sql = "SELECT " + table.columns() + " FROM " + table.table() + " ORDER BY " + table.key();
+        try (FileChannel ch = create(target);
+             RowSink sink = new ColumnarWriter(ch);
+             Connection c = Db.getConnection()) {
+            c.setAutoCommit(false);
+            try (PreparedStatement ps = c.prepareStatement(sql)) {
+                ps.setFetchSize(FETCH_SIZE);
+                try (ResultSet rs = ps.executeQuery()) {
+                    long[] rows = {0};
+                    copyRows(rs, sink, rows);
+                    return rows[0];
+                }
+            } finally {
+                c.rollback();
+            }
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    private static long copyTable(ExportTable table, Path target, int parallelism) throws SQLException, IOException {
+        try (Connection leader = Db.getConnection()) {
+            leader.setAutoCommit(false);
+            leader.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            try {
+                String snapshot;
+                Long min;
+                Long max;
+                try (Statement st = leader.createStatement()) {
+                    try (ResultSet rs = st.executeQuery("SELECT pg_export_snapshot()")) {
+                        rs.next();
+                        snapshot = rs.getString(1);
+                    }
+                    try (ResultSet rs = st.executeQuery(
+                            "SELECT min(" + table.key() + "), max(" + table.key() + ") FROM " + table.table())) {
+                        rs.next();
+                        min = rs.getObject(1, Long.class);
+                        max = rs.getObject(2, Long.class);
+                    }
+                }
+
+                List<String> selects = new ArrayList<>();
+                if (min == null) {
+                    selects.add("SELECT " + table.columns() + " FROM " + table.table());
+                } else {
+                    int parts = (int) Math.max(1, Math.min(parallelism, max - min + 1));
+                    long step = (max - min) / parts + 1;
+                    for (int i = 0; i < parts; i++) {
+                        long lo = min + i * step;
+                        long hi = Math.min(max, lo + step - 1);
+                        if (lo > max) break;
+                        selects.add("SELECT " + table.columns() + " FROM " + table.table()
+                                + " WHERE " + table.key() + " BETWEEN " + lo + " AND " + hi
+                                + " ORDER BY " + table.key());
+                    }
+                }
+                return copyParts(selects, snapshot, target);
+            } finally {
+                // the leader only has to keep the snapshot alive until the workers are done
+                leader.rollback();
+            }
+        }
+    }
+
+    private static long copyParts(List<String> selects, String snapshot, Path target) throws SQLException, IOException {
+        List<Path> parts = new ArrayList<>();
+        ExecutorService pool = Executors.newFixedThreadPool(selects.size(), r -> {
+            Thread t = new Thread(r, "export-copy");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            List<Future<Long>> results = new ArrayList<>();
+            for (int i = 0; i < selects.size(); i++) {
+                Path part = target.resolveSibling(target.getFileName() + ".part" + i);
+                parts.add(part);
+                String copy = "COPY (" + selects.get(i) + ") TO STDOUT WITH (FORMAT csv, HEADER " + (i == 0) + ")";
+                results.add(pool.submit(() -> copyOut(copy, snapshot, part)));
+            }
+
+            long rows = 0;
+            for (Future<Long> f : results) rows += await(f);
+
+            try (FileChannel out = create(target)) {
+                for (Path part : parts) {
+                    try (FileChannel in = FileChannel.open(part, StandardOpenOption.READ)) {
+                        long size = in.size();
+                        long pos = 0;
+                        while (pos < size) pos += in.transferTo(pos, size - pos, out);
+                    }
+                }
+            }
+            return rows;
+        } finally {
+            pool.shutdownNow();
+            for (Path part : parts) Files.deleteIfExists(part);
+        }
+    }
+
+    private static long copyOut(String copy, String snapshot, Path part) throws SQLException, IOException {
+        try (Connection c = Db.getConnection()) {
+            c.setAutoCommit(false);
+            c.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            try (Statement st = c.createStatement()) {
+                st.execute("SET TRANSACTION SNAPSHOT '" + snapshot + "'");
+            }
+            try (FileChannel ch = create(part);
+                 OutputStream os = new BufferedOutputStream(Channels.newOutputStream(ch), COPY_BUFFER_BYTES)) {
+                return c.unwrap(PGConnection.class).getCopyAPI().copyOut(copy, os);
+            } finally {
+                c.rollback();
+            }
+        }
+    }
+
+    private static long await(Future<Long> f) throws SQLException, IOException {
+        try {
+            return f.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Export interrupted", ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof SQLException sql) throw sql;
+            if (cause instanceof IOException io) throw io;
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private static void copyRows(ResultSet rs, RowSink sink, long[] rows) throws SQLException {
+        try {
+            sink.begin(rs.getMetaData());
+            while (rs.next()) {
+                sink.row(rs);
+                rows[0]++;
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static RowSink sinkFor(ExportFormat format, FileChannel ch) {
+        return format == ExportFormat.COLUMNAR ? new ColumnarWriter(ch) : new CsvSink(ch);
+    }
+
+    private static FileChannel create(Path p) throws IOException {
+        return FileChannel.open(p, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+}
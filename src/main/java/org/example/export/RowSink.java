@@ -0,0 +1,17 @@
+package org.example.export;
+
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+/** Receives a result set row by row; implementations keep at most a bounded buffer. */
+interface RowSink extends AutoCloseable {
+
+    void begin(ResultSetMetaData md) throws SQLException, IOException;
+
+    void row(ResultSet rs) throws SQLException, IOException;
+
+    @Override
+    void close() throws IOException;
+}
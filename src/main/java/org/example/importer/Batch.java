@@ -0,0 +1,50 @@
+package org.example.importer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A run of consecutive CSV records [firstRecord, lastRecord] (1-based, header excluded) that is
+ * validated and written as a unit. The range is what the checkpoint records, so blank records
+ * still extend it.
+ */
+final class Batch {
+
+    /** End-of-input marker passed down the queues. */
+    static final Batch END = new Batch(0);
+
+    static final class Row {
+        final long record;
+        final String[] fields;
+        Object[] values;
+        String reason;
+
+        Row(long record, String[] fields) {
+            this.record = record;
+            this.fields = fields;
+        }
+
+        boolean rejected() {
+            return reason != null;
+        }
+    }
+
+    final long firstRecord;
+    long lastRecord;
+    final List<Row> rows = new ArrayList<>();
+
+    Batch(long firstRecord) {
+        this.firstRecord = firstRecord;
+        this.lastRecord = firstRecord - 1;
+    }
+
+    long records() {
+        return lastRecord - firstRecord + 1;
+    }
+
+    int rejectedCount() {
+        int n = 0;
+        for (Row r : rows) if (r.rejected()) n++;
+        return n;
+    }
+}
@@ -0,0 +1,106 @@
+package org.example.importer;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the COPY csv dialect that the exporter writes: an unquoted empty field is NULL, "" is an
+ * empty string, and quoted fields may contain commas, doubled quotes and line breaks.
+ * Records end with \n or \r\n.
+ */
+final class Csv {
+
+    private static final int BUFFER_CHARS = 1 << 16;
+
+    private final Reader in;
+    private final char[] buf = new char[BUFFER_CHARS];
+    private int pos;
+    private int limit;
+
+    private final StringBuilder field = new StringBuilder();
+    private final List<String> fields = new ArrayList<>();
+
+    Csv(Reader in) {
+        this.in = in;
+    }
+
+    /** The next record, or null at end of input. A blank line is a single null field. */
+    String[] next() throws IOException {
+        int ch = read();
+        if (ch == -1) return null;
+        fields.clear();
+        while (true) {
+            field.setLength(0);
+            boolean quoted = false;
+            if (ch == '"') {
+                quoted = true;
+                while (true) {
+                    ch = read();
+                    if (ch == -1) throw new IOException("Unterminated quoted field");
+                    if (ch == '"') {
+                        ch = read();
+                        if (ch != '"') break;
+                    }
+                    field.append((char) ch);
+                }
+            }
+            // anything between a closing quote and the delimiter is kept as-is
+            while (ch != ',' && ch != '\n' && ch != '\r' && ch != -1) {
+                field.append((char) ch);
+                ch = read();
+            }
+            fields.add(quoted || field.length() > 0 ? field.toString() : null);
+
+            if (ch == ',') {
+                ch = read();
+                continue;
+            }
+            if (ch == '\r' && peek() == '\n') read();
+            return fields.toArray(new String[0]);
+        }
+    }
+
+    /** Appends one field in the same dialect; null is written as an empty unquoted field. */
+    static void appendField(StringBuilder sb, String v) {
+        if (v == null) return;
+        if (!v.isEmpty() && !needsQuotes(v)) {
+            sb.append(v);
+            return;
+        }
+        sb.append('"');
+        for (int i = 0; i < v.length(); i++) {
+            char ch = v.charAt(i);
+            if (ch == '"') sb.append('"');
+            sb.append(ch);
+        }
+        sb.append('"');
+    }
+
+    private static boolean needsQuotes(String v) {
+        for (int i = 0; i < v.length(); i++) {
+            char ch = v.charAt(i);
+            if (ch == ',' || ch == '"' || ch == '\n' || ch == '\r') return true;
+        }
+        return false;
+    }
+
+    private int read() throws IOException {
+        if (pos == limit && !fill()) return -1;
+        return buf[pos++];
+    }
+
+    private int peek() throws IOException {
+        if (pos == limit && !fill()) return -1;
+        return buf[pos];
+    }
+
+    private boolean fill() throws IOException {
+        int n = in.read(buf, 0, buf.length);
+        if (n <= 0) return false;
+        pos = 0;
+        limit = n;
+        return true;
+    }
+}
@@ -0,0 +1,82 @@
+package org.example.importer;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+/**
+ * Immutable set of existing ids, loaded once per import so foreign keys can be checked without a
+ * query per row. Identity ids are dense, so they are usually kept as a bitmap over [min, max]
+ * (one bit per possible id); sparse sets fall back to a sorted array and binary search.
+ */
+final class IdSet {
+
+    private static final int FETCH_SIZE = 50_000;
+
+    private final long base;
+    private final long[] bits;
+    private final long[] sorted;
+    private final int size;
+
+    private IdSet(long base, long[] bits, long[] sorted, int size) {
+        this.base = base;
+        this.bits = bits;
+        this.sorted = sorted;
+        this.size = size;
+    }
+
+    static IdSet load(Connection c, String sql) throws SQLException {
+        long[] ids = new long[1024];
+        int n = 0;
+        boolean autoCommit = c.getAutoCommit();
+        c.setAutoCommit(false);
+        try (PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setFetchSize(FETCH_SIZE);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    if (n == ids.length) ids = Arrays.copyOf(ids, n * 2);
+                    ids[n++] = rs.getLong(1);
+                }
+            }
+        } finally {
+            c.rollback();
+            c.setAutoCommit(autoCommit);
+        }
+        return of(Arrays.copyOf(ids, n));
+    }
+
+    static IdSet of(long[] ids) {
+        Arrays.sort(ids);
+        if (ids.length == 0) return new IdSet(0, null, ids, 0);
+
+        long min = ids[0];
+        long span = ids[ids.length - 1] - min + 1;
+        // a bitmap costs span/8 bytes against 8 bytes per id in the array
+        if (span > 0 && span / 64 <= ids.length && span / 64 < Integer.MAX_VALUE) {
+            long[] bits = new long[(int) ((span + 63) >>> 6)];
+            int distinct = 0;
+            for (long id : ids) {
+                long off = id - min;
+                long mask = 1L << off;
+                int word = (int) (off >>> 6);
+                if ((bits[word] & mask) == 0) distinct++;
+                bits[word] |= mask;
+            }
+            return new IdSet(min, bits, null, distinct);
+        }
+        return new IdSet(0, null, ids, ids.length);
+    }
+
+    boolean contains(long id) {
+        if (bits == null) return Arrays.binarySearch(sorted, id) >= 0;
+        long off = id - base;
+        if (off < 0 || (off >>> 6) >= bits.length) return false;
+        return (bits[(int) (off >>> 6)] & (1L << off)) != 0;
+    }
+
+    int size() {
+        return size;
+    }
+}
@@ -0,0 +1,53 @@
+package org.example.importer;
+
+import java.nio.file.Path;
+
+/**
+ * Command-line import of a CSV file with a header row:
+ * <pre>
+ * ImportMain PROPERTY data/property.csv [id=property-2025-03] [batch=5000] [validators=4] [writers=4]
+ *            [queue=4] [rejects=data/property.rejects.csv]
+ * </pre>
+ * Rerunning with the same id (default: table:file name) resumes an interrupted import.
+ */
+public final class ImportMain {
+
+    private ImportMain() {}
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("usage: <TABLE> <file.csv> [id=..] [batch=..] [validators=..] [writers=..] [queue=..] [rejects=..]");
+            System.exit(2);
+        }
+        ImportTable table = ImportTable.valueOf(args[0].toUpperCase());
+        Path input = Path.of(args[1]);
+
+        ImportOptions d = ImportOptions.defaults(table, input);
+        String id = d.importId();
+        int batch = d.batchRows();
+        int validators = d.validators();
+        int writers = d.writers();
+        int queue = d.queueBatches();
+        Path rejects = d.rejectFile();
+        for (int i = 2; i < args.length; i++) {
+            String[] kv = args[i].split("=", 2);
+            switch (kv[0]) {
+                case "id" -> id = kv[1];
+                case "batch" -> batch = Integer.parseInt(kv[1]);
+                case "validators" -> validators = Integer.parseInt(kv[1]);
+                case "writers" -> writers = Integer.parseInt(kv[1]);
+                case "queue" -> queue = Integer.parseInt(kv[1]);
+                case "rejects" -> rejects = Path.of(kv[1]);
+                default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        ImportResult r = new ImportPipeline(table, input,
+                new ImportOptions(id, batch, validators, writers, queue, rejects)).run();
+
+        System.out.printf("Imported %,d of %,d records into %s in %.1f s (%,d rejected to %s, %,d skipped as already loaded)%n",
+                r.rowsWritten(), r.recordsRead(), table.table(), r.elapsedNanos() / 1e9,
+                r.rowsRejected(), rejects, r.recordsSkipped());
+        for (StageMetrics s : r.stages()) System.out.println("  " + s.summary(r.elapsedNanos()));
+    }
+}
@@ -0,0 +1,23 @@
+package org.example.importer;
+
+import java.nio.file.Path;
+
+/**
+ * importId names the run in import_checkpoint; running again with the same id resumes it.
+ * batchRows is the number of CSV records per transaction, queueBatches the capacity of each
+ * queue between stages.
+ */
+public record ImportOptions(String importId, int batchRows, int validators, int writers,
+                            int queueBatches, Path rejectFile) {
+
+    public static ImportOptions defaults(ImportTable table, Path input) {
+        int cpus = Runtime.getRuntime().availableProcessors();
+        return new ImportOptions(
+                table.table() + ":" + input.getFileName(),
+                5_000,
+                Math.max(1, cpus / 2),
+                Math.max(1, Math.min(4, cpus / 2)),
+                4,
+                input.resolveSibling(input.getFileName() + ".rejects.csv"));
+    }
+}
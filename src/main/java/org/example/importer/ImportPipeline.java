@@ -0,0 +1,399 @@
+package org.example.importer;
+
+import org.example.db.Db;
+import org.example.db.PartitionManager;
+import org.example.importer.ImportTable.Column;
+import org.example.importer.ImportTable.Ref;
+import org.postgresql.PGConnection;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * Loads one CSV file into one table in three stages connected by bounded queues:
+ * <pre>
+ * parse (1 thread) -> validate (N threads) -> write (M threads, one connection each)
+ * </pre>
+ * A full queue blocks the stage feeding it, so a slow database throttles parsing instead of
+ * filling the heap. Parsing stays on one thread because a quoted field can span lines.
+ *
+ * Each batch is written with COPY ... FROM STDIN together with a row in import_checkpoint
+ * recording its record range, in one transaction. Running again with the same import id skips
+ * the committed ranges, so an interrupted import resumes without duplicates. If COPY fails on
+ * something the validator cannot see (e.g. a key inserted concurrently), the batch is retried
+ * row by row under savepoints and only the failing rows are rejected. Rejected rows are written
+ * to the reject file once their batch has committed.
+ *
+ * Rows loaded this way bypass the DAOs: they are not in the change journal, and the caches of a
+ * running app only see them after their next reload.
+ */
+public final class ImportPipeline {
+
+    private static final Logger LOG = Logger.getLogger(ImportPipeline.class.getName());
+    private static final long PROGRESS_SECONDS = 5;
+
+    private static final String LOAD_CHECKPOINTS_SQL = """
+        SELECT first_record, last_record
+        FROM import_checkpoint
+        WHERE import_id = ?
+    """;
+
+    private static final String INSERT_CHECKPOINT_SQL = """
+        INSERT INTO import_checkpoint (import_id, first_record, last_record, rows_written, rows_rejected)
+        VALUES (?, ?, ?, ?, ?)
+    """;
+
+    private static final String MARK_SOLD_SQL =
+            "UPDATE property SET is_sold = TRUE WHERE property_id = ANY(?) AND NOT is_sold";
+
+    private final ImportTable table;
+    private final Path input;
+    private final ImportOptions options;
+
+    private final StageMetrics parse;
+    private final StageMetrics validate;
+    private final StageMetrics write;
+    private final LongAdder written = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    // written by the parse thread, read after it has finished
+    private long recordsRead;
+    private long recordsSkipped;
+
+    public ImportPipeline(ImportTable table, Path input, ImportOptions options) {
+        this.table = table;
+        this.input = input;
+        this.options = options;
+        this.parse = new StageMetrics("parse", 1);
+        this.validate = new StageMetrics("validate", options.validators());
+        this.write = new StageMetrics("write", options.writers());
+    }
+
+    public ImportResult run() throws SQLException, IOException {
+        long started = System.nanoTime();
+        try (BufferedReader reader = Files.newBufferedReader(input, StandardCharsets.UTF_8)) {
+            Csv csv = new Csv(reader);
+            String[] header = csv.next();
+            if (header == null) throw new IOException("Empty file: " + input);
+            if (header[0] != null && header[0].startsWith("\uFEFF")) header[0] = header[0].substring(1);
+            Column[] columns = table.columnsFor(header);
+
+            RowValidator validator = new RowValidator(table, columns, loadIds(columns));
+            NavigableMap<Long, Long> committed = loadCheckpoints();
+            if (!committed.isEmpty()) {
+                LOG.info(() -> options.importId() + ": resuming, " + committed.size() + " batches already committed");
+            }
+            if (table == ImportTable.SUCCESSFUL_DEALS) PartitionManager.ensurePartitionFor(LocalDate.now());
+
+            try (RejectFile rejects = new RejectFile(options.rejectFile(), header)) {
+                runStages(csv, committed, columns, validator, rejects, started);
+            }
+        }
+        return new ImportResult(recordsRead, recordsSkipped, written.sum(), rejected.sum(),
+                System.nanoTime() - started, List.of(parse, validate, write));
+    }
+
+    private void runStages(Csv csv, NavigableMap<Long, Long> committed, Column[] columns,
+                           RowValidator validator, RejectFile rejects, long started)
+            throws SQLException, IOException {
+        BlockingQueue<Batch> parsed = new ArrayBlockingQueue<>(options.queueBatches());
+        BlockingQueue<Batch> valid = new ArrayBlockingQueue<>(options.queueBatches());
+        AtomicInteger validatorsLeft = new AtomicInteger(options.validators());
+
+        int threads = 1 + options.validators() + options.writers();
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "import-worker");
+            t.setDaemon(true);
+            return t;
+        });
+        ScheduledExecutorService progress = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "import-progress");
+            t.setDaemon(true);
+            return t;
+        });
+        CompletionService<Void> stages = new ExecutorCompletionService<>(pool);
+        try {
+            stages.submit(() -> {
+                parseStage(csv, committed, parsed);
+                return null;
+            });
+            for (int i = 0; i < options.validators(); i++) {
+                stages.submit(() -> {
+                    validateStage(validator, parsed, valid, validatorsLeft);
+                    return null;
+                });
+            }
+            for (int i = 0; i < options.writers(); i++) {
+                stages.submit(() -> {
+                    writeStage(columns, valid, rejects);
+                    return null;
+                });
+            }
+            progress.scheduleAtFixedRate(() -> LOG.info(() -> progressLine(System.nanoTime() - started)),
+                    PROGRESS_SECONDS, PROGRESS_SECONDS, TimeUnit.SECONDS);
+
+            // the first stage to fail completes first; shutdownNow then unblocks the rest
+            for (int i = 0; i < threads; i++) await(stages.take());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Import interrupted", ex);
+        } finally {
+            pool.shutdownNow();
+            progress.shutdownNow();
+        }
+    }
+
+    private void parseStage(Csv csv, NavigableMap<Long, Long> committed, BlockingQueue<Batch> out)
+            throws IOException, InterruptedException {
+        long record = 0;
+        long since = System.nanoTime();
+        Batch batch = null;
+        String[] fields;
+        while ((fields = csv.next()) != null) {
+            record++;
+            Map.Entry<Long, Long> done = committed.floorEntry(record);
+            if (done != null && record <= done.getValue()) {
+                recordsSkipped++;
+                if (batch != null) {
+                    since = send(batch, out, parse, since);
+                    batch = null;
+                }
+                continue;
+            }
+            if (batch == null) batch = new Batch(record);
+            batch.lastRecord = record;
+            if (fields.length > 1 || fields[0] != null) batch.rows.add(new Batch.Row(record, fields));
+            if (batch.records() == options.batchRows()) {
+                since = send(batch, out, parse, since);
+                batch = null;
+            }
+        }
+        if (batch != null) send(batch, out, parse, since);
+        recordsRead = record;
+        for (int i = 0; i < options.validators(); i++) out.put(Batch.END);
+    }
+
+    private void validateStage(RowValidator validator, BlockingQueue<Batch> in, BlockingQueue<Batch> out,
+                               AtomicInteger validatorsLeft) throws SQLException, InterruptedException {
+        while (true) {
+            Batch batch = in.take();
+            if (batch == Batch.END) break;
+            long since = System.nanoTime();
+            for (Batch.Row row : batch.rows) validator.check(row);
+            send(batch, out, validate, since);
+        }
+        if (validatorsLeft.decrementAndGet() == 0) {
+            for (int i = 0; i < options.writers(); i++) out.put(Batch.END);
+        }
+    }
+
+    private void writeStage(Column[] columns, BlockingQueue<Batch> in, RejectFile rejects)
+            throws SQLException, IOException, InterruptedException {
+        String names = Arrays.stream(columns).map(Column::name).collect(Collectors.joining(", "));
+        String copySql = "COPY " + table.table() + " (" + names + ") FROM STDIN WITH (FORMAT csv)";
+        String insertSql = "INSERT INTO " + table.table() + " (" + names + ") VALUES ("
+                + "?, ".repeat(columns.length - 1) + "?)";
+
+        try (Connection c = Db.getConnection()) {
+            c.setAutoCommit(false);
+            while (true) {
+                Batch batch = in.take();
+                if (batch == Batch.END) break;
+                long since = System.nanoTime();
+                try {
+                    copy(c, copySql, batch, columns);
+                    finish(c, batch, columns);
+                } catch (SQLException ex) {
+                    c.rollback();
+                    if (fatal(ex)) throw ex;
+                    LOG.fine(() -> "Records " + batch.firstRecord + "-" + batch.lastRecord
+                            + " failed as a batch, retrying row by row: " + ex.getMessage());
+                    insertRowByRow(c, insertSql, batch, columns);
+                }
+                rejects.write(batch);
+
+                int bad = batch.rejectedCount();
+                written.add(batch.rows.size() - bad);
+                rejected.add(bad);
+                write.processed(batch.rows.size() - bad, System.nanoTime() - since);
+            }
+        }
+    }
+
+    private void copy(Connection c, String copySql, Batch batch, Column[] columns) throws SQLException, IOException {
+        StringBuilder sb = new StringBuilder(batch.rows.size() * 64);
+        int rows = 0;
+        for (Batch.Row row : batch.rows) {
+            if (row.rejected()) continue;
+            for (int i = 0; i < columns.length; i++) {
+                if (i > 0) sb.append(',');
+                Csv.appendField(sb, text(row.values[i]));
+            }
+            sb.append('\n');
+            rows++;
+        }
+        if (rows == 0) return;
+        byte[] data = sb.toString().getBytes(StandardCharsets.UTF_8);
+        c.unwrap(PGConnection.class).getCopyAPI().copyIn(copySql, new ByteArrayInputStream(data));
+    }
+
+    private void insertRowByRow(Connection c, String insertSql, Batch batch, Column[] columns) throws SQLException {
+        try (PreparedStatement ps = c.prepareStatement(insertSql)) {
+            for (Batch.Row row : batch.rows) {
+                if (row.rejected()) continue;
+                Savepoint sp = c.setSavepoint();
+                try {
+                    for (int i = 0; i < columns.length; i++) {
+                        if (row.values[i] == null) ps.setNull(i + 1, columns[i].kind().sqlType);
+                        else ps.setObject(i + 1, row.values[i]);
+                    }
+                    ps.executeUpdate();
+                    c.releaseSavepoint(sp);
+                } catch (SQLException ex) {
+                    if (fatal(ex)) throw ex;
+                    c.rollback(sp);
+                    row.reason = "rejected by the database: " + ex.getMessage();
+                }
+            }
+            finish(c, batch, columns);
+        } catch (SQLException ex) {
+            c.rollback();
+            throw ex;
+        }
+    }
+
+    /** Same-transaction follow-up: the sold flag for deals, then the checkpoint row, then commit. */
+    private void finish(Connection c, Batch batch, Column[] columns) throws SQLException {
+        if (table == ImportTable.SUCCESSFUL_DEALS) markSold(c, batch, columns);
+        try (PreparedStatement ps = c.prepareStatement(INSERT_CHECKPOINT_SQL)) {
+            int bad = batch.rejectedCount();
+            ps.setString(1, options.importId());
+            ps.setLong(2, batch.firstRecord);
+            ps.setLong(3, batch.lastRecord);
+            ps.setInt(4, batch.rows.size() - bad);
+            ps.setInt(5, bad);
+            ps.executeUpdate();
+        }
+        c.commit();
+    }
+
+    private static void markSold(Connection c, Batch batch, Column[] columns) throws SQLException {
+        int propertyIndex = -1;
+        for (int i = 0; i < columns.length; i++) {
+            if (columns[i].name().equals("property_id")) propertyIndex = i;
+        }
+        List<Long> ids = new ArrayList<>();
+        for (Batch.Row row : batch.rows) {
+            if (!row.rejected()) ids.add((Long) row.values[propertyIndex]);
+        }
+        if (ids.isEmpty()) return;
+        try (PreparedStatement ps = c.prepareStatement(MARK_SOLD_SQL)) {
+            Array array = c.createArrayOf("bigint", ids.toArray());
+            ps.setArray(1, array);
+            ps.executeUpdate();
+            array.free();
+        }
+    }
+
+    private Map<Ref, IdSet> loadIds(Column[] columns) throws SQLException {
+        Map<Ref, IdSet> ids = new EnumMap<>(Ref.class);
+        try (Connection c = Db.getConnection()) {
+            for (Column col : columns) {
+                if (col.ref() != null && !ids.containsKey(col.ref())) ids.put(col.ref(), IdSet.load(c, col.ref().sql));
+            }
+            Ref unique = table.uniqueIn();
+            if (unique != null && !ids.containsKey(unique)) ids.put(unique, IdSet.load(c, unique.sql));
+        }
+        ids.forEach((ref, set) -> LOG.fine(() -> "Loaded " + set.size() + " ids of " + ref.table));
+        return ids;
+    }
+
+    private NavigableMap<Long, Long> loadCheckpoints() throws SQLException {
+        NavigableMap<Long, Long> committed = new TreeMap<>();
+        try (Connection c = Db.getConnection();
+             PreparedStatement ps = c.prepareStatement(LOAD_CHECKPOINTS_SQL)) {
+            ps.setString(1, options.importId());
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) committed.put(rs.getLong(1), rs.getLong(2));
+            }
+        }
+        return committed;
+    }
+
+    private String progressLine(long elapsedNanos) {
+        return String.format("%s: %,d written, %,d rejected%n  %s%n  %s%n  %s",
+                options.importId(), written.sum(), rejected.sum(),
+                parse.summary(elapsedNanos), validate.summary(elapsedNanos), write.summary(elapsedNanos));
+    }
+
+    private static long send(Batch batch, BlockingQueue<Batch> out, StageMetrics stage, long since)
+            throws InterruptedException {
+        long ready = System.nanoTime();
+        stage.processed(batch.rows.size(), ready - since);
+        out.put(batch);
+        long sent = System.nanoTime();
+        stage.blocked(sent - ready);
+        return sent;
+    }
+
+    /** Data and constraint errors are the rows' fault; anything else (connection, missing table, ...) stops the import. */
+    private static boolean fatal(SQLException ex) {
+        String state = ex.getSQLState();
+        return state == null || !(state.startsWith("22") || state.startsWith("23"));
+    }
+
+    private static String text(Object v) {
+        if (v == null) return null;
+        if (v instanceof Boolean b) return b ? "t" : "f";
+        if (v instanceof BigDecimal d) return d.toPlainString();
+        return v.toString();
+    }
+
+    private static void await(Future<Void> f) throws SQLException, IOException {
+        try {
+            f.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Import interrupted", ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof SQLException sql) throw sql;
+            if (cause instanceof IOException io) throw io;
+            if (cause instanceof RuntimeException re) throw re;
+            throw new IllegalStateException(cause);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package org.example.importer;
+
+import java.util.List;
+
+/** recordsSkipped are records covered by an earlier run's checkpoints. */
+public record ImportResult(long recordsRead, long recordsSkipped, long rowsWritten, long rowsRejected,
+                           long elapsedNanos, List<StageMetrics> stages) {
+}
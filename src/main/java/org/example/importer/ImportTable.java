@@ -0,0 +1,177 @@
+package org.example.importer;
+
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Tables that can be loaded from CSV, with the columns a file may contain and the checks applied
+ * before a row is sent to the database. Identity columns are not importable; the database
+ * assigns them.
+ */
+public enum ImportTable {
+    PERSON("person", null, null,
+            Column.text("first_name", 50),
+            Column.text("last_name", 50),
+            Column.text("email", 50),
+            Column.text("phone_number", 20)),
+    CLIENT("client", "person_id", Ref.CLIENT,
+            Column.ref("person_id", Ref.PERSON).andRequired(),
+            Column.of("budget", Kind.NUMERIC),
+            Column.text("area_interested_in", 100)),
+    AGENT("agent", "person_id", Ref.AGENT,
+            Column.ref("person_id", Ref.PERSON).andRequired(),
+            Column.of("salary", Kind.NUMERIC),
+            Column.of("hire_date", Kind.DATE)),
+    PROPERTY("property", null, null,
+            Column.of("price", Kind.NUMERIC),
+            Column.of("square_meters", Kind.NUMERIC),
+            Column.between("latitude", -90, 90),
+            Column.between("longitude", -180, 180),
+            Column.text("city", 20),
+            Column.oneOf("property_type", "garage", "house", "apartment"),
+            Column.ref("owner_id", Ref.PERSON),
+            Column.of("is_sold", Kind.BOOLEAN).andNotNull()),
+    SUCCESSFUL_DEALS("successful_deals", null, null,
+            Column.of("deal_date", Kind.DATE).andNotNull(),
+            Column.ref("property_id", Ref.PROPERTY).andRequired(),
+            Column.of("final_price", Kind.NUMERIC),
+            Column.ref("agent_id", Ref.AGENT).andRequired(),
+            Column.ref("client_id", Ref.CLIENT).andRequired()),
+    LISTING("listing", null, null,
+            Column.text("type_of_listing", 100),
+            Column.text("description", 255),
+            Column.text("notes", 100)),
+    PREFERENCES("preferences", null, null,
+            Column.ref("client_id", Ref.CLIENT).andRequired(),
+            Column.text("preference_type", 100)),
+    PROPERTY_OWNER("property_owner", null, null,
+            Column.ref("person_id", Ref.PERSON).andRequired(),
+            Column.ref("property_id", Ref.PROPERTY).andRequired());
+
+    /** Column types as the importer parses them. */
+    public enum Kind {
+        BIGINT(Types.BIGINT),
+        NUMERIC(Types.NUMERIC),
+        DOUBLE(Types.DOUBLE),
+        DATE(Types.DATE),
+        BOOLEAN(Types.BOOLEAN),
+        TEXT(Types.VARCHAR);
+
+        final int sqlType;
+
+        Kind(int sqlType) {
+            this.sqlType = sqlType;
+        }
+    }
+
+    /** Id sets a foreign key (or a natural primary key) is checked against. */
+    public enum Ref {
+        PERSON("person", "SELECT person_id FROM person"),
+        CLIENT("client", "SELECT person_id FROM client"),
+        AGENT("agent", "SELECT person_id FROM agent"),
+        PROPERTY("property", "SELECT property_id FROM property");
+
+        final String table;
+        final String sql;
+
+        Ref(String table, String sql) {
+            this.table = table;
+            this.sql = sql;
+        }
+    }
+
+    /**
+     * required: the file must have the column and every value must be present.
+     * notNull: the column may be left out (database default), but not be empty.
+     * maxLength applies to TEXT, min/max to DOUBLE, allowed to TEXT.
+     */
+    public record Column(String name, Kind kind, boolean required, boolean notNull, int maxLength,
+                         double min, double max, List<String> allowed, Ref ref) {
+
+        static Column of(String name, Kind kind) {
+            return new Column(name, kind, false, false, 0,
+                    Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, List.of(), null);
+        }
+
+        static Column text(String name, int maxLength) {
+            return new Column(name, Kind.TEXT, false, false, maxLength,
+                    Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, List.of(), null);
+        }
+
+        static Column oneOf(String name, String... allowed) {
+            int maxLength = Arrays.stream(allowed).mapToInt(String::length).max().orElse(0);
+            return new Column(name, Kind.TEXT, false, false, maxLength,
+                    Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, List.of(allowed), null);
+        }
+
+        static Column between(String name, double min, double max) {
+            return new Column(name, Kind.DOUBLE, false, false, 0, min, max, List.of(), null);
+        }
+
+        static Column ref(String name, Ref ref) {
+            return new Column(name, Kind.BIGINT, false, false, 0,
+                    Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, List.of(), ref);
+        }
+
+        Column andRequired() {
+            return new Column(name, kind, true, true, maxLength, min, max, allowed, ref);
+        }
+
+        Column andNotNull() {
+            return new Column(name, kind, required, true, maxLength, min, max, allowed, ref);
+        }
+    }
+
+    private final String table;
+    private final String uniqueColumn;
+    private final Ref uniqueIn;
+    private final List<Column> columns;
+
+    ImportTable(String table, String uniqueColumn, Ref uniqueIn, Column... columns) {
+        this.table = table;
+        this.uniqueColumn = uniqueColumn;
+        this.uniqueIn = uniqueIn;
+        this.columns = List.of(columns);
+    }
+
+    public String table() {
+        return table;
+    }
+
+    public List<Column> columns() {
+        return columns;
+    }
+
+    /** A natural key (client/agent person_id) that must not exist yet, or null. */
+    String uniqueColumn() {
+        return uniqueColumn;
+    }
+
+    Ref uniqueIn() {
+        return uniqueIn;
+    }
+
+    /** Maps a CSV header to columns, in file order. Unknown, repeated or missing required columns fail the import. */
+    Column[] columnsFor(String[] header) {
+        Map<String, Column> byName = new HashMap<>();
+        for (Column c : columns) byName.put(c.name(), c);
+
+        Column[] out = new Column[header.length];
+        for (int i = 0; i < header.length; i++) {
+            String name = header[i] == null ? "" : header[i].trim().toLowerCase(Locale.ROOT);
+            Column c = byName.remove(name);
+            if (c == null) {
+                throw new IllegalArgumentException("Column '" + header[i] + "' is unknown or repeated for " + table);
+            }
+            out[i] = c;
+        }
+        for (Column c : byName.values()) {
+            if (c.required()) throw new IllegalArgumentException("Missing required column " + c.name() + " for " + table);
+        }
+        return out;
+    }
+}
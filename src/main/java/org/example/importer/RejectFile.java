@@ -0,0 +1,56 @@
+package org.example.importer;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * CSV of rejected rows: record number, reason, then the original fields. The file is appended to,
+ * so a restarted import adds to the rejects of the earlier run; the header is written only once.
+ */
+final class RejectFile implements Closeable {
+
+    private final BufferedWriter out;
+
+    RejectFile(Path path, String[] header) throws IOException {
+        boolean fresh = !Files.exists(path) || Files.size(path) == 0;
+        out = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        if (fresh) {
+            StringBuilder sb = new StringBuilder("record,reason");
+            for (String h : header) {
+                sb.append(',');
+                Csv.appendField(sb, h);
+            }
+            out.write(sb.append('\n').toString());
+            out.flush();
+        }
+    }
+
+    /** Writes the batch's rejected rows; called once the batch is committed. */
+    synchronized void write(Batch batch) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (Batch.Row r : batch.rows) {
+            if (!r.rejected()) continue;
+            sb.append(r.record).append(',');
+            Csv.appendField(sb, r.reason);
+            for (String f : r.fields) {
+                sb.append(',');
+                Csv.appendField(sb, f);
+            }
+            sb.append('\n');
+        }
+        if (sb.isEmpty()) return;
+        out.write(sb.toString());
+        out.flush();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+}
@@ -0,0 +1,122 @@
+package org.example.importer;
+
+import org.example.db.PartitionManager;
+import org.example.importer.ImportTable.Column;
+import org.example.importer.ImportTable.Ref;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Turns CSV fields into typed values and applies the schema's checks (NOT NULL, VARCHAR lengths,
+ * CHECK constraints, foreign keys) so bad rows are rejected before they can fail a whole COPY.
+ * Shared by all validator threads.
+ */
+final class RowValidator {
+
+    private final ImportTable table;
+    private final Column[] columns;
+    private final Map<Ref, IdSet> ids;
+    private final int uniqueIndex;
+    private final Set<Long> seenKeys = ConcurrentHashMap.newKeySet();
+
+    RowValidator(ImportTable table, Column[] columns, Map<Ref, IdSet> ids) {
+        this.table = table;
+        this.columns = columns;
+        this.ids = ids;
+        int unique = -1;
+        for (int i = 0; i < columns.length; i++) {
+            if (columns[i].name().equals(table.uniqueColumn())) unique = i;
+        }
+        this.uniqueIndex = unique;
+    }
+
+    /** Sets row.values, or row.reason when the row is rejected. */
+    void check(Batch.Row row) throws SQLException {
+        if (row.fields.length != columns.length) {
+            row.reason = "expected " + columns.length + " fields, got " + row.fields.length;
+            return;
+        }
+        Object[] values = new Object[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            Column c = columns[i];
+            String raw = row.fields[i];
+            if (raw != null && c.kind() != ImportTable.Kind.TEXT) {
+                raw = raw.trim();
+                if (raw.isEmpty()) raw = null;
+            }
+            if (raw == null) {
+                if (c.notNull()) {
+                    row.reason = c.name() + " is required";
+                    return;
+                }
+                continue;
+            }
+            try {
+                values[i] = parse(c, raw);
+            } catch (NumberFormatException | DateTimeParseException ex) {
+                row.reason = c.name() + ": cannot read '" + raw + "' as " + c.kind().name().toLowerCase(Locale.ROOT);
+                return;
+            }
+            String problem = constraint(c, values[i]);
+            if (problem != null) {
+                row.reason = c.name() + " " + problem;
+                return;
+            }
+        }
+        if (uniqueIndex >= 0) {
+            long key = (Long) values[uniqueIndex];
+            if (ids.get(table.uniqueIn()).contains(key) || !seenKeys.add(key)) {
+                row.reason = "duplicate " + table.uniqueColumn() + " " + key;
+                return;
+            }
+        }
+        row.values = values;
+    }
+
+    private static Object parse(Column c, String raw) {
+        return switch (c.kind()) {
+            case BIGINT -> Long.parseLong(raw);
+            case NUMERIC -> new BigDecimal(raw);
+            case DOUBLE -> Double.parseDouble(raw);
+            case DATE -> LocalDate.parse(raw);
+            case BOOLEAN -> parseBoolean(raw);
+            case TEXT -> raw;
+        };
+    }
+
+    /** Same spellings PostgreSQL accepts for boolean input. */
+    private static Boolean parseBoolean(String raw) {
+        return switch (raw.toLowerCase(Locale.ROOT)) {
+            case "t", "true", "y", "yes", "on", "1" -> Boolean.TRUE;
+            case "f", "false", "n", "no", "off", "0" -> Boolean.FALSE;
+            default -> throw new NumberFormatException(raw);
+        };
+    }
+
+    private String constraint(Column c, Object v) throws SQLException {
+        if (v instanceof String s) {
+            if (c.maxLength() > 0 && s.codePointCount(0, s.length()) > c.maxLength()) {
+                return "is longer than " + c.maxLength() + " characters";
+            }
+            if (!c.allowed().isEmpty() && !c.allowed().contains(s)) {
+                return "must be one of " + c.allowed();
+            }
+        } else if (v instanceof Double d) {
+            if (!Double.isFinite(d) || d < c.min() || d > c.max()) {
+                return "must be between " + c.min() + " and " + c.max();
+            }
+        } else if (v instanceof Long id && c.ref() != null) {
+            if (!ids.get(c.ref()).contains(id)) return id + " does not exist in " + c.ref().table;
+        } else if (v instanceof LocalDate date && table == ImportTable.SUCCESSFUL_DEALS) {
+            PartitionManager.ensurePartitionFor(date);
+        }
+        return null;
+    }
+}
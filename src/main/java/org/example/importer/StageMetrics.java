@@ -0,0 +1,54 @@
+package org.example.importer;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Throughput of one pipeline stage across its threads. busy is time spent working on batches,
+ * blocked is time waiting for room in the next stage's queue (backpressure); the rest is idle,
+ * waiting for input.
+ */
+public final class StageMetrics {
+
+    private final String name;
+    private final int threads;
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder busyNanos = new LongAdder();
+    private final LongAdder blockedNanos = new LongAdder();
+
+    StageMetrics(String name, int threads) {
+        this.name = name;
+        this.threads = threads;
+    }
+
+    void processed(long rowCount, long nanos) {
+        rows.add(rowCount);
+        batches.increment();
+        busyNanos.add(nanos);
+    }
+
+    void blocked(long nanos) {
+        blockedNanos.add(nanos);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public long rows() {
+        return rows.sum();
+    }
+
+    public long batches() {
+        return batches.sum();
+    }
+
+    /** One line: rows, rows/s, and busy/blocked share of the stage's thread time. */
+    public String summary(long elapsedNanos) {
+        double seconds = Math.max(elapsedNanos, 1) / 1e9;
+        double capacity = Math.max(elapsedNanos, 1) * (double) threads;
+        return String.format("%-9s x%-2d %,12d rows %,12.0f rows/s  busy %5.1f%%  blocked %5.1f%%",
+                name, threads, rows(), rows() / seconds,
+                100 * busyNanos.sum() / capacity, 100 * blockedNanos.sum() / capacity);
+    }
+}
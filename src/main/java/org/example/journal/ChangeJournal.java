@@ -0,0 +1,269 @@
+package org.example.journal;
+
+import org.example.codec.BinaryWriter;
+import org.example.codec.RecordCodec;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Append-only journal of every insert / update / delete made through the DAOs.
+ *
+ * Records are encoded on the calling thread, then copied into a memory-mapped segment under a
+ * short lock; nothing waits for the disk. A background thread forces the written range to disk
+ * every {@code flushIntervalMillis} (group flush), so one fsync covers every record appended in
+ * that interval. When a segment is full the writer moves on to a new file. See {@link Segments}
+ * for the layout and {@link JournalReader} for tailing.
+ *
+ * A journal directory has one writer: opening it takes an exclusive lock on its lock file, and
+ * a second writer (another app instance, or a second open in this JVM) fails at once instead of
+ * appending over the same segment. The shared journal lives in ~/.realestate/journal (or
+ * -Djournal.dir). If it cannot be opened, or is locked, the app keeps working without one.
+ */
+public final class ChangeJournal implements AutoCloseable {
+
+    public static final String DIR_PROPERTY = "journal.dir";
+    public static final int DEFAULT_SEGMENT_BYTES = 64 << 20;
+    public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 50;
+    static final String LOCK_FILE = "journal.lock";
+
+    private static final Logger LOG = Logger.getLogger(ChangeJournal.class.getName());
+    private static final ChangeJournal DISABLED = new ChangeJournal();
+    private static ChangeJournal shared;
+
+    private static final ThreadLocal<BinaryWriter> BODY = ThreadLocal.withInitial(BinaryWriter::new);
+    private static final ThreadLocal<BinaryWriter> ROW = ThreadLocal.withInitial(BinaryWriter::new);
+
+    private final Path dir;
+    private final int segmentBytes;
+    private final ScheduledExecutorService flusher;
+    private final FileChannel lockChannel;
+    private final FileLock dirLock;
+
+    private final Object lock = new Object();
+    private MappedByteBuffer segment;
+    private long base;
+    private int position;
+    private int flushedTo;
+    private boolean closed;
+
+    /** The no-op journal used when the real one cannot be opened. */
+    private ChangeJournal() {
+        dir = null;
+        segmentBytes = 0;
+        flusher = null;
+        lockChannel = null;
+        dirLock = null;
+        closed = true;
+    }
+
+    private ChangeJournal(Path dir, int segmentBytes, long flushIntervalMillis) throws IOException {
+        this.dir = dir;
+        this.segmentBytes = segmentBytes;
+        Files.createDirectories(dir);
+
+        lockChannel = FileChannel.open(dir.resolve(LOCK_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            FileLock l;
+            try {
+                l = lockChannel.tryLock();
+            } catch (OverlappingFileLockException ex) {
+                l = null;
+            }
+            if (l == null) throw new IOException("Journal " + dir + " is already open in another writer");
+            dirLock = l;
+
+            List<Long> bases = Segments.bases(dir);
+            if (bases.isEmpty()) {
+                map(0);
+            } else {
+                map(bases.get(bases.size() - 1));
+                recover();
+            }
+        } catch (IOException | RuntimeException ex) {
+            lockChannel.close();
+            throw ex;
+        }
+
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "journal-flush");
+            t.setDaemon(true);
+            return t;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public static ChangeJournal open(Path dir, int segmentBytes, long flushIntervalMillis) throws IOException {
+        return new ChangeJournal(dir, segmentBytes, flushIntervalMillis);
+    }
+
+    public static synchronized ChangeJournal shared() {
+        if (shared == null) {
+            Path dir = Path.of(System.getProperty(DIR_PROPERTY,
+                    Path.of(System.getProperty("user.home"), ".realestate", "journal").toString()));
+            try {
+                shared = open(dir, DEFAULT_SEGMENT_BYTES, DEFAULT_FLUSH_INTERVAL_MILLIS);
+                ChangeJournal j = shared;
+                Runtime.getRuntime().addShutdownHook(new Thread(j::close, "journal-close"));
+            } catch (IOException | RuntimeException ex) {
+                LOG.log(Level.WARNING, "Change journal disabled: cannot open " + dir, ex);
+                shared = DISABLED;
+            }
+        }
+        return shared;
+    }
+
+    public Path directory() {
+        return dir;
+    }
+
+    /**
+     * Appends one change. row is the model record as written (null for deletes); key is the
+     * primary key, which for inserts is the generated id rather than the id inside row.
+     * Never throws for I/O problems: a failing journal logs and stops, the DAO write stands.
+     */
+    public <R extends Record> void append(ChangeType type, String table, long key, R row) {
+        if (closed) return;
+
+        byte[] rowBytes = null;
+        int rowLength = 0;
+        if (row != null) {
+            BinaryWriter rw = ROW.get();
+            rw.reset();
+            @SuppressWarnings("unchecked")
+            RecordCodec<R> codec = RecordCodec.of((Class<R>) row.getClass());
+            codec.encode(row, rw);
+            rowBytes = rw.array();
+            rowLength = rw.size();
+        }
+
+        BinaryWriter body = BODY.get();
+        body.reset();
+        Segments.encodeBody(body, System.currentTimeMillis(), type, table, key, rowBytes, rowLength);
+        int length = body.size();
+        int crc = Segments.crc(body.array(), 0, length);
+
+        if (Segments.FRAME_HEADER + length > segmentBytes) {
+            throw new IllegalArgumentException("Journal record of " + length + " bytes does not fit a segment");
+        }
+
+        synchronized (lock) {
+            if (closed) return;
+            try {
+                if (position + Segments.FRAME_HEADER + length > segment.capacity()) rotate();
+                segment.putInt(position + 4, crc);
+                segment.put(position + Segments.FRAME_HEADER, body.array(), 0, length);
+                // publish last: readers treat length 0 as "not written yet"
+                segment.putInt(position, length);
+                position += Segments.FRAME_HEADER + length;
+            } catch (IOException ex) {
+                LOG.log(Level.SEVERE, "Change journal stopped: cannot create segment in " + dir, ex);
+                closed = true;
+            }
+        }
+    }
+
+    /** Offset the next record will be written at. */
+    public long endOffset() {
+        synchronized (lock) {
+            return base + position;
+        }
+    }
+
+    /** Forces everything appended so far to disk. Called periodically by the flush thread. */
+    public void flush() {
+        MappedByteBuffer buf;
+        int from;
+        int to;
+        synchronized (lock) {
+            if (segment == null || flushedTo == position) return;
+            buf = segment;
+            from = flushedTo;
+            to = position;
+            flushedTo = position;
+        }
+        buf.force(from, to - from);
+    }
+
+    /** Deletes whole segments that end at or before offset, e.g. once every consumer is past it. */
+    public void deleteSegmentsBefore(long offset) throws IOException {
+        long current;
+        synchronized (lock) {
+            current = base;
+        }
+        for (long b : Segments.bases(dir)) {
+            Path p = Segments.path(dir, b);
+            if (b < current && b + Files.size(p) <= offset) Files.deleteIfExists(p);
+        }
+    }
+
+    /** Flushes and releases the directory, so another writer can open it. */
+    @Override
+    public void close() {
+        if (flusher == null) return;
+        flusher.shutdown();
+        synchronized (lock) {
+            if (closed) return;
+            closed = true;
+        }
+        flush();
+        try {
+            dirLock.release();
+            lockChannel.close();
+        } catch (IOException ex) {
+            LOG.log(Level.WARNING, "Could not release the journal lock in " + dir, ex);
+        }
+    }
+
+    private void rotate() throws IOException {
+        if (position + 4 <= segment.capacity()) segment.putInt(position, Segments.END_OF_SEGMENT);
+        segment.force();
+        map(base + segment.capacity());
+    }
+
+    private void map(long newBase) throws IOException {
+        Path p = Segments.path(dir, newBase);
+        try (FileChannel ch = FileChannel.open(p, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = Math.max(ch.size(), segmentBytes);
+            segment = ch.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+        base = newBase;
+        position = 0;
+        flushedTo = 0;
+    }
+
+    /** Finds the end of the last segment after a restart; a torn frame from a crash is cleared. */
+    private void recover() {
+        int cap = segment.capacity();
+        int pos = 0;
+        while (pos + Segments.FRAME_HEADER <= cap) {
+            int len = segment.getInt(pos);
+            if (len == 0) break;
+            if (len == Segments.END_OF_SEGMENT) {
+                pos = cap;
+                break;
+            }
+            if (len < 0 || pos + Segments.FRAME_HEADER + len > cap
+                    || Segments.crc(segment, pos + Segments.FRAME_HEADER, len) != segment.getInt(pos + 4)) {
+                for (int i = pos; i < cap; i++) segment.put(i, (byte) 0);
+                segment.force();
+                break;
+            }
+            pos += Segments.FRAME_HEADER + len;
+        }
+        position = Math.min(pos, cap);
+        flushedTo = position;
+    }
+}
@@ -0,0 +1,21 @@
+package org.example.journal;
+
+import org.example.codec.RecordCodec;
+
+/**
+ * One journal entry. offset identifies it; pass nextOffset to {@link JournalReader#open} to resume after it.
+ * row holds the {@link RecordCodec} encoding of the written model record, or null (e.g. for deletes).
+ */
+public record ChangeRecord(
+        long offset,
+        long nextOffset,
+        long timestampMillis,
+        ChangeType type,
+        String table,
+        long key,
+        byte[] row
+) {
+    public <R extends Record> R row(Class<R> type) {
+        return row == null ? null : RecordCodec.of(type).fromBytes(row);
+    }
+}
@@ -0,0 +1,11 @@
+package org.example.journal;
+
+public enum ChangeType {
+    INSERT, UPDATE, DELETE;
+
+    private static final ChangeType[] VALUES = values();
+
+    static ChangeType of(int code) {
+        return VALUES[code];
+    }
+}
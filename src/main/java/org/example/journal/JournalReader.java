@@ -0,0 +1,113 @@
+package org.example.journal;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Tails a {@link ChangeJournal} directory, in this or another process.
+ *
+ * Start from 0 (or any earlier {@link ChangeRecord#nextOffset()}) and call {@link #poll()} until
+ * it returns null, then poll again later; remembering the last nextOffset is all a consumer needs
+ * to resume after a restart. If the requested offset was already deleted, reading starts at the
+ * oldest remaining segment.
+ */
+public final class JournalReader implements AutoCloseable {
+
+    private final Path dir;
+    private MappedByteBuffer segment;
+    private long base;
+    private int position;
+
+    private JournalReader(Path dir) {
+        this.dir = dir;
+    }
+
+    public static JournalReader open(Path dir, long fromOffset) throws IOException {
+        JournalReader r = new JournalReader(dir);
+        List<Long> bases = Segments.bases(dir);
+        if (bases.isEmpty()) {
+            r.base = 0;
+            r.position = (int) Math.max(0, fromOffset);
+            return r;
+        }
+        long start = bases.get(0);
+        for (long b : bases) {
+            if (b <= fromOffset) start = b;
+        }
+        r.mapSegment(start);
+        r.position = (int) Math.min(Math.max(0, fromOffset - start), r.segment.capacity());
+        return r;
+    }
+
+    /** Offset of the next record this reader will return. */
+    public long offset() {
+        return base + position;
+    }
+
+    /** The next record, or null if the writer has not appended one yet. */
+    public ChangeRecord poll() throws IOException {
+        while (true) {
+            if (segment == null) {
+                if (!Files.exists(Segments.path(dir, base))) return null;
+                int keep = position;
+                mapSegment(base);
+                position = keep;
+            }
+
+            int cap = segment.capacity();
+            if (cap == 0) {
+                // the writer has created the file but not sized it yet
+                segment = null;
+                return null;
+            }
+            if (position + Segments.FRAME_HEADER > cap) {
+                if (!nextSegment()) return null;
+                continue;
+            }
+
+            int len = segment.getInt(position);
+            if (len == 0) return null;
+            if (len == Segments.END_OF_SEGMENT) {
+                if (!nextSegment()) return null;
+                continue;
+            }
+            int bodyStart = position + Segments.FRAME_HEADER;
+            if (len < 0 || bodyStart + len > cap) {
+                throw new IOException("Corrupt journal frame at offset " + offset());
+            }
+            // a mismatch means the frame is still being written (or was torn by a crash)
+            if (Segments.crc(segment, bodyStart, len) != segment.getInt(position + 4)) return null;
+
+            long offset = offset();
+            long next = offset + Segments.FRAME_HEADER + len;
+            ChangeRecord rec = Segments.decodeBody(segment.slice(bodyStart, len), offset, next);
+            position += Segments.FRAME_HEADER + len;
+            return rec;
+        }
+    }
+
+    @Override
+    public void close() {
+        segment = null;
+    }
+
+    private boolean nextSegment() throws IOException {
+        long nextBase = base + segment.capacity();
+        if (!Files.exists(Segments.path(dir, nextBase))) return false;
+        mapSegment(nextBase);
+        position = 0;
+        return true;
+    }
+
+    private void mapSegment(long newBase) throws IOException {
+        try (FileChannel ch = FileChannel.open(Segments.path(dir, newBase), StandardOpenOption.READ)) {
+            segment = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+        }
+        base = newBase;
+    }
+}
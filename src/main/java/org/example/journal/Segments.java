@@ -0,0 +1,93 @@
+package org.example.journal;
+
+import org.example.codec.BinaryReader;
+import org.example.codec.BinaryWriter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * On-disk layout shared by {@link ChangeJournal} and {@link JournalReader}.
+ *
+ * A journal is a directory of fixed-size, zero-filled segment files named by the offset of their
+ * first byte (00000000000067108864.seg); an offset is segment base + position in the file.
+ * Each frame is [int bodyLength][int crc32c(body)][body]. bodyLength 0 means nothing written yet,
+ * -1 means the rest of the segment is unused and the next record is in the following segment.
+ * The writer fills in body and crc before the length, so a reader never accepts a half-written frame.
+ *
+ * Body: [long timestamp][byte type][string table][zig-zag varint key][byte hasRow][bytes row]
+ */
+final class Segments {
+
+    static final int FRAME_HEADER = 8;
+    static final int END_OF_SEGMENT = -1;
+    private static final String SUFFIX = ".seg";
+
+    private Segments() {}
+
+    static Path path(Path dir, long base) {
+        return dir.resolve(String.format("%020d%s", base, SUFFIX));
+    }
+
+    /** Base offsets of all segments in the directory, ascending. */
+    static List<Long> bases(Path dir) throws IOException {
+        List<Long> out = new ArrayList<>();
+        if (!Files.isDirectory(dir)) return out;
+        try (Stream<Path> files = Files.list(dir)) {
+            files.map(p -> p.getFileName().toString())
+                    .filter(n -> n.endsWith(SUFFIX))
+                    .forEach(n -> {
+                        try {
+                            out.add(Long.parseLong(n.substring(0, n.length() - SUFFIX.length())));
+                        } catch (NumberFormatException ignored) {
+                            // not one of ours
+                        }
+                    });
+        }
+        out.sort(null);
+        return out;
+    }
+
+    static void encodeBody(BinaryWriter out, long timestamp, ChangeType type, String table, long key, byte[] row, int rowLength) {
+        out.writeLongFixed(timestamp);
+        out.writeByte(type.ordinal());
+        out.writeString(table);
+        out.writeSignedVarLong(key);
+        if (row == null) {
+            out.writeByte(0);
+        } else {
+            out.writeByte(1);
+            out.writeVarLong(rowLength);
+            out.writeBytes(row, 0, rowLength);
+        }
+    }
+
+    static ChangeRecord decodeBody(ByteBuffer body, long offset, long nextOffset) {
+        BinaryReader in = new BinaryReader(body);
+        long timestamp = in.readLongFixed();
+        ChangeType type = ChangeType.of(in.readByte());
+        String table = in.readString();
+        long key = in.readSignedVarLong();
+        byte[] row = in.readByte() == 0 ? null : in.readByteArray();
+        return new ChangeRecord(offset, nextOffset, timestamp, type, table, key, row);
+    }
+
+    /** crc32c of buf[from, from + length) without moving the buffer's position. */
+    static int crc(ByteBuffer buf, int from, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(buf.slice(from, length));
+        return (int) crc.getValue();
+    }
+
+    static int crc(byte[] b, int from, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(b, from, length);
+        return (int) crc.getValue();
+    }
+}
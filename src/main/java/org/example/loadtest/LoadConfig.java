@@ -0,0 +1,22 @@
+package org.example.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * users virtual users start evenly over rampUp and then run for duration; only operations that
+ * finish after the ramp-up are measured. Between operations each user waits an exponentially
+ * distributed think time with the given mean. mix holds the weight of every operation used.
+ */
+public record LoadConfig(int users, Duration rampUp, Duration duration, Duration meanThinkTime,
+                         Map<Operation, Integer> mix, long seed, Path report) {
+
+    public static LoadConfig defaults() {
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        for (Operation op : Operation.values()) mix.put(op, op.weight);
+        return new LoadConfig(20, Duration.ofSeconds(30), Duration.ofMinutes(5), Duration.ofSeconds(2),
+                mix, 1, Path.of("loadtest.csv"));
+    }
+}
@@ -0,0 +1,104 @@
+package org.example.loadtest;
+
+import org.example.db.Db;
+import org.example.metrics.LatencyHistogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * The run as CSV: "#" lines with the settings, then one row per operation (in the fixed
+ * Operation order) and a TOTAL row. Latencies are in milliseconds; rates are failures per
+ * attempt. Two reports from runs with the same settings can be compared line by line.
+ */
+final class LoadReport {
+
+    static final String HEADER = "operation,tab,count,throughput_per_s,errors,error_rate,contention,contention_rate,"
+            + "mean_ms,p50_ms,p90_ms,p99_ms,p999_ms,max_ms";
+
+    private LoadReport() {}
+
+    static List<String> lines(LoadResult result) {
+        LoadConfig c = result.config();
+        List<String> out = new ArrayList<>();
+        out.add("# written=" + Instant.now());
+        out.add("# db=" + Db.url());
+        out.add("# users=" + c.users() + " ramp_up_s=" + c.rampUp().toSeconds() + " duration_s=" + c.duration().toSeconds()
+                + " think_ms=" + c.meanThinkTime().toMillis() + " seed=" + c.seed());
+        out.add("# mix=" + c.mix().entrySet().stream()
+                .filter(e -> e.getValue() > 0)
+                .map(e -> e.getKey() + ":" + e.getValue())
+                .collect(Collectors.joining(",")));
+        out.add(HEADER);
+
+        double seconds = result.measuredNanos() / 1e9;
+        LatencyHistogram.Snapshot all = null;
+        long errors = 0;
+        long contention = 0;
+        for (Map.Entry<Operation, OperationStats> e : result.stats().entrySet()) {
+            OperationStats s = e.getValue();
+            LatencyHistogram.Snapshot h = s.latency.snapshot();
+            out.add(row(e.getKey().name(), e.getKey().tab, h, s.errors.sum(), s.contention.sum(), seconds));
+            all = all == null ? h : all.plus(h);
+            errors += s.errors.sum();
+            contention += s.contention.sum();
+        }
+        if (all != null) out.add(row("TOTAL", "", all, errors, contention, seconds));
+        return out;
+    }
+
+    static void write(LoadResult result) throws IOException {
+        try (Writer w = Files.newBufferedWriter(result.config().report(), StandardCharsets.UTF_8)) {
+            for (String line : lines(result)) w.write(line + "\n");
+        }
+    }
+
+    /** A fixed-width view of the same rows for the console. */
+    static void print(LoadResult result, PrintStream out) {
+        out.printf("%-28s %9s %9s %8s %8s %9s %9s %9s %9s%n",
+                "operation", "count", "ops/s", "err%", "cont%", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        for (String line : lines(result)) {
+            if (line.startsWith("#") || line.equals(HEADER)) continue;
+            String[] f = line.split(",", -1);
+            out.printf(Locale.ROOT, "%-28s %9s %9s %8.2f %8.2f %9s %9s %9s %9s%n",
+                    f[0], f[2], f[3], Double.parseDouble(f[5]) * 100, Double.parseDouble(f[7]) * 100,
+                    f[9], f[11], f[12], f[13]);
+        }
+    }
+
+    private static String row(String name, String tab, LatencyHistogram.Snapshot h, long errors, long contention,
+                              double seconds) {
+        long attempts = h.count() + errors + contention;
+        return String.join(",",
+                name, tab,
+                Long.toString(h.count()),
+                format(h.count() / seconds),
+                Long.toString(errors),
+                format(attempts == 0 ? 0 : (double) errors / attempts),
+                Long.toString(contention),
+                format(attempts == 0 ? 0 : (double) contention / attempts),
+                ms(h.mean()),
+                ms(h.percentile(0.50)),
+                ms(h.percentile(0.90)),
+                ms(h.percentile(0.99)),
+                ms(h.percentile(0.999)),
+                ms(h.max()));
+    }
+
+    private static String ms(double nanos) {
+        return format(nanos / 1e6);
+    }
+
+    private static String format(double v) {
+        return String.format(Locale.ROOT, "%.3f", v);
+    }
+}
@@ -0,0 +1,7 @@
+package org.example.loadtest;
+
+import java.util.Map;
+
+/** Per-operation results of a run; measuredNanos is the time after the ramp-up. */
+record LoadResult(LoadConfig config, Map<Operation, OperationStats> stats, long measuredNanos) {
+}
@@ -0,0 +1,134 @@
+package org.example.loadtest;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs the virtual users: one thread each, drawing operations from the weighted mix with their
+ * own random stream (split from the seed, so the sequence of operations per user repeats between
+ * runs). Every DAO call opens its own connection, as in the app, so N users means up to N
+ * concurrent connections.
+ */
+public final class LoadTest {
+
+    private static final Logger LOG = Logger.getLogger(LoadTest.class.getName());
+    private static final long PROGRESS_SECONDS = 10;
+
+    private final LoadConfig config;
+    private final Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+    private final Operation[] ops;
+    private final int[] cumulative;
+    private final Set<Operation> loggedErrors = ConcurrentHashMap.newKeySet();
+
+    public LoadTest(LoadConfig config) {
+        this.config = config;
+        List<Operation> used = new ArrayList<>();
+        for (Map.Entry<Operation, Integer> e : config.mix().entrySet()) {
+            if (e.getValue() > 0) used.add(e.getKey());
+        }
+        if (used.isEmpty()) throw new IllegalArgumentException("The mix has no operation with a positive weight");
+        ops = used.toArray(Operation[]::new);
+        cumulative = new int[ops.length];
+        int sum = 0;
+        for (int i = 0; i < ops.length; i++) {
+            sum += config.mix().get(ops[i]);
+            cumulative[i] = sum;
+            stats.put(ops[i], new OperationStats());
+        }
+    }
+
+    LoadResult run() throws SQLException, InterruptedException {
+        Workload workload = Workload.load();
+        long start = System.nanoTime();
+        long measureFrom = start + config.rampUp().toNanos();
+        long end = measureFrom + config.duration().toNanos();
+
+        SplittableRandom seeds = new SplittableRandom(config.seed());
+        List<Thread> users = new ArrayList<>();
+        for (int i = 0; i < config.users(); i++) {
+            SplittableRandom random = seeds.split();
+            long startAt = start + config.rampUp().toNanos() * i / config.users();
+            Thread t = new Thread(() -> user(workload, random, startAt, measureFrom, end), "vu-" + (i + 1));
+            t.setDaemon(true);
+            users.add(t);
+        }
+
+        ScheduledExecutorService progress = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "loadtest-progress");
+            t.setDaemon(true);
+            return t;
+        });
+        long[] last = {0};
+        progress.scheduleAtFixedRate(() -> {
+            long attempts = stats.values().stream().mapToLong(OperationStats::attempts).sum();
+            long failed = stats.values().stream().mapToLong(s -> s.errors.sum() + s.contention.sum()).sum();
+            LOG.info(String.format("t=%ds ops/s=%.1f failed=%d",
+                    (System.nanoTime() - start) / 1_000_000_000, (attempts - last[0]) / (double) PROGRESS_SECONDS, failed));
+            last[0] = attempts;
+        }, PROGRESS_SECONDS, PROGRESS_SECONDS, TimeUnit.SECONDS);
+
+        try {
+            for (Thread t : users) t.start();
+            for (Thread t : users) t.join();
+        } finally {
+            progress.shutdownNow();
+            for (Thread t : users) t.interrupt();
+        }
+        return new LoadResult(config, stats, Math.max(1, Math.min(System.nanoTime(), end) - measureFrom));
+    }
+
+    private void user(Workload workload, SplittableRandom r, long startAt, long measureFrom, long end) {
+        try {
+            sleepNanos(startAt - System.nanoTime());
+            while (System.nanoTime() < end) {
+                Operation op = pick(r);
+                OperationStats s = stats.get(op);
+                long t0 = System.nanoTime();
+                try {
+                    op.run(workload, r);
+                    long t1 = System.nanoTime();
+                    if (t1 >= measureFrom) s.latency.record(t1 - t0);
+                } catch (SQLException ex) {
+                    if (System.nanoTime() >= measureFrom) {
+                        if (OperationStats.isContention(ex)) s.contention.increment();
+                        else s.errors.increment();
+                    }
+                    logFirst(op, ex);
+                } catch (RuntimeException ex) {
+                    if (System.nanoTime() >= measureFrom) s.errors.increment();
+                    logFirst(op, ex);
+                }
+                double u = r.nextDouble();
+                long think = (long) (-config.meanThinkTime().toNanos() * Math.log(1 - u));
+                sleepNanos(Math.min(think, end - System.nanoTime()));
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Operation pick(SplittableRandom r) {
+        int x = r.nextInt(cumulative[cumulative.length - 1]);
+        for (int i = 0; i < cumulative.length; i++) if (x < cumulative[i]) return ops[i];
+        return ops[ops.length - 1];
+    }
+
+    private void logFirst(Operation op, Exception ex) {
+        if (loggedErrors.add(op)) LOG.log(Level.WARNING, op + " failed (further failures are only counted)", ex);
+    }
+
+    private static void sleepNanos(long nanos) throws InterruptedException {
+        if (nanos > 0) TimeUnit.NANOSECONDS.sleep(nanos);
+    }
+}
@@ -0,0 +1,67 @@
+package org.example.loadtest;
+
+import org.example.offline.OfflineEngine;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Headless load test against the database Db points at (-Ddb.url=...):
+ * <pre>
+ * LoadTestMain [users=20] [rampup=30] [duration=300] [think=2000] [seed=1]
+ *              [mix=PEOPLE_SEARCH:10,DEAL_CLOSE:3,...] [report=loadtest.csv]
+ * </pre>
+ * Times are seconds, think is the mean think time in milliseconds. mix replaces the default
+ * weights (see Operation) with only the listed operations. To see serialization failures, run
+ * against a URL that makes transactions serializable, e.g.
+ * ...?options=-c%20default_transaction_isolation%3Dserializable
+ */
+public final class LoadTestMain {
+
+    private LoadTestMain() {}
+
+    public static void main(String[] args) throws Exception {
+        // a dropped connection must show up as errors, not as fast answers from the offline store
+        if (System.getProperty(OfflineEngine.ENABLED_PROPERTY) == null) {
+            System.setProperty(OfflineEngine.ENABLED_PROPERTY, "false");
+        }
+
+        LoadConfig d = LoadConfig.defaults();
+        int users = d.users();
+        Duration rampUp = d.rampUp();
+        Duration duration = d.duration();
+        Duration think = d.meanThinkTime();
+        Map<Operation, Integer> mix = d.mix();
+        long seed = d.seed();
+        Path report = d.report();
+        for (String arg : args) {
+            String[] kv = arg.split("=", 2);
+            switch (kv[0]) {
+                case "users" -> users = Integer.parseInt(kv[1]);
+                case "rampup" -> rampUp = Duration.ofSeconds(Long.parseLong(kv[1]));
+                case "duration" -> duration = Duration.ofSeconds(Long.parseLong(kv[1]));
+                case "think" -> think = Duration.ofMillis(Long.parseLong(kv[1]));
+                case "seed" -> seed = Long.parseLong(kv[1]);
+                case "mix" -> mix = parseMix(kv[1]);
+                case "report" -> report = Path.of(kv[1]);
+                default -> throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+        }
+
+        LoadResult result = new LoadTest(new LoadConfig(users, rampUp, duration, think, mix, seed, report)).run();
+        LoadReport.write(result);
+        LoadReport.print(result, System.out);
+        System.out.println("Report written to " + report);
+    }
+
+    private static Map<Operation, Integer> parseMix(String spec) {
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        for (String item : spec.split(",")) {
+            String[] kv = item.split(":", 2);
+            mix.put(Operation.valueOf(kv[0].trim().toUpperCase()), kv.length > 1 ? Integer.parseInt(kv[1].trim()) : 1);
+        }
+        return mix;
+    }
+}
@@ -0,0 +1,96 @@
+package org.example.loadtest;
+
+import org.example.model.Client;
+import org.example.model.Listing;
+import org.example.model.Person;
+import org.example.model.Preference;
+import org.example.model.Property;
+import org.example.model.SuccessfulDeal;
+import org.example.model.UnsoldPropertyRow;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * One thing an office user does, as the tab does it (same DAO calls, in the same order). The
+ * weight is the default share in the mix; *_LIST operations are tab refreshes.
+ */
+enum Operation {
+
+    PEOPLE_LIST("People", 4, (w, r) -> w.persons.findAll()),
+    PEOPLE_SEARCH("People", 10, (w, r) -> w.persons.search(Words.NAME_PREFIXES[r.nextInt(Words.NAME_PREFIXES.length)], 20)),
+    PEOPLE_CRUD("People", 2, (w, r) -> {
+        long id = w.persons.insert(new Person(0, "Load", "Test", "load.test@example.com", "+359880000000"));
+        w.persons.update(new Person(id, "Load", "Tested", "load.test@example.com", "+359880000001"));
+        if (w.persons.getDeleteBlockers(id).isEmpty()) w.persons.delete(id);
+    }),
+    CLIENT_LIST("Clients", 2, (w, r) -> w.clients.findAll()),
+    CLIENT_UPDATE("Clients", 2, (w, r) -> {
+        Client c = w.clients.findById(w.randomClient(r));
+        if (c == null) return;
+        w.clients.update(new Client(c.personId(), BigDecimal.valueOf(50_000 + r.nextInt(400) * 1000L), c.areaInterestedIn()));
+    }),
+    AGENT_LIST("Agents", 1, (w, r) -> w.agents.findAll()),
+    PROPERTY_LIST("Properties", 2, (w, r) -> w.properties.findAll()),
+    PROPERTY_NEARBY("Properties", 6, (w, r) ->
+            w.properties.findWithinRadius(41.5 + r.nextDouble() * 2.5, 22.5 + r.nextDouble() * 5.5, 2)),
+    PROPERTY_UPDATE("Properties", 3, (w, r) -> {
+        Property p = w.properties.findById(w.randomProperty(r));
+        if (p == null || p.price() == null) return;
+        BigDecimal price = p.price().multiply(BigDecimal.valueOf(95 + r.nextInt(11))).movePointLeft(2);
+        w.properties.update(new Property(p.propertyId(), price, p.squareMeters(), p.latitude(), p.longitude(),
+                p.city(), p.propertyType(), p.ownerId()));
+    }),
+    LISTING_SEARCH("Listings", 8, (w, r) -> w.listings.search(Words.LISTING_WORDS[r.nextInt(Words.LISTING_WORDS.length)], 0, 50)),
+    LISTING_CRUD("Listings", 2, (w, r) -> {
+        long id = w.listings.insert(new Listing(0, "sale", "Load test listing", null));
+        w.listings.update(new Listing(id, "sale", "Load test listing, updated", "load test"));
+        w.listings.delete(id);
+    }),
+    PREFERENCE_CRUD("Preferences", 2, (w, r) -> {
+        long id = w.preferences.insert(new Preference(0, w.randomClient(r), "load test"));
+        w.preferences.delete(id);
+    }),
+    OWNER_LIST("Owners", 1, (w, r) -> w.owners.findAll()),
+    DEALS_LIST("Deals", 1, (w, r) -> w.deals.findAll()),
+    /** Sells the first unsold property after a random id; two users may pick the same one. */
+    DEAL_CLOSE("Deals", 3, (w, r) -> {
+        List<UnsoldPropertyRow> unsold = w.queries.unsoldProperties(w.randomProperty(r), 1);
+        if (unsold.isEmpty()) unsold = w.queries.unsoldProperties(0, 1);
+        if (unsold.isEmpty()) return;
+        UnsoldPropertyRow p = unsold.get(0);
+        w.deals.insert(new SuccessfulDeal(0, null, p.propertyId(), p.price(), w.randomAgent(r), w.randomClient(r)));
+    }),
+    REPORT_PROPERTIES_WITH_OWNER("Queries", 1, (w, r) -> w.queries.propertiesWithOptionalOwner()),
+    REPORT_TOP_AGENTS("Queries", 1, (w, r) -> w.queries.topAgentsBySales()),
+    REPORT_UNDER_CLIENT_BUDGET("Queries", 1, (w, r) -> w.queries.propertiesUnderClientBudget(w.randomClient(r))),
+    REPORT_AVG_PRICE_BY_TYPE("Queries", 1, (w, r) -> w.queries.avgSalePriceByPropertyType()),
+    REPORT_TOP_CLIENTS("Queries", 1, (w, r) -> w.queries.topClientsByDeals()),
+    REPORT_UNSOLD("Queries", 1, (w, r) -> w.queries.unsoldProperties());
+
+    @FunctionalInterface
+    interface Action {
+        void run(Workload w, SplittableRandom r) throws SQLException;
+    }
+
+    private static final class Words {
+        static final String[] NAME_PREFIXES = {"iv", "mar", "pet", "geo", "el", "dim", "nik", "tod", "ste", "ana"};
+        static final String[] LISTING_WORDS = {"apartment", "house sofia", "room", "sale", "rent", "varna", "center", "renovated"};
+    }
+
+    final String tab;
+    final int weight;
+    private final Action action;
+
+    Operation(String tab, int weight, Action action) {
+        this.tab = tab;
+        this.weight = weight;
+        this.action = action;
+    }
+
+    void run(Workload w, SplittableRandom r) throws SQLException {
+        action.run(w, r);
+    }
+}
@@ -0,0 +1,24 @@
+package org.example.loadtest;
+
+import org.example.metrics.LatencyHistogram;
+
+import java.sql.SQLException;
+import java.util.concurrent.atomic.LongAdder;
+
+/** Results of one operation type, shared by all users. */
+final class OperationStats {
+
+    final LatencyHistogram latency = new LatencyHistogram();
+    final LongAdder errors = new LongAdder();
+    final LongAdder contention = new LongAdder();
+
+    /** Serialization failure, deadlock or lock timeout: the database refused because of another user. */
+    static boolean isContention(SQLException ex) {
+        String state = ex.getSQLState();
+        return "40001".equals(state) || "40P01".equals(state) || "55P03".equals(state);
+    }
+
+    long attempts() {
+        return latency.count() + errors.sum() + contention.sum();
+    }
+}
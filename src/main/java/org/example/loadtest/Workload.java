@@ -0,0 +1,100 @@
+package org.example.loadtest;
+
+import org.example.dao.AgentDao;
+import org.example.dao.ClientDao;
+import org.example.dao.ListingDao;
+import org.example.dao.PersonDao;
+import org.example.dao.PreferenceDao;
+import org.example.dao.PropertyDao;
+import org.example.dao.PropertyOwnerDao;
+import org.example.dao.QueryDao;
+import org.example.dao.SuccessfulDealDao;
+import org.example.db.Db;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * What the virtual users share: the DAOs (stateless, as in the tabs) and the id ranges sampled
+ * once at start, so operations can pick existing rows without querying for them first. Ids
+ * between min and max may be gone; operations treat a missing row as a (cheap) success.
+ */
+final class Workload {
+
+    final PersonDao persons = new PersonDao();
+    final ClientDao clients = new ClientDao();
+    final AgentDao agents = new AgentDao();
+    final PropertyDao properties = new PropertyDao();
+    final PropertyOwnerDao owners = new PropertyOwnerDao();
+    final ListingDao listings = new ListingDao();
+    final PreferenceDao preferences = new PreferenceDao();
+    final SuccessfulDealDao deals = new SuccessfulDealDao();
+    final QueryDao queries = new QueryDao();
+
+    private final long[] personRange;
+    private final long[] propertyRange;
+    private final long[] clientIds;
+    private final long[] agentIds;
+
+    private Workload(long[] personRange, long[] propertyRange, long[] clientIds, long[] agentIds) {
+        this.personRange = personRange;
+        this.propertyRange = propertyRange;
+        this.clientIds = clientIds;
+        this.agentIds = agentIds;
+    }
+
+    static Workload load() throws SQLException {
+        try (Connection c = Db.getConnection();
+             Statement st = c.createStatement()) {
+            long[] persons = range(st, "SELECT min(person_id), max(person_id) FROM person");
+            long[] properties = range(st, "SELECT min(property_id), max(property_id) FROM property");
+            long[] clients = ids(st, "client");
+            long[] agents = ids(st, "agent");
+            if (clients.length == 0 || agents.length == 0 || properties[1] == 0) {
+                throw new IllegalStateException("The database needs clients, agents and properties; generate data first");
+            }
+            return new Workload(persons, properties, clients, agents);
+        }
+    }
+
+    long randomPerson(SplittableRandom r) {
+        return r.nextLong(personRange[0], personRange[1] + 1);
+    }
+
+    long randomProperty(SplittableRandom r) {
+        return r.nextLong(propertyRange[0], propertyRange[1] + 1);
+    }
+
+    long randomClient(SplittableRandom r) {
+        return clientIds[r.nextInt(clientIds.length)];
+    }
+
+    long randomAgent(SplittableRandom r) {
+        return agentIds[r.nextInt(agentIds.length)];
+    }
+
+    private static long[] range(Statement st, String sql) throws SQLException {
+        try (ResultSet rs = st.executeQuery(sql)) {
+            rs.next();
+            return new long[]{rs.getLong(1), rs.getLong(2)};
+        }
+    }
+
+    private static long[] ids(Statement st, String table) throws SQLException {
+        int n;
+        try (ResultSet rs = st.executeQuery("SELECT count(*) FROM " + table)) {
+            rs.next();
+            n = Math.toIntExact(rs.getLong(1));
+        }
+        long[] out = new long[n];
+        int i = 0;
+        try (ResultSet rs = st.executeQuery("SELECT person_id FROM " + table)) {
+            while (rs.next() && i < n) out[i++] = rs.getLong(1);
+        }
+        return i == n ? out : Arrays.copyOf(out, i);
+    }
+}
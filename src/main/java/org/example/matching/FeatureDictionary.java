@@ -0,0 +1,177 @@
+package org.example.matching;
+
+import org.example.metrics.CacheEvent;
+import org.example.model.PropertyProfile;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Turns free-text preference_type values and property rows into the same vocabulary of
+ * canonical features ("type:house", "rooms>=3", "garden>=100", "city:sofia", ...) and
+ * gives every feature a dense int id.
+ *
+ * Numeric attributes are expanded into threshold features on the property side
+ * (a 3-room flat has rooms>=1, rooms>=2 and rooms>=3), so "at least N" preferences
+ * become a single exact lookup.
+ */
+final class FeatureDictionary {
+
+    static final int MAX_ROOMS = 10;
+    static final int MAX_BATHROOMS = 5;
+    static final int MAX_FLOORS = 5;
+    static final int[] GARDEN_BUCKETS_M2 = {1, 50, 100, 200, 500, 1000};
+
+    private static final Map<String, Integer> NUMBER_WORDS = Map.of(
+            "one", 1, "two", 2, "three", 3, "four", 4, "five", 5, "six", 6
+    );
+    private static final String NUM = "(\\d+|one|two|three|four|five|six)";
+    private static final Pattern ROOMS = Pattern.compile(NUM + "[\\s-]*(?:bed)?\\s*rooms?\\b");
+    private static final Pattern BATHROOMS = Pattern.compile(NUM + "[\\s-]*bath(?:room)?s?\\b");
+    private static final Pattern FLOORS = Pattern.compile(NUM + "[\\s-]*(?:floors|stor(?:e?y|eys|ies))\\b");
+    private static final String AREA_UNIT = "(?:m2|m²|sqm|sq\\.? ?m|square met(?:er|re)s?)(?![a-z])";
+    /** A size only counts with its unit: "200 m2 garden", "garden of 200 sqm", not "garden, 3 rooms". */
+    private static final Pattern GARDEN_SIZE = Pattern.compile(
+            "(\\d+)\\s*" + AREA_UNIT + "\\s*garden|garden\\D{0,12}?(\\d+)\\s*" + AREA_UNIT);
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+
+    /** raw preference text -> canonical features; an empty list means the text is not understood */
+    private final Map<String, List<String>> preferenceCache = new HashMap<>();
+    private final Set<String> unknownPreferences = new TreeSet<>();
+
+    int id(String feature) {
+        Integer id = ids.get(feature);
+        if (id != null) return id;
+        id = names.size();
+        ids.put(feature, id);
+        names.add(feature);
+        return id;
+    }
+
+    String name(int id) {
+        return names.get(id);
+    }
+
+    int size() {
+        return names.size();
+    }
+
+    /** Preference texts seen so far that map to no feature (e.g. "near metro"). */
+    Set<String> unknownPreferences() {
+        return unknownPreferences;
+    }
+
+    List<String> preferenceFeatures(String raw) {
+        if (raw == null) return List.of();
+        String text = raw.toLowerCase(Locale.ROOT).trim();
+        List<String> cached = preferenceCache.get(text);
+        CacheEvent.record("preference-features", text, cached != null);
+        if (cached != null) return cached;
+
+        Set<String> out = new LinkedHashSet<>();
+        Matcher m;
+        if ((m = ROOMS.matcher(text)).find()) {
+            out.add("rooms>=" + Math.min(number(m.group(1)), MAX_ROOMS));
+        }
+        if ((m = BATHROOMS.matcher(text)).find()) {
+            out.add("bathrooms>=" + Math.min(number(m.group(1)), MAX_BATHROOMS));
+        }
+        if ((m = FLOORS.matcher(text)).find()) {
+            out.add("floors>=" + Math.min(number(m.group(1)), MAX_FLOORS));
+            out.add("type:house");
+        }
+        if (text.contains("ground floor")) out.add("floor:ground");
+        else if (text.contains("low floor")) out.add("floor:low");
+        else if (text.contains("high floor") || text.contains("top floor")) out.add("floor:high");
+        if (text.contains("garden") || text.contains("yard")) {
+            int size = 1;
+            if ((m = GARDEN_SIZE.matcher(text)).find()) {
+                size = parseCapped(m.group(1) != null ? m.group(1) : m.group(2));
+            }
+            out.add("garden>=" + gardenBucket(size));
+            out.add("type:house");
+        }
+        if (text.matches(".*\\b(apartment|flat|studio)s?\\b.*")) out.add("type:apartment");
+        if (text.matches(".*\\b(house|villa)s?\\b.*")) out.add("type:house");
+        if (text.matches(".*\\bgarages?\\b.*") && !text.contains("with garage")) out.add("type:garage");
+
+        List<String> features = List.copyOf(out);
+        preferenceCache.put(text, features);
+        if (features.isEmpty()) unknownPreferences.add(text);
+        return features;
+    }
+
+    /** "Sofia - Lozenets" and "Sofia" both become city:sofia. */
+    static String cityFeature(String areaOrCity) {
+        if (areaOrCity == null) return null;
+        String city = areaOrCity.split("[-,/(]", 2)[0].trim().toLowerCase(Locale.ROOT);
+        return city.isEmpty() ? null : "city:" + city;
+    }
+
+    static List<String> propertyFeatures(PropertyProfile p) {
+        List<String> out = new ArrayList<>();
+        if (p.propertyType() != null) out.add("type:" + p.propertyType().toLowerCase(Locale.ROOT));
+        String city = cityFeature(p.city());
+        if (city != null) out.add(city);
+
+        addThresholds(out, "rooms>=", p.numberOfRooms(), MAX_ROOMS);
+        addThresholds(out, "bathrooms>=", p.numberOfBathrooms(), MAX_BATHROOMS);
+        addThresholds(out, "floors>=", p.numberOfFloors(), MAX_FLOORS);
+
+        if (p.floor() != null) {
+            int floor = p.floor().intValue();
+            if (floor <= 0) out.add("floor:ground");
+            if (floor <= 2) out.add("floor:low");
+            if (floor >= 5) out.add("floor:high");
+        }
+        if (p.gardenSizeM2() != null) {
+            int garden = p.gardenSizeM2().intValue();
+            for (int b : GARDEN_BUCKETS_M2) {
+                if (garden >= b) out.add("garden>=" + b);
+            }
+        }
+        return out;
+    }
+
+    private static void addThresholds(List<String> out, String prefix, BigDecimal value, int max) {
+        if (value == null) return;
+        int n = Math.min(value.intValue(), max);
+        for (int i = 1; i <= n; i++) {
+            out.add(prefix + i);
+        }
+    }
+
+    /** Largest bucket not above the requested size, so a request is never stricter than what was asked. */
+    private static int gardenBucket(int size) {
+        int bucket = GARDEN_BUCKETS_M2[0];
+        for (int b : GARDEN_BUCKETS_M2) {
+            if (b <= size) bucket = b;
+        }
+        return bucket;
+    }
+
+    private static int number(String s) {
+        Integer word = NUMBER_WORDS.get(s);
+        return word != null ? word : parseCapped(s);
+    }
+
+    /** Digits too long for an int are read as the largest int; every use caps or buckets it anyway. */
+    private static int parseCapped(String digits) {
+        try {
+            return Integer.parseInt(digits);
+        } catch (NumberFormatException ex) {
+            return Integer.MAX_VALUE;
+        }
+    }
+}
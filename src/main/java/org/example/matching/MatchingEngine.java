@@ -0,0 +1,263 @@
+package org.example.matching;
+
+import org.example.dao.MatchingDao;
+import org.example.model.ClientProfile;
+import org.example.model.PreferenceMatchRow;
+import org.example.model.PropertyProfile;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Matches client preferences against properties through two inverted indexes over
+ * {@link FeatureDictionary} ids: feature -> unsold properties having it, and
+ * feature -> clients asking for it. A query only touches the postings of the features
+ * involved, so scoring a changed property against every client costs the number of
+ * clients who share one of its features, not clients x properties.
+ *
+ * A client's requirements are the features of their preference texts plus the city of
+ * area_interested_in; score = matched / required. The budget is a hard filter.
+ * Preference texts the dictionary does not understand (e.g. "near metro") are ignored.
+ *
+ * Loaded lazily on first query. DAO writes only note the ids they changed, through
+ * {@link #propertyChanged(long)} and {@link #clientChanged(long)}; those rows are re-read, one
+ * query per table, and re-indexed by the next query, so a write never waits on (or fails
+ * because of) the engine.
+ */
+public final class MatchingEngine {
+
+    private static final MatchingEngine SHARED = new MatchingEngine(new MatchingDao());
+
+    private final MatchingDao dao;
+    private final FeatureDictionary dictionary = new FeatureDictionary();
+
+    private final Map<Long, PropertyProfile> properties = new HashMap<>();
+    private final Map<Long, int[]> propertyFeatures = new HashMap<>();
+    private final Map<Long, ClientProfile> clients = new HashMap<>();
+    private final Map<Long, int[]> clientFeatures = new HashMap<>();
+
+    private final Map<Integer, Set<Long>> propertiesByFeature = new HashMap<>();
+    private final Map<Integer, Set<Long>> clientsByFeature = new HashMap<>();
+
+    /** Past this many changed rows the next query reloads everything instead. */
+    private static final int RELOAD_AFTER = 1_000;
+
+    private final Set<Long> changedProperties = new LinkedHashSet<>();
+    private final Set<Long> changedClients = new LinkedHashSet<>();
+
+    private boolean loaded;
+
+    MatchingEngine(MatchingDao dao) {
+        this.dao = dao;
+    }
+
+    public static MatchingEngine shared() {
+        return SHARED;
+    }
+
+    public synchronized boolean isLoaded() {
+        return loaded;
+    }
+
+    /** Full reload from the database. */
+    public synchronized void reload() throws SQLException {
+        List<PropertyProfile> allProperties = dao.findPropertyProfiles();
+        List<ClientProfile> allClients = dao.findClientProfiles();
+
+        properties.clear();
+        propertyFeatures.clear();
+        propertiesByFeature.clear();
+        clients.clear();
+        clientFeatures.clear();
+        clientsByFeature.clear();
+        changedProperties.clear();
+        changedClients.clear();
+
+        for (PropertyProfile p : allProperties) indexProperty(p);
+        for (ClientProfile c : allClients) indexClient(c);
+        loaded = true;
+    }
+
+    /** Unsold properties best matching the client's preferences, best first. */
+    public synchronized List<PreferenceMatchRow> matchesForClient(long clientId, int limit) throws SQLException {
+        ensureLoaded();
+        ClientProfile client = clients.get(clientId);
+        int[] wanted = clientFeatures.get(clientId);
+        if (client == null || wanted.length == 0) return List.of();
+
+        Map<Long, Integer> hits = new HashMap<>();
+        for (int f : wanted) {
+            for (long propertyId : propertiesByFeature.getOrDefault(f, Set.of())) {
+                hits.merge(propertyId, 1, Integer::sum);
+            }
+        }
+
+        List<PreferenceMatchRow> out = new ArrayList<>();
+        for (Map.Entry<Long, Integer> e : hits.entrySet()) {
+            PropertyProfile p = properties.get(e.getKey());
+            if (!withinBudget(client, p)) continue;
+            out.add(row(client, p, e.getValue(), wanted.length));
+        }
+        return best(out, limit);
+    }
+
+    /** Clients whose preferences this property satisfies, best first. Works for sold properties too. */
+    public synchronized List<PreferenceMatchRow> clientsInterestedIn(long propertyId, int limit) throws SQLException {
+        ensureLoaded();
+        PropertyProfile p = properties.get(propertyId);
+        if (p == null) return List.of();
+        return scoreClients(p, propertyFeatures.get(propertyId), limit);
+    }
+
+    /**
+     * A property was inserted or updated, or one of its deals changed; it is re-read before the
+     * next query. Called after the write has committed. Does nothing until the engine is loaded.
+     */
+    public synchronized void propertyChanged(long propertyId) {
+        if (loaded) changedProperties.add(propertyId);
+    }
+
+    public synchronized void propertyRemoved(long propertyId) {
+        if (!loaded) return;
+        changedProperties.remove(propertyId);
+        unindexProperty(propertyId);
+    }
+
+    /** A client's budget, area or preferences changed; re-read before the next query. */
+    public synchronized void clientChanged(long clientId) {
+        if (loaded) changedClients.add(clientId);
+    }
+
+    /** Preference texts that could not be mapped to any feature. */
+    public synchronized Set<String> unknownPreferences() {
+        return Set.copyOf(dictionary.unknownPreferences());
+    }
+
+    // ---- indexing ----
+
+    private void ensureLoaded() throws SQLException {
+        if (!loaded || changedProperties.size() + changedClients.size() > RELOAD_AFTER) {
+            reload();
+            return;
+        }
+        // the ids are forgotten only once re-indexed, so a failed read is retried by the next query
+        if (!changedProperties.isEmpty()) {
+            List<PropertyProfile> fresh = dao.findPropertyProfiles(changedProperties);
+            for (long id : changedProperties) unindexProperty(id);
+            for (PropertyProfile p : fresh) indexProperty(p);
+            changedProperties.clear();
+        }
+        if (!changedClients.isEmpty()) {
+            List<ClientProfile> fresh = dao.findClientProfiles(changedClients);
+            for (long id : changedClients) unindexClient(id);
+            for (ClientProfile c : fresh) indexClient(c);
+            changedClients.clear();
+        }
+    }
+
+    private void indexProperty(PropertyProfile p) {
+        int[] features = ids(FeatureDictionary.propertyFeatures(p));
+        properties.put(p.propertyId(), p);
+        propertyFeatures.put(p.propertyId(), features);
+        if (p.sold()) return; // kept for lookups, but never offered as a match
+        for (int f : features) {
+            propertiesByFeature.computeIfAbsent(f, k -> new HashSet<>()).add(p.propertyId());
+        }
+    }
+
+    private void unindexProperty(long propertyId) {
+        properties.remove(propertyId);
+        int[] features = propertyFeatures.remove(propertyId);
+        if (features == null) return;
+        for (int f : features) {
+            Set<Long> posting = propertiesByFeature.get(f);
+            if (posting != null) posting.remove(propertyId);
+        }
+    }
+
+    private void indexClient(ClientProfile c) {
+        Set<String> wanted = new LinkedHashSet<>();
+        for (String pref : c.preferenceTypes()) {
+            wanted.addAll(dictionary.preferenceFeatures(pref));
+        }
+        String city = FeatureDictionary.cityFeature(c.areaInterestedIn());
+        if (city != null) wanted.add(city);
+
+        int[] features = ids(new ArrayList<>(wanted));
+        clients.put(c.clientId(), c);
+        clientFeatures.put(c.clientId(), features);
+        for (int f : features) {
+            clientsByFeature.computeIfAbsent(f, k -> new HashSet<>()).add(c.clientId());
+        }
+    }
+
+    private void unindexClient(long clientId) {
+        clients.remove(clientId);
+        int[] features = clientFeatures.remove(clientId);
+        if (features == null) return;
+        for (int f : features) {
+            Set<Long> posting = clientsByFeature.get(f);
+            if (posting != null) posting.remove(clientId);
+        }
+    }
+
+    private int[] ids(List<String> features) {
+        int[] out = new int[features.size()];
+        for (int i = 0; i < out.length; i++) {
+            out[i] = dictionary.id(features.get(i));
+        }
+        return out;
+    }
+
+    // ---- scoring ----
+
+    private List<PreferenceMatchRow> scoreClients(PropertyProfile p, int[] features, int limit) {
+        Map<Long, Integer> hits = new HashMap<>();
+        for (int f : features) {
+            for (long clientId : clientsByFeature.getOrDefault(f, Set.of())) {
+                hits.merge(clientId, 1, Integer::sum);
+            }
+        }
+
+        List<PreferenceMatchRow> out = new ArrayList<>();
+        for (Map.Entry<Long, Integer> e : hits.entrySet()) {
+            ClientProfile client = clients.get(e.getKey());
+            if (!withinBudget(client, p)) continue;
+            out.add(row(client, p, e.getValue(), clientFeatures.get(client.clientId()).length));
+        }
+        return best(out, limit);
+    }
+
+    private static boolean withinBudget(ClientProfile c, PropertyProfile p) {
+        BigDecimal budget = c.budget();
+        return budget == null || p.price() == null || p.price().compareTo(budget) <= 0;
+    }
+
+    private static PreferenceMatchRow row(ClientProfile c, PropertyProfile p, int matched, int required) {
+        return new PreferenceMatchRow(
+                c.clientId(),
+                p.propertyId(),
+                p.city(),
+                p.propertyType(),
+                p.price(),
+                matched,
+                required,
+                (double) matched / required
+        );
+    }
+
+    private static List<PreferenceMatchRow> best(List<PreferenceMatchRow> rows, int limit) {
+        rows.sort(Comparator.comparingDouble(PreferenceMatchRow::score).reversed()
+                .thenComparing(PreferenceMatchRow::propertyId)
+                .thenComparing(PreferenceMatchRow::clientId));
+        return rows.size() <= limit ? rows : new ArrayList<>(rows.subList(0, limit));
+    }
+}
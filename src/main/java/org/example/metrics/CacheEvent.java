@@ -0,0 +1,32 @@
+package org.example.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** A lookup in one of the in-process caches (snapshot store, person search index, feature dictionary). */
+@Name("org.example.Cache")
+@Label("Cache Lookup")
+@Category({"Real Estate", "Cache"})
+@StackTrace(false)
+public final class CacheEvent extends jdk.jfr.Event {
+
+    @Label("Cache")
+    public String cache;
+
+    @Label("Key")
+    public String key;
+
+    @Label("Hit")
+    public boolean hit;
+
+    public static void record(String cache, String key, boolean hit) {
+        CacheEvent e = new CacheEvent();
+        if (!e.shouldCommit()) return;
+        e.cache = cache;
+        e.key = key;
+        e.hit = hit;
+        e.commit();
+    }
+}
@@ -0,0 +1,34 @@
+package org.example.metrics;
+
+/**
+ * JMX view of one DAO method (org.example:type=DaoMethod,name=PropertyDao.findAll). A call is
+ * one connection the method opened, from getConnection to close. Times are in milliseconds.
+ * Connect time is how long DriverManager took to open the connection. Rows are only counted
+ * with -Ddao.metrics.rows=true and are 0 otherwise.
+ */
+public interface DaoMethodMXBean {
+
+    long getCalls();
+
+    long getErrors();
+
+    double getMeanMillis();
+
+    double getP50Millis();
+
+    double getP90Millis();
+
+    double getP99Millis();
+
+    double getMaxMillis();
+
+    long getRowsReturned();
+
+    double getMeanRows();
+
+    double getMeanConnectMillis();
+
+    double getP99ConnectMillis();
+
+    void reset();
+}
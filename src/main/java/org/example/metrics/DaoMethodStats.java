@@ -0,0 +1,119 @@
+package org.example.metrics;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/** Recorders for one DAO method; everything is lock-free so calls on many threads do not contend. */
+public final class DaoMethodStats implements DaoMethodMXBean {
+
+    private final String name;
+    private volatile LatencyHistogram latency = new LatencyHistogram();
+    private volatile LatencyHistogram connectTime = new LatencyHistogram();
+    private final LatencyHistogram intervalLatency = new LatencyHistogram();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder intervalErrors = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder intervalRows = new LongAdder();
+
+    DaoMethodStats(String name) {
+        this.name = name;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    void record(long nanos, long connectNanos, long rowCount, boolean failed) {
+        latency.record(nanos);
+        intervalLatency.record(nanos);
+        connectTime.record(connectNanos);
+        rows.add(rowCount);
+        intervalRows.add(rowCount);
+        if (failed) {
+            errors.increment();
+            intervalErrors.increment();
+        }
+    }
+
+    /** getConnection itself failed: no latency sample, only the connect time and the error. */
+    void recordConnectFailure(long connectNanos) {
+        connectTime.record(connectNanos);
+        errors.increment();
+        intervalErrors.increment();
+    }
+
+    /** For the periodic log line; resets the interval counters. */
+    String intervalSummary() {
+        LatencyHistogram.Snapshot h = intervalLatency.snapshotAndReset();
+        long e = intervalErrors.sumThenReset();
+        long r = intervalRows.sumThenReset();
+        if (h.count() == 0 && e == 0) return null;
+        return String.format(Locale.ROOT, "%s calls=%d errors=%d p50=%.1fms p99=%.1fms max=%.1fms rows=%d total=%.0fms",
+                name, h.count(), e, h.percentile(0.5) / 1e6, h.percentile(0.99) / 1e6, h.max() / 1e6, r,
+                h.mean() * h.count() / 1e6);
+    }
+
+    @Override
+    public long getCalls() {
+        return latency.count();
+    }
+
+    @Override
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    @Override
+    public double getMeanMillis() {
+        return latency.snapshot().mean() / 1e6;
+    }
+
+    @Override
+    public double getP50Millis() {
+        return latency.snapshot().percentile(0.50) / 1e6;
+    }
+
+    @Override
+    public double getP90Millis() {
+        return latency.snapshot().percentile(0.90) / 1e6;
+    }
+
+    @Override
+    public double getP99Millis() {
+        return latency.snapshot().percentile(0.99) / 1e6;
+    }
+
+    @Override
+    public double getMaxMillis() {
+        return latency.snapshot().max() / 1e6;
+    }
+
+    @Override
+    public long getRowsReturned() {
+        return rows.sum();
+    }
+
+    @Override
+    public double getMeanRows() {
+        long calls = getCalls();
+        return calls == 0 ? 0 : (double) rows.sum() / calls;
+    }
+
+    @Override
+    public double getMeanConnectMillis() {
+        return connectTime.snapshot().mean() / 1e6;
+    }
+
+    @Override
+    public double getP99ConnectMillis() {
+        return connectTime.snapshot().percentile(0.99) / 1e6;
+    }
+
+    @Override
+    public void reset() {
+        latency = new LatencyHistogram();
+        connectTime = new LatencyHistogram();
+        errors.reset();
+        rows.reset();
+    }
+}
@@ -0,0 +1,183 @@
+package org.example.metrics;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Per-DAO-method metrics. Db hands every new connection to {@link #connect}, which times the
+ * DriverManager connect, finds the DAO method that asked for it on the stack and returns a proxy
+ * that records the call when the connection is closed (and counts the rows read, with
+ * -Ddao.metrics.rows=true). Connections
+ * opened outside the DAOs (importer, exporter, data generator) are recorded under the class and
+ * method that opened them.
+ *
+ * Each method is published as an MXBean named org.example:type=DaoMethod,name=Class.method, and
+ * the methods called in the last interval are logged every -Ddao.metrics.logSeconds (default
+ * 60, 0 turns the log off). Every call is also a JFR {@link DbCallEvent}. -Ddao.metrics=false
+ * leaves connections unwrapped.
+ */
+public final class DaoMetrics {
+
+    public static final String ENABLED_PROPERTY = "dao.metrics";
+    /** Off by default: counting rows means a proxy call on every ResultSet getter. */
+    public static final String ROWS_PROPERTY = "dao.metrics.rows";
+    public static final String LOG_SECONDS_PROPERTY = "dao.metrics.logSeconds";
+    public static final String OBJECT_DOMAIN = "org.example";
+
+    private static final Logger LOG = Logger.getLogger(DaoMetrics.class.getName());
+    private static final String DAO_PACKAGE = "org.example.dao.";
+    private static final String DB_PACKAGE = "org.example.db.";
+    private static final StackWalker WALKER = StackWalker.getInstance();
+
+    private static DaoMetrics shared;
+
+    private final ConcurrentMap<String, DaoMethodStats> methods = new ConcurrentHashMap<>();
+    private final List<StatementListener> listeners = new CopyOnWriteArrayList<>();
+
+    @FunctionalInterface
+    public interface Connector {
+        Connection connect() throws SQLException;
+    }
+
+    /** Sees every statement a DAO method executes, just before it runs (on the DAO's thread). */
+    @FunctionalInterface
+    public interface StatementListener {
+        void executing(String method, String sql, SortedMap<Integer, ParameterBind> binds);
+    }
+
+    private DaoMetrics(long logSeconds) {
+        if (logSeconds > 0) {
+            ScheduledExecutorService logger = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "dao-metrics-log");
+                t.setDaemon(true);
+                return t;
+            });
+            logger.scheduleAtFixedRate(this::logInterval, logSeconds, logSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    public static synchronized DaoMetrics shared() {
+        if (shared == null) shared = new DaoMetrics(Long.getLong(LOG_SECONDS_PROPERTY, 60));
+        return shared;
+    }
+
+    public static boolean enabled() {
+        return !"false".equalsIgnoreCase(System.getProperty(ENABLED_PROPERTY));
+    }
+
+    public static boolean countsRows() {
+        return Boolean.getBoolean(ROWS_PROPERTY);
+    }
+
+    /** Opens a connection through connector and returns it instrumented for the calling method. */
+    public Connection connect(Connector connector) throws SQLException {
+        DaoMethodStats stats = stats(caller());
+        DbCallEvent event = new DbCallEvent();
+        event.begin();
+        long start = System.nanoTime();
+        Connection raw;
+        try {
+            raw = connector.connect();
+        } catch (SQLException | RuntimeException ex) {
+            stats.recordConnectFailure(System.nanoTime() - start);
+            throw ex;
+        }
+        long connected = System.nanoTime();
+        return InstrumentedJdbc.connection(raw, new InstrumentedJdbc.Call(stats, event, start, connected - start));
+    }
+
+    public void addStatementListener(StatementListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeStatementListener(StatementListener listener) {
+        listeners.remove(listener);
+    }
+
+    void executing(String method, String sql, SortedMap<Integer, ParameterBind> binds) {
+        for (StatementListener l : listeners) l.executing(method, sql, Collections.unmodifiableSortedMap(binds));
+    }
+
+    /** Short stable id of a statement's SQL text, to group calls and plans by statement. */
+    public static String sqlId(String sql) {
+        return sql == null ? null : String.format("%08x", sql.strip().hashCode());
+    }
+
+    public DaoMethodStats stats(String method) {
+        return methods.computeIfAbsent(method, DaoMetrics::register);
+    }
+
+    /** All methods seen so far, slowest in total first. */
+    public List<DaoMethodStats> all() {
+        List<DaoMethodStats> list = new ArrayList<>(methods.values());
+        list.sort(Comparator.comparingDouble((DaoMethodStats s) -> s.getMeanMillis() * s.getCalls()).reversed());
+        return list;
+    }
+
+    private static DaoMethodStats register(String method) {
+        DaoMethodStats stats = new DaoMethodStats(method);
+        try {
+            ObjectName name = new ObjectName(OBJECT_DOMAIN + ":type=DaoMethod,name=" + method);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(stats, name);
+        } catch (JMException | RuntimeException ex) {
+            LOG.log(Level.FINE, "Cannot register MBean for " + method, ex);
+        }
+        return stats;
+    }
+
+    private void logInterval() {
+        List<String> lines = new ArrayList<>();
+        for (DaoMethodStats s : all()) {
+            String line = s.intervalSummary();
+            if (line != null) lines.add(line);
+        }
+        if (!lines.isEmpty()) LOG.info("DAO calls in the last interval:\n  " + String.join("\n  ", lines));
+    }
+
+    /**
+     * "PropertyDao.findAll" for the innermost DAO frame; failing that the innermost frame outside
+     * org.example.db and this package. Lambda bodies count as the method they are written in.
+     */
+    static String caller() {
+        return WALKER.walk(frames -> {
+            String fallback = null;
+            for (StackWalker.StackFrame f : (Iterable<StackWalker.StackFrame>) frames::iterator) {
+                String cls = f.getClassName();
+                if (cls.startsWith(DAO_PACKAGE)) return name(f);
+                if (fallback == null && !cls.startsWith(DB_PACKAGE) && !cls.startsWith("org.example.metrics.")) {
+                    fallback = name(f);
+                }
+            }
+            return fallback != null ? fallback : "unknown";
+        });
+    }
+
+    private static String name(StackWalker.StackFrame f) {
+        String cls = f.getClassName();
+        cls = cls.substring(cls.lastIndexOf('.') + 1);
+        int nested = cls.indexOf('$');
+        if (nested > 0) cls = cls.substring(0, nested);
+        String method = f.getMethodName();
+        if (method.startsWith("lambda$")) {
+            int end = method.indexOf('$', 7);
+            method = method.substring(7, end > 7 ? end : method.length());
+        }
+        return cls + "." + method;
+    }
+}
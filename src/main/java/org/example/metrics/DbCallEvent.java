@@ -0,0 +1,43 @@
+package org.example.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/** One DAO call: a connection from getConnection to close, committed by the JDBC proxies. */
+@Name("org.example.DbCall")
+@Label("DB Call")
+@Category({"Real Estate", "Database"})
+@Description("A DAO method's use of one connection, from getConnection to close")
+@StackTrace(false)
+public final class DbCallEvent extends jdk.jfr.Event {
+
+    @Label("DAO Method")
+    public String method;
+
+    @Label("SQL Id")
+    @Description("Hash of the last statement's SQL text, to group calls by statement")
+    public String sqlId;
+
+    @Label("SQL")
+    @Description("The last statement executed on the connection")
+    public String sql;
+
+    @Label("Statements")
+    public int statements;
+
+    @Label("Rows")
+    @Description("Rows read; 0 unless -Ddao.metrics.rows=true")
+    public long rows;
+
+    @Label("Connect Time")
+    @Description("Time DriverManager took to open the connection")
+    @Timespan
+    public long connectTime;
+
+    @Label("Failed")
+    public boolean failed;
+}
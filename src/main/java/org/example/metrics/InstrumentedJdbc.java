@@ -0,0 +1,159 @@
+package org.example.metrics;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Dynamic proxies over Connection and its statements. They only observe: a thrown SQLException
+ * marks the call failed, and Connection.close() records the call. Each execute* is timed and
+ * reported to the SlowQueryLog when it is over the threshold. unwrap() returns the driver's own
+ * objects, so COPY and other driver extensions bypass the counting.
+ *
+ * Result sets are handed out as they are, since a proxy would put a reflective call on every
+ * getter of every row. With -Ddao.metrics.rows=true they are wrapped too, and next() == true
+ * counts a row.
+ */
+final class InstrumentedJdbc {
+
+    private static final boolean COUNT_ROWS = DaoMetrics.countsRows();
+
+    private InstrumentedJdbc() {}
+
+    /** One connection's worth of a DAO method; used by one thread at a time, like the connection. */
+    static final class Call {
+        final DaoMethodStats stats;
+        final DbCallEvent event;
+        final long start;
+        final long connectNanos;
+        long rows;
+        int statements;
+        String lastSql;
+        boolean failed;
+        boolean recorded;
+
+        Call(DaoMethodStats stats, DbCallEvent event, long start, long connectNanos) {
+            this.stats = stats;
+            this.event = event;
+            this.start = start;
+            this.connectNanos = connectNanos;
+        }
+
+        void finish() {
+            if (recorded) return;
+            recorded = true;
+            stats.record(System.nanoTime() - start, connectNanos, rows, failed);
+            event.end();
+            if (event.shouldCommit()) {
+                event.method = stats.name();
+                event.sql = lastSql;
+                event.sqlId = DaoMetrics.sqlId(lastSql);
+                event.statements = statements;
+                event.rows = rows;
+                event.connectTime = connectNanos;
+                event.failed = failed;
+                event.commit();
+            }
+        }
+    }
+
+    static Connection connection(Connection raw, Call call) {
+        return proxy(Connection.class, raw, (target, method, args) -> {
+            String name = method.getName();
+            try {
+                Object result = invoke(target, method, args, call);
+                if (result instanceof Statement s && (name.startsWith("prepare") || name.equals("createStatement"))) {
+                    String sql = name.startsWith("prepare") ? (String) args[0] : null;
+                    return statement(method.getReturnType(), s, sql, call);
+                }
+                return result;
+            } finally {
+                if (name.equals("close")) call.finish();
+            }
+        });
+    }
+
+    /**
+     * Executions are timed for the slow-query log; prepared statements remember their set* calls
+     * so a slow execution can be logged (redacted) and explained with the same parameters.
+     */
+    private static Object statement(Class<?> type, Statement raw, String preparedSql, Call call) {
+        SortedMap<Integer, ParameterBind> binds = new TreeMap<>();
+        int[] batchRows = {0};
+        return proxy(type, raw, (target, method, args) -> {
+            String name = method.getName();
+            if (name.startsWith("execute")) {
+                String sql = preparedSql != null ? preparedSql : args != null && args.length > 0 ? (String) args[0] : null;
+                call.statements++;
+                if (sql != null) {
+                    call.lastSql = sql;
+                    DaoMetrics.shared().executing(call.stats.name(), sql, binds);
+                }
+                long start = System.nanoTime();
+                Object result = invoke(target, method, args, call);
+                long nanos = System.nanoTime() - start;
+                SlowQueryLog slow = SlowQueryLog.shared();
+                if (sql != null && slow.isSlow(nanos)) {
+                    slow.slow(call.stats.name(), sql, new TreeMap<>(binds), name.equals("executeBatch") ? batchRows[0] : 0, nanos);
+                }
+                if (name.equals("executeBatch")) batchRows[0] = 0;
+                return result instanceof ResultSet rs ? resultSet(rs, call) : result;
+            }
+            if (preparedSql != null && name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer i) {
+                binds.put(i, new ParameterBind(method, args.clone()));
+            } else if (name.equals("clearParameters")) {
+                binds.clear();
+            } else if (name.equals("addBatch") && args == null) {
+                batchRows[0]++;
+            }
+            Object result = invoke(target, method, args, call);
+            return result instanceof ResultSet rs ? resultSet(rs, call) : result;
+        });
+    }
+
+    private static ResultSet resultSet(ResultSet raw, Call call) {
+        if (!COUNT_ROWS) return raw;
+        return proxy(ResultSet.class, raw, (target, method, args) -> {
+            Object result = invoke(target, method, args, call);
+            if (method.getName().equals("next") && Boolean.TRUE.equals(result)) call.rows++;
+            return result;
+        });
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        Object handle(Object target, Method method, Object[] args) throws Throwable;
+    }
+
+    private static <T> T proxy(Class<?> type, Object target, Handler handler) {
+        InvocationHandler h = (p, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                return switch (method.getName()) {
+                    case "equals" -> p == args[0];
+                    case "hashCode" -> System.identityHashCode(p);
+                    default -> method.invoke(target, args);
+                };
+            }
+            return handler.handle(target, method, args);
+        };
+        @SuppressWarnings("unchecked")
+        T t = (T) Proxy.newProxyInstance(InstrumentedJdbc.class.getClassLoader(), new Class<?>[] {type}, h);
+        return t;
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args, Call call) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            if (ex.getCause() instanceof SQLException) call.failed = true;
+            throw ex.getCause();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package org.example.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with HDR-style log-linear buckets: values below 128 are exact,
+ * larger ones land in one of 64 buckets per power of two, so every recorded value is known to
+ * within 1/64 (about 1.6 %) over the full long range. Recording is one atomic increment plus
+ * two LongAdder/LongAccumulator updates and never allocates.
+ *
+ * Units are the caller's (nanoseconds everywhere in this code base). {@link #snapshot()} copies
+ * the counts for percentile queries; {@link #snapshotAndReset()} does the same for interval
+ * reporting.
+ */
+public final class LatencyHistogram {
+
+    private static final int EXACT = 128;
+    private static final int PER_OCTAVE = 64;
+    private static final int BUCKETS = EXACT + 56 * PER_OCTAVE;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public void record(long value) {
+        if (value < 0) value = 0;
+        counts.incrementAndGet(index(value));
+        total.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    public long count() {
+        return total.sum();
+    }
+
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) copy[i] = counts.get(i);
+        return new Snapshot(copy, sum.sum(), max.get());
+    }
+
+    /** Counts recorded while the snapshot is taken go to either this interval or the next, never both. */
+    public Snapshot snapshotAndReset() {
+        long[] copy = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) copy[i] = counts.getAndSet(i, 0);
+        total.reset();
+        return new Snapshot(copy, sum.sumThenReset(), max.getThenReset());
+    }
+
+    static int index(long v) {
+        if (v < EXACT) return (int) v;
+        int shift = 63 - Long.numberOfLeadingZeros(v) - 6;     // v >>> shift is in [64, 128)
+        return EXACT + (shift - 1) * PER_OCTAVE + (int) (v >>> shift) - PER_OCTAVE;
+    }
+
+    /** Largest value that maps to this bucket. */
+    static long highestEquivalent(int index) {
+        if (index < EXACT) return index;
+        int shift = (index - EXACT) / PER_OCTAVE + 1;
+        long sub = (index - EXACT) % PER_OCTAVE + PER_OCTAVE;
+        long next = (sub + 1) << shift;
+        return next <= 0 ? Long.MAX_VALUE : next - 1;
+    }
+
+    /** An immutable copy of the counts. */
+    public static final class Snapshot {
+
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        private Snapshot(long[] counts, long sum, long max) {
+            this.counts = counts;
+            long n = 0;
+            for (long c : counts) n += c;
+            this.count = n;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        public long count() {
+            return count;
+        }
+
+        public long max() {
+            return max;
+        }
+
+        public double mean() {
+            return count == 0 ? 0 : (double) sum / count;
+        }
+
+        /** Value at quantile q (0..1): no more than q of the recorded values are above it. Never above max. */
+        public long percentile(double q) {
+            if (count == 0) return 0;
+            long rank = Math.max(1, (long) Math.ceil(q * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) return Math.min(highestEquivalent(i), max);
+            }
+            return max;
+        }
+
+        /** The counts of both, e.g. to combine per-thread or per-interval snapshots. */
+        public Snapshot plus(Snapshot other) {
+            long[] merged = counts.clone();
+            for (int i = 0; i < merged.length; i++) merged[i] += other.counts[i];
+            return new Snapshot(merged, sum + other.sum, Math.max(max, other.max));
+        }
+    }
+}
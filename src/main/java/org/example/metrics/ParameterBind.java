@@ -0,0 +1,26 @@
+package org.example.metrics;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/** A set* call seen on an instrumented PreparedStatement, so it can be replayed on another one. */
+public record ParameterBind(Method setter, Object[] args) {
+
+    /** The value passed (null for setNull). */
+    public Object value() {
+        return setter.getName().equals("setNull") || args.length < 2 ? null : args[1];
+    }
+
+    public void applyTo(PreparedStatement ps) throws SQLException {
+        try {
+            setter.invoke(ps, args);
+        } catch (InvocationTargetException ex) {
+            if (ex.getCause() instanceof SQLException sql) throw sql;
+            throw new SQLException("Cannot bind parameter " + args[0] + ": " + ex.getCause(), ex.getCause());
+        } catch (IllegalAccessException ex) {
+            throw new SQLException("Cannot bind parameter " + args[0], ex);
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package org.example.metrics;
+
+import java.time.Instant;
+
+/** One slow-query log entry. binds are already redacted; plan is null when none was captured. */
+public record SlowQuery(Instant time, String method, double millis, String sql, String binds, String plan) {}
@@ -0,0 +1,252 @@
+package org.example.metrics;
+
+import org.example.db.Db;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.Temporal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.FileHandler;
+import java.util.logging.Formatter;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * Statements slower than -Dslowlog.thresholdMillis (default 500) are written to a rotating log in
+ * -Dslowlog.dir (default ~/.realestate/slow-queries, 5 files of 2 MB) with their SQL, redacted
+ * bind parameters and duration.
+ *
+ * Single SELECT/INSERT/UPDATE/DELETE/WITH statements also get an EXPLAIN (ANALYZE, BUFFERS) plan,
+ * captured on a background thread over a separate, uninstrumented connection. ANALYZE executes
+ * the statement again, so it runs in a transaction that is rolled back, under a statement
+ * timeout, and each SQL text is explained at most once per {@value #EXPLAIN_INTERVAL_MINUTES}
+ * minutes. -Dslowlog.explain=false turns the plans off.
+ */
+public final class SlowQueryLog {
+
+    public static final String THRESHOLD_PROPERTY = "slowlog.thresholdMillis";
+    public static final String DIR_PROPERTY = "slowlog.dir";
+    public static final String EXPLAIN_PROPERTY = "slowlog.explain";
+
+    private static final Logger LOG = Logger.getLogger(SlowQueryLog.class.getName());
+    private static final String HEADER = "=== ";
+    private static final int FILE_BYTES = 2 * 1024 * 1024;
+    private static final int FILES = 5;
+    private static final int EXPLAIN_INTERVAL_MINUTES = 10;
+    private static final int EXPLAIN_TIMEOUT_SECONDS = 30;
+
+    private static SlowQueryLog shared;
+
+    private final long thresholdNanos;
+    private final boolean explain;
+    private final Path dir;
+    private final Logger file;
+    private final ThreadPoolExecutor worker;
+    private final Map<String, Instant> lastExplained = new ConcurrentHashMap<>();
+
+    private SlowQueryLog(long thresholdMillis, boolean explain, Path dir) {
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+        this.explain = explain;
+        this.dir = dir;
+        this.file = Logger.getLogger(SlowQueryLog.class.getName() + ".file");
+        file.setUseParentHandlers(false);
+        try {
+            Files.createDirectories(dir);
+            FileHandler handler = new FileHandler(dir.resolve("slow-queries.%g.log").toString(), FILE_BYTES, FILES, true);
+            handler.setEncoding(StandardCharsets.UTF_8.name());
+            handler.setFormatter(new Formatter() {
+                @Override
+                public String format(LogRecord r) {
+                    return r.getMessage();
+                }
+            });
+            file.addHandler(handler);
+        } catch (IOException | RuntimeException ex) {
+            LOG.log(Level.WARNING, "Slow-query log file disabled: cannot open " + dir, ex);
+        }
+        worker = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new ArrayBlockingQueue<>(100), r -> {
+            Thread t = new Thread(r, "slow-query-log");
+            t.setDaemon(true);
+            return t;
+        }, new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    public static synchronized SlowQueryLog shared() {
+        if (shared == null) {
+            Path dir = Path.of(System.getProperty(DIR_PROPERTY,
+                    Path.of(System.getProperty("user.home"), ".realestate", "slow-queries").toString()));
+            shared = new SlowQueryLog(Long.getLong(THRESHOLD_PROPERTY, 500),
+                    !"false".equalsIgnoreCase(System.getProperty(EXPLAIN_PROPERTY)), dir);
+        }
+        return shared;
+    }
+
+    public long thresholdMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(thresholdNanos);
+    }
+
+    public Path dir() {
+        return dir;
+    }
+
+    boolean isSlow(long nanos) {
+        return nanos >= thresholdNanos;
+    }
+
+    /** Called on the statement's thread; everything past the redaction happens on the worker. */
+    void slow(String method, String sql, SortedMap<Integer, ParameterBind> binds, int batchRows, long nanos) {
+        Instant time = Instant.now();
+        double millis = nanos / 1e6;
+        String redacted = redact(binds) + (batchRows > 0 ? " (last of a batch of " + batchRows + ")" : "");
+        boolean explainable = explain && batchRows == 0 && explainable(sql, binds.values());
+        LOG.warning(String.format(Locale.ROOT, "Slow statement in %s: %.1f ms", method, millis));
+        worker.execute(() -> {
+            String plan = explainable ? plan(sql, binds, time) : null;
+            write(new SlowQuery(time, method, millis, sql, redacted, plan));
+        });
+    }
+
+    private String plan(String sql, SortedMap<Integer, ParameterBind> binds, Instant now) {
+        String key = sql.strip();
+        Instant last = lastExplained.get(key);
+        if (last != null && last.isAfter(now.minus(EXPLAIN_INTERVAL_MINUTES, ChronoUnit.MINUTES))) {
+            return "(explained at " + last + ", see that entry)";
+        }
+        lastExplained.put(key, now);
+        try (Connection c = DriverManager.getConnection(Db.url(), Db.properties())) {
+            c.setAutoCommit(false);
+            try (Statement s = c.createStatement()) {
+                s.execute("SET LOCAL statement_timeout = '" + EXPLAIN_TIMEOUT_SECONDS + "s'");
+            }
+            try (PreparedStatement ps = c.prepareStatement("EXPLAIN (ANALYZE, BUFFERS) " + sql)) {
+                for (ParameterBind b : binds.values()) b.applyTo(ps);
+                StringBuilder plan = new StringBuilder();
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) plan.append(rs.getString(1)).append('\n');
+                }
+                return plan.toString();
+            } finally {
+                c.rollback();
+            }
+        } catch (SQLException ex) {
+            return "(EXPLAIN failed: " + ex.getMessage() + ")";
+        }
+    }
+
+    /** A single SELECT/INSERT/UPDATE/DELETE/WITH whose parameters can be bound a second time. */
+    public static boolean explainable(String sql, Collection<ParameterBind> binds) {
+        String s = sql.strip().toLowerCase(Locale.ROOT);
+        if (s.endsWith(";")) s = s.substring(0, s.length() - 1);
+        if (s.contains(";")) return false;
+        if (!(s.startsWith("select") || s.startsWith("with") || s.startsWith("insert")
+                || s.startsWith("update") || s.startsWith("delete"))) return false;
+        for (ParameterBind b : binds) {
+            for (Object a : b.args()) {
+                if (a instanceof InputStream || a instanceof Reader) return false;    // already consumed
+            }
+        }
+        return true;
+    }
+
+    /** Numbers, dates and booleans as they are; text and everything else by type and size only. */
+    static String redact(SortedMap<Integer, ParameterBind> binds) {
+        if (binds.isEmpty()) return "(none)";
+        List<String> parts = new ArrayList<>();
+        binds.forEach((i, b) -> {
+            Object v = b.value();
+            String shown;
+            if (v == null) shown = "NULL";
+            else if (v instanceof Number || v instanceof Boolean || v instanceof Temporal || v instanceof java.util.Date) shown = v.toString();
+            else if (v instanceof String s) shown = "<text, " + s.length() + " chars>";
+            else if (v instanceof byte[] bytes) shown = "<bytes, " + bytes.length + ">";
+            else shown = "<" + v.getClass().getSimpleName() + ">";
+            parts.add("$" + i + "=" + shown);
+        });
+        return String.join(", ", parts);
+    }
+
+    private void write(SlowQuery q) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(HEADER).append(q.time()).append(" | ").append(q.method()).append(" | ")
+                .append(String.format(Locale.ROOT, "%.1f", q.millis())).append(" ms\n");
+        sb.append("SQL: ").append(q.sql().strip().replace("\n", "\n     ")).append('\n');
+        sb.append("Binds: ").append(q.binds()).append('\n');
+        if (q.plan() != null) {
+            sb.append("Plan:\n");
+            for (String line : q.plan().split("\n")) sb.append("  ").append(line).append('\n');
+        }
+        file.log(Level.INFO, sb.toString());
+    }
+
+    /** Entries from all log files, newest first. */
+    public List<SlowQuery> read() throws IOException {
+        List<SlowQuery> entries = new ArrayList<>();
+        for (int g = FILES - 1; g >= 0; g--) {
+            Path p = dir.resolve("slow-queries." + g + ".log");
+            if (Files.exists(p)) parse(Files.readAllLines(p, StandardCharsets.UTF_8), entries);
+        }
+        List<SlowQuery> newestFirst = new ArrayList<>(entries.size());
+        for (int i = entries.size() - 1; i >= 0; i--) newestFirst.add(entries.get(i));
+        return newestFirst;
+    }
+
+    private static void parse(List<String> lines, List<SlowQuery> out) {
+        int i = 0;
+        while (i < lines.size()) {
+            String line = lines.get(i++);
+            if (!line.startsWith(HEADER)) continue;
+            String[] head = line.substring(HEADER.length()).split(" \\| ");
+            if (head.length != 3) continue;
+            StringBuilder sql = new StringBuilder();
+            String binds = "";
+            StringBuilder plan = null;
+            boolean inSql = false;
+            while (i < lines.size() && !lines.get(i).startsWith(HEADER)) {
+                String l = lines.get(i++);
+                if (l.startsWith("SQL: ")) {
+                    sql.append(l.substring(5));
+                    inSql = true;
+                } else if (inSql && l.startsWith("     ")) {
+                    sql.append('\n').append(l.substring(5));
+                } else if (l.startsWith("Binds: ")) {
+                    binds = l.substring(7);
+                    inSql = false;
+                } else if (l.equals("Plan:")) {
+                    plan = new StringBuilder();
+                    inSql = false;
+                } else if (plan != null) {
+                    plan.append(l.startsWith("  ") ? l.substring(2) : l).append('\n');
+                }
+            }
+            try {
+                out.add(new SlowQuery(Instant.parse(head[0]), head[1],
+                        Double.parseDouble(head[2].replace(" ms", "")), sql.toString(), binds,
+                        plan == null ? null : plan.toString()));
+            } catch (RuntimeException ignored) {
+                // a torn entry at the end of a file
+            }
+        }
+    }
+}
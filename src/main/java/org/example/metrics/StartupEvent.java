@@ -0,0 +1,25 @@
+package org.example.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * The main window's first paint. The event's duration is from Application.start to the end of
+ * the first layout pulse after the window was shown; sinceJvmStart adds JVM and JavaFX start-up.
+ */
+@Name("org.example.Startup")
+@Label("Startup")
+@Category({"Real Estate", "UI"})
+@Description("Time from application start to the first painted window")
+public final class StartupEvent extends jdk.jfr.Event {
+
+    @Label("First Tab")
+    public String tab;
+
+    @Label("Since JVM Start")
+    @Timespan(Timespan.MILLISECONDS)
+    public long sinceJvmStart;
+}
@@ -0,0 +1,29 @@
+package org.example.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * A tab refresh. The event's duration is from the refresh being requested to its rows being put
+ * into the view (the background query included); renderTime is from then to the end of the next
+ * layout pulse.
+ */
+@Name("org.example.TabRefresh")
+@Label("Tab Refresh")
+@Category({"Real Estate", "UI"})
+@Description("A tab reloading its rows")
+public final class TabRefreshEvent extends jdk.jfr.Event {
+
+    @Label("Tab")
+    public String tab;
+
+    @Label("Items")
+    public int items;
+
+    @Label("Render Time")
+    @Timespan
+    public long renderTime;
+}
@@ -0,0 +1,11 @@
+package org.example.model;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public record ClientProfile(
+        long clientId,
+        BigDecimal budget,
+        String areaInterestedIn,
+        List<String> preferenceTypes
+) {}
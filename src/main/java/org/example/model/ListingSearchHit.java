@@ -0,0 +1,7 @@
+package org.example.model;
+
+public record ListingSearchHit(
+        Listing listing,
+        double rank,
+        String snippet      // matched terms wrapped in [ ]
+) {}
@@ -0,0 +1,12 @@
+package org.example.model;
+
+import java.util.List;
+
+public record ListingSearchPage(
+        String query,
+        int offset,
+        int pageSize,
+        List<ListingSearchHit> hits,
+        boolean hasMore,
+        double elapsedMillis
+) {}
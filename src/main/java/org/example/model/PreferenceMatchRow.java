@@ -0,0 +1,14 @@
+package org.example.model;
+
+import java.math.BigDecimal;
+
+public record PreferenceMatchRow(
+        long clientId,
+        long propertyId,
+        String city,
+        String propertyType,
+        BigDecimal price,
+        int matched,
+        int required,
+        double score        // matched / required
+) {}
@@ -0,0 +1,13 @@
+package org.example.model;
+
+/** Sketch-based price statistics for one (city, property type) group; null labels mean "all". */
+public record PriceStatsRow(
+        String city,
+        String propertyType,
+        long deals,
+        long distinctClients,
+        double medianPrice,
+        double p90Price,
+        double medianPricePerSqm,
+        double p90PricePerSqm
+) {}
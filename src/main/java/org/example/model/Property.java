@@ -6,8 +6,8 @@ public record Property(
         long propertyId,
         BigDecimal price,
         BigDecimal squareMeters,
-        String latitude,
-        String longitude,
+        Double latitude,      // nullable, WGS84 degrees
+        Double longitude,     // nullable, WGS84 degrees
         String city,
         String propertyType,  // 'garage' | 'house' | 'apartment'
         Long ownerId          // nullable
@@ -0,0 +1,17 @@
+package org.example.model;
+
+import java.math.BigDecimal;
+
+/** A property joined with its apartment / house subtype row; subtype columns are null when not applicable. */
+public record PropertyProfile(
+        long propertyId,
+        BigDecimal price,
+        String city,
+        String propertyType,
+        boolean sold,
+        BigDecimal floor,           // apartment
+        BigDecimal numberOfRooms,   // apartment or house
+        BigDecimal numberOfBathrooms,
+        BigDecimal numberOfFloors,  // house
+        BigDecimal gardenSizeM2     // house
+) {}
@@ -1,9 +1,11 @@
 package org.example.model;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 
 public record SuccessfulDeal(
         long dealId,
+        LocalDate dealDate,
         long propertyId,
         BigDecimal finalPrice,
         long agentId,
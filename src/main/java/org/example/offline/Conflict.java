@@ -0,0 +1,5 @@
+package org.example.offline;
+
+/** A pending write that was not applied because the server row changed while offline; server is null if it was deleted. */
+public record Conflict(PendingWrite write, Record server, String reason) {
+}
@@ -0,0 +1,268 @@
+package org.example.offline;
+
+import org.example.model.Agent;
+import org.example.model.Client;
+import org.example.model.Listing;
+import org.example.model.Person;
+import org.example.model.Preference;
+import org.example.model.Property;
+import org.example.model.PropertyOwner;
+import org.example.model.SuccessfulDeal;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.RecordComponent;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongUnaryOperator;
+import java.util.stream.Collectors;
+
+/**
+ * The tables the offline engine can hold and replay, in foreign-key order (replay order).
+ *
+ * Each model record's components map 1:1, in order, to the table's columns (camelCase to
+ * snake_case), which lets the engine build its SQL and read and write rows generically.
+ * refs names the components that point at person or property ids, which are remapped when
+ * rows created offline get their real ids. The key is the table's primary key; for a generated
+ * one (identity) the database fills its first column, e.g. deal_id of (deal_id, deal_date).
+ */
+public enum Entity {
+    PERSON("person", Person.class, true, List.of("person_id"), Map.of()),
+    CLIENT("client", Client.class, false, List.of("person_id"), Map.of("personId", "person")),
+    AGENT("agent", Agent.class, false, List.of("person_id"), Map.of("personId", "person")),
+    PROPERTY("property", Property.class, true, List.of("property_id"), Map.of("ownerId", "person")),
+    PROPERTY_OWNER("property_owner", PropertyOwner.class, false, List.of("person_id", "property_id"),
+            Map.of("personId", "person", "propertyId", "property")),
+    LISTING("listing", Listing.class, true, List.of("listing_id"), Map.of()),
+    PREFERENCES("preferences", Preference.class, true, List.of("preference_id"), Map.of("clientId", "person")),
+    SUCCESSFUL_DEALS("successful_deals", SuccessfulDeal.class, true, List.of("deal_id", "deal_date"),
+            Map.of("propertyId", "property", "agentId", "person", "clientId", "person"));
+
+    private final String table;
+    private final Class<? extends Record> type;
+    private final boolean identity;
+    private final Map<String, String> refs;
+
+    private final RecordComponent[] components;
+    private final Constructor<? extends Record> constructor;
+    private final String[] columns;
+    private final int[] keyIndexes;
+
+    Entity(String table, Class<? extends Record> type, boolean identity, List<String> key, Map<String, String> refs) {
+        this.table = table;
+        this.type = type;
+        this.identity = identity;
+        this.refs = refs;
+        this.components = type.getRecordComponents();
+        this.columns = Arrays.stream(components).map(c -> snakeCase(c.getName())).toArray(String[]::new);
+        this.keyIndexes = key.stream().mapToInt(k -> Arrays.asList(columns).indexOf(k)).toArray();
+        try {
+            this.constructor = type.getDeclaredConstructor(
+                    Arrays.stream(components).map(RecordComponent::getType).toArray(Class<?>[]::new));
+        } catch (NoSuchMethodException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    public String table() {
+        return table;
+    }
+
+    public Class<? extends Record> type() {
+        return type;
+    }
+
+    /** The first key column is generated by the database; rows created offline carry a negative provisional id. */
+    boolean identity() {
+        return identity;
+    }
+
+    static Entity of(Class<? extends Record> type) {
+        for (Entity e : values()) if (e.type == type) return e;
+        throw new IllegalArgumentException("Not available offline: " + type.getName());
+    }
+
+    /** The value for single-column keys, a List of the values for composite ones (property_owner, successful_deals). */
+    Object key(Record r) {
+        if (keyIndexes.length == 1) return value(r, keyIndexes[0]);
+        List<Object> key = new ArrayList<>(keyIndexes.length);
+        for (int i : keyIndexes) key.add(value(r, i));
+        return List.copyOf(key);
+    }
+
+    /** The id used for this row in the change journal: the first key column (person_id for property_owner, as in its DAO). */
+    long journalKey(Record r) {
+        return (Long) value(r, keyIndexes[0]);
+    }
+
+    Record withId(Record r, long id) {
+        Object[] values = values(r);
+        values[keyIndexes[0]] = id;
+        return create(values);
+    }
+
+    /** Replaces provisional person/property ids with their real ones. */
+    Record remap(Record r, LongUnaryOperator persons, LongUnaryOperator properties) {
+        Object[] values = values(r);
+        boolean changed = false;
+        for (int i = 0; i < components.length; i++) {
+            String target = refs.get(components[i].getName());
+            if (target == null || values[i] == null) continue;
+            long id = (Long) values[i];
+            long mapped = target.equals("person") ? persons.applyAsLong(id) : properties.applyAsLong(id);
+            if (mapped != id) {
+                values[i] = mapped;
+                changed = true;
+            }
+        }
+        return changed ? create(values) : r;
+    }
+
+    /** Value of the component mapped to this column, e.g. property_id of a deal. */
+    Object column(Record r, String column) {
+        return value(r, Arrays.asList(columns).indexOf(column));
+    }
+
+    // --- SQL ---
+
+    /** Rows with one of the keys bound by {@link #bindKeys}. */
+    String selectByKeysSql() {
+        String where = keyIndexes.length == 1
+                ? keyColumns("") + " = ANY(?)"
+                : "(" + keyColumns(", ") + ") IN (SELECT * FROM unnest("
+                        + Arrays.stream(keyIndexes).mapToObj(i -> "?").collect(Collectors.joining(", ")) + "))";
+        return "SELECT " + String.join(", ", columns) + " FROM " + table + " WHERE " + where;
+    }
+
+    /** {@link #selectByKeysSql}, locking the rows in key order. */
+    String lockByKeysSql() {
+        return selectByKeysSql() + " ORDER BY " + keyColumns(", ") + " FOR UPDATE";
+    }
+
+    String insertSql() {
+        List<String> cols = insertColumns();
+        return "INSERT INTO " + table + " (" + String.join(", ", cols) + ") VALUES ("
+                + cols.stream().map(c -> "?").collect(Collectors.joining(", ")) + ")";
+    }
+
+    /** Sets every column but the first key column, so the other key columns (a deal's date) may change; see {@link #bindUpdate}. */
+    String updateSql() {
+        List<String> set = new ArrayList<>();
+        for (int i = 0; i < columns.length; i++) if (i != keyIndexes[0]) set.add(columns[i] + " = ?");
+        if (set.isEmpty()) throw new IllegalStateException(table + " has no columns to update besides its key");
+        return "UPDATE " + table + " SET " + String.join(", ", set) + " WHERE " + keyColumns(" = ? AND ") + " = ?";
+    }
+
+    String deleteSql() {
+        return "DELETE FROM " + table + " WHERE " + keyColumns(" = ? AND ") + " = ?";
+    }
+
+    String identityColumn() {
+        return columns[keyIndexes[0]];
+    }
+
+    void bindInsert(PreparedStatement ps, Record r) throws SQLException {
+        int p = 1;
+        for (int i = 0; i < columns.length; i++) {
+            if (identity && i == keyIndexes[0]) continue;
+            bind(ps, p++, value(r, i));
+        }
+    }
+
+    /** The new values from row, the key of the row to update from base. */
+    void bindUpdate(PreparedStatement ps, Record row, Record base) throws SQLException {
+        int p = 1;
+        for (int i = 0; i < columns.length; i++) if (i != keyIndexes[0]) bind(ps, p++, value(row, i));
+        bindKey(ps, p, base);
+    }
+
+    int bindKey(PreparedStatement ps, int first, Record r) throws SQLException {
+        int p = first;
+        for (int i : keyIndexes) bind(ps, p++, value(r, i));
+        return p;
+    }
+
+    /** Binds one array per key column; a composite key's arrays are unnested side by side into its key tuples. */
+    void bindKeys(Connection c, PreparedStatement ps, Collection<?> keys) throws SQLException {
+        for (int j = 0; j < keyIndexes.length; j++) {
+            List<Object> values = new ArrayList<>(keys.size());
+            for (Object key : keys) values.add(keyIndexes.length == 1 ? key : ((List<?>) key).get(j));
+            Class<?> t = components[keyIndexes[j]].getType();
+            String sqlType = t == LocalDate.class ? "date" : "bigint";
+            ps.setArray(j + 1, c.createArrayOf(sqlType, values.toArray()));
+        }
+    }
+
+    Record read(ResultSet rs) throws SQLException {
+        Object[] values = new Object[components.length];
+        for (int i = 0; i < components.length; i++) {
+            Class<?> t = components[i].getType();
+            Class<?> target = t.isPrimitive() ? boxed(t) : t;
+            values[i] = rs.getObject(columns[i], target);
+        }
+        return create(values);
+    }
+
+    private List<String> insertColumns() {
+        List<String> cols = new ArrayList<>();
+        for (int i = 0; i < columns.length; i++) if (!(identity && i == keyIndexes[0])) cols.add(columns[i]);
+        return cols;
+    }
+
+    private String keyColumns(String separator) {
+        return Arrays.stream(keyIndexes).mapToObj(i -> columns[i]).collect(Collectors.joining(separator));
+    }
+
+    private static void bind(PreparedStatement ps, int p, Object v) throws SQLException {
+        if (v == null) ps.setNull(p, Types.NULL);
+        else ps.setObject(p, v);
+    }
+
+    private Object value(Record r, int index) {
+        try {
+            return components[index].getAccessor().invoke(r);
+        } catch (IllegalAccessException | InvocationTargetException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private Object[] values(Record r) {
+        Object[] values = new Object[components.length];
+        for (int i = 0; i < values.length; i++) values[i] = value(r, i);
+        return values;
+    }
+
+    private Record create(Object[] values) {
+        try {
+            return constructor.newInstance(values);
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static Class<?> boxed(Class<?> t) {
+        if (t == long.class) return Long.class;
+        if (t == int.class) return Integer.class;
+        if (t == double.class) return Double.class;
+        if (t == boolean.class) return Boolean.class;
+        throw new IllegalArgumentException(t.getName());
+    }
+
+    private static String snakeCase(String name) {
+        StringBuilder sb = new StringBuilder();
+        for (char ch : name.toCharArray()) {
+            if (Character.isUpperCase(ch)) sb.append('_').append(Character.toLowerCase(ch));
+            else sb.append(ch);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,774 @@
+package org.example.offline;
+
+import org.example.analytics.PriceStats;
+import org.example.db.Db;
+import org.example.db.PartitionManager;
+import org.example.journal.ChangeJournal;
+import org.example.journal.ChangeType;
+import org.example.matching.MatchingEngine;
+import org.example.model.Person;
+import org.example.model.SuccessfulDeal;
+import org.example.search.PersonSearchIndex;
+import org.example.snapshot.SnapshotStore;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongUnaryOperator;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps the app usable when the database cannot be reached.
+ *
+ * When Db.getConnection fails with a connection error the engine goes offline. From then on the
+ * CRUD DAOs read from the local store (the {@link SnapshotStore} working set the tabs last
+ * loaded) and queue their writes here instead of failing. A table too large to load whole has no
+ * snapshot; for it the store is the rows last read online ({@link #remember}), in memory and
+ * capped at {@link #SEEN_ROWS} per table, so offline it shows only those ({@link #partialTables}).
+ * Queued writes are kept in an outbox file, so they survive a restart. Rows inserted offline get
+ * negative provisional ids.
+ *
+ * A probe retries the connection every few seconds. Once it succeeds the queue is replayed in
+ * {@link Entity} (foreign-key) order, with one transaction per entity type that sends its writes
+ * as JDBC batches. Each update or delete first locks the server row and is applied only if the
+ * row still equals the version edited offline; otherwise it becomes a {@link Conflict} and the
+ * server row wins. Inserts replace provisional ids, including references to them in later types.
+ * When the database rejects a batch (a constraint, say), the batch is replayed one write at a time
+ * under savepoints. Each rejected write is rolled back, reported as a conflict and kept in the
+ * outbox, together with the writes that refer to a row it would have inserted; the rest of the
+ * queue goes through. The engine goes back online when nothing else is left, and retries the
+ * held writes on its next sync or start.
+ */
+public final class OfflineEngine {
+
+    public static final String OUTBOX_PROPERTY = "offline.outbox";
+    /** -Doffline.enabled=false makes connection failures plain errors (load tests, benchmarks). */
+    public static final String ENABLED_PROPERTY = "offline.enabled";
+    public static final long PROBE_SECONDS = 5;
+    /** Rows kept per table that has no snapshot; the least recently read go first. */
+    public static final int SEEN_ROWS = 10_000;
+
+    private static final Logger LOG = Logger.getLogger(OfflineEngine.class.getName());
+    private static OfflineEngine shared;
+
+    private static final String LOCK_PROPERTIES_SQL =
+            "SELECT 1 FROM property WHERE property_id = ANY(?) ORDER BY property_id FOR UPDATE";
+    private static final String MARK_SOLD_SQL =
+            "UPDATE property SET is_sold = TRUE WHERE property_id = ANY(?) AND NOT is_sold";
+    private static final String REFRESH_SOLD_SQL = """
+        UPDATE property p
+        SET is_sold = EXISTS (SELECT 1 FROM successful_deals d WHERE d.property_id = p.property_id)
+        WHERE p.property_id = ANY(?)
+    """;
+
+    private final Outbox outbox;
+    private final SnapshotStore store;
+    private final List<PendingWrite> pending;
+    private final List<Conflict> conflicts = new ArrayList<>();
+    /** Queued writes the last sync could not apply; they are retried by the next one. */
+    private final Set<PendingWrite> held = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService prober;
+    private final Object syncLock = new Object();
+    /** Per entity without a snapshot: the rows read online, by key, least recently read first. */
+    private final Map<Entity, Map<Object, Record>> seen = new EnumMap<>(Entity.class);
+
+    private volatile boolean offline;
+    private long nextProvisionalId;
+    private ScheduledFuture<?> probe;
+
+    OfflineEngine(Outbox outbox, SnapshotStore store) {
+        this.outbox = outbox;
+        this.store = store;
+        List<PendingWrite> loaded;
+        try {
+            loaded = outbox.load();
+        } catch (IOException | RuntimeException ex) {
+            LOG.log(Level.SEVERE, "Cannot read the offline outbox; its writes are not replayed", ex);
+            loaded = new ArrayList<>();
+        }
+        this.pending = loaded;
+
+        long min = 0;
+        for (PendingWrite w : pending) {
+            if (w.type() == ChangeType.INSERT && w.entity().identity()) min = Math.min(min, w.entity().journalKey(w.row()));
+        }
+        this.nextProvisionalId = min - 1;
+
+        this.prober = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "offline-probe");
+            t.setDaemon(true);
+            return t;
+        });
+        // writes left from an earlier session are replayed before anything new reaches the server
+        if (!pending.isEmpty() && enabled()) {
+            offline = true;
+            startProbe();
+        }
+    }
+
+    public static synchronized OfflineEngine shared() {
+        if (shared == null) {
+            String configured = System.getProperty(OUTBOX_PROPERTY);
+            Path file = configured != null
+                    ? Path.of(configured)
+                    : Path.of(System.getProperty("user.home"), ".realestate", "outbox.bin");
+            shared = new OfflineEngine(new Outbox(file), SnapshotStore.shared());
+        }
+        return shared;
+    }
+
+    public static boolean enabled() {
+        return Boolean.parseBoolean(System.getProperty(ENABLED_PROPERTY, "true"));
+    }
+
+    /** Connection refused / reset / timed out (SQLState class 08). */
+    public static boolean isConnectionFailure(SQLException ex) {
+        return ex.getSQLState() != null && ex.getSQLState().startsWith("08");
+    }
+
+    public boolean isOffline() {
+        return offline;
+    }
+
+    public synchronized int pendingCount() {
+        return pending.size();
+    }
+
+    /** The queue in replay order. */
+    synchronized List<PendingWrite> pending() {
+        return List.copyOf(pending);
+    }
+
+    /** Queued writes the database rejected; the rest of the queue was replayed without them. */
+    public synchronized int heldCount() {
+        return held.size();
+    }
+
+    /** Conflicts found since the last call. */
+    public synchronized List<Conflict> takeConflicts() {
+        List<Conflict> out = List.copyOf(conflicts);
+        conflicts.clear();
+        return out;
+    }
+
+    /** Called (on any thread) when the online state, the queue or the conflicts change. */
+    public void addListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    public void connectionLost(SQLException cause) {
+        synchronized (this) {
+            if (offline) return;
+            offline = true;
+            startProbe();
+        }
+        LOG.log(Level.WARNING, "Database unreachable, working offline", cause);
+        fire();
+    }
+
+    // --- reads from the local store ---
+
+    /** The snapshot of the type, or (paged tables) the rows last read online, in key order. */
+    @SuppressWarnings("unchecked")
+    public synchronized <R extends Record> List<R> findAll(Class<R> type) {
+        List<R> rows = store.get(type);
+        if (rows != null) return rows;
+        Entity e = Entity.of(type);
+        Map<Object, Record> viewed = seen.get(e);
+        if (viewed == null) return List.of();
+        List<R> out = new ArrayList<>(viewed.size());
+        for (Record r : viewed.values()) out.add((R) r);
+        out.sort(Comparator.comparingLong(e::journalKey));
+        return out;
+    }
+
+    public <R extends Record> R findByKey(Class<R> type, Object key) {
+        Entity e = Entity.of(type);
+        for (R r : findAll(type)) if (e.key(r).equals(key)) return r;
+        return null;
+    }
+
+    /**
+     * Rows a DAO just read online from a table the tabs page instead of loading whole, kept so
+     * they can still be read and edited offline. Ignored for a type that has a snapshot, and offline.
+     */
+    public synchronized <R extends Record> void remember(Class<R> type, List<R> rows) {
+        if (offline || rows.isEmpty() || store.get(type) != null) return;
+        Entity e = Entity.of(type);
+        Map<Object, Record> viewed = viewed(e);
+        for (R r : rows) viewed.put(e.key(r), r);
+    }
+
+    private Map<Object, Record> viewed(Entity e) {
+        return seen.computeIfAbsent(e, x -> new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, Record> eldest) {
+                return size() > SEEN_ROWS;
+            }
+        });
+    }
+
+    /** Tables that offline hold only the rows viewed online, not the whole table. */
+    public synchronized List<String> partialTables() {
+        List<String> out = new ArrayList<>();
+        for (Map.Entry<Entity, Map<Object, Record>> en : seen.entrySet()) {
+            if (!en.getValue().isEmpty() && store.get(en.getKey().type()) == null) out.add(en.getKey().table());
+        }
+        return out;
+    }
+
+    // --- queued writes ---
+
+    /** Returns the row's id: a negative provisional one for generated keys. */
+    public long insert(Record row) throws SQLException {
+        Entity e = Entity.of(row.getClass());
+        synchronized (this) {
+            if (e.identity()) row = e.withId(row, nextProvisionalId--);
+            if (row instanceof SuccessfulDeal d && d.dealDate() == null) {
+                row = new SuccessfulDeal(d.dealId(), LocalDate.now(), d.propertyId(), d.finalPrice(),
+                        d.agentId(), d.clientId());
+            }
+            pending.add(new PendingWrite(ChangeType.INSERT, e, null, row));
+            applyLocally(e, null, row);
+            persist();
+        }
+        fire();
+        return e.journalKey(row);
+    }
+
+    public void update(Record row) throws SQLException {
+        update(Entity.of(row.getClass()).key(row), row);
+    }
+
+    /** An update that may change the key, e.g. a deal's date: key is the one the row has now. */
+    public void update(Object key, Record row) throws SQLException {
+        Entity e = Entity.of(row.getClass());
+        synchronized (this) {
+            int i = lastPending(e, key);
+            PendingWrite prev = i < 0 ? null : pending.get(i);
+            if (prev != null && prev.type() == ChangeType.DELETE) {
+                throw new SQLException("This " + e.table() + " row was deleted while offline");
+            }
+            Record base;
+            if (prev != null) {
+                base = prev.base();
+                pending.set(i, new PendingWrite(prev.type(), e, base, row));
+            } else {
+                base = findByKey(e.type(), key);
+                if (base == null) throw new SQLException("This " + e.table() + " row is not available offline");
+                pending.add(new PendingWrite(ChangeType.UPDATE, e, base, row));
+            }
+            applyLocally(e, findByKey(e.type(), key), row);
+            persist();
+        }
+        fire();
+    }
+
+    public void delete(Class<? extends Record> type, Object key) throws SQLException {
+        Entity e = Entity.of(type);
+        synchronized (this) {
+            Record local = findByKey(type, key);
+            int i = lastPending(e, key);
+            PendingWrite prev = i < 0 ? null : pending.get(i);
+            if (prev != null && prev.type() == ChangeType.INSERT) {
+                pending.remove(i);                      // never reached the server
+            } else if (prev != null && prev.type() == ChangeType.UPDATE) {
+                pending.set(i, new PendingWrite(ChangeType.DELETE, e, prev.base(), null));
+            } else if (prev == null) {
+                if (local == null) throw new SQLException("This " + e.table() + " row is not available offline");
+                pending.add(new PendingWrite(ChangeType.DELETE, e, local, null));
+            }
+            if (local != null) applyLocally(e, local, null);
+            persist();
+        }
+        fire();
+    }
+
+    // --- replay ---
+
+    /**
+     * Replays the queue. Returns true when the engine is online again, i.e. nothing is left but
+     * writes the database rejected; false if the connection dropped again (the remaining writes
+     * stay queued).
+     */
+    public boolean sync() {
+        synchronized (syncLock) {
+            List<PendingWrite> batch;
+            synchronized (this) {
+                batch = List.copyOf(pending);
+                held.clear();
+            }
+            Map<Long, Long> persons = new HashMap<>();
+            Map<Long, Long> properties = new HashMap<>();
+            // per synced type, the keys whose local rows are replaced by the server's afterwards
+            Map<Entity, Set<Object>> touched = new EnumMap<>(Entity.class);
+            Set<PendingWrite> processed = Collections.newSetFromMap(new IdentityHashMap<>());
+            try {
+                for (Entity e : Entity.values()) {
+                    List<PendingWrite> originals = new ArrayList<>();
+                    List<PendingWrite> writes = new ArrayList<>();
+                    for (PendingWrite w : batch) {
+                        if (w.entity() != e) continue;
+                        originals.add(w);
+                        writes.add(remap(w, persons, properties));
+                    }
+                    if (writes.isEmpty()) continue;
+
+                    List<PendingWrite> done = new ArrayList<>();
+                    List<Conflict> found = new ArrayList<>();
+                    Set<PendingWrite> rejected = Collections.newSetFromMap(new IdentityHashMap<>());
+                    try {
+                        replay(e, writes, done, found, rejected, persons, properties);
+                    } catch (SQLException ex) {
+                        if (isConnectionFailure(ex)) {
+                            LOG.log(Level.INFO, "Connection lost again during sync", ex);
+                            return false;
+                        }
+                        LOG.log(Level.WARNING, "Replay of " + e.table() + " failed; its offline writes stay queued", ex);
+                        done.clear();
+                        found.clear();
+                        for (PendingWrite w : writes) {
+                            found.add(new Conflict(w, null, "rejected by the database: " + ex.getMessage()));
+                        }
+                        rejected.addAll(writes);
+                    }
+                    Set<Object> keys = touched.computeIfAbsent(e, x -> new HashSet<>());
+                    for (int i = 0; i < writes.size(); i++) {
+                        if (rejected.contains(writes.get(i))) continue;
+                        processed.add(originals.get(i));
+                        addKeys(e, writes.get(i), keys);
+                    }
+                    for (PendingWrite w : done) addKeys(e, w, keys);
+                    synchronized (this) {
+                        // writes queued or coalesced while replaying are different objects and stay queued,
+                        // and so do rejected ones, until a later sync (or restart) retries them
+                        pending.removeIf(processed::contains);
+                        for (int i = 0; i < writes.size(); i++) {
+                            if (rejected.contains(writes.get(i))) held.add(originals.get(i));
+                        }
+                        conflicts.addAll(found);
+                        saveRemapped(persons, properties);
+                    }
+                    journal(e, done);
+                }
+            } finally {
+                synchronized (this) {
+                    for (int i = 0; i < pending.size(); i++) {
+                        PendingWrite w = pending.get(i);
+                        PendingWrite mapped = remap(w, persons, properties);
+                        if (mapped != w && held.remove(w)) held.add(mapped);
+                        pending.set(i, mapped);
+                    }
+                }
+            }
+
+            reloadLocal(touched, persons, properties);
+            if (touched.containsKey(Entity.PROPERTY) || touched.containsKey(Entity.SUCCESSFUL_DEALS)) {
+                PriceStats.shared().invalidate();
+            }
+            if (!touched.isEmpty() && MatchingEngine.shared().isLoaded()) {
+                try {
+                    MatchingEngine.shared().reload();
+                } catch (SQLException ex) {
+                    LOG.log(Level.WARNING, "Could not reload matching after sync", ex);
+                }
+            }
+
+            boolean online;
+            synchronized (this) {
+                online = held.containsAll(pending);
+                if (online) {
+                    offline = false;
+                    if (probe != null) probe.cancel(false);
+                    probe = null;
+                }
+            }
+            fire();
+            return online;
+        }
+    }
+
+    /**
+     * One transaction. Every server row the writes touch is locked by one query and the updates
+     * and deletes are checked against it; then the writes go out as JDBC batches (deletes, updates,
+     * inserts), each under a savepoint. A batch the database rejects is rolled back and replayed one
+     * write at a time, so only the writes it rejects are reported and added to rejected, as is a
+     * write that refers to a row whose insert was rejected (it still has a provisional id); the
+     * others go ahead.
+     */
+    private static void replay(Entity e, List<PendingWrite> writes, List<PendingWrite> done, List<Conflict> found,
+                               Set<PendingWrite> rejected, Map<Long, Long> persons, Map<Long, Long> properties)
+            throws SQLException {
+        if (e == Entity.SUCCESSFUL_DEALS) {
+            for (PendingWrite w : writes) {
+                if (w.row() instanceof SuccessfulDeal d) PartitionManager.ensurePartitionFor(d.dealDate());
+            }
+        }
+        List<PendingWrite> ready = new ArrayList<>(writes.size());
+        for (PendingWrite w : writes) {
+            if (waitsOnRejected(w)) {
+                found.add(new Conflict(w, null, "refers to a row the database rejected"));
+                rejected.add(w);
+            } else {
+                ready.add(w);
+            }
+        }
+
+        try (Connection c = Db.getConnection()) {
+            c.setAutoCommit(false);
+            try {
+                Map<Object, Record> server = lock(c, e, ready);
+                Set<Object> deleted = new HashSet<>();
+                for (PendingWrite w : ready) if (w.type() == ChangeType.DELETE) deleted.add(e.key(w.base()));
+
+                Map<ChangeType, List<PendingWrite>> batches = new EnumMap<>(ChangeType.class);
+                for (ChangeType t : ChangeType.values()) batches.put(t, new ArrayList<>());
+                for (PendingWrite w : ready) {
+                    if (w.type() == ChangeType.INSERT) {
+                        Object key = e.key(w.row());
+                        Record existing = e.identity() || deleted.contains(key) ? null : server.get(key);
+                        if (existing != null) found.add(new Conflict(w, existing, "already exists on the server"));
+                        else batches.get(ChangeType.INSERT).add(w);
+                        continue;
+                    }
+                    Record current = server.get(e.key(w.base()));
+                    if (current == null) {
+                        if (w.type() == ChangeType.UPDATE) found.add(new Conflict(w, null, "deleted on the server"));
+                        else done.add(w);               // a delete of a deleted row is already done
+                    } else if (!current.equals(w.base())) {
+                        found.add(new Conflict(w, current, "changed on the server"));
+                    } else {
+                        batches.get(w.type()).add(w);
+                    }
+                }
+                for (ChangeType t : List.of(ChangeType.DELETE, ChangeType.UPDATE, ChangeType.INSERT)) {
+                    batch(c, e, t, batches.get(t), done, found, rejected, persons, properties);
+                }
+                if (e == Entity.SUCCESSFUL_DEALS) updateSold(c, done);
+                c.commit();
+            } catch (SQLException ex) {
+                c.rollback();
+                throw ex;
+            }
+        }
+    }
+
+    /** Locks the existing server rows of the writes (old rows, and the keys of non-generated inserts), by key. */
+    private static Map<Object, Record> lock(Connection c, Entity e, List<PendingWrite> writes) throws SQLException {
+        Set<Object> keys = new HashSet<>();
+        for (PendingWrite w : writes) {
+            if (w.base() != null) keys.add(e.key(w.base()));
+            else if (!e.identity()) keys.add(e.key(w.row()));
+        }
+        Map<Object, Record> out = new HashMap<>();
+        if (keys.isEmpty()) return out;
+        try (PreparedStatement ps = c.prepareStatement(e.lockByKeysSql())) {
+            e.bindKeys(c, ps, keys);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Record r = e.read(rs);
+                    out.put(e.key(r), r);
+                }
+            }
+        }
+        return out;
+    }
+
+    /** The writes, all of one type, as one batch under a savepoint; one at a time if the database rejects it. */
+    private static void batch(Connection c, Entity e, ChangeType type, List<PendingWrite> writes,
+                              List<PendingWrite> done, List<Conflict> found, Set<PendingWrite> rejected,
+                              Map<Long, Long> persons, Map<Long, Long> properties) throws SQLException {
+        if (writes.isEmpty()) return;
+        Savepoint sp = c.setSavepoint();
+        try {
+            done.addAll(execute(c, e, type, writes, persons, properties));
+            c.releaseSavepoint(sp);
+            return;
+        } catch (SQLException ex) {
+            if (isConnectionFailure(ex)) throw ex;
+            c.rollback(sp);
+            LOG.log(Level.INFO, "Offline " + type + " batch of " + e.table() + " rejected; replaying it one write at a time", ex);
+        }
+        for (PendingWrite w : writes) {
+            Savepoint one = c.setSavepoint();
+            try {
+                done.addAll(execute(c, e, type, List.of(w), persons, properties));
+                c.releaseSavepoint(one);
+            } catch (SQLException ex) {
+                if (isConnectionFailure(ex)) throw ex;
+                c.rollback(one);
+                LOG.log(Level.WARNING, "Offline " + type + " of " + e.table() + " " + w.key()
+                        + " rejected; it stays queued", ex);
+                found.add(new Conflict(w, null, "rejected by the database: " + ex.getMessage()));
+                rejected.add(w);
+            }
+        }
+    }
+
+    /** Returns the writes as applied, inserts of generated keys with their real ids. */
+    private static List<PendingWrite> execute(Connection c, Entity e, ChangeType type, List<PendingWrite> writes,
+                                              Map<Long, Long> persons, Map<Long, Long> properties) throws SQLException {
+        boolean generated = type == ChangeType.INSERT && e.identity();
+        String sql = switch (type) {
+            case INSERT -> e.insertSql();
+            case UPDATE -> e.updateSql();
+            case DELETE -> e.deleteSql();
+        };
+        try (PreparedStatement ps = generated
+                ? c.prepareStatement(sql, new String[]{e.identityColumn()})
+                : c.prepareStatement(sql)) {
+            for (PendingWrite w : writes) {
+                switch (type) {
+                    case INSERT -> e.bindInsert(ps, w.row());
+                    case UPDATE -> e.bindUpdate(ps, w.row(), w.base());
+                    case DELETE -> e.bindKey(ps, 1, w.base());
+                }
+                ps.addBatch();
+            }
+            ps.executeBatch();
+            if (!generated) return writes;
+
+            // the batch's keys come back in the order the rows were added
+            List<PendingWrite> applied = new ArrayList<>(writes.size());
+            Map<Long, Long> ids = new HashMap<>();
+            try (ResultSet keys = ps.getGeneratedKeys()) {
+                for (PendingWrite w : writes) {
+                    if (!keys.next()) throw new SQLException("Missing generated key for " + e.table());
+                    long id = keys.getLong(1);
+                    ids.put(e.journalKey(w.row()), id);
+                    applied.add(new PendingWrite(ChangeType.INSERT, e, null, e.withId(w.row(), id)));
+                }
+            }
+            if (e == Entity.PERSON) persons.putAll(ids);
+            if (e == Entity.PROPERTY) properties.putAll(ids);
+            return applied;
+        }
+    }
+
+    /** True if the write still points at a provisional person or property id that was not replaced. */
+    private static boolean waitsOnRejected(PendingWrite w) {
+        boolean[] provisional = {false};
+        LongUnaryOperator check = id -> {
+            if (id < 0) provisional[0] = true;
+            return id;
+        };
+        if (w.row() != null) w.entity().remap(w.row(), check, check);
+        return provisional[0];
+    }
+
+    /**
+     * Same rules as SuccessfulDealDao: a property is sold while any deal references it. The
+     * properties are locked first, in id order, so the EXISTS recheck sees deals committed meanwhile.
+     */
+    private static void updateSold(Connection c, List<PendingWrite> done) throws SQLException {
+        Set<Long> sold = new HashSet<>();
+        Set<Long> recheck = new HashSet<>();
+        for (PendingWrite w : done) {
+            if (w.row() instanceof SuccessfulDeal d) sold.add(d.propertyId());
+            if (w.base() instanceof SuccessfulDeal b && !(w.row() instanceof SuccessfulDeal d && d.propertyId() == b.propertyId())) {
+                recheck.add(b.propertyId());
+            }
+        }
+        recheck.removeAll(sold);
+        Set<Long> all = new HashSet<>(sold);
+        all.addAll(recheck);
+        lockProperties(c, all);
+        runWithIds(c, MARK_SOLD_SQL, sold);
+        runWithIds(c, REFRESH_SOLD_SQL, recheck);
+    }
+
+    private static void lockProperties(Connection c, Set<Long> ids) throws SQLException {
+        if (ids.isEmpty()) return;
+        try (PreparedStatement ps = c.prepareStatement(LOCK_PROPERTIES_SQL)) {
+            Array array = c.createArrayOf("bigint", ids.toArray());
+            ps.setArray(1, array);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    // locked
+                }
+            }
+            array.free();
+        }
+    }
+
+    private static void runWithIds(Connection c, String sql, Set<Long> ids) throws SQLException {
+        if (ids.isEmpty()) return;
+        try (PreparedStatement ps = c.prepareStatement(sql)) {
+            Array array = c.createArrayOf("bigint", ids.toArray());
+            ps.setArray(1, array);
+            ps.executeUpdate();
+            array.free();
+        }
+    }
+
+    private static PendingWrite remap(PendingWrite w, Map<Long, Long> persons, Map<Long, Long> properties) {
+        if (persons.isEmpty() && properties.isEmpty()) return w;
+        Record base = w.base() == null ? null : w.entity().remap(w.base(), id -> persons.getOrDefault(id, id),
+                id -> properties.getOrDefault(id, id));
+        Record row = w.row() == null ? null : w.entity().remap(w.row(), id -> persons.getOrDefault(id, id),
+                id -> properties.getOrDefault(id, id));
+        return base == w.base() && row == w.row() ? w : new PendingWrite(w.type(), w.entity(), base, row);
+    }
+
+    private static void journal(Entity e, List<PendingWrite> done) {
+        ChangeJournal journal = ChangeJournal.shared();
+        for (PendingWrite w : done) {
+            Record r = w.row() != null ? w.row() : w.base();
+            journal.append(w.type(), e.table(), e.journalKey(r), w.row());
+            if (e == Entity.PERSON) {
+                if (w.row() instanceof Person p) PersonSearchIndex.shared().put(p);
+                else PersonSearchIndex.shared().remove(e.journalKey(r));
+            }
+        }
+    }
+
+    /** The keys a replayed write touched: its old and new row, the provisional id of an insert included. */
+    private static void addKeys(Entity e, PendingWrite w, Set<Object> keys) {
+        if (w.base() != null) keys.add(e.key(w.base()));
+        if (w.row() != null) keys.add(e.key(w.row()));
+    }
+
+    /**
+     * Replaces the local rows of the replayed keys with the server's (real ids, server-side wins
+     * over conflicts) and points the remaining local rows at the real ids. Rows of held writes
+     * keep their local version.
+     */
+    private void reloadLocal(Map<Entity, Set<Object>> touched, Map<Long, Long> persons, Map<Long, Long> properties) {
+        for (Map.Entry<Entity, Set<Object>> en : touched.entrySet()) {
+            Entity e = en.getKey();
+            Set<Object> keys = en.getValue();
+            if (keys.isEmpty()) continue;
+            List<Record> fresh = new ArrayList<>();
+            try (Connection c = Db.getConnection();
+                 PreparedStatement ps = c.prepareStatement(e.selectByKeysSql())) {
+                e.bindKeys(c, ps, keys);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        Record r = e.read(rs);
+                        if (keys.contains(e.key(r))) fresh.add(r);
+                    }
+                }
+            } catch (SQLException ex) {
+                LOG.log(Level.WARNING, "Could not reload " + e.table() + " after sync", ex);
+                continue;
+            }
+            synchronized (this) {
+                replaceLocally(e, keys, fresh, persons, properties);
+            }
+        }
+    }
+
+    // --- local store ---
+
+    private int lastPending(Entity e, Object key) {
+        for (int i = pending.size() - 1; i >= 0; i--) {
+            PendingWrite w = pending.get(i);
+            if (w.entity() == e && w.key().equals(key)) return i;
+        }
+        return -1;
+    }
+
+    private void applyLocally(Entity e, Record old, Record row) {
+        if (store.get(e.type()) == null) {
+            Map<Object, Record> viewed = viewed(e);
+            if (old != null) viewed.remove(e.key(old));
+            if (row != null) viewed.put(e.key(row), row);
+            return;
+        }
+        List<Record> rows = new ArrayList<>(findAll(e.type()));
+        if (old != null) {
+            Object key = e.key(old);
+            rows.removeIf(r -> Objects.equals(e.key(r), key));
+        }
+        if (row != null) rows.add(row);
+        putRows(e, rows);
+    }
+
+    private void replaceLocally(Entity e, Set<Object> keys, List<Record> fresh,
+                                Map<Long, Long> persons, Map<Long, Long> properties) {
+        List<Record> rows = new ArrayList<>(findAll(e.type()));
+        rows.removeIf(r -> keys.contains(e.key(r)));
+        if (!persons.isEmpty() || !properties.isEmpty()) {
+            rows.replaceAll(r -> e.remap(r, id -> persons.getOrDefault(id, id), id -> properties.getOrDefault(id, id)));
+        }
+        rows.addAll(fresh);
+        rows.sort(Comparator.comparingLong(e::journalKey));
+        if (store.get(e.type()) != null) {
+            putRows(e, rows);
+        } else {
+            Map<Object, Record> viewed = viewed(e);
+            viewed.clear();
+            for (Record r : rows) viewed.put(e.key(r), r);
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void putRows(Entity e, List<Record> rows) {
+        store.put((Class) e.type(), (List) rows);
+    }
+
+    private void persist() throws SQLException {
+        try {
+            outbox.save(pending);
+        } catch (IOException ex) {
+            throw new SQLException("Could not save the offline write queue", ex);
+        }
+    }
+
+    /** The queue as it will be once the ids of rows already replayed are substituted. */
+    private void saveRemapped(Map<Long, Long> persons, Map<Long, Long> properties) {
+        List<PendingWrite> remapped = new ArrayList<>(pending.size());
+        for (PendingWrite w : pending) remapped.add(remap(w, persons, properties));
+        try {
+            outbox.save(remapped);
+        } catch (IOException ex) {
+            LOG.log(Level.SEVERE, "Could not save the offline write queue", ex);
+        }
+    }
+
+    private void startProbe() {
+        probe = prober.scheduleWithFixedDelay(this::tryReconnect, PROBE_SECONDS, PROBE_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private void tryReconnect() {
+        try (Connection c = Db.getConnection()) {
+            if (!c.isValid(2)) return;
+        } catch (SQLException ex) {
+            return;
+        }
+        try {
+            if (sync()) LOG.info("Back online; offline writes replayed");
+        } catch (RuntimeException ex) {
+            LOG.log(Level.SEVERE, "Offline sync failed", ex);
+        }
+    }
+
+    private void fire() {
+        for (Runnable l : listeners) l.run();
+    }
+}
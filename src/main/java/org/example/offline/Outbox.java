@@ -0,0 +1,97 @@
+package org.example.offline;
+
+import org.example.codec.BinaryReader;
+import org.example.codec.BinaryWriter;
+import org.example.codec.RecordCodec;
+import org.example.journal.ChangeType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The pending writes on disk, so they survive a restart while offline. Offline edits happen at
+ * typing speed and the queue is small, so the whole list is rewritten (temp file, fsync, atomic
+ * rename) on every change.
+ * <pre>
+ * "REOUT1\0\0", varint count, per write: byte type, byte entity, [flag, base], [flag, row]
+ * </pre>
+ */
+final class Outbox {
+
+    private static final byte[] MAGIC = "REOUT1\0\0".getBytes(StandardCharsets.US_ASCII);
+
+    private final Path file;
+
+    Outbox(Path file) {
+        this.file = file;
+    }
+
+    List<PendingWrite> load() throws IOException {
+        if (!Files.exists(file)) return new ArrayList<>();
+        BinaryReader in = new BinaryReader(Files.readAllBytes(file));
+        byte[] magic = new byte[MAGIC.length];
+        for (int i = 0; i < magic.length; i++) magic[i] = (byte) in.readByte();
+        if (!Arrays.equals(magic, MAGIC)) throw new IOException("Not an outbox file: " + file);
+
+        int n = Math.toIntExact(in.readVarLong());
+        List<PendingWrite> out = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            ChangeType type = ChangeType.values()[in.readByte()];
+            Entity entity = Entity.values()[in.readByte()];
+            Record base = readRecord(in, entity);
+            Record row = readRecord(in, entity);
+            out.add(new PendingWrite(type, entity, base, row));
+        }
+        return out;
+    }
+
+    void save(List<PendingWrite> writes) throws IOException {
+        if (writes.isEmpty()) {
+            Files.deleteIfExists(file);
+            return;
+        }
+        BinaryWriter out = new BinaryWriter();
+        out.writeBytes(MAGIC, 0, MAGIC.length);
+        out.writeVarLong(writes.size());
+        for (PendingWrite w : writes) {
+            out.writeByte(w.type().ordinal());
+            out.writeByte(w.entity().ordinal());
+            writeRecord(out, w.entity(), w.base());
+            writeRecord(out, w.entity(), w.row());
+        }
+
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buf = ByteBuffer.wrap(out.array(), 0, out.size());
+            while (buf.hasRemaining()) ch.write(buf);
+            ch.force(true);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <R extends Record> void writeRecord(BinaryWriter out, Entity entity, Record r) {
+        if (r == null) {
+            out.writeByte(0);
+            return;
+        }
+        out.writeByte(1);
+        RecordCodec.of((Class<R>) entity.type()).encode((R) r, out);
+    }
+
+    private static Record readRecord(BinaryReader in, Entity entity) {
+        if (in.readByte() == 0) return null;
+        return RecordCodec.of(entity.type()).decode(in);
+    }
+}
@@ -0,0 +1,15 @@
+package org.example.offline;
+
+import org.example.journal.ChangeType;
+
+/**
+ * A write made while offline. base is the row as the app last saw it (null for inserts), row the
+ * intended new state (null for deletes); replay applies the write only if the server still has
+ * base.
+ */
+public record PendingWrite(ChangeType type, Entity entity, Record base, Record row) {
+
+    public Object key() {
+        return entity.key(row != null ? row : base);
+    }
+}
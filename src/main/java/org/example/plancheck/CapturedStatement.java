@@ -0,0 +1,8 @@
+package org.example.plancheck;
+
+import org.example.metrics.ParameterBind;
+
+import java.util.List;
+
+/** A statement a DAO method ran during the scenario, with the parameters of its first execution. */
+record CapturedStatement(String method, String sql, List<ParameterBind> binds) {}
@@ -0,0 +1,61 @@
+package org.example.plancheck;
+
+import org.example.metrics.DaoMetrics;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Accepted plans, one file per statement: &lt;Class.method&gt;-&lt;sql id&gt;.plan, holding the SQL as
+ * "# " comment lines and the plan tree with row estimates. The files are meant to be committed,
+ * so a plan change shows up in review as a plain text diff.
+ */
+final class PlanBaselines {
+
+    private final Path dir;
+
+    PlanBaselines(Path dir) {
+        this.dir = dir;
+    }
+
+    Path dir() {
+        return dir;
+    }
+
+    Path file(String method, String sql) {
+        return dir.resolve(method + "-" + DaoMetrics.sqlId(sql) + ".plan");
+    }
+
+    /** null when there is no baseline for this statement yet. */
+    List<PlanLine> read(String method, String sql) throws IOException {
+        Path f = file(method, sql);
+        if (!Files.exists(f)) return null;
+        List<PlanLine> plan = new ArrayList<>();
+        for (String line : Files.readAllLines(f, StandardCharsets.UTF_8)) {
+            if (line.startsWith("#") || line.isBlank()) continue;
+            plan.add(PlanLine.parse(line));
+        }
+        return plan;
+    }
+
+    void write(String method, String sql, List<PlanLine> plan) throws IOException {
+        Files.createDirectories(dir);
+        StringBuilder sb = new StringBuilder();
+        sb.append("# ").append(method).append('\n');
+        for (String line : sql.strip().split("\n")) sb.append("# ").append(line).append('\n');
+        for (PlanLine l : plan) sb.append(l.text()).append('\n');
+        Files.writeString(file(method, sql), sb.toString(), StandardCharsets.UTF_8);
+    }
+
+    /** Baseline files, to report the ones no statement matched any more. */
+    List<Path> all() throws IOException {
+        if (!Files.isDirectory(dir)) return List.of();
+        try (var files = Files.list(dir)) {
+            return files.filter(p -> p.toString().endsWith(".plan")).sorted().toList();
+        }
+    }
+}
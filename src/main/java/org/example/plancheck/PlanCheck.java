@@ -0,0 +1,184 @@
+package org.example.plancheck;
+
+import org.example.datagen.DataGenerator;
+import org.example.datagen.GeneratorConfig;
+import org.example.datagen.Sizes;
+import org.example.db.Db;
+import org.example.metrics.DaoMetrics;
+import org.example.metrics.ParameterBind;
+import org.example.metrics.SlowQueryLog;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Query-plan regression check. Loads the generated dataset at a fixed seed and scale, runs the
+ * Scenario with a statement listener on the DAO connections, EXPLAINs (FORMAT JSON) every
+ * statement seen on a separate connection and compares each plan with its baseline
+ * (PlanComparison). A statement without a baseline still fails on a Seq Scan of a large table.
+ * In record mode the plans become the new baselines instead.
+ *
+ * The data is replaced, so the database name must contain "plan" or "bench" unless
+ * -Dplancheck.force=true; the schema must already exist.
+ */
+public final class PlanCheck {
+
+    public static final String FORCE_PROPERTY = "plancheck.force";
+
+    public enum Mode { CHECK, RECORD }
+
+    public record Config(Mode mode, int scale, boolean load, Path baselines, long largeRows, double rowFactor) {
+
+        public static Config defaults() {
+            return new Config(Mode.CHECK, 50_000, true, Path.of("plan-baselines"), 10_000, 10);
+        }
+    }
+
+    private final Config config;
+    private final PrintStream out;
+
+    public PlanCheck(Config config, PrintStream out) {
+        this.config = config;
+        this.out = out;
+    }
+
+    /** Returns the number of statements that failed the check (always 0 in record mode). */
+    public int run() throws SQLException, IOException, InterruptedException {
+        Sizes sizes = Sizes.forProperties(config.scale());
+        try (Connection c = connect()) {
+            checkTarget(c);
+        }
+        if (config.load()) {
+            GeneratorConfig d = GeneratorConfig.defaults(sizes);
+            new DataGenerator(new GeneratorConfig(d.seed(), sizes, d.threads(), d.chunkRows(), d.citySkew(),
+                    d.luxuryShare(), d.luxuryAlpha(), d.dealMonths(), true)).run();
+        }
+
+        Map<String, CapturedStatement> captured = new LinkedHashMap<>();
+        DaoMetrics.StatementListener listener = (method, sql, binds) -> {
+            synchronized (captured) {
+                captured.putIfAbsent(method + "\n" + sql.strip(),
+                        new CapturedStatement(method, sql, List.copyOf(binds.values())));
+            }
+        };
+        DaoMetrics.shared().addStatementListener(listener);
+        List<String> scenarioFailures;
+        try {
+            scenarioFailures = new Scenario(sizes).run();
+        } finally {
+            DaoMetrics.shared().removeStatementListener(listener);
+        }
+        for (String f : scenarioFailures) out.println("WARN scenario step failed, its statements may be missing: " + f);
+
+        PlanBaselines baselines = new PlanBaselines(config.baselines());
+        Set<Path> seen = new HashSet<>();
+        int failed = 0, checked = 0, skipped = 0;
+        try (Connection c = connect()) {
+            Map<String, Double> tableRows = tableRows(c);
+            for (CapturedStatement s : captured.values()) {
+                if (!SlowQueryLog.explainable(s.sql(), s.binds())) {
+                    skipped++;
+                    continue;
+                }
+                List<PlanLine> plan = explain(c, s);
+                seen.add(baselines.file(s.method(), s.sql()));
+                checked++;
+                if (config.mode() == Mode.RECORD) {
+                    baselines.write(s.method(), s.sql(), plan);
+                    for (String t : PlanComparison.largeSeqScans(plan, tableRows, config.largeRows())) {
+                        out.printf(Locale.ROOT, "NOTE %s: Seq Scan on %s (%,.0f rows) accepted into the baseline%n",
+                                s.method(), t, tableRows.get(t));
+                    }
+                    continue;
+                }
+                List<PlanLine> baseline = baselines.read(s.method(), s.sql());
+                PlanComparison.Outcome o;
+                if (baseline == null) {
+                    out.println("WARN " + s.method() + ": no baseline " + baselines.file(s.method(), s.sql())
+                            + ", checked for Seq Scans on large tables only (run with mode=record and commit it)");
+                    o = PlanComparison.withoutBaseline(plan, tableRows, config.largeRows());
+                } else {
+                    o = PlanComparison.compare(baseline, plan, tableRows, config.largeRows(), config.rowFactor());
+                }
+                if (o.ok()) continue;
+                failed++;
+                out.println("FAIL " + s.method() + " (" + baselines.file(s.method(), s.sql()).getFileName() + ")");
+                for (String p : o.problems()) out.println("  - " + p);
+                out.println(indent(s.sql().strip()));
+                out.println("  plan diff (- baseline, + current):");
+                out.print(indent(o.diff()));
+            }
+        }
+
+        if (config.mode() == Mode.CHECK) {
+            for (Path p : baselines.all()) {
+                if (!seen.contains(p)) out.println("WARN baseline not matched by any statement (stale?): " + p);
+            }
+        }
+        out.printf("%s: %d statement(s) explained, %d not explainable, %d failed%n",
+                config.mode() == Mode.RECORD ? "Recorded " + config.baselines() : "Checked", checked, skipped, failed);
+        return failed;
+    }
+
+    private static List<PlanLine> explain(Connection c, CapturedStatement s) throws SQLException {
+        try (PreparedStatement ps = c.prepareStatement("EXPLAIN (FORMAT JSON) " + s.sql())) {
+            for (ParameterBind b : s.binds()) b.applyTo(ps);
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return PlanLine.fromExplain(rs.getString(1));
+            }
+        }
+    }
+
+    /** Estimated rows per table and partition, as the planner sees them after the load's ANALYZE. */
+    private static Map<String, Double> tableRows(Connection c) throws SQLException {
+        Map<String, Double> rows = new HashMap<>();
+        try (Statement st = c.createStatement();
+             ResultSet rs = st.executeQuery("""
+                 SELECT c.relname, c.reltuples
+                 FROM pg_class c JOIN pg_namespace n ON n.oid = c.relnamespace
+                 WHERE c.relkind IN ('r', 'p') AND n.nspname = current_schema()
+             """)) {
+            while (rs.next()) rows.put(rs.getString(1), Math.max(0, rs.getDouble(2)));
+        }
+        return rows;
+    }
+
+    private static void checkTarget(Connection c) throws SQLException {
+        try (Statement st = c.createStatement();
+             ResultSet rs = st.executeQuery("SELECT current_database()")) {
+            rs.next();
+            String name = rs.getString(1).toLowerCase(Locale.ROOT);
+            if (!name.contains("plan") && !name.contains("bench") && !Boolean.getBoolean(FORCE_PROPERTY)) {
+                throw new IllegalStateException("The plan check replaces all data in " + name
+                        + "; point -Ddb.url at a database whose name contains 'plan' (or set -D" + FORCE_PROPERTY + "=true)");
+            }
+        }
+    }
+
+    /** Opens a connection without Db's instrumentation and offline fallback. */
+    private static Connection connect() throws SQLException {
+        return DriverManager.getConnection(Db.url(), Db.properties());
+    }
+
+    private static String indent(String text) {
+        List<String> lines = new ArrayList<>();
+        for (String l : text.split("\n")) lines.add("    " + l);
+        return String.join("\n", lines) + "\n";
+    }
+}
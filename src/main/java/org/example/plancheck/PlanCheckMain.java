@@ -0,0 +1,62 @@
+package org.example.plancheck;
+
+import org.example.journal.ChangeJournal;
+import org.example.metrics.DaoMetrics;
+import org.example.metrics.SlowQueryLog;
+import org.example.offline.OfflineEngine;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Runs the plan check against the database Db points at (-Ddb.url=...):
+ * <pre>
+ * PlanCheckMain [mode=check|record] [scale=50000] [load=true] [baselines=plan-baselines]
+ *               [largeRows=10000] [rowFactor=10]
+ * </pre>
+ * scale is the number of properties (see Sizes.forProperties); load=false reuses the data of the
+ * previous run. Fails (non-zero exit, or a failed build under the plan-check profile) when any
+ * statement breaks a rule; mode=record writes the current plans as the baselines.
+ */
+public final class PlanCheckMain {
+
+    private PlanCheckMain() {}
+
+    public static void main(String[] args) throws Exception {
+        // a dropped connection must fail the check, and the scenario's writes stay out of the user's journal
+        if (System.getProperty(OfflineEngine.ENABLED_PROPERTY) == null) {
+            System.setProperty(OfflineEngine.ENABLED_PROPERTY, "false");
+        }
+        // statements are seen through the DAO metrics proxies; the check does its own EXPLAINs
+        System.setProperty(DaoMetrics.ENABLED_PROPERTY, "true");
+        if (System.getProperty(SlowQueryLog.EXPLAIN_PROPERTY) == null) {
+            System.setProperty(SlowQueryLog.EXPLAIN_PROPERTY, "false");
+        }
+        if (System.getProperty(ChangeJournal.DIR_PROPERTY) == null) {
+            System.setProperty(ChangeJournal.DIR_PROPERTY, Files.createTempDirectory("plan-check-journal").toString());
+        }
+
+        PlanCheck.Config d = PlanCheck.Config.defaults();
+        PlanCheck.Mode mode = d.mode();
+        int scale = d.scale();
+        boolean load = d.load();
+        Path baselines = d.baselines();
+        long largeRows = d.largeRows();
+        double rowFactor = d.rowFactor();
+        for (String arg : args) {
+            String[] kv = arg.split("=", 2);
+            switch (kv[0]) {
+                case "mode" -> mode = PlanCheck.Mode.valueOf(kv[1].toUpperCase());
+                case "scale" -> scale = Integer.parseInt(kv[1]);
+                case "load" -> load = Boolean.parseBoolean(kv[1]);
+                case "baselines" -> baselines = Path.of(kv[1]);
+                case "largeRows" -> largeRows = Long.parseLong(kv[1]);
+                case "rowFactor" -> rowFactor = Double.parseDouble(kv[1]);
+                default -> throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+        }
+
+        int failed = new PlanCheck(new PlanCheck.Config(mode, scale, load, baselines, largeRows, rowFactor), System.out).run();
+        if (failed > 0) throw new IllegalStateException(failed + " statement(s) failed the plan check; see the diffs above");
+    }
+}
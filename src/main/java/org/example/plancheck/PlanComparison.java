@@ -0,0 +1,123 @@
+package org.example.plancheck;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The rules a statement's current plan must meet against its baseline:
+ * <ul>
+ * <li>no Seq Scan on a large table (one with at least largeRows rows) that the baseline did not have;</li>
+ * <li>every index the baseline used is still used;</li>
+ * <li>the plan has the same shape (node types, join types, relations, indexes);</li>
+ * <li>where the shapes match, each row estimate is within rowFactor of the baseline's.</li>
+ * </ul>
+ * A violation comes with a line diff of the two plans ("-" baseline, "+" current).
+ * A statement without a baseline is held to the first rule alone ({@link #withoutBaseline}).
+ */
+final class PlanComparison {
+
+    private PlanComparison() {}
+
+    record Outcome(List<String> problems, String diff) {
+        boolean ok() {
+            return problems.isEmpty();
+        }
+    }
+
+    /** Seq Scans on large tables in a plan, for the record-mode warning. */
+    static List<String> largeSeqScans(List<PlanLine> plan, Map<String, Double> tableRows, long largeRows) {
+        List<String> out = new ArrayList<>();
+        for (PlanLine l : plan) {
+            String t = l.seqScanOf();
+            if (t != null && tableRows.getOrDefault(t, 0.0) >= largeRows) out.add(t);
+        }
+        return out;
+    }
+
+    /** The absolute rule for a statement that has no baseline yet: no Seq Scan on a large table. */
+    static Outcome withoutBaseline(List<PlanLine> current, Map<String, Double> tableRows, long largeRows) {
+        List<String> problems = new ArrayList<>();
+        for (String t : largeSeqScans(current, tableRows, largeRows)) {
+            problems.add(String.format(Locale.ROOT, "Seq Scan on %s (%,.0f rows)", t, tableRows.get(t)));
+        }
+        StringBuilder plan = new StringBuilder();
+        if (!problems.isEmpty()) for (PlanLine l : current) plan.append("+ ").append(l.text()).append('\n');
+        return new Outcome(problems, plan.toString());
+    }
+
+    static Outcome compare(List<PlanLine> baseline, List<PlanLine> current, Map<String, Double> tableRows,
+                           long largeRows, double rowFactor) {
+        List<String> problems = new ArrayList<>();
+
+        List<String> before = largeSeqScans(baseline, tableRows, largeRows);
+        for (String t : largeSeqScans(current, tableRows, largeRows)) {
+            if (!before.remove(t)) {
+                problems.add(String.format(Locale.ROOT, "new Seq Scan on %s (%,.0f rows)", t, tableRows.get(t)));
+            }
+        }
+
+        Set<String> used = new HashSet<>();
+        for (PlanLine l : current) if (l.index() != null) used.add(l.index());
+        for (PlanLine l : baseline) {
+            if (l.index() != null && used.add(l.index())) problems.add("index " + l.index() + " no longer used");
+        }
+
+        int[][] lcs = lcs(baseline, current);
+        int matched = lcs[0][0];
+        if (matched != baseline.size() || matched != current.size()) problems.add("plan shape changed");
+
+        int i = 0, j = 0;
+        while (i < baseline.size() && j < current.size()) {
+            if (baseline.get(i).shape().equals(current.get(j).shape())) {
+                double b = Math.max(1, baseline.get(i).rows());
+                double c = Math.max(1, current.get(j).rows());
+                if (c > b * rowFactor || c < b / rowFactor) {
+                    problems.add(String.format(Locale.ROOT, "row estimate of '%s' is %.0f, baseline %.0f",
+                            current.get(j).label(), current.get(j).rows(), baseline.get(i).rows()));
+                }
+                i++;
+                j++;
+            } else if (lcs[i + 1][j] >= lcs[i][j + 1]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+
+        return new Outcome(problems, problems.isEmpty() ? "" : diff(baseline, current, lcs));
+    }
+
+    private static String diff(List<PlanLine> baseline, List<PlanLine> current, int[][] lcs) {
+        StringBuilder sb = new StringBuilder();
+        int i = 0, j = 0;
+        while (i < baseline.size() || j < current.size()) {
+            if (i < baseline.size() && j < current.size() && baseline.get(i).shape().equals(current.get(j).shape())) {
+                sb.append("  ").append(current.get(j).text()).append('\n');
+                i++;
+                j++;
+            } else if (j >= current.size() || (i < baseline.size() && lcs[i + 1][j] >= lcs[i][j + 1])) {
+                sb.append("- ").append(baseline.get(i++).text()).append('\n');
+            } else {
+                sb.append("+ ").append(current.get(j++).text()).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+
+    /** lcs[i][j] = length of the longest common subsequence of the shapes from i and j on. */
+    private static int[][] lcs(List<PlanLine> a, List<PlanLine> b) {
+        int[][] t = new int[a.size() + 1][b.size() + 1];
+        for (int i = a.size() - 1; i >= 0; i--) {
+            for (int j = b.size() - 1; j >= 0; j--) {
+                t[i][j] = a.get(i).shape().equals(b.get(j).shape())
+                        ? t[i + 1][j + 1] + 1
+                        : Math.max(t[i + 1][j], t[i][j + 1]);
+            }
+        }
+        return t;
+    }
+}
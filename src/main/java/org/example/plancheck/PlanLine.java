@@ -0,0 +1,79 @@
+package org.example.plancheck;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * One plan node as a line of an indented tree, e.g. "  Index Scan using property_pkey on property"
+ * with its row estimate. Plans are compared as lists of these: the labels give the shape, the
+ * estimates are checked separately within a tolerance.
+ */
+record PlanLine(int depth, String label, double rows) {
+
+    private static final String ROWS = "  (rows=";
+
+    String shape() {
+        return "  ".repeat(depth) + label;
+    }
+
+    String text() {
+        return shape() + ROWS + String.format(Locale.ROOT, "%.0f", rows) + ")";
+    }
+
+    /** The table of a (Parallel) Seq Scan, else null. */
+    String seqScanOf() {
+        int i = label.indexOf("Seq Scan on ");
+        return i < 0 ? null : label.substring(i + "Seq Scan on ".length());
+    }
+
+    /** The index an index, index-only or bitmap index scan uses, else null. */
+    String index() {
+        int i = label.indexOf(" using ");
+        if (i < 0) return null;
+        String rest = label.substring(i + " using ".length());
+        int on = rest.indexOf(" on ");
+        return on < 0 ? rest : rest.substring(0, on);
+    }
+
+    static PlanLine parse(String line) {
+        int depth = 0;
+        while (line.startsWith("  ", depth * 2)) depth++;
+        int r = line.lastIndexOf(ROWS);
+        String label = line.substring(depth * 2, r < 0 ? line.length() : r);
+        double rows = r < 0 ? 0 : Double.parseDouble(line.substring(r + ROWS.length(), line.length() - 1));
+        return new PlanLine(depth, label, rows);
+    }
+
+    /** The output of EXPLAIN (FORMAT JSON): an array holding one object with a "Plan". */
+    @SuppressWarnings("unchecked")
+    static List<PlanLine> fromExplain(String json) {
+        List<Object> top = (List<Object>) Json.parse(json);
+        Map<String, Object> plan = (Map<String, Object>) ((Map<String, Object>) top.get(0)).get("Plan");
+        List<PlanLine> out = new ArrayList<>();
+        add(plan, 0, out);
+        return out;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void add(Map<String, Object> node, int depth, List<PlanLine> out) {
+        StringBuilder label = new StringBuilder();
+        if (Boolean.TRUE.equals(node.get("Parallel Aware"))) label.append("Parallel ");
+        label.append(node.get("Node Type"));
+        if (node.get("Strategy") != null && !"Plain".equals(node.get("Strategy"))) {
+            label.append(" (").append(node.get("Strategy")).append(')');
+        }
+        if (node.get("Join Type") != null) label.append(" (").append(node.get("Join Type")).append(')');
+        if (node.get("Index Name") != null) label.append(" using ").append(node.get("Index Name"));
+        if (node.get("Relation Name") != null) label.append(" on ").append(node.get("Relation Name"));
+        if (node.get("Subplan Name") != null) label.append(" [").append(node.get("Subplan Name")).append(']');
+        Object rows = node.get("Plan Rows");
+        out.add(new PlanLine(depth, label.toString(), rows instanceof Double d ? d : 0));
+
+        Object children = node.get("Plans");
+        if (children instanceof List<?> list) {
+            for (Object child : list) add((Map<String, Object>) child, depth + 1, out);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package org.example.plancheck;
+
+import org.example.dao.AgentDao;
+import org.example.dao.AnalyticsDao;
+import org.example.dao.ClientDao;
+import org.example.dao.ListingDao;
+import org.example.dao.MatchingDao;
+import org.example.dao.PersonDao;
+import org.example.dao.PreferenceDao;
+import org.example.dao.PropertyDao;
+import org.example.dao.PropertyOwnerDao;
+import org.example.dao.QueryDao;
+import org.example.dao.SuccessfulDealDao;
+import org.example.datagen.Sizes;
+import org.example.db.RowQuery;
+import org.example.model.Agent;
+import org.example.model.Client;
+import org.example.model.Listing;
+import org.example.model.Person;
+import org.example.model.Preference;
+import org.example.model.Property;
+import org.example.model.PropertyOwner;
+import org.example.model.SuccessfulDeal;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Calls every public DAO method once against the generated data, so that every statement they
+ * run is seen. Ids are taken from the middle of the generated ranges. The writes work on rows the
+ * scenario creates and deletes again; a step that fails is reported and the rest still run.
+ */
+final class Scenario {
+
+    @FunctionalInterface
+    private interface Step {
+        void run() throws SQLException;
+    }
+
+    private final Sizes sizes;
+    private final List<String> failures = new ArrayList<>();
+
+    Scenario(Sizes sizes) {
+        this.sizes = sizes;
+    }
+
+    /** "DAO.method: message" for each step that threw. */
+    List<String> run() {
+        var persons = new PersonDao();
+        var clients = new ClientDao();
+        var agents = new AgentDao();
+        var properties = new PropertyDao();
+        var owners = new PropertyOwnerDao();
+        var listings = new ListingDao();
+        var preferences = new PreferenceDao();
+        var deals = new SuccessfulDealDao();
+        var queries = new QueryDao();
+        var matching = new MatchingDao();
+        var analytics = new AnalyticsDao();
+
+        long client = Math.max(1, sizes.clients() / 2);
+        long otherClient = client + 1 <= sizes.clients() ? client + 1 : 1;
+        long agent = sizes.clients() + Math.max(1, sizes.agents() / 2);
+        long property = Math.max(1, sizes.properties() / 2);
+        long deal = Math.max(1, sizes.deals() / 2);
+        LocalDate to = LocalDate.now().plusDays(1);
+        LocalDate from = to.minusMonths(6);
+        // the Properties and Deals tabs' filter row and header sort
+        RowQuery cheapInSofia = new RowQuery(List.of(
+                PropertyDao.COLUMNS.filter("city", "Sofia"),
+                PropertyDao.COLUMNS.filter("type", "apartment"),
+                PropertyDao.COLUMNS.filter("price", "<200k")), new RowQuery.Sort("price", false));
+        RowQuery dealsByPrice = new RowQuery(List.of(), new RowQuery.Sort("price", true));
+
+        // reads
+        step("PersonDao.findAll", persons::findAll);
+        step("PersonDao.findPage", () -> persons.findPage(client, 0, 200));
+        step("PersonDao.estimateCount", persons::estimateCount);
+        step("PersonDao.search", () -> persons.search("ivan pet", 20));
+        step("PersonDao.getDeleteBlockers", () -> persons.getDeleteBlockers(client));
+        step("ClientDao.findAll", clients::findAll);
+        step("ClientDao.findById", () -> clients.findById(client));
+        step("AgentDao.findAll", agents::findAll);
+        step("AgentDao.findById", () -> agents.findById(agent));
+        step("PropertyDao.findAll", properties::findAll);
+        step("PropertyDao.findAll(query)", () -> properties.findAll(cheapInSofia));
+        step("PropertyDao.findPage", () -> properties.findPage(RowQuery.ALL, properties.findById(property), 0, 200));
+        step("PropertyDao.findPage(query)",
+                () -> properties.findPage(cheapInSofia, properties.findById(property), 0, 200));
+        step("PropertyDao.estimateCount", () -> properties.estimateCount(RowQuery.ALL));
+        step("PropertyDao.estimateCount(query)", () -> properties.estimateCount(cheapInSofia));
+        step("PropertyDao.findById", () -> properties.findById(property));
+        step("PropertyDao.findWithinRadius", () -> properties.findWithinRadius(42.6977, 23.3219, 2));
+        step("PropertyOwnerDao.findAll", owners::findAll);
+        step("ListingDao.findAll", listings::findAll);
+        step("ListingDao.search", () -> listings.search("apartment sofia", 0, 20));
+        step("PreferenceDao.findAll", preferences::findAll);
+        step("SuccessfulDealDao.findAll", deals::findAll);
+        // deals are read by their full key, so the date of the one used below is looked up first
+        SuccessfulDeal[] middle = {null};
+        step("SuccessfulDealDao.findAll(query)", () -> middle[0] = deals.findAll(new RowQuery(
+                List.of(SuccessfulDealDao.COLUMNS.filter("id", String.valueOf(deal))), null))
+                .stream().findFirst().orElse(null));
+        LocalDate dealDate = middle[0] != null ? middle[0].dealDate() : LocalDate.now();
+        step("SuccessfulDealDao.findPage", () -> deals.findPage(RowQuery.ALL, deals.findById(deal, dealDate), 0, 200));
+        step("SuccessfulDealDao.findPage(query)", () -> deals.findPage(dealsByPrice, deals.findById(deal, dealDate), 0, 200));
+        step("SuccessfulDealDao.estimateCount", () -> deals.estimateCount(RowQuery.ALL));
+        step("SuccessfulDealDao.findById", () -> deals.findById(deal, dealDate));
+        step("QueryDao.propertiesWithOptionalOwner", queries::propertiesWithOptionalOwner);
+        step("QueryDao.topAgentsBySales", queries::topAgentsBySales);
+        step("QueryDao.topAgentsBySales(window)", () -> queries.topAgentsBySales(from, to));
+        step("QueryDao.propertiesUnderClientBudget", () -> queries.propertiesUnderClientBudget(client));
+        step("QueryDao.avgSalePriceByPropertyType", queries::avgSalePriceByPropertyType);
+        step("QueryDao.avgSalePriceByPropertyType(window)", () -> queries.avgSalePriceByPropertyType(from, to));
+        step("QueryDao.topClientsByDeals", queries::topClientsByDeals);
+        step("QueryDao.topClientsByDeals(window)", () -> queries.topClientsByDeals(from, to));
+        step("QueryDao.unsoldProperties", queries::unsoldProperties);
+        step("QueryDao.unsoldProperties(page)", () -> queries.unsoldProperties(property, 50));
+        step("MatchingDao.findPropertyProfiles", matching::findPropertyProfiles);
+        step("MatchingDao.findPropertyProfiles(ids)", () -> matching.findPropertyProfiles(List.of(property)));
+        step("MatchingDao.findClientProfiles", matching::findClientProfiles);
+        step("MatchingDao.findClientProfiles(ids)", () -> matching.findClientProfiles(List.of(client)));
+        step("AnalyticsDao.loadDealColumns", analytics::loadDealColumns);
+        step("AnalyticsDao.loadDealColumns(group)", () -> analytics.loadDealColumns("Sofia", "apartment"));
+
+        // writes, on rows created here
+        long[] person = {0};
+        step("PersonDao.insert", () -> person[0] = persons.insert(
+                new Person(0, "Plan", "Check", "plan.check@example.com", "+359880000000")));
+        if (person[0] == 0) return failures;
+        long p = person[0];
+        step("PersonDao.update", () -> persons.update(new Person(p, "Plan", "Checked", "plan.check@example.com", "+359880000001")));
+        step("ClientDao.insert", () -> clients.insert(new Client(p, BigDecimal.valueOf(150_000), "Sofia - Center")));
+        step("ClientDao.update", () -> clients.update(new Client(p, BigDecimal.valueOf(160_000), "Sofia - Center")));
+        long[] preference = {0};
+        step("PreferenceDao.insert", () -> preference[0] = preferences.insert(new Preference(0, p, "2 rooms apartment")));
+        step("PreferenceDao.update", () -> preferences.update(new Preference(preference[0], p, "house with garden")));
+        step("PreferenceDao.delete", () -> preferences.delete(preference[0]));
+        step("ClientDao.delete", () -> clients.delete(p));
+        step("AgentDao.insert", () -> agents.insert(new Agent(p, BigDecimal.valueOf(2500), LocalDate.now())));
+        step("AgentDao.update", () -> agents.update(new Agent(p, BigDecimal.valueOf(2600), LocalDate.now())));
+
+        long[] newProperty = {0};
+        step("PropertyDao.insert", () -> newProperty[0] = properties.insert(new Property(0, BigDecimal.valueOf(180_000),
+                BigDecimal.valueOf(75), 42.69, 23.32, "Sofia", "apartment", p)));
+        long np = newProperty[0];
+        step("PropertyDao.update", () -> properties.update(new Property(np, BigDecimal.valueOf(175_000),
+                BigDecimal.valueOf(75), 42.69, 23.32, "Sofia", "apartment", p)));
+        step("PropertyOwnerDao.insert", () -> owners.insert(new PropertyOwner(client, np)));
+        step("PropertyOwnerDao.update", () -> owners.update(client, np, new PropertyOwner(otherClient, np)));
+        step("PropertyOwnerDao.delete", () -> owners.delete(otherClient, np));
+        long[] newDeal = {0};
+        LocalDate today = LocalDate.now();
+        step("SuccessfulDealDao.insert", () -> newDeal[0] = deals.insert(
+                new SuccessfulDeal(0, today, np, BigDecimal.valueOf(170_000), p, client)));
+        step("SuccessfulDealDao.update", () -> deals.update(today,
+                new SuccessfulDeal(newDeal[0], null, np, BigDecimal.valueOf(172_000), p, client)));
+        step("SuccessfulDealDao.delete", () -> deals.delete(newDeal[0], today));
+        step("PropertyDao.delete", () -> properties.delete(np));
+        step("AgentDao.delete", () -> agents.delete(p));
+        step("PersonDao.delete", () -> persons.delete(p));
+
+        long[] listing = {0};
+        step("ListingDao.insert", () -> listing[0] = listings.insert(new Listing(0, "sale", "Plan check listing", null)));
+        step("ListingDao.update", () -> listings.update(new Listing(listing[0], "sale", "Plan check listing, updated", "plan check")));
+        step("ListingDao.delete", () -> listings.delete(listing[0]));
+        return failures;
+    }
+
+    private void step(String name, Step step) {
+        try {
+            step.run();
+        } catch (SQLException | RuntimeException ex) {
+            failures.add(name + ": " + ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,321 @@
+package org.example.search;
+
+import org.example.model.Person;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * In-memory n-gram index over person first_name, last_name, email and phone_number.
+ *
+ * Every field contributes its trigrams plus the 1- and 2-character prefixes of each word, so
+ * "iv", "ivan" and "petrov@ex" are all answered from posting lists instead of a scan.
+ * Posting lists are sorted person_id arrays; a query intersects them starting from the shortest
+ * and verifies the candidates, stopping as soon as enough matches are found.
+ *
+ * The index is filled by {@link #rebuildAsync(Source)}, from the rows a tab loaded whole or from a
+ * streamed scan of the table when the tab pages it, and kept current by PersonDao writes.
+ * Until it is loaded, {@link #isLoaded()} is false and PersonDao falls back to the pg_trgm index.
+ */
+public final class PersonSearchIndex {
+
+    /** Feeds every person to the sink, e.g. a streamed query; called on the rebuild thread. */
+    @FunctionalInterface
+    public interface Source {
+        void forEach(Consumer<Person> sink) throws SQLException;
+    }
+
+    private static final Logger LOG = Logger.getLogger(PersonSearchIndex.class.getName());
+    private static final PersonSearchIndex SHARED = new PersonSearchIndex();
+
+    /** Marks a word-prefix gram so "^iv" never collides with the trigram "xiv". */
+    private static final char PREFIX_MARK = '\u0001';
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Map<Long, Person> people = new HashMap<>();
+    private Map<String, Postings> postings = new HashMap<>();
+    private volatile boolean loaded;
+
+    // writes that arrive while a background rebuild is running; replayed onto the new index
+    private List<Runnable> pendingWrites;
+
+    public static PersonSearchIndex shared() {
+        return SHARED;
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return people.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Builds a fresh index from these rows; see {@link #rebuildAsync(Source)}. */
+    public void rebuildAsync(Collection<Person> all) {
+        List<Person> copy = List.copyOf(all);
+        rebuildAsync(copy::forEach);
+    }
+
+    /**
+     * Builds a fresh index from source on a daemon thread and swaps it in; searches keep using
+     * the old one (or the DB) meanwhile. If the source fails the old index stays.
+     */
+    public void rebuildAsync(Source source) {
+        lock.writeLock().lock();
+        try {
+            if (pendingWrites != null) return; // a rebuild is already running
+            pendingWrites = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Thread t = new Thread(() -> {
+            try {
+                rebuild(source);
+            } catch (SQLException | RuntimeException ex) {
+                LOG.log(Level.WARNING, "Person search index rebuild failed", ex);
+            }
+        }, "person-index-rebuild");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    /** The rebuild itself, on the calling thread; the writes queued meanwhile are replayed either way. */
+    void rebuild(Source source) throws SQLException {
+        Map<Long, Person> newPeople = new HashMap<>();
+        Map<String, Postings> newPostings = new HashMap<>();
+        try {
+            // ids usually arrive in person_id order, so most postings are plain appends
+            source.forEach(p -> {
+                newPeople.put(p.personId(), p);
+                for (String g : grams(p)) {
+                    newPostings.computeIfAbsent(g, k -> new Postings()).add(p.personId());
+                }
+            });
+        } catch (SQLException | RuntimeException ex) {
+            lock.writeLock().lock();
+            try {
+                List<Runnable> replay = pendingWrites;
+                pendingWrites = null;
+                if (loaded && replay != null) replay.forEach(Runnable::run);
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw ex;
+        }
+
+        lock.writeLock().lock();
+        try {
+            people = newPeople;
+            postings = newPostings;
+            List<Runnable> replay = pendingWrites;
+            pendingWrites = null;
+            loaded = true;
+            if (replay != null) replay.forEach(Runnable::run);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Inserts or replaces one person. No-op until the index has been loaded. */
+    public void put(Person p) {
+        lock.writeLock().lock();
+        try {
+            if (pendingWrites != null) pendingWrites.add(() -> putLocked(p));
+            else if (loaded) putLocked(p);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long personId) {
+        lock.writeLock().lock();
+        try {
+            if (pendingWrites != null) pendingWrites.add(() -> removeLocked(personId));
+            else if (loaded) removeLocked(personId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void putLocked(Person p) {
+        removeLocked(p.personId());
+        people.put(p.personId(), p);
+        for (String g : grams(p)) {
+            postings.computeIfAbsent(g, k -> new Postings()).add(p.personId());
+        }
+    }
+
+    private void removeLocked(long personId) {
+        Person old = people.remove(personId);
+        if (old == null) return;
+        for (String g : grams(old)) {
+            Postings list = postings.get(g);
+            if (list == null) continue;
+            list.remove(personId);
+            if (list.size == 0) postings.remove(g);
+        }
+    }
+
+    /**
+     * People matching every whitespace-separated term of the query, lowest person_id first.
+     * Terms of 3+ characters match anywhere inside a field; shorter terms match the start of a word.
+     */
+    public List<Person> search(String query, int limit) {
+        List<String> terms = terms(query);
+        if (terms.isEmpty() || limit <= 0) return List.of();
+
+        lock.readLock().lock();
+        try {
+            List<Postings> lists = new ArrayList<>();
+            for (String term : terms) {
+                for (String g : queryGrams(term)) {
+                    Postings list = postings.get(g);
+                    if (list == null) return List.of();
+                    lists.add(list);
+                }
+            }
+            lists.sort((a, b) -> Integer.compare(a.size, b.size));
+
+            Postings driver = lists.get(0);
+            List<Person> out = new ArrayList<>(Math.min(limit, driver.size));
+            candidates:
+            for (int i = 0; i < driver.size && out.size() < limit; i++) {
+                long id = driver.ids[i];
+                for (int j = 1; j < lists.size(); j++) {
+                    if (!lists.get(j).contains(id)) continue candidates;
+                }
+                Person p = people.get(id);
+                if (matches(p, terms)) out.add(p);
+            }
+            return out;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ---- grams ----
+
+    static List<String> terms(String query) {
+        if (query == null) return List.of();
+        List<String> out = new ArrayList<>();
+        for (String t : query.toLowerCase(Locale.ROOT).trim().split("\\s+")) {
+            if (!t.isEmpty()) out.add(t);
+        }
+        return out;
+    }
+
+    static Set<String> grams(Person p) {
+        Set<String> out = new HashSet<>();
+        addFieldGrams(out, p.firstName());
+        addFieldGrams(out, p.lastName());
+        addFieldGrams(out, p.email());
+        addFieldGrams(out, p.phoneNumber());
+        return out;
+    }
+
+    private static void addFieldGrams(Set<String> out, String field) {
+        if (field == null || field.isEmpty()) return;
+        String s = field.toLowerCase(Locale.ROOT);
+        for (int i = 0; i + 3 <= s.length(); i++) {
+            out.add(s.substring(i, i + 3));
+        }
+        for (int i = 0; i < s.length(); i++) {
+            boolean wordStart = i == 0 || !Character.isLetterOrDigit(s.charAt(i - 1));
+            if (!wordStart || !Character.isLetterOrDigit(s.charAt(i))) continue;
+            out.add(PREFIX_MARK + s.substring(i, i + 1));
+            if (i + 2 <= s.length()) out.add(PREFIX_MARK + s.substring(i, i + 2));
+        }
+    }
+
+    private static List<String> queryGrams(String term) {
+        if (term.length() < 3) return List.of(PREFIX_MARK + term);
+        List<String> out = new ArrayList<>(term.length() - 2);
+        for (int i = 0; i + 3 <= term.length(); i++) {
+            out.add(term.substring(i, i + 3));
+        }
+        return out;
+    }
+
+    /** Sharing all trigrams is not containment ("abcxbcd" has both trigrams of "abcd"), so candidates are verified. */
+    private static boolean matches(Person p, List<String> terms) {
+        for (String term : terms) {
+            if (!fieldMatches(p.firstName(), term)
+                    && !fieldMatches(p.lastName(), term)
+                    && !fieldMatches(p.email(), term)
+                    && !fieldMatches(p.phoneNumber(), term)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean fieldMatches(String field, String term) {
+        if (field == null) return false;
+        String s = field.toLowerCase(Locale.ROOT);
+        if (term.length() >= 3) return s.contains(term);
+        int from = 0;
+        while (true) {
+            int i = s.indexOf(term, from);
+            if (i < 0) return false;
+            if (i == 0 || !Character.isLetterOrDigit(s.charAt(i - 1))) return true;
+            from = i + 1;
+        }
+    }
+
+    /** Sorted, growable list of person ids. */
+    private static final class Postings {
+        long[] ids = new long[4];
+        int size;
+
+        void add(long id) {
+            if (size > 0 && ids[size - 1] < id) {
+                append(id);
+                return;
+            }
+            int pos = Arrays.binarySearch(ids, 0, size, id);
+            if (pos >= 0) return;
+            pos = -pos - 1;
+            if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+            System.arraycopy(ids, pos, ids, pos + 1, size - pos);
+            ids[pos] = id;
+            size++;
+        }
+
+        private void append(long id) {
+            if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+            ids[size++] = id;
+        }
+
+        void remove(long id) {
+            int pos = Arrays.binarySearch(ids, 0, size, id);
+            if (pos < 0) return;
+            System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+            size--;
+        }
+
+        boolean contains(long id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package org.example.snapshot;
+
+import org.example.codec.BinaryReader;
+import org.example.codec.BinaryWriter;
+import org.example.codec.RecordCodec;
+import org.example.metrics.CacheEvent;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * The entity lists the tabs last loaded, kept in one memory-mapped file so the next start can
+ * show them before the database has answered.
+ *
+ * Layout (varints and strings as in {@link BinaryWriter}):
+ * <pre>
+ * "RESNAP1\0"
+ * varint sectionCount
+ * per section: string recordClass, string layout, varint rowCount, varint byteLength,
+ *              rows encoded with {@link RecordCodec}
+ * </pre>
+ * layout lists the record's component names and types; a section whose layout no longer
+ * matches the model class is ignored rather than misread. Sections are decoded on first
+ * {@link #get}, straight from the mapping.
+ *
+ * The file is rewritten whole (temp file + atomic rename), so a crash mid-write leaves the old
+ * snapshot in place. Sections not decoded yet are copied out of the mapping first, so nothing
+ * still reads the file that is being replaced. The rows include people's names, emails and phone
+ * numbers in plain form, so the file is created readable by its owner only where the file
+ * system has POSIX permissions. The shared store lives in ~/.realestate/snapshot.bin (or
+ * -Dsnapshot.file).
+ */
+public final class SnapshotStore {
+
+    public static final String FILE_PROPERTY = "snapshot.file";
+
+    private static final Logger LOG = Logger.getLogger(SnapshotStore.class.getName());
+    private static final byte[] MAGIC = "RESNAP1\0".getBytes(StandardCharsets.US_ASCII);
+    private static SnapshotStore shared;
+
+    private record Section(String layout, int rows, ByteBuffer data) {}
+
+    private final Path file;
+    private final Map<String, Section> onDisk = new HashMap<>();
+    private final Map<Class<?>, List<?>> current = new LinkedHashMap<>();
+    private final Map<Class<?>, Long> versions = new HashMap<>();
+
+    private SnapshotStore(Path file) {
+        this.file = file;
+    }
+
+    public static synchronized SnapshotStore shared() {
+        if (shared == null) {
+            String configured = System.getProperty(FILE_PROPERTY);
+            Path file = configured != null
+                    ? Path.of(configured)
+                    : Path.of(System.getProperty("user.home"), ".realestate", "snapshot.bin");
+            shared = open(file);
+        }
+        return shared;
+    }
+
+    /** A missing or unreadable file gives an empty store; it is replaced on the next save. */
+    public static SnapshotStore open(Path file) {
+        SnapshotStore store = new SnapshotStore(file);
+        if (Files.exists(file)) {
+            try {
+                store.index();
+            } catch (IOException | RuntimeException ex) {
+                LOG.log(Level.WARNING, "Ignoring unreadable snapshot " + file, ex);
+                store.onDisk.clear();
+            }
+        }
+        return store;
+    }
+
+    /** The latest rows of this type (loaded this session, else from the file), or null if there are none. */
+    @SuppressWarnings("unchecked")
+    public synchronized <R extends Record> List<R> get(Class<R> type) {
+        List<?> rows = current.get(type);
+        if (rows != null) {
+            CacheEvent.record("snapshot", type.getSimpleName(), true);
+            return (List<R>) rows;
+        }
+
+        Section s = onDisk.get(type.getName());
+        CacheEvent.record("snapshot", type.getSimpleName(), s != null && s.layout().equals(layout(type)));
+        if (s == null || !s.layout().equals(layout(type))) return null;
+        RecordCodec<R> codec = RecordCodec.of(type);
+        BinaryReader in = new BinaryReader(s.data().duplicate());
+        List<R> out = new ArrayList<>(s.rows());
+        for (int i = 0; i < s.rows(); i++) out.add(codec.decode(in));
+        current.put(type, List.copyOf(out));
+        return (List<R>) current.get(type);
+    }
+
+    /** Changes every time {@link #put} replaces the rows of this type. */
+    public synchronized long version(Class<? extends Record> type) {
+        return versions.getOrDefault(type, 0L);
+    }
+
+    public synchronized <R extends Record> void put(Class<R> type, List<R> rows) {
+        current.put(type, List.copyOf(rows));
+        versions.merge(type, 1L, Long::sum);
+    }
+
+    /** Stores the rows only if nothing was put since {@code version} was read; used for background loads. */
+    public synchronized <R extends Record> boolean putIfVersion(Class<R> type, List<R> rows, long version) {
+        if (version(type) != version) return false;
+        put(type, rows);
+        return true;
+    }
+
+    /** Forgets the rows of this type, here and in the next saved file; for tables too large to keep. */
+    public synchronized void remove(Class<? extends Record> type) {
+        current.remove(type);
+        onDisk.remove(type.getName());
+        versions.merge(type, 1L, Long::sum);
+    }
+
+    /** Writes every known type: current rows re-encoded, untouched sections copied as they are. */
+    public void save() throws IOException {
+        Map<Class<?>, List<?>> rows;
+        Map<String, Section> old;
+        synchronized (this) {
+            rows = new LinkedHashMap<>(current);
+            onDisk.replaceAll((type, section) -> onHeap(section));
+            old = new HashMap<>(onDisk);
+        }
+        for (Class<?> type : rows.keySet()) old.remove(type.getName());
+
+        BinaryWriter out = new BinaryWriter(1 << 16);
+        out.writeBytes(MAGIC, 0, MAGIC.length);
+        out.writeVarLong(rows.size() + old.size());
+        for (Map.Entry<Class<?>, List<?>> e : rows.entrySet()) {
+            writeSection(out, e.getKey().asSubclass(Record.class), e.getValue());
+        }
+        for (Map.Entry<String, Section> e : old.entrySet()) {
+            ByteBuffer data = e.getValue().data();
+            out.writeString(e.getKey());
+            out.writeString(e.getValue().layout());
+            out.writeVarLong(e.getValue().rows());
+            out.writeVarLong(data.remaining());
+            out.writeBytes(data.array(), data.arrayOffset() + data.position(), data.remaining());
+        }
+
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.deleteIfExists(tmp);
+        if (file.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            Files.createFile(tmp, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        }
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buf = ByteBuffer.wrap(out.array(), 0, out.size());
+            while (buf.hasRemaining()) ch.write(buf);
+            ch.force(true);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Saves on a new non-daemon thread and returns at once; the JVM does not exit before the
+     * write has finished. Used from App.stop so closing the window does not wait on the disk.
+     */
+    public Thread saveInBackground() {
+        Thread t = new Thread(() -> {
+            try {
+                long started = System.nanoTime();
+                save();
+                LOG.fine(() -> "Snapshot written in " + (System.nanoTime() - started) / 1_000_000 + " ms");
+            } catch (IOException | RuntimeException ex) {
+                LOG.log(Level.WARNING, "Could not write snapshot " + file, ex);
+            }
+        }, "snapshot-write");
+        t.start();
+        return t;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <R extends Record> void writeSection(BinaryWriter out, Class<R> type, List<?> rows) {
+        RecordCodec<R> codec = RecordCodec.of(type);
+        BinaryWriter body = new BinaryWriter(Math.max(64, rows.size() * 32));
+        for (Object r : rows) codec.encode((R) r, body);
+
+        out.writeString(type.getName());
+        out.writeString(layout(type));
+        out.writeVarLong(rows.size());
+        out.writeVarLong(body.size());
+        out.writeBytes(body.array(), 0, body.size());
+    }
+
+    /** The section with its bytes copied out of the mapping, if they were still in it. */
+    private static Section onHeap(Section s) {
+        if (s.data().hasArray()) return s;
+        ByteBuffer data = s.data().duplicate();
+        byte[] bytes = new byte[data.remaining()];
+        data.get(bytes);
+        return new Section(s.layout(), s.rows(), ByteBuffer.wrap(bytes));
+    }
+
+    private void index() throws IOException {
+        MappedByteBuffer map;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            map = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+        }
+        byte[] magic = new byte[MAGIC.length];
+        if (map.capacity() < magic.length) throw new IOException("Truncated snapshot");
+        map.get(magic);
+        if (!Arrays.equals(magic, MAGIC)) throw new IOException("Not a snapshot file");
+
+        BinaryReader in = new BinaryReader(map);
+        long sections = in.readVarLong();
+        for (long i = 0; i < sections; i++) {
+            String type = in.readString();
+            String layout = in.readString();
+            int rows = Math.toIntExact(in.readVarLong());
+            int length = Math.toIntExact(in.readVarLong());
+            int start = in.position();
+            onDisk.put(type, new Section(layout, rows, map.slice(start, length)));
+            map.position(start + length);
+        }
+    }
+
+    private static String layout(Class<? extends Record> type) {
+        return Arrays.stream(type.getRecordComponents())
+                .map(c -> c.getName() + ":" + c.getType().getName())
+                .collect(Collectors.joining(","));
+    }
+}
@@ -2,16 +2,16 @@ package org.example.ui;
 
 import javafx.beans.property.SimpleLongProperty;
 import javafx.beans.property.SimpleStringProperty;
-import javafx.collections.FXCollections;
 import javafx.geometry.Insets;
 import javafx.scene.control.*;
 import javafx.scene.layout.*;
 import org.example.dao.AgentDao;
 import org.example.model.Agent;
+import org.example.snapshot.SnapshotStore;
 
 import java.math.BigDecimal;
-import java.sql.SQLException;
 import java.time.LocalDate;
+import java.util.Comparator;
 
 public final class AgentTab {
 
@@ -65,20 +65,21 @@ public final class AgentTab {
 
         HBox buttons = new HBox(10, btnRefresh, btnClear, btnCreate, btnUpdate, btnDelete);
 
-        VBox right = new VBox(12, form, buttons);
+        TabTasks tasks = TabTasks.forTable("Agents", table, AgentTab::showError).disableWhileBusy(form, buttons);
+
+        VBox right = new VBox(12, form, new HBox(10, buttons, tasks.indicator()));
         right.setPadding(new Insets(10));
         right.setPrefWidth(380);
 
         BorderPane root = new BorderPane(table, null, right, null, null);
         root.setPadding(new Insets(10));
 
-        Runnable refresh = () -> {
-            try {
-                table.setItems(FXCollections.observableArrayList(dao.findAll()));
-            } catch (SQLException ex) {
-                showError("DB error while loading agents", ex);
-            }
-        };
+        ListPatcher<Agent> patcher = new ListPatcher<>(table, Agent::personId, Comparator.comparingLong(Agent::personId));
+
+        Runnable refresh = () -> tasks.refresh(dao::findAll, all -> {
+            SnapshotStore.shared().put(Agent.class, all);
+            patcher.show(all);
+        }, "DB error while loading agents");
 
         Runnable clearForm = () -> {
             personId.clear();
@@ -98,19 +99,17 @@ public final class AgentTab {
         });
 
         btnCreate.setOnAction(e -> {
-            try {
-                Long pid = parseLong(personId.getText(), "Person ID");
-                if (pid == null) return;
+            Long pid = parseLong(personId.getText(), "Person ID");
+            if (pid == null) return;
 
-                BigDecimal s = parseBigDecimalOrNull(salary.getText(), "Salary");
-                LocalDate d = hireDate.getValue();
+            BigDecimal s = parseBigDecimalOrNull(salary.getText(), "Salary");
+            LocalDate d = hireDate.getValue();
 
-                dao.insert(new Agent(pid, s, d));
-                refresh.run();
+            Agent toInsert = new Agent(pid, s, d);
+            tasks.execute(() -> dao.insert(toInsert), () -> {
+                patcher.put(toInsert);
                 clearForm.run();
-            } catch (SQLException ex) {
-                showError("DB error while creating agent", ex);
-            }
+            }, "DB error while creating agent");
         });
 
         btnUpdate.setOnAction(e -> {
@@ -119,18 +118,16 @@ public final class AgentTab {
                 showInfo("Select an agent first.");
                 return;
             }
-            try {
-                Long pid = parseLong(personId.getText(), "Person ID");
-                if (pid == null) return;
+            Long pid = parseLong(personId.getText(), "Person ID");
+            if (pid == null) return;
 
-                BigDecimal s = parseBigDecimalOrNull(salary.getText(), "Salary");
-                LocalDate d = hireDate.getValue();
+            BigDecimal s = parseBigDecimalOrNull(salary.getText(), "Salary");
+            LocalDate d = hireDate.getValue();
 
-                dao.update(new Agent(pid, s, d));
-                refresh.run();
-            } catch (SQLException ex) {
-                showError("DB error while updating agent", ex);
-            }
+            Agent updated = new Agent(pid, s, d);
+            tasks.execute(() -> dao.update(updated), () -> {
+                if (!patcher.replace(updated)) refresh.run();
+            }, "DB error while updating agent");
         });
 
         btnDelete.setOnAction(e -> {
@@ -141,16 +138,15 @@ public final class AgentTab {
             }
             if (!confirm("Delete agent (person_id=" + selected.personId() + ")?")) return;
 
-            try {
-                dao.delete(selected.personId());
-                refresh.run();
+            tasks.execute(() -> dao.delete(selected.personId()), () -> {
+                patcher.remove(selected);
                 clearForm.run();
-            } catch (SQLException ex) {
-                showError("DB error while deleting agent", ex);
-            }
+            }, "DB error while deleting agent");
         });
 
-        refresh.run();
+        if (!WarmStart.fromSnapshot(Agent.class, dao::findAll, patcher::show)) {
+            refresh.run();
+        }
 
         Tab tab = new Tab("Agents", root);
         tab.setClosable(false);
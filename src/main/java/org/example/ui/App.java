@@ -1,31 +1,100 @@
 package org.example.ui;
 
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.scene.Scene;
+import javafx.scene.control.Alert;
 import javafx.scene.control.TabPane;
 import javafx.stage.Stage;
+import org.example.db.PartitionManager;
+import org.example.metrics.StartupEvent;
+import org.example.offline.Conflict;
+import org.example.offline.OfflineEngine;
+import org.example.snapshot.SnapshotStore;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Locale;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
 
 public class App extends Application {
 
+    private static final Logger LOG = Logger.getLogger(App.class.getName());
+
+    private LazyTabs tabs;
+
     @Override
     public void start(Stage stage) {
-        TabPane tabs = new TabPane(
-                PeopleTab.build(),
-                ClientTab.build(),
-                AgentTab.build(),
-                PropertyTab.build(),
-                DealsTab.build(),
-                ListingTab.build(),
-                PreferencesTab.build(),
-                PropertyOwnerTab.build(),
-                QueriesTab.build()
-        );
-
-        stage.setTitle("Real Estate App");
-        stage.setScene(new Scene(tabs, 1000, 600));
+        StartupEvent startup = new StartupEvent();
+        startup.begin();
+        long started = System.nanoTime();
+
+        Thread partitions = new Thread(PartitionManager::maintain, "deal-partitions");
+        partitions.setDaemon(true);
+        partitions.start();
+
+        tabs = new LazyTabs()
+                .add("People", PeopleTab::build)
+                .add("Clients", ClientTab::build)
+                .add("Agents", AgentTab::build)
+                .add("Properties", PropertyTab::build)
+                .add("Deals", DealsTab::build)
+                .add("Listings", ListingTab::build)
+                .add("Preferences", PreferencesTab::build)
+                .add("Property Owners", PropertyOwnerTab::build)
+                .add("Queries", QueriesTab::build)
+                .add("Diagnostics", DiagnosticsTab::build);
+        TabPane pane = tabs.pane();
+
+        OfflineEngine offline = OfflineEngine.shared();
+        offline.addListener(() -> Platform.runLater(() -> showOfflineState(stage, offline)));
+        showOfflineState(stage, offline);
+        Scene scene = new Scene(pane, 1000, 600);
+        stage.setScene(scene);
+        LazyTabs.afterFirstPaint(scene, () -> {
+            startup.end();
+            startup.tab = tabs.selectedTitle();
+            startup.sinceJvmStart = ManagementFactory.getRuntimeMXBean().getUptime();
+            startup.commit();
+            LOG.info(String.format(Locale.ROOT, "First paint %d ms after start (%d ms after JVM start), tab %s",
+                    (System.nanoTime() - started) / 1_000_000, startup.sinceJvmStart, startup.tab));
+            tabs.prefetch();
+        });
         stage.show();
     }
 
+    private static void showOfflineState(Stage stage, OfflineEngine offline) {
+        int pending = offline.pendingCount();
+        int held = offline.heldCount();
+        String title = "Real Estate App";
+        if (offline.isOffline()) {
+            List<String> partial = offline.partialTables();
+            title += " (offline, " + pending + " change(s) waiting"
+                    + (partial.isEmpty() ? "" : "; " + String.join(", ", partial) + ": only rows viewed online")
+                    + ")";
+        } else if (pending > held) title += " (sending " + (pending - held) + " change(s))";
+        else if (held > 0) title += " (" + held + " offline change(s) held back)";
+        stage.setTitle(title);
+
+        List<Conflict> conflicts = offline.takeConflicts();
+        if (conflicts.isEmpty()) return;
+        Alert a = new Alert(Alert.AlertType.INFORMATION);
+        a.setTitle("Offline changes not applied");
+        a.setHeaderText(conflicts.size() + " change(s) made offline were not applied:");
+        a.setContentText(conflicts.stream()
+                .map(c -> c.write().type() + " " + c.write().entity().table() + " " + c.write().key() + ": " + c.reason())
+                .collect(Collectors.joining("\n")));
+        a.show();
+    }
+
+    /** The snapshot is written on a non-daemon thread, so the window closes at once and the JVM waits for it. */
+    @Override
+    public void stop() {
+        if (tabs != null) tabs.save();
+        SnapshotStore.shared().saveInBackground();
+    }
+
     public static void main(String[] args) {
         launch(args);
     }
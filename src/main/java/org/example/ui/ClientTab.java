@@ -2,14 +2,14 @@ package org.example.ui;
 
 import javafx.beans.property.SimpleLongProperty;
 import javafx.beans.property.SimpleStringProperty;
-import javafx.collections.FXCollections;
 import javafx.geometry.Insets;
 import javafx.scene.control.*;
 import javafx.scene.layout.*;
 import org.example.dao.ClientDao;
 import org.example.model.Client;
+import org.example.snapshot.SnapshotStore;
 import java.math.BigDecimal;
-import java.sql.SQLException;
+import java.util.Comparator;
 
 public final class ClientTab {
 
@@ -63,20 +63,21 @@ public final class ClientTab {
 
         HBox buttons = new HBox(10, btnRefresh, btnClear, btnCreate, btnUpdate, btnDelete);
 
-        VBox right = new VBox(12, form, buttons);
+        TabTasks tasks = TabTasks.forTable("Clients", table, ClientTab::showError).disableWhileBusy(form, buttons);
+
+        VBox right = new VBox(12, form, new HBox(10, buttons, tasks.indicator()));
         right.setPadding(new Insets(10));
         right.setPrefWidth(380);
 
         BorderPane root = new BorderPane(table, null, right, null, null);
         root.setPadding(new Insets(10));
 
-        Runnable refresh = () -> {
-            try {
-                table.setItems(FXCollections.observableArrayList(dao.findAll()));
-            } catch (SQLException ex) {
-                showError("DB error while loading clients", ex);
-            }
-        };
+        ListPatcher<Client> patcher = new ListPatcher<>(table, Client::personId, Comparator.comparingLong(Client::personId));
+
+        Runnable refresh = () -> tasks.refresh(dao::findAll, all -> {
+            SnapshotStore.shared().put(Client.class, all);
+            patcher.show(all);
+        }, "DB error while loading clients");
 
         Runnable clearForm = () -> {
             personId.clear();
@@ -96,19 +97,16 @@ public final class ClientTab {
         });
 
         btnCreate.setOnAction(e -> {
-            try {
-                Long pid = parseLong(personId.getText(), "Person ID");
-                if (pid == null) return;
+            Long pid = parseLong(personId.getText(), "Person ID");
+            if (pid == null) return;
 
-                BigDecimal b = parseBigDecimalOrNull(budget.getText(), "Budget");
-                Client toInsert = new Client(pid, b, area.getText().trim());
+            BigDecimal b = parseBigDecimalOrNull(budget.getText(), "Budget");
+            Client toInsert = new Client(pid, b, area.getText().trim());
 
-                dao.insert(toInsert);
-                refresh.run();
+            tasks.execute(() -> dao.insert(toInsert), () -> {
+                patcher.put(toInsert);
                 clearForm.run();
-            } catch (SQLException ex) {
-                showError("DB error while creating client", ex);
-            }
+            }, "DB error while creating client");
         });
 
         btnUpdate.setOnAction(e -> {
@@ -117,18 +115,15 @@ public final class ClientTab {
                 showInfo("Select a client first.");
                 return;
             }
-            try {
-                Long pid = parseLong(personId.getText(), "Person ID");
-                if (pid == null) return;
+            Long pid = parseLong(personId.getText(), "Person ID");
+            if (pid == null) return;
 
-                BigDecimal b = parseBigDecimalOrNull(budget.getText(), "Budget");
-                Client updated = new Client(pid, b, area.getText().trim());
+            BigDecimal b = parseBigDecimalOrNull(budget.getText(), "Budget");
+            Client updated = new Client(pid, b, area.getText().trim());
 
-                dao.update(updated);
-                refresh.run();
-            } catch (SQLException ex) {
-                showError("DB error while updating client", ex);
-            }
+            tasks.execute(() -> dao.update(updated), () -> {
+                if (!patcher.replace(updated)) refresh.run();
+            }, "DB error while updating client");
         });
 
         btnDelete.setOnAction(e -> {
@@ -139,16 +134,15 @@ public final class ClientTab {
             }
             if (!confirm("Delete client (person_id=" + selected.personId() + ")?")) return;
 
-            try {
-                dao.delete(selected.personId());
-                refresh.run();
+            tasks.execute(() -> dao.delete(selected.personId()), () -> {
+                patcher.remove(selected);
                 clearForm.run();
-            } catch (SQLException ex) {
-                showError("DB error while deleting client", ex);
-            }
+            }, "DB error while deleting client");
         });
 
-        refresh.run();
+        if (!WarmStart.fromSnapshot(Client.class, dao::findAll, patcher::show)) {
+            refresh.run();
+        }
 
         Tab tab = new Tab("Clients", root);
         tab.setClosable(false);
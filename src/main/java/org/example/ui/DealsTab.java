@@ -2,15 +2,19 @@ package org.example.ui;
 
 import javafx.beans.property.SimpleLongProperty;
 import javafx.beans.property.SimpleStringProperty;
-import javafx.collections.FXCollections;
 import javafx.geometry.Insets;
 import javafx.scene.control.*;
 import javafx.scene.layout.*;
 import org.example.dao.SuccessfulDealDao;
+import org.example.db.RowQuery;
 import org.example.model.SuccessfulDeal;
+import org.example.offline.OfflineEngine;
+import org.example.snapshot.SnapshotStore;
 
 import java.math.BigDecimal;
-import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
 
 public final class DealsTab {
 
@@ -27,6 +31,11 @@ public final class DealsTab {
                 new SimpleLongProperty(c.getValue().dealId()).asObject()
         );
 
+        TableColumn<SuccessfulDeal, String> colDealDate = new TableColumn<>("Deal date");
+        colDealDate.setCellValueFactory(c ->
+                new SimpleStringProperty(c.getValue().dealDate() == null ? "" : c.getValue().dealDate().toString())
+        );
+
         TableColumn<SuccessfulDeal, Long> colPropertyId = new TableColumn<>("Property ID");
         colPropertyId.setCellValueFactory(c ->
                 new SimpleLongProperty(c.getValue().propertyId()).asObject()
@@ -47,12 +56,23 @@ public final class DealsTab {
                 new SimpleLongProperty(c.getValue().clientId()).asObject()
         );
 
-        table.getColumns().addAll(colDealId, colPropertyId, colFinalPrice, colAgentId, colClientId);
+        table.getColumns().addAll(colDealId, colDealDate, colPropertyId, colFinalPrice, colAgentId, colClientId);
+        LazyRowList.prepare(table);
+        FilterBar<SuccessfulDeal> filters = new FilterBar<>(table, SuccessfulDealDao.COLUMNS, DealsTab::showInfo)
+                .column(colDealId, "id")
+                .column(colDealDate, "date")
+                .column(colPropertyId, "property")
+                .column(colFinalPrice, "price")
+                .column(colAgentId, "agent")
+                .column(colClientId, "client");
 
         // Form
         TextField dealId = new TextField();
         dealId.setDisable(true);
 
+        DatePicker dealDate = new DatePicker();
+        dealDate.setPromptText("today");
+
         TextField propertyId = new TextField();
         TextField finalPrice = new TextField();
         TextField agentId = new TextField();
@@ -62,10 +82,11 @@ public final class DealsTab {
         form.setHgap(10);
         form.setVgap(10);
         form.addRow(0, new Label("Deal ID"), dealId);
-        form.addRow(1, new Label("Property ID"), propertyId);
-        form.addRow(2, new Label("Final price"), finalPrice);
-        form.addRow(3, new Label("Agent ID"), agentId);
-        form.addRow(4, new Label("Client ID"), clientId);
+        form.addRow(1, new Label("Deal date"), dealDate);
+        form.addRow(2, new Label("Property ID"), propertyId);
+        form.addRow(3, new Label("Final price"), finalPrice);
+        form.addRow(4, new Label("Agent ID"), agentId);
+        form.addRow(5, new Label("Client ID"), clientId);
 
         Button btnRefresh = new Button("Refresh");
         Button btnClear   = new Button("Clear");
@@ -75,23 +96,41 @@ public final class DealsTab {
 
         HBox buttons = new HBox(10, btnRefresh, btnClear, btnCreate, btnUpdate, btnDelete);
 
-        VBox right = new VBox(12, form, buttons);
+        TabTasks tasks = TabTasks.forTable("Deals", table, DealsTab::showError).disableWhileBusy(form, buttons);
+
+        VBox right = new VBox(12, form, new HBox(10, buttons, tasks.indicator()));
         right.setPadding(new Insets(10));
         right.setPrefWidth(420);
 
-        BorderPane root = new BorderPane(table, null, right, null, null);
+        VBox center = new VBox(4, table);
+        VBox.setVgrow(table, Priority.ALWAYS);
+        BorderPane root = new BorderPane(center, null, right, null, null);
         root.setPadding(new Insets(10));
 
-        Runnable refresh = () -> {
-            try {
-                table.setItems(FXCollections.observableArrayList(dao.findAll()));
-            } catch (SQLException ex) {
-                showError("DB error while loading deals", ex);
-            }
+        // filtered and sorted by the database; large results are paged instead of loaded whole
+        TabTasks.Call<List<SuccessfulDeal>> load = () -> {
+            RowQuery q = filters.query();
+            return LazyRowList.load(() -> dao.estimateCount(q), () -> dao.findAll(q),
+                    (after, skip, limit) -> dao.findPage(q, after, skip, limit),
+                    SuccessfulDeal::dealId, ex -> showError("DB error while loading deals", ex));
         };
 
+        ListPatcher<SuccessfulDeal> patcher = new ListPatcher<>(table, SuccessfulDeal::dealId,
+                Comparator.comparingLong(SuccessfulDeal::dealId));
+
+        Runnable refresh = () -> tasks.refresh(load, all -> {
+            // offline the rows are the local store (maybe only those viewed online): the snapshot stays
+            if (!OfflineEngine.shared().isOffline()) {
+                if (all instanceof LazyRowList) SnapshotStore.shared().remove(SuccessfulDeal.class);
+                else if (filters.query().isAll()) SnapshotStore.shared().put(SuccessfulDeal.class, all);
+            }
+            patcher.show(all);
+        }, "DB error while loading deals");
+        center.getChildren().add(0, filters.install(refresh));
+
         Runnable clearForm = () -> {
             dealId.clear();
+            dealDate.setValue(null);
             propertyId.clear();
             finalPrice.clear();
             agentId.clear();
@@ -105,6 +144,7 @@ public final class DealsTab {
         table.getSelectionModel().selectedItemProperty().addListener((obs, oldV, d) -> {
             if (d == null) return;
             dealId.setText(String.valueOf(d.dealId()));
+            dealDate.setValue(d.dealDate());
             propertyId.setText(String.valueOf(d.propertyId()));
             finalPrice.setText(d.finalPrice() == null ? "" : d.finalPrice().toPlainString());
             agentId.setText(String.valueOf(d.agentId()));
@@ -112,21 +152,23 @@ public final class DealsTab {
         });
 
         btnCreate.setOnAction(e -> {
-            try {
-                Long pid = parseLong(propertyId.getText(), "Property ID");
-                Long aid = parseLong(agentId.getText(), "Agent ID");
-                Long cid = parseLong(clientId.getText(), "Client ID");
-                if (pid == null || aid == null || cid == null) return;
-
-                BigDecimal fp = parseBigDecimalOrNull(finalPrice.getText(), "Final price");
-                if (fp == null && !finalPrice.getText().trim().isEmpty()) return;
-
-                dao.insert(new SuccessfulDeal(0, pid, fp, aid, cid));
-                refresh.run();
+            Long pid = parseLong(propertyId.getText(), "Property ID");
+            Long aid = parseLong(agentId.getText(), "Agent ID");
+            Long cid = parseLong(clientId.getText(), "Client ID");
+            if (pid == null || aid == null || cid == null) return;
+
+            BigDecimal fp = parseBigDecimalOrNull(finalPrice.getText(), "Final price");
+            if (fp == null && !finalPrice.getText().trim().isEmpty()) return;
+
+            // the date is part of the key the row is read back by, so the default is filled in here
+            LocalDate date = dealDate.getValue() != null ? dealDate.getValue() : LocalDate.now();
+            SuccessfulDeal toInsert = new SuccessfulDeal(0, date, pid, fp, aid, cid);
+            // read back, so the row shows the defaults the database filled in
+            tasks.submit(() -> dao.findById(dao.insert(toInsert), date), saved -> {
+                // under a filter or sort, only the database knows where the row goes
+                if (saved == null || !filters.query().isAll() || !patcher.put(saved)) refresh.run();
                 clearForm.run();
-            } catch (SQLException ex) {
-                showError("DB error while creating deal", ex);
-            }
+            }, "DB error while creating deal");
         });
 
         btnUpdate.setOnAction(e -> {
@@ -135,20 +177,18 @@ public final class DealsTab {
                 showInfo("Select a deal first.");
                 return;
             }
-            try {
-                Long pid = parseLong(propertyId.getText(), "Property ID");
-                Long aid = parseLong(agentId.getText(), "Agent ID");
-                Long cid = parseLong(clientId.getText(), "Client ID");
-                if (pid == null || aid == null || cid == null) return;
-
-                BigDecimal fp = parseBigDecimalOrNull(finalPrice.getText(), "Final price");
-                if (fp == null && !finalPrice.getText().trim().isEmpty()) return;
-
-                dao.update(new SuccessfulDeal(selected.dealId(), pid, fp, aid, cid));
-                refresh.run();
-            } catch (SQLException ex) {
-                showError("DB error while updating deal", ex);
-            }
+            Long pid = parseLong(propertyId.getText(), "Property ID");
+            Long aid = parseLong(agentId.getText(), "Agent ID");
+            Long cid = parseLong(clientId.getText(), "Client ID");
+            if (pid == null || aid == null || cid == null) return;
+
+            BigDecimal fp = parseBigDecimalOrNull(finalPrice.getText(), "Final price");
+            if (fp == null && !finalPrice.getText().trim().isEmpty()) return;
+
+            SuccessfulDeal updated = new SuccessfulDeal(selected.dealId(), dealDate.getValue(), pid, fp, aid, cid);
+            tasks.execute(() -> dao.update(selected.dealDate(), updated), () -> {
+                if (!filters.query().isAll() || !patcher.replace(updated)) refresh.run();
+            }, "DB error while updating deal");
         });
 
         btnDelete.setOnAction(e -> {
@@ -159,16 +199,16 @@ public final class DealsTab {
             }
             if (!confirm("Delete deal " + selected.dealId() + "?")) return;
 
-            try {
-                dao.delete(selected.dealId());
-                refresh.run();
+            tasks.execute(() -> dao.delete(selected.dealId(), selected.dealDate()), () -> {
+                if (!patcher.remove(selected)) refresh.run();
                 clearForm.run();
-            } catch (SQLException ex) {
-                showError("DB error while deleting deal", ex);
-            }
+            }, "DB error while deleting deal");
         });
 
-        refresh.run();
+        if (!WarmStart.fromSnapshot(SuccessfulDeal.class, load::call, patcher::show,
+                () -> filters.query().isAll())) {
+            refresh.run();
+        }
 
         Tab tab = new Tab("Deals", root);
         tab.setClosable(false);
@@ -0,0 +1,98 @@
+package org.example.ui;
+
+import javafx.beans.property.SimpleDoubleProperty;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.collections.FXCollections;
+import javafx.geometry.Insets;
+import javafx.scene.control.*;
+import javafx.scene.layout.*;
+import org.example.metrics.SlowQuery;
+import org.example.metrics.SlowQueryLog;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+/** Browses the slow-query log: newest statements first, with SQL, redacted binds and plan. */
+public final class DiagnosticsTab {
+
+    private static final DateTimeFormatter TIME =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneId.systemDefault());
+
+    private DiagnosticsTab() {}
+
+    public static Tab build() {
+        SlowQueryLog log = SlowQueryLog.shared();
+
+        TableView<SlowQuery> table = new TableView<>();
+        table.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
+
+        TableColumn<SlowQuery, String> colTime = new TableColumn<>("Time");
+        colTime.setCellValueFactory(c -> new SimpleStringProperty(TIME.format(c.getValue().time())));
+
+        TableColumn<SlowQuery, String> colMethod = new TableColumn<>("DAO method");
+        colMethod.setCellValueFactory(c -> new SimpleStringProperty(c.getValue().method()));
+
+        TableColumn<SlowQuery, Number> colMillis = new TableColumn<>("Duration (ms)");
+        colMillis.setCellValueFactory(c -> new SimpleDoubleProperty(c.getValue().millis()));
+
+        TableColumn<SlowQuery, String> colPlan = new TableColumn<>("Plan");
+        colPlan.setCellValueFactory(c -> new SimpleStringProperty(c.getValue().plan() == null ? "" : "yes"));
+
+        table.getColumns().addAll(colTime, colMethod, colMillis, colPlan);
+
+        TextArea details = new TextArea();
+        details.setEditable(false);
+        details.setStyle("-fx-font-family: monospace;");
+
+        Button btnRefresh = new Button("Refresh");
+        Label info = new Label("Statements slower than " + log.thresholdMillis() + " ms, logged to " + log.dir());
+
+        TabTasks tasks = TabTasks.forTable("Diagnostics", table, DiagnosticsTab::showError).disableWhileBusy(btnRefresh);
+
+        HBox top = new HBox(10, btnRefresh, tasks.indicator(), info);
+        top.setPadding(new Insets(0, 0, 10, 0));
+
+        SplitPane split = new SplitPane(table, details);
+        split.setDividerPositions(0.45);
+
+        BorderPane root = new BorderPane();
+        root.setPadding(new Insets(10));
+        root.setTop(top);
+        root.setCenter(split);
+
+        Runnable refresh = () -> tasks.refresh(() -> {
+            try {
+                return log.read();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }, rows -> {
+            table.setItems(FXCollections.observableArrayList(rows));
+            details.clear();
+        }, "Cannot read the slow-query log");
+
+        btnRefresh.setOnAction(e -> refresh.run());
+
+        table.getSelectionModel().selectedItemProperty().addListener((obs, oldV, q) -> {
+            if (q == null) return;
+            details.setText(q.sql() + "\n\nBinds: " + q.binds() + "\n\n"
+                    + (q.plan() == null ? "No plan captured." : q.plan()));
+        });
+
+        refresh.run();
+
+        Tab tab = new Tab("Diagnostics", root);
+        tab.setClosable(false);
+        return tab;
+    }
+
+    private static void showError(String title, Exception ex) {
+        Alert a = new Alert(Alert.AlertType.ERROR);
+        a.setTitle("Error");
+        a.setHeaderText(title);
+        a.setContentText(ex.getMessage());
+        a.showAndWait();
+    }
+}
@@ -0,0 +1,114 @@
+package org.example.ui;
+
+import javafx.scene.Node;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.control.TextField;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Region;
+import org.example.db.ColumnModel;
+import org.example.db.RowQuery;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * A row of filter fields under a table's column headers, and header clicks that sort, both run
+ * by the database: whenever either changes, the tab reloads with {@link #query()}. This works the
+ * same for a table loaded whole and a paged {@link LazyRowList}. Only columns mapped to a
+ * {@link ColumnModel} name get a field and stay sortable; of a multi-column sort only the first
+ * column counts.
+ *
+ * A field holds a value, or =, &lt;, &lt;=, &gt; or &gt;= and a value (a trailing * on text
+ * matches a prefix, 200k is 200000); Enter applies all fields.
+ */
+final class FilterBar<T> {
+
+    private final TableView<T> table;
+    private final ColumnModel<T> model;
+    private final Consumer<String> invalid;
+    private final Map<TableColumn<T, ?>, String> names = new HashMap<>();
+    private final Map<TableColumn<T, ?>, TextField> fields = new LinkedHashMap<>();
+    private volatile RowQuery query = RowQuery.ALL;    // read by loads off the FX thread
+
+    /** invalid shows the message for a field that does not parse. */
+    FilterBar(TableView<T> table, ColumnModel<T> model, Consumer<String> invalid) {
+        this.table = table;
+        this.model = model;
+        this.invalid = invalid;
+    }
+
+    FilterBar<T> column(TableColumn<T, ?> column, String name) {
+        if (!model.names().contains(name)) throw new IllegalArgumentException("No column " + name);
+        names.put(column, name);
+        return this;
+    }
+
+    RowQuery query() {
+        return query;
+    }
+
+    /**
+     * The filter row, to go right above the table; takes over the table's sort policy, so call
+     * it after {@link LazyRowList#prepare} and after mapping the columns. reload runs on the FX
+     * thread whenever the query changes.
+     */
+    Node install(Runnable reload) {
+        HBox row = new HBox();
+        for (TableColumn<T, ?> column : table.getColumns()) {
+            Region cell;
+            if (names.containsKey(column)) {
+                TextField field = new TextField();
+                field.setPromptText(column.getText());
+                field.setOnAction(e -> apply(reload));
+                fields.put(column, field);
+                cell = field;
+            } else {
+                column.setSortable(false);
+                cell = new Region();
+            }
+            cell.setMinWidth(0);
+            cell.prefWidthProperty().bind(column.widthProperty());
+            cell.maxWidthProperty().bind(column.widthProperty());
+            row.getChildren().add(cell);
+        }
+
+        // the rows are never sorted here; a new sort is a new query
+        table.setSortPolicy(t -> {
+            RowQuery.Sort sort = null;
+            if (!t.getSortOrder().isEmpty()) {
+                TableColumn<T, ?> first = t.getSortOrder().get(0);
+                sort = new RowQuery.Sort(names.get(first), first.getSortType() == TableColumn.SortType.DESCENDING);
+            }
+            if (!Objects.equals(sort, query.sort())) {
+                query = new RowQuery(query.filters(), sort);
+                reload.run();
+            }
+            return true;
+        });
+        return row;
+    }
+
+    private void apply(Runnable reload) {
+        List<RowQuery.Filter> filters = new ArrayList<>();
+        for (Map.Entry<TableColumn<T, ?>, TextField> e : fields.entrySet()) {
+            String text = e.getValue().getText();
+            if (text.isBlank()) continue;
+            try {
+                filters.add(model.filter(names.get(e.getKey()), text));
+            } catch (IllegalArgumentException ex) {
+                invalid.accept(e.getKey().getText() + ": " + ex.getMessage() + ".");
+                e.getValue().requestFocus();
+                return;
+            }
+        }
+        if (filters.equals(query.filters())) return;
+        query = new RowQuery(filters, query.sort());
+        reload.run();
+    }
+}
@@ -0,0 +1,248 @@
+package org.example.ui;
+
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.collections.ObservableListBase;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Table rows fetched a page at a time as the table asks for them, for tables too large to load
+ * whole. A row whose page is not loaded yet reads as null (shown as an empty row) and its page is
+ * queued; the pages either side of the one in view are prefetched, and pages more than
+ * {@link #KEEP_PAGES} away are dropped when the next page arrives.
+ *
+ * Pages are read by keyset (rows after the last row of the nearest loaded page before them, in
+ * whatever order the loader returns rows), so scrolling down never makes the database skip rows;
+ * a jump over pages not loaded skips just the gap. The size is the table's estimated row count and stays put while scrolling, so the
+ * scrollbar does not jump; it is corrected once the last page shows where the rows really end.
+ *
+ * Everything except the page queries runs on the FX thread. A table showing these rows needs
+ * {@link #prepare(TableView)}.
+ */
+final class LazyRowList<T> extends ObservableListBase<T> {
+
+    @FunctionalInterface
+    interface PageLoader<T> {
+        /** See PropertyDao.findPage; after is null for the first page. */
+        List<T> load(T after, int skip, int limit) throws SQLException;
+    }
+
+    /** Tables with more rows than this (estimated) are paged; smaller ones are loaded whole. */
+    static final String THRESHOLD_PROPERTY = "ui.lazyRows";
+    static final int PAGE_SIZE = 200;
+    static final int KEEP_PAGES = 4;
+
+    private static final Logger LOG = Logger.getLogger(LazyRowList.class.getName());
+    private static final ExecutorService LOADER = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "lazy-rows");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final PageLoader<T> loader;
+    private final ToLongFunction<T> key;
+    private final Consumer<Exception> onError;
+    private final Map<Integer, List<T>> pages = new HashMap<>();
+    private final NavigableMap<Integer, T> lastRows = new TreeMap<>();   // kept after eviction
+    private final Set<Integer> pending = new HashSet<>();
+    private int size;
+    private boolean mayHaveMore;        // the last page was full where the estimate ended
+    private boolean failed;
+    private volatile int focusPage;
+
+    private LazyRowList(PageLoader<T> loader, ToLongFunction<T> key, Consumer<Exception> onError,
+                        long estimatedSize, List<T> firstPage) {
+        this.loader = loader;
+        this.key = key;
+        this.onError = onError;
+        this.size = (int) Math.min(Integer.MAX_VALUE, Math.max(estimatedSize, firstPage.size()));
+        store(0, firstPage);
+        if (firstPage.size() < PAGE_SIZE) size = firstPage.size();
+        else mayHaveMore = size == PAGE_SIZE;
+    }
+
+    static long threshold() {
+        return Long.getLong(THRESHOLD_PROPERTY, 20_000);
+    }
+
+    /**
+     * Called off the FX thread: all rows when the estimate is at or below {@link #threshold()},
+     * otherwise a paged list holding the first page. Tabs tell the two apart with instanceof.
+     */
+    static <T> List<T> load(TabTasks.Call<Long> estimate, TabTasks.Call<List<T>> all, PageLoader<T> loader,
+                            ToLongFunction<T> key, Consumer<Exception> onError) throws SQLException {
+        long rows = estimate.call();
+        if (rows <= threshold()) return all.call();
+        return new LazyRowList<>(loader, key, onError, rows, loader.load(null, 0, PAGE_SIZE));
+    }
+
+    /** The rows from {@link #load} as table items. */
+    static <T> ObservableList<T> items(List<T> rows) {
+        return rows instanceof LazyRowList<T> paged ? paged : FXCollections.observableArrayList(rows);
+    }
+
+    /**
+     * Cells of rows not loaded yet get no value instead of a null row passed to the column's
+     * factory, and header clicks no longer sort the table in memory while it shows a paged list
+     * (the rows are in the loader's order; {@link FilterBar} sorts in the database instead).
+     * Call once, after the columns are added.
+     */
+    static <S> void prepare(TableView<S> table) {
+        for (TableColumn<S, ?> column : table.getColumns()) skipUnloaded(column);
+        var sortPolicy = table.getSortPolicy();
+        table.setSortPolicy(t -> !(t.getItems() instanceof LazyRowList) && sortPolicy.call(t));
+    }
+
+    private static <S, V> void skipUnloaded(TableColumn<S, V> column) {
+        var factory = column.getCellValueFactory();
+        if (factory != null) column.setCellValueFactory(c -> c.getValue() == null ? null : factory.call(c));
+    }
+
+    @Override
+    public T get(int index) {
+        Objects.checkIndex(index, size);
+        int page = index / PAGE_SIZE;
+        if (page != focusPage) {
+            focusPage = page;
+            request(page - 1);
+            request(page + 1);
+        }
+        List<T> rows = pages.get(page);
+        if (rows == null) {
+            request(page);
+            return null;
+        }
+        int at = index % PAGE_SIZE;
+        return at < rows.size() ? rows.get(at) : null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /** Swaps in a changed row if its page is loaded; false if it is not. */
+    boolean replace(T row) {
+        long k = key.applyAsLong(row);
+        for (Map.Entry<Integer, List<T>> e : pages.entrySet()) {
+            List<T> rows = e.getValue();
+            for (int i = 0; i < rows.size(); i++) {
+                if (key.applyAsLong(rows.get(i)) != k) continue;
+                T old = rows.set(i, row);
+                beginChange();
+                nextSet(e.getKey() * PAGE_SIZE + i, old);
+                endChange();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    int loadedPages() {
+        return pages.size();
+    }
+
+    // only queues the query; change events are fired from loaded(), never from inside get()
+    private void request(int page) {
+        if (page < 0 || failed || pages.containsKey(page) || pending.contains(page)) return;
+        if (page * (long) PAGE_SIZE >= size && !(mayHaveMore && page * (long) PAGE_SIZE == size)) return;
+        pending.add(page);
+
+        Map.Entry<Integer, T> before = lastRows.floorEntry(page - 1);
+        T after = before == null ? null : before.getValue();
+        int skip = (before == null ? page : page - 1 - before.getKey()) * PAGE_SIZE;
+        LOADER.execute(() -> {
+            // scrolled past it while it was queued
+            if (Math.abs(page - focusPage) > KEEP_PAGES) {
+                Platform.runLater(() -> pending.remove(page));
+                return;
+            }
+            try {
+                List<T> rows = loader.load(after, skip, PAGE_SIZE);
+                Platform.runLater(() -> loaded(page, rows));
+            } catch (SQLException | RuntimeException ex) {
+                LOG.log(Level.WARNING, "Loading page " + page + " failed", ex);
+                Platform.runLater(() -> {
+                    pending.remove(page);
+                    // pages stay blank until the tab is refreshed; one alert, not one per page
+                    if (!failed) {
+                        failed = true;
+                        onError.accept(ex);
+                    }
+                });
+            }
+        });
+    }
+
+    private void loaded(int page, List<T> rows) {
+        pending.remove(page);
+        int from = page * PAGE_SIZE;
+        if (from > size) return;    // the end moved before this page while it was loading
+        store(page, rows);
+        int end = from + rows.size();
+
+        beginChange();
+        int replaced = Math.min(end, size) - from;
+        if (replaced > 0) nextReplace(from, from + replaced, Collections.nCopies(replaced, null));
+        if (rows.size() < PAGE_SIZE && end < size) {
+            nextRemove(end, rowsIn(end, size));
+            size = end;
+            pages.keySet().removeIf(p -> p * PAGE_SIZE >= end);
+            lastRows.tailMap(page, false).clear();
+        } else if (end > size) {
+            nextAdd(size, end);
+            size = end;
+        }
+        mayHaveMore = rows.size() == PAGE_SIZE && end == size;
+        evictFarPages();
+        endChange();
+
+        if (mayHaveMore && Math.abs(page - focusPage) <= 1) request(page + 1);
+    }
+
+    /** What get() returns for these rows right now, without queueing anything. */
+    private List<T> rowsIn(int from, int to) {
+        List<T> out = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            List<T> rows = pages.get(i / PAGE_SIZE);
+            out.add(rows == null || i % PAGE_SIZE >= rows.size() ? null : rows.get(i % PAGE_SIZE));
+        }
+        return out;
+    }
+
+    private void store(int page, List<T> rows) {
+        pages.put(page, new ArrayList<>(rows));
+        if (!rows.isEmpty()) lastRows.put(page, rows.get(rows.size() - 1));
+    }
+
+    private void evictFarPages() {
+        List<Integer> far = new ArrayList<>();
+        for (int p : pages.keySet()) if (Math.abs(p - focusPage) > KEEP_PAGES) far.add(p);
+        for (int p : far) {
+            List<T> rows = pages.remove(p);
+            int from = p * PAGE_SIZE;
+            int n = Math.min(rows.size(), size - from);
+            if (n > 0) nextReplace(from, from + n, rows.subList(0, n));
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package org.example.ui;
+
+import javafx.application.Platform;
+import javafx.scene.Scene;
+import javafx.scene.control.Tab;
+import javafx.scene.control.TabPane;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The main window's tabs, each built the first time it is selected rather than all before the
+ * window appears. A tab starts loading its rows when it is built, so once the window is painted
+ * the tabs most likely to be opened next (the ones opened most often in earlier sessions) are
+ * built too, one per FX pulse, and their queries run side by side in the background.
+ *
+ * How often each tab was opened, and which one was open last, is kept in
+ * ~/.realestate/tabs.properties (or -Dui.tabs.file) and written by {@link #save()}.
+ */
+final class LazyTabs {
+
+    static final String FILE_PROPERTY = "ui.tabs.file";
+    /** How many tabs are built ahead of being selected. */
+    static final String PREFETCH_PROPERTY = "ui.prefetchTabs";
+
+    private static final Logger LOG = Logger.getLogger(LazyTabs.class.getName());
+    private static final String LAST = "last";
+    private static final String OPENED = "opened.";
+
+    private final TabPane pane = new TabPane();
+    private final Map<Tab, Supplier<Tab>> unbuilt = new LinkedHashMap<>();
+    private final Properties usage = new Properties();
+    private final Path file;
+
+    LazyTabs() {
+        String configured = System.getProperty(FILE_PROPERTY);
+        file = configured != null
+                ? Path.of(configured)
+                : Path.of(System.getProperty("user.home"), ".realestate", "tabs.properties");
+        if (Files.exists(file)) {
+            try (InputStream in = Files.newInputStream(file)) {
+                usage.load(in);
+            } catch (IOException | IllegalArgumentException ex) {
+                LOG.log(Level.WARNING, "Ignoring unreadable " + file, ex);
+                usage.clear();
+            }
+        }
+    }
+
+    /** build must return a tab with this title; only its content is used. */
+    LazyTabs add(String title, Supplier<Tab> build) {
+        Tab tab = new Tab(title);
+        tab.setClosable(false);
+        unbuilt.put(tab, build);
+        pane.getTabs().add(tab);
+        return this;
+    }
+
+    /**
+     * Selects the tab that was open when the app was last closed and builds it; the others wait
+     * until they are selected or prefetched.
+     */
+    TabPane pane() {
+        String last = usage.getProperty(LAST);
+        for (Tab t : pane.getTabs()) {
+            if (t.getText().equals(last)) pane.getSelectionModel().select(t);
+        }
+        opened(pane.getSelectionModel().getSelectedItem());
+        pane.getSelectionModel().selectedItemProperty().addListener((obs, oldV, t) -> {
+            if (t != null) opened(t);
+        });
+        return pane;
+    }
+
+    String selectedTitle() {
+        Tab t = pane.getSelectionModel().getSelectedItem();
+        return t == null ? null : t.getText();
+    }
+
+    /** Builds up to -Dui.prefetchTabs (default 2) tabs the user is likely to open next. */
+    void prefetch() {
+        List<Tab> likely = new ArrayList<>(unbuilt.keySet());
+        likely.sort(Comparator.comparingInt((Tab t) -> opened(t.getText())).reversed());
+        int n = Math.min(likely.size(), Integer.getInteger(PREFETCH_PROPERTY, 2));
+        prefetch(likely.subList(0, n), 0);
+    }
+
+    // one tab per runLater, so the FX thread paints between them
+    private void prefetch(List<Tab> tabs, int i) {
+        if (i >= tabs.size()) return;
+        Platform.runLater(() -> {
+            build(tabs.get(i));
+            prefetch(tabs, i + 1);
+        });
+    }
+
+    /** Runs action once, after the first layout pulse that follows the window being shown. */
+    static void afterFirstPaint(Scene scene, Runnable action) {
+        boolean[] done = {false};
+        Runnable[] listener = new Runnable[1];
+        listener[0] = () -> {
+            if (done[0]) return;
+            done[0] = true;
+            Platform.runLater(() -> scene.removePostLayoutPulseListener(listener[0]));
+            action.run();
+        };
+        scene.addPostLayoutPulseListener(listener[0]);
+    }
+
+    void save() {
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            try (OutputStream out = Files.newOutputStream(file)) {
+                usage.store(out, "Tab usage, for choosing which tabs to load ahead");
+            }
+        } catch (IOException ex) {
+            LOG.log(Level.WARNING, "Could not write " + file, ex);
+        }
+    }
+
+    private void opened(Tab tab) {
+        if (tab == null) return;
+        build(tab);
+        usage.setProperty(LAST, tab.getText());
+        usage.setProperty(OPENED + tab.getText(), String.valueOf(opened(tab.getText()) + 1));
+    }
+
+    private int opened(String title) {
+        try {
+            return Integer.parseInt(usage.getProperty(OPENED + title, "0"));
+        } catch (NumberFormatException ex) {
+            return 0;
+        }
+    }
+
+    private void build(Tab tab) {
+        Supplier<Tab> build = unbuilt.remove(tab);
+        if (build == null) return;
+        long started = System.nanoTime();
+        tab.setContent(build.get().getContent());
+        LOG.fine(() -> "Built tab " + tab.getText() + " in " + (System.nanoTime() - started) / 1_000_000 + " ms");
+    }
+}
@@ -0,0 +1,143 @@
+package org.example.ui;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.scene.control.TableView;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Changes a table's rows in place, matched by primary key, instead of replacing its items: rows
+ * that did not change keep their cells, and the selection and scroll position stay where they
+ * were. A full reload is diffed against the rows on screen; a create, update or delete applies
+ * just the row it wrote.
+ *
+ * A paged {@link LazyRowList} can only have loaded rows replaced; for anything else the methods
+ * return false and the tab reloads instead.
+ */
+final class ListPatcher<T> {
+
+    /** Above this many changed rows a reload replaces the items in one change instead. */
+    static final int MAX_PATCHED_ROWS = 256;
+
+    private final TableView<T> table;
+    private final Function<T, ?> key;
+    private final Comparator<T> order;
+
+    /** order is the order the DAO returns the rows in (their key order); new rows are inserted by it. */
+    ListPatcher(TableView<T> table, Function<T, ?> key, Comparator<T> order) {
+        this.table = table;
+        this.key = key;
+        this.order = order;
+    }
+
+    /** Shows the result of a full load. */
+    void show(List<T> rows) {
+        ObservableList<T> items = table.getItems();
+        if (items == null || items instanceof LazyRowList || rows instanceof LazyRowList) {
+            table.setItems(LazyRowList.items(rows));
+            return;
+        }
+        patch(items, rows, key);
+    }
+
+    /** Replaces the shown row with the same key, or inserts the row where the order puts it. */
+    boolean put(T row) {
+        ObservableList<T> items = table.getItems();
+        if (items instanceof LazyRowList<T> paged) return paged.replace(row);
+        if (replace(row)) return true;
+        if (items == null) {
+            table.setItems(FXCollections.observableArrayList(row));
+            return true;
+        }
+        int at = items.size();
+        while (at > 0 && order.compare(items.get(at - 1), row) > 0) at--;   // new keys usually go last
+        items.add(at, row);
+        return true;
+    }
+
+    /** Replaces the shown row with the same key; false if no such row is shown. */
+    boolean replace(T row) {
+        ObservableList<T> items = table.getItems();
+        if (items instanceof LazyRowList<T> paged) return paged.replace(row);
+        int at = indexOf(items, key.apply(row));
+        if (at < 0) return false;
+        if (!items.get(at).equals(row)) items.set(at, row);
+        return true;
+    }
+
+    /** Removes the shown row with this row's key. */
+    boolean remove(T row) {
+        ObservableList<T> items = table.getItems();
+        if (items instanceof LazyRowList) return false;
+        int at = indexOf(items, key.apply(row));
+        if (at >= 0) items.remove(at);
+        return true;
+    }
+
+    /**
+     * Makes items equal to rows with as few removes, sets and adds as it can, when only a few
+     * rows changed. The first load into an empty table, rows that come in a new order (the table
+     * was sorted differently), and reloads where most rows or more than {@link #MAX_PATCHED_ROWS}
+     * differ replace the items in one change instead, since each add or remove in the middle of
+     * the list shifts the rows after it.
+     */
+    static <T> void patch(ObservableList<T> items, List<T> rows, Function<T, ?> key) {
+        if (items.isEmpty()) {
+            items.setAll(rows);
+            return;
+        }
+        Map<Object, Integer> shownAt = new HashMap<>(items.size() * 2);
+        for (int i = 0; i < items.size(); i++) shownAt.put(key.apply(items.get(i)), i);
+        int last = -1;
+        int kept = 0;
+        int changed = 0;
+        for (T r : rows) {
+            Integer at = shownAt.get(key.apply(r));
+            if (at == null) {
+                changed++;                              // added
+                continue;
+            }
+            if (at < last) {
+                items.setAll(rows);
+                return;
+            }
+            last = at;
+            kept++;
+            if (!items.get(at).equals(r)) changed++;
+        }
+        changed += items.size() - kept;                 // removed
+        if (changed > MAX_PATCHED_ROWS || changed * 2 > rows.size()) {
+            items.setAll(rows);
+            return;
+        }
+
+        Set<Object> fresh = new HashSet<>(rows.size() * 2);
+        for (T r : rows) fresh.add(key.apply(r));
+        items.removeIf(r -> !fresh.contains(key.apply(r)));
+        // the rows left are in the same order as in rows, so each one is either at i or a new row goes there
+        for (int i = 0; i < rows.size(); i++) {
+            T row = rows.get(i);
+            if (i < items.size() && Objects.equals(key.apply(items.get(i)), key.apply(row))) {
+                if (!items.get(i).equals(row)) items.set(i, row);
+            } else {
+                items.add(i, row);
+            }
+        }
+    }
+
+    private int indexOf(List<T> items, Object k) {
+        if (items == null) return -1;
+        for (int i = 0; i < items.size(); i++) {
+            if (Objects.equals(key.apply(items.get(i)), k)) return i;
+        }
+        return -1;
+    }
+}
@@ -8,11 +8,17 @@ import javafx.scene.control.*;
 import javafx.scene.layout.*;
 import org.example.dao.ListingDao;
 import org.example.model.Listing;
+import org.example.model.ListingSearchHit;
+import org.example.snapshot.SnapshotStore;
 
-import java.sql.SQLException;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
 
 public final class ListingTab {
 
+    private static final int SEARCH_PAGE_SIZE = 50;
+
     private ListingTab() {}
 
     public static Tab build() {
@@ -33,7 +39,27 @@ public final class ListingTab {
         TableColumn<Listing, String> colNotes = new TableColumn<>("Notes");
         colNotes.setCellValueFactory(c -> new SimpleStringProperty(nvl(c.getValue().notes())));
 
-        table.getColumns().addAll(colId, colType, colDesc, colNotes);
+        // snippet of the current search result, keyed by listing_id (empty when not searching)
+        Map<Long, String> snippets = new HashMap<>();
+        TableColumn<Listing, String> colMatch = new TableColumn<>("Match");
+        colMatch.setCellValueFactory(c -> new SimpleStringProperty(nvl(snippets.get(c.getValue().listingId()))));
+
+        table.getColumns().addAll(colId, colType, colDesc, colNotes, colMatch);
+
+        // Search
+        TextField searchText = new TextField();
+        searchText.setPromptText("Search description / notes");
+        searchText.setPrefWidth(260);
+
+        Button btnSearch = new Button("Search");
+        Button btnPrev   = new Button("<");
+        Button btnNext   = new Button(">");
+        btnPrev.setDisable(true);
+        btnNext.setDisable(true);
+        Label searchStatus = new Label();
+
+        HBox searchBar = new HBox(10, new Label("Search:"), searchText, btnSearch, btnPrev, btnNext, searchStatus);
+        searchBar.setPadding(new Insets(0, 0, 10, 0));
 
         // Form
         TextField listingId = new TextField();
@@ -59,21 +85,70 @@ public final class ListingTab {
 
         HBox buttons = new HBox(10, btnRefresh, btnClear, btnCreate, btnUpdate, btnDelete);
 
-        VBox right = new VBox(12, form, buttons);
+        TabTasks tasks = TabTasks.forTable("Listings", table, ListingTab::showError).disableWhileBusy(form, buttons);
+
+        VBox right = new VBox(12, form, new HBox(10, buttons, tasks.indicator()));
         right.setPadding(new Insets(10));
         right.setPrefWidth(420);
 
-        BorderPane root = new BorderPane(table, null, right, null, null);
+        BorderPane root = new BorderPane(table, searchBar, right, null, null);
         root.setPadding(new Insets(10));
 
-        Runnable refresh = () -> {
-            try {
-                table.setItems(FXCollections.observableArrayList(dao.findAll()));
-            } catch (SQLException ex) {
-                showError("DB error while loading listings", ex);
+        ListPatcher<Listing> patcher = new ListPatcher<>(table, Listing::listingId,
+                Comparator.comparingLong(Listing::listingId));
+
+        Runnable refresh = () -> tasks.refresh(dao::findAll, all -> {
+            snippets.clear();
+            searchStatus.setText("");
+            btnPrev.setDisable(true);
+            btnNext.setDisable(true);
+            SnapshotStore.shared().put(Listing.class, all);
+            patcher.show(all);
+        }, "DB error while loading listings");
+
+        int[] searchOffset = {0};
+        Runnable runSearch = () -> {
+            String q = searchText.getText().trim();
+            if (q.isEmpty()) {
+                refresh.run();
+                return;
             }
+            int offset = searchOffset[0];
+            tasks.refresh(() -> dao.search(q, offset, SEARCH_PAGE_SIZE), page -> {
+                snippets.clear();
+                var rows = FXCollections.<Listing>observableArrayList();
+                for (ListingSearchHit hit : page.hits()) {
+                    rows.add(hit.listing());
+                    snippets.put(hit.listing().listingId(), hit.snippet());
+                }
+                table.setItems(rows);
+
+                int from = page.hits().isEmpty() ? 0 : page.offset() + 1;
+                int to = page.offset() + page.hits().size();
+                searchStatus.setText(String.format("Results %d-%d%s in %.1f ms",
+                        from, to, page.hasMore() ? "+" : "", page.elapsedMillis()));
+                btnPrev.setDisable(page.offset() == 0);
+                btnNext.setDisable(!page.hasMore());
+            }, "DB error while searching listings");
         };
 
+        btnSearch.setOnAction(e -> {
+            searchOffset[0] = 0;
+            runSearch.run();
+        });
+        searchText.setOnAction(e -> {
+            searchOffset[0] = 0;
+            runSearch.run();
+        });
+        btnPrev.setOnAction(e -> {
+            searchOffset[0] = Math.max(0, searchOffset[0] - SEARCH_PAGE_SIZE);
+            runSearch.run();
+        });
+        btnNext.setOnAction(e -> {
+            searchOffset[0] += SEARCH_PAGE_SIZE;
+            runSearch.run();
+        });
+
         Runnable clearForm = () -> {
             listingId.clear();
             type.clear();
@@ -94,17 +169,20 @@ public final class ListingTab {
         });
 
         btnCreate.setOnAction(e -> {
-            try {
-                dao.insert(new Listing(0,
-                        type.getText().trim(),
-                        description.getText().trim(),
-                        notes.getText().trim()
-                ));
-                refresh.run();
+            Listing toInsert = new Listing(0,
+                    type.getText().trim(),
+                    description.getText().trim(),
+                    notes.getText().trim()
+            );
+            tasks.submit(() -> dao.insert(toInsert), id -> {
+                // search results are left for the full list, as a reload would
+                if (searchStatus.getText().isEmpty()) {
+                    patcher.put(new Listing(id, toInsert.typeOfListing(), toInsert.description(), toInsert.notes()));
+                } else {
+                    refresh.run();
+                }
                 clearForm.run();
-            } catch (SQLException ex) {
-                showError("DB error while creating listing", ex);
-            }
+            }, "DB error while creating listing");
         });
 
         btnUpdate.setOnAction(e -> {
@@ -113,16 +191,14 @@ public final class ListingTab {
                 showInfo("Select a listing first.");
                 return;
             }
-            try {
-                dao.update(new Listing(selected.listingId(),
-                        type.getText().trim(),
-                        description.getText().trim(),
-                        notes.getText().trim()
-                ));
-                refresh.run();
-            } catch (SQLException ex) {
-                showError("DB error while updating listing", ex);
-            }
+            Listing updated = new Listing(selected.listingId(),
+                    type.getText().trim(),
+                    description.getText().trim(),
+                    notes.getText().trim()
+            );
+            tasks.execute(() -> dao.update(updated), () -> {
+                if (!patcher.replace(updated)) refresh.run();
+            }, "DB error while updating listing");
         });
 
         btnDelete.setOnAction(e -> {
@@ -136,16 +212,17 @@ public final class ListingTab {
 
             if (!confirm("Delete listing " + selected.listingId() + "?")) return;
 
-            try {
-                dao.delete(selected.listingId());
-                refresh.run();
+            tasks.execute(() -> dao.delete(selected.listingId()), () -> {
+                patcher.remove(selected);
                 clearForm.run();
-            } catch (SQLException ex) {
-                showInfo("Cannot delete this listing.\nIt is referenced elsewhere.");
-            }
+            }, ex -> showInfo("Cannot delete this listing.\nIt is referenced elsewhere."));
         });
 
-        refresh.run();
+        if (!WarmStart.fromSnapshot(Listing.class, dao::findAll, rows -> {
+            if (searchStatus.getText().isEmpty()) patcher.show(rows);
+        })) {
+            refresh.run();
+        }
 
         Tab tab = new Tab("Listings", root);
         tab.setClosable(false);
@@ -1,5 +1,7 @@
 package org.example.ui;
 
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
 import javafx.beans.property.SimpleLongProperty;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
@@ -7,13 +9,25 @@ import javafx.geometry.Insets;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.*;
+import javafx.util.Duration;
 import org.example.dao.PersonDao;
 import org.example.model.Person;
+import org.example.offline.OfflineEngine;
+import org.example.search.PersonSearchIndex;
+import org.example.snapshot.SnapshotStore;
 
 import java.sql.SQLException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
 
 public final class PeopleTab {
 
+    private static final int SEARCH_LIMIT = 200;
+    private static final Duration SEARCH_DEBOUNCE = Duration.millis(150);
+
     private PeopleTab() {}
 
     public static Tab build() {
@@ -49,6 +63,16 @@ public final class PeopleTab {
         );
 
         table.getColumns().addAll(colId, colFirst, colLast, colEmail, colPhone);
+        LazyRowList.prepare(table);
+
+        // Typeahead search
+        TextField search = new TextField();
+        search.setPromptText("Search name, email or phone");
+        search.setPrefWidth(300);
+        Label searchStatus = new Label();
+
+        HBox searchBar = new HBox(10, new Label("Search:"), search, searchStatus);
+        searchBar.setPadding(new Insets(0, 0, 10, 0));
 
         // Form
         TextField firstName = new TextField();
@@ -73,23 +97,79 @@ public final class PeopleTab {
 
         HBox buttons = new HBox(10, btnRefresh, btnClear, btnCreate, btnUpdate, btnDelete);
 
-        VBox right = new VBox(12, form, buttons);
+        TabTasks tasks = TabTasks.forTable("People", table, PeopleTab::showError).disableWhileBusy(form, buttons);
+
+        VBox right = new VBox(12, form, new HBox(10, buttons, tasks.indicator()));
         right.setPadding(new Insets(10));
         right.setPrefWidth(380);
 
         BorderPane root = new BorderPane();
         root.setPadding(new Insets(10));
+        root.setTop(searchBar);
         root.setCenter(table);
         root.setRight(right);
 
         // Helpers
-        Runnable refresh = () -> {
-            try {
-                table.setItems(FXCollections.observableArrayList(dao.findAll()));
-            } catch (SQLException ex) {
-                showError("DB error while loading persons", ex);
+        // large tables are paged instead of loaded whole; the search index then streams its own scan
+        TabTasks.Call<List<Person>> load = () -> LazyRowList.load(dao::estimateCount, dao::findAll,
+                (after, skip, limit) -> dao.findPage(after == null ? Long.MIN_VALUE : after.personId(), skip, limit),
+                Person::personId, ex -> showError("DB error while loading persons", ex));
+
+        ListPatcher<Person> patcher = new ListPatcher<>(table, Person::personId,
+                Comparator.comparingLong(Person::personId));
+
+        // offline the rows are the local store (maybe only those viewed online): snapshot and index stay
+        Runnable refresh = () -> tasks.refresh(load, all -> {
+            if (!OfflineEngine.shared().isOffline()) {
+                if (all instanceof LazyRowList) {
+                    SnapshotStore.shared().remove(Person.class);
+                    PersonSearchIndex.shared().rebuildAsync(dao::scanAll);
+                } else {
+                    SnapshotStore.shared().put(Person.class, all);
+                    PersonSearchIndex.shared().rebuildAsync(all);
+                }
             }
-        };
+            searchStatus.setText("");
+            search.clear();
+            patcher.show(all);
+        }, "DB error while loading persons");
+
+        // Keystrokes restart the debounce timer; a query that finishes after a newer one was started is dropped.
+        ExecutorService searchExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "people-search");
+            t.setDaemon(true);
+            return t;
+        });
+        AtomicLong latestSearch = new AtomicLong();
+        PauseTransition debounce = new PauseTransition(SEARCH_DEBOUNCE);
+        debounce.setOnFinished(e -> {
+            String q = search.getText();
+            if (q.isBlank()) {
+                latestSearch.incrementAndGet();
+                if (!searchStatus.getText().isEmpty()) refresh.run(); // back from search results to the full list
+                return;
+            }
+            long ticket = latestSearch.incrementAndGet();
+            tasks.supersedeRefresh();
+            searchExecutor.execute(() -> {
+                if (ticket != latestSearch.get()) return;
+                long started = System.nanoTime();
+                try {
+                    List<Person> hits = dao.search(q, SEARCH_LIMIT);
+                    double ms = (System.nanoTime() - started) / 1_000_000.0;
+                    String source = PersonSearchIndex.shared().isLoaded() ? "index" : "db";
+                    Platform.runLater(() -> {
+                        if (ticket != latestSearch.get()) return;
+                        table.setItems(FXCollections.observableArrayList(hits));
+                        searchStatus.setText(String.format("%d%s matches in %.1f ms (%s)",
+                                hits.size(), hits.size() == SEARCH_LIMIT ? "+" : "", ms, source));
+                    });
+                } catch (SQLException ex) {
+                    Platform.runLater(() -> showError("DB error while searching persons", ex));
+                }
+            });
+        });
+        search.textProperty().addListener((obs, oldV, v) -> debounce.playFromStart());
 
         Runnable clearForm = () -> {
             firstName.clear();
@@ -112,19 +192,21 @@ public final class PeopleTab {
         });
 
         btnCreate.setOnAction(e -> {
-            try {
-                Person toInsert = new Person(0,
-                        firstName.getText().trim(),
-                        lastName.getText().trim(),
-                        email.getText().trim(),
-                        phone.getText().trim()
-                );
-                dao.insert(toInsert);
-                refresh.run();
+            Person toInsert = new Person(0,
+                    firstName.getText().trim(),
+                    lastName.getText().trim(),
+                    email.getText().trim(),
+                    phone.getText().trim()
+            );
+
+            tasks.submit(() -> dao.insert(toInsert), id -> {
+                // search results are left for the full list, as a reload would
+                if (!searchStatus.getText().isEmpty() || !patcher.put(new Person(id, toInsert.firstName(),
+                        toInsert.lastName(), toInsert.email(), toInsert.phoneNumber()))) {
+                    refresh.run();
+                }
                 clearForm.run();
-            } catch (SQLException ex) {
-                showError("DB error while creating person", ex);
-            }
+            }, "DB error while creating person");
         });
 
         btnUpdate.setOnAction(e -> {
@@ -133,18 +215,16 @@ public final class PeopleTab {
                 showInfo("Select a person first.");
                 return;
             }
-            try {
-                Person updated = new Person(selected.personId(),
-                        firstName.getText().trim(),
-                        lastName.getText().trim(),
-                        email.getText().trim(),
-                        phone.getText().trim()
-                );
-                dao.update(updated);
-                refresh.run();
-            } catch (SQLException ex) {
-                showError("DB error while updating person", ex);
-            }
+            Person updated = new Person(selected.personId(),
+                    firstName.getText().trim(),
+                    lastName.getText().trim(),
+                    email.getText().trim(),
+                    phone.getText().trim()
+            );
+
+            tasks.execute(() -> dao.update(updated), () -> {
+                if (!patcher.replace(updated)) refresh.run();
+            }, "DB error while updating person");
         });
 
         btnDelete.setOnAction(e -> {
@@ -156,25 +236,29 @@ public final class PeopleTab {
 
             if (!confirm("Delete person " + selected.personId() + "?")) return;
 
-            try {
-                String blockers = dao.getDeleteBlockers(selected.personId());
-
+            tasks.submit(() -> dao.getDeleteBlockers(selected.personId()), blockers -> {
                 if (!blockers.isBlank()) {
                     showInfo("Cannot delete this person.\nReferenced in: " + blockers);
                     return;
                 }
 
-                dao.delete(selected.personId());
-                refresh.run();
-                clearForm.run();
-
-            } catch (SQLException ex) {
-                showError("DB error while deleting person", ex);
-            }
+                tasks.execute(() -> dao.delete(selected.personId()), () -> {
+                    if (!patcher.remove(selected)) refresh.run();
+                    clearForm.run();
+                }, "DB error while deleting person");
+            }, "DB error while deleting person");
         });
 
-        // initial load
-        refresh.run();
+        // initial load; while a search is showing, the background result only feeds the index
+        if (!WarmStart.fromSnapshot(Person.class, load::call, rows -> {
+            if (!OfflineEngine.shared().isOffline()) {
+                if (rows instanceof LazyRowList) PersonSearchIndex.shared().rebuildAsync(dao::scanAll);
+                else PersonSearchIndex.shared().rebuildAsync(rows);
+            }
+            if (searchStatus.getText().isEmpty()) patcher.show(rows);
+        })) {
+            refresh.run();
+        }
 
         Tab tab = new Tab("People", root);
         tab.setClosable(false);
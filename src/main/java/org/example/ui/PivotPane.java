@@ -0,0 +1,196 @@
+package org.example.ui;
+
+import javafx.beans.property.SimpleStringProperty;
+import javafx.collections.FXCollections;
+import javafx.scene.Node;
+import javafx.scene.control.*;
+import javafx.scene.layout.*;
+import org.example.analytics.DealColumns;
+import org.example.analytics.DealColumns.Dimension;
+import org.example.analytics.PivotEngine;
+import org.example.analytics.PivotQuery;
+import org.example.analytics.PivotQuery.Aggregate;
+import org.example.analytics.PivotQuery.Measure;
+import org.example.analytics.PivotResult;
+import org.example.dao.AnalyticsDao;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.function.Consumer;
+
+/** Slice-and-dice over the in-memory deal snapshot, shown inside QueriesTab. */
+final class PivotPane {
+
+    private static final String NO_COLUMNS = "(none)";
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("HH:mm:ss").withZone(ZoneId.systemDefault());
+
+    private PivotPane() {}
+
+    static Node build() {
+        var dao = new AnalyticsDao();
+        DealColumns[] snapshot = {null};
+
+        ComboBox<Dimension> rows = new ComboBox<>(FXCollections.observableArrayList(Dimension.values()));
+        rows.setValue(Dimension.CITY);
+
+        ComboBox<String> columns = new ComboBox<>(FXCollections.observableArrayList(NO_COLUMNS));
+        for (Dimension d : Dimension.values()) columns.getItems().add(d.name());
+        columns.setValue(Dimension.AGENT.name());
+
+        ComboBox<Measure> measure = new ComboBox<>(FXCollections.observableArrayList(Measure.values()));
+        measure.setValue(Measure.FINAL_PRICE);
+
+        ComboBox<Aggregate> aggregate = new ComboBox<>(FXCollections.observableArrayList(Aggregate.values()));
+        aggregate.setValue(Aggregate.AVG);
+
+        TextField city = new TextField();
+        city.setPromptText("any");
+        city.setPrefWidth(90);
+
+        ComboBox<String> type = new ComboBox<>(FXCollections.observableArrayList("", "garage", "house", "apartment"));
+        type.setValue("");
+
+        TextField minSqm = new TextField();
+        minSqm.setPromptText("min");
+        minSqm.setPrefWidth(60);
+        TextField maxSqm = new TextField();
+        maxSqm.setPromptText("max");
+        maxSqm.setPrefWidth(60);
+        TextField minPrice = new TextField();
+        minPrice.setPromptText("min");
+        minPrice.setPrefWidth(80);
+        TextField maxPrice = new TextField();
+        maxPrice.setPromptText("max");
+        maxPrice.setPrefWidth(80);
+
+        Button btnRun = new Button("Run pivot");
+        Button btnReload = new Button("Reload snapshot");
+        Label status = new Label("Snapshot not loaded yet; it is loaded on the first run.");
+
+        HBox groupRow = new HBox(10,
+                new Label("Rows:"), rows,
+                new Label("Columns:"), columns,
+                new Label("Value:"), aggregate, measure,
+                btnRun, btnReload
+        );
+        HBox filterRow = new HBox(10,
+                new Label("City:"), city,
+                new Label("Type:"), type,
+                new Label("Sqm:"), minSqm, maxSqm,
+                new Label("Final price:"), minPrice, maxPrice
+        );
+
+        StackPane result = new StackPane(new Label("Pick dimensions and run."));
+        VBox.setVgrow(result, Priority.ALWAYS);
+
+        VBox root = new VBox(10, groupRow, filterRow);
+
+        TabTasks tasks = new TabTasks("Pivot", root, () -> snapshot[0] == null ? 0 : snapshot[0].size(),
+                PivotPane::showError).disableWhileBusy(groupRow);
+        root.getChildren().addAll(new HBox(10, status, tasks.indicator()), result);
+
+        // loads the snapshot in the background, then runs andThen on the FX thread
+        Consumer<Runnable> reload = andThen -> {
+            long started = System.nanoTime();
+            tasks.refresh(dao::loadDealColumns, loaded -> {
+                snapshot[0] = loaded;
+                status.setText(String.format("Snapshot: %,d deals loaded at %s in %.0f ms",
+                        loaded.size(), TIME.format(Instant.ofEpochMilli(loaded.loadedAtMillis())),
+                        (System.nanoTime() - started) / 1_000_000.0));
+                andThen.run();
+            }, "DB error while loading deal snapshot");
+        };
+
+        btnReload.setOnAction(e -> reload.accept(() -> {}));
+
+        Runnable runPivot = () -> {
+            Double sqmFrom = parseDoubleOrNull(minSqm.getText(), "Min sqm");
+            Double sqmTo = parseDoubleOrNull(maxSqm.getText(), "Max sqm");
+            Double priceFrom = parseDoubleOrNull(minPrice.getText(), "Min final price");
+            Double priceTo = parseDoubleOrNull(maxPrice.getText(), "Max final price");
+            if ((sqmFrom == null && !minSqm.getText().isBlank()) || (sqmTo == null && !maxSqm.getText().isBlank())
+                    || (priceFrom == null && !minPrice.getText().isBlank()) || (priceTo == null && !maxPrice.getText().isBlank())) {
+                return;
+            }
+
+            String col = columns.getValue();
+            PivotQuery q = new PivotQuery(
+                    rows.getValue(),
+                    col == null || col.equals(NO_COLUMNS) ? null : Dimension.valueOf(col),
+                    measure.getValue(),
+                    aggregate.getValue(),
+                    city.getText(),
+                    type.getValue(),
+                    sqmFrom, sqmTo,
+                    priceFrom, priceTo
+            );
+            PivotResult r = PivotEngine.run(snapshot[0], q);
+            result.getChildren().setAll(buildTable(r, q.aggregate()));
+            status.setText(String.format("Scanned %,d deals, matched %,d, in %.1f ms (snapshot loaded at %s)",
+                    r.rowsScanned(), r.rowsMatched(), r.elapsedMillis(),
+                    TIME.format(Instant.ofEpochMilli(snapshot[0].loadedAtMillis()))));
+        };
+
+        btnRun.setOnAction(e -> {
+            if (snapshot[0] == null) reload.accept(runPivot);
+            else runPivot.run();
+        });
+
+        return root;
+    }
+
+    /** Items are row indexes into the result; one TableColumn per pivot column. */
+    private static TableView<Integer> buildTable(PivotResult r, Aggregate agg) {
+        TableView<Integer> t = new TableView<>();
+
+        TableColumn<Integer, String> head = new TableColumn<>("");
+        head.setCellValueFactory(v -> new SimpleStringProperty(r.rowLabels()[v.getValue()]));
+        t.getColumns().add(head);
+
+        for (int c = 0; c < r.columnLabels().length; c++) {
+            int col = c;
+            TableColumn<Integer, String> tc = new TableColumn<>(r.columnLabels()[c]);
+            tc.setCellValueFactory(v -> new SimpleStringProperty(format(r.values()[v.getValue()][col], agg)));
+            t.getColumns().add(tc);
+        }
+
+        var items = FXCollections.<Integer>observableArrayList();
+        for (int i = 0; i < r.rowLabels().length; i++) items.add(i);
+        t.setItems(items);
+        return t;
+    }
+
+    private static String format(double v, Aggregate agg) {
+        if (Double.isNaN(v)) return "";
+        if (agg == Aggregate.COUNT) return String.format("%,d", (long) v);
+        return String.format("%,.2f", v);
+    }
+
+    private static Double parseDoubleOrNull(String s, String field) {
+        String t = s.trim();
+        if (t.isEmpty()) return null;
+        try {
+            return Double.parseDouble(t);
+        } catch (NumberFormatException ex) {
+            showInfo(field + " must be a number (or blank).");
+            return null;
+        }
+    }
+
+    private static void showError(String title, Exception ex) {
+        Alert a = new Alert(Alert.AlertType.ERROR);
+        a.setTitle("Error");
+        a.setHeaderText(title);
+        a.setContentText(ex.getMessage());
+        a.showAndWait();
+    }
+
+    private static void showInfo(String msg) {
+        Alert a = new Alert(Alert.AlertType.INFORMATION);
+        a.setTitle("Info");
+        a.setHeaderText(null);
+        a.setContentText(msg);
+        a.showAndWait();
+    }
+}
@@ -2,14 +2,14 @@ package org.example.ui;
 
 import javafx.beans.property.SimpleLongProperty;
 import javafx.beans.property.SimpleStringProperty;
-import javafx.collections.FXCollections;
 import javafx.geometry.Insets;
 import javafx.scene.control.*;
 import javafx.scene.layout.*;
 import org.example.dao.PreferenceDao;
 import org.example.model.Preference;
+import org.example.snapshot.SnapshotStore;
 
-import java.sql.SQLException;
+import java.util.Comparator;
 
 public final class PreferencesTab {
 
@@ -57,20 +57,22 @@ public final class PreferencesTab {
 
         HBox buttons = new HBox(10, btnRefresh, btnClear, btnCreate, btnUpdate, btnDelete);
 
-        VBox right = new VBox(12, form, buttons);
+        TabTasks tasks = TabTasks.forTable("Preferences", table, PreferencesTab::showError).disableWhileBusy(form, buttons);
+
+        VBox right = new VBox(12, form, new HBox(10, buttons, tasks.indicator()));
         right.setPadding(new Insets(10));
         right.setPrefWidth(420);
 
         BorderPane root = new BorderPane(table, null, right, null, null);
         root.setPadding(new Insets(10));
 
-        Runnable refresh = () -> {
-            try {
-                table.setItems(FXCollections.observableArrayList(dao.findAll()));
-            } catch (SQLException ex) {
-                showError("DB error while loading preferences", ex);
-            }
-        };
+        ListPatcher<Preference> patcher = new ListPatcher<>(table, Preference::preferenceId,
+                Comparator.comparingLong(Preference::preferenceId));
+
+        Runnable refresh = () -> tasks.refresh(dao::findAll, all -> {
+            SnapshotStore.shared().put(Preference.class, all);
+            patcher.show(all);
+        }, "DB error while loading preferences");
 
         Runnable clearForm = () -> {
             preferenceId.clear();
@@ -93,13 +95,11 @@ public final class PreferencesTab {
             Long cid = parseLong(clientId.getText(), "Client ID");
             if (cid == null) return;
 
-            try {
-                dao.insert(new Preference(0, cid, preferenceType.getText().trim()));
-                refresh.run();
+            Preference toInsert = new Preference(0, cid, preferenceType.getText().trim());
+            tasks.submit(() -> dao.insert(toInsert), id -> {
+                patcher.put(new Preference(id, toInsert.clientId(), toInsert.preferenceType()));
                 clearForm.run();
-            } catch (SQLException ex) {
-                showError("DB error while creating preference", ex);
-            }
+            }, "DB error while creating preference");
         });
 
         btnUpdate.setOnAction(e -> {
@@ -111,12 +111,10 @@ public final class PreferencesTab {
             Long cid = parseLong(clientId.getText(), "Client ID");
             if (cid == null) return;
 
-            try {
-                dao.update(new Preference(selected.preferenceId(), cid, preferenceType.getText().trim()));
-                refresh.run();
-            } catch (SQLException ex) {
-                showError("DB error while updating preference", ex);
-            }
+            Preference updated = new Preference(selected.preferenceId(), cid, preferenceType.getText().trim());
+            tasks.execute(() -> dao.update(updated), () -> {
+                if (!patcher.replace(updated)) refresh.run();
+            }, "DB error while updating preference");
         });
 
         btnDelete.setOnAction(e -> {
@@ -128,16 +126,15 @@ public final class PreferencesTab {
 
             if (!confirm("Delete preference " + selected.preferenceId() + "?")) return;
 
-            try {
-                dao.delete(selected.preferenceId());
-                refresh.run();
+            tasks.execute(() -> dao.delete(selected.preferenceId()), () -> {
+                patcher.remove(selected);
                 clearForm.run();
-            } catch (SQLException ex) {
-                showInfo("Cannot delete this preference.");
-            }
+            }, ex -> showInfo("Cannot delete this preference."));
         });
 
-        refresh.run();
+        if (!WarmStart.fromSnapshot(Preference.class, dao::findAll, patcher::show)) {
+            refresh.run();
+        }
 
         Tab tab = new Tab("Preferences", root);
         tab.setClosable(false);
@@ -1,14 +1,15 @@
 package org.example.ui;
 
 import javafx.beans.property.SimpleLongProperty;
-import javafx.collections.FXCollections;
 import javafx.geometry.Insets;
 import javafx.scene.control.*;
 import javafx.scene.layout.*;
 import org.example.dao.PropertyOwnerDao;
 import org.example.model.PropertyOwner;
+import org.example.snapshot.SnapshotStore;
+
+import java.util.Comparator;
 
-import java.sql.SQLException;
 
 public final class PropertyOwnerTab {
 
@@ -47,7 +48,9 @@ public final class PropertyOwnerTab {
 
         HBox buttons = new HBox(10, btnRefresh, btnClear, btnCreate, btnUpdate, btnDelete);
 
-        VBox right = new VBox(12, form, buttons);
+        TabTasks tasks = TabTasks.forTable("Property Owners", table, PropertyOwnerTab::showError).disableWhileBusy(form, buttons);
+
+        VBox right = new VBox(12, form, new HBox(10, buttons, tasks.indicator()));
         right.setPadding(new Insets(10));
         right.setPrefWidth(380);
 
@@ -56,13 +59,13 @@ public final class PropertyOwnerTab {
         root.setCenter(table);
         root.setRight(right);
 
-        Runnable refresh = () -> {
-            try {
-                table.setItems(FXCollections.observableArrayList(dao.findAll()));
-            } catch (SQLException ex) {
-                showError("DB error while loading property owners", ex);
-            }
-        };
+        ListPatcher<PropertyOwner> patcher = new ListPatcher<>(table, po -> po,
+                Comparator.comparingLong(PropertyOwner::personId).thenComparingLong(PropertyOwner::propertyId));
+
+        Runnable refresh = () -> tasks.refresh(dao::findAll, all -> {
+            SnapshotStore.shared().put(PropertyOwner.class, all);
+            patcher.show(all);
+        }, "DB error while loading property owners");
 
         Runnable clearForm = () -> {
             personId.clear();
@@ -84,13 +87,11 @@ public final class PropertyOwnerTab {
             Long propId = parseLong(propertyId.getText(), "Property ID");
             if (pid == null || propId == null) return;
 
-            try {
-                dao.insert(new PropertyOwner(pid, propId));
-                refresh.run();
+            PropertyOwner toInsert = new PropertyOwner(pid, propId);
+            tasks.execute(() -> dao.insert(toInsert), () -> {
+                patcher.put(toInsert);
                 clearForm.run();
-            } catch (SQLException ex) {
-                showError("DB error while creating property owner link", ex);
-            }
+            }, "DB error while creating property owner link");
         });
 
         btnUpdate.setOnAction(e -> {
@@ -104,12 +105,12 @@ public final class PropertyOwnerTab {
             Long propId = parseLong(propertyId.getText(), "Property ID");
             if (pid == null || propId == null) return;
 
-            try {
-                dao.update(selected.personId(), selected.propertyId(), new PropertyOwner(pid, propId));
-                refresh.run();
-            } catch (SQLException ex) {
-                showError("DB error while updating property owner link", ex);
-            }
+            PropertyOwner updated = new PropertyOwner(pid, propId);
+            tasks.execute(() -> dao.update(selected.personId(), selected.propertyId(), updated), () -> {
+                // the pair is the key, so an update is the old link removed and the new one added
+                patcher.remove(selected);
+                patcher.put(updated);
+            }, "DB error while updating property owner link");
         });
 
         btnDelete.setOnAction(e -> {
@@ -122,17 +123,18 @@ public final class PropertyOwnerTab {
             if (!confirm("Delete link person_id=" + selected.personId() + " ↔ property_id=" + selected.propertyId() + "?"))
                 return;
 
-            try {
-                dao.delete(selected.personId(), selected.propertyId());
-                refresh.run();
+            tasks.execute(() -> dao.delete(selected.personId(), selected.propertyId()), () -> {
+                patcher.remove(selected);
                 clearForm.run();
-            } catch (SQLException ex) {
+            }, ex -> {
                 // you wanted: try delete, if blocked -> warn only
                 showInfo("Cannot delete this link.\nIt is referenced elsewhere.");
-            }
+            });
         });
 
-        refresh.run();
+        if (!WarmStart.fromSnapshot(PropertyOwner.class, dao::findAll, patcher::show)) {
+            refresh.run();
+        }
 
         Tab tab = new Tab("Property Owners", root);
         tab.setClosable(false);
@@ -7,10 +7,14 @@ import javafx.geometry.Insets;
 import javafx.scene.control.*;
 import javafx.scene.layout.*;
 import org.example.dao.PropertyDao;
+import org.example.db.RowQuery;
 import org.example.model.Property;
+import org.example.offline.OfflineEngine;
+import org.example.snapshot.SnapshotStore;
 
 import java.math.BigDecimal;
-import java.sql.SQLException;
+import java.util.Comparator;
+import java.util.List;
 
 public final class PropertyTab {
 
@@ -49,6 +53,14 @@ public final class PropertyTab {
         );
 
         table.getColumns().addAll(colId, colType, colPrice, colSqm, colCity, colOwner);
+        LazyRowList.prepare(table);
+        FilterBar<Property> filters = new FilterBar<>(table, PropertyDao.COLUMNS, PropertyTab::showInfo)
+                .column(colId, "id")
+                .column(colType, "type")
+                .column(colPrice, "price")
+                .column(colSqm, "sqm")
+                .column(colCity, "city")
+                .column(colOwner, "owner");
 
         // Form
         TextField propertyId = new TextField();
@@ -87,21 +99,38 @@ public final class PropertyTab {
 
         HBox buttons = new HBox(10, btnRefresh, btnClear, btnCreate, btnUpdate, btnDelete);
 
-        VBox right = new VBox(12, form, buttons);
+        TabTasks tasks = TabTasks.forTable("Properties", table, PropertyTab::showError).disableWhileBusy(form, buttons);
+
+        VBox right = new VBox(12, form, new HBox(10, buttons, tasks.indicator()));
         right.setPadding(new Insets(10));
         right.setPrefWidth(420);
 
-        BorderPane root = new BorderPane(table, null, right, null, null);
+        VBox center = new VBox(4, table);
+        VBox.setVgrow(table, Priority.ALWAYS);
+        BorderPane root = new BorderPane(center, null, right, null, null);
         root.setPadding(new Insets(10));
 
-        Runnable refresh = () -> {
-            try {
-                table.setItems(FXCollections.observableArrayList(dao.findAll()));
-            } catch (SQLException ex) {
-                showError("DB error while loading properties", ex);
-            }
+        // filtered and sorted by the database; large results are paged instead of loaded whole
+        TabTasks.Call<List<Property>> load = () -> {
+            RowQuery q = filters.query();
+            return LazyRowList.load(() -> dao.estimateCount(q), () -> dao.findAll(q),
+                    (after, skip, limit) -> dao.findPage(q, after, skip, limit),
+                    Property::propertyId, ex -> showError("DB error while loading properties", ex));
         };
 
+        ListPatcher<Property> patcher = new ListPatcher<>(table, Property::propertyId,
+                Comparator.comparingLong(Property::propertyId));
+
+        Runnable refresh = () -> tasks.refresh(load, all -> {
+            // offline the rows are the local store (maybe only those viewed online): the snapshot stays
+            if (!OfflineEngine.shared().isOffline()) {
+                if (all instanceof LazyRowList) SnapshotStore.shared().remove(Property.class);
+                else if (filters.query().isAll()) SnapshotStore.shared().put(Property.class, all);
+            }
+            patcher.show(all);
+        }, "DB error while loading properties");
+        center.getChildren().add(0, filters.install(refresh));
+
         Runnable clearForm = () -> {
             propertyId.clear();
             propertyType.getSelectionModel().clearSelection();
@@ -123,46 +152,51 @@ public final class PropertyTab {
             propertyType.setValue(p.propertyType());
             price.setText(p.price() == null ? "" : p.price().toPlainString());
             squareMeters.setText(p.squareMeters() == null ? "" : p.squareMeters().toPlainString());
-            latitude.setText(nvl(p.latitude()));
-            longitude.setText(nvl(p.longitude()));
+            latitude.setText(p.latitude() == null ? "" : String.valueOf(p.latitude()));
+            longitude.setText(p.longitude() == null ? "" : String.valueOf(p.longitude()));
             city.setText(nvl(p.city()));
             ownerId.setText(p.ownerId() == null ? "" : String.valueOf(p.ownerId()));
         });
 
         btnCreate.setOnAction(e -> {
-            try {
-                String type = propertyType.getValue();
-                if (type == null || type.isBlank()) {
-                    showInfo("Property type is required.");
-                    return;
-                }
-
-                BigDecimal pr = parseBigDecimalOrNull(price.getText(), "Price");
-                if (pr == null && !price.getText().trim().isEmpty()) return;
-
-                BigDecimal sqm = parseBigDecimalOrNull(squareMeters.getText(), "Square meters");
-                if (sqm == null && !squareMeters.getText().trim().isEmpty()) return;
-
-                Long oid = parseLongOrNull(ownerId.getText(), "Owner ID");
-                if (oid == null && !ownerId.getText().trim().isEmpty()) return;
-
-                Property toInsert = new Property(
-                        0,
-                        pr,
-                        sqm,
-                        latitude.getText().trim(),
-                        longitude.getText().trim(),
-                        city.getText().trim(),
-                        type,
-                        oid
-                );
-
-                dao.insert(toInsert);
-                refresh.run();
-                clearForm.run();
-            } catch (SQLException ex) {
-                showError("DB error while creating property", ex);
+            String type = propertyType.getValue();
+            if (type == null || type.isBlank()) {
+                showInfo("Property type is required.");
+                return;
             }
+
+            BigDecimal pr = parseBigDecimalOrNull(price.getText(), "Price");
+            if (pr == null && !price.getText().trim().isEmpty()) return;
+
+            BigDecimal sqm = parseBigDecimalOrNull(squareMeters.getText(), "Square meters");
+            if (sqm == null && !squareMeters.getText().trim().isEmpty()) return;
+
+            Double lat = parseDoubleOrNull(latitude.getText(), "Latitude", 90);
+            if (lat == null && !latitude.getText().trim().isEmpty()) return;
+
+            Double lon = parseDoubleOrNull(longitude.getText(), "Longitude", 180);
+            if (lon == null && !longitude.getText().trim().isEmpty()) return;
+
+            Long oid = parseLongOrNull(ownerId.getText(), "Owner ID");
+            if (oid == null && !ownerId.getText().trim().isEmpty()) return;
+
+            Property toInsert = new Property(
+                    0,
+                    pr,
+                    sqm,
+                    lat,
+                    lon,
+                    city.getText().trim(),
+                    type,
+                    oid
+            );
+
+            // read back, so the row shows the defaults the database filled in
+            tasks.submit(() -> dao.findById(dao.insert(toInsert)), saved -> {
+                // under a filter or sort, only the database knows where the row goes
+                if (saved == null || !filters.query().isAll() || !patcher.put(saved)) refresh.run();
+                clearForm.run();
+            }, "DB error while creating property");
         });
 
         btnUpdate.setOnAction(e -> {
@@ -171,38 +205,41 @@ public final class PropertyTab {
                 showInfo("Select a property first.");
                 return;
             }
-            try {
-                String type = propertyType.getValue();
-                if (type == null || type.isBlank()) {
-                    showInfo("Property type is required.");
-                    return;
-                }
-
-                BigDecimal pr = parseBigDecimalOrNull(price.getText(), "Price");
-                if (pr == null && !price.getText().trim().isEmpty()) return;
-
-                BigDecimal sqm = parseBigDecimalOrNull(squareMeters.getText(), "Square meters");
-                if (sqm == null && !squareMeters.getText().trim().isEmpty()) return;
-
-                Long oid = parseLongOrNull(ownerId.getText(), "Owner ID");
-                if (oid == null && !ownerId.getText().trim().isEmpty()) return;
-
-                Property updated = new Property(
-                        selected.propertyId(),
-                        pr,
-                        sqm,
-                        latitude.getText().trim(),
-                        longitude.getText().trim(),
-                        city.getText().trim(),
-                        type,
-                        oid
-                );
-
-                dao.update(updated);
-                refresh.run();
-            } catch (SQLException ex) {
-                showError("DB error while updating property", ex);
+            String type = propertyType.getValue();
+            if (type == null || type.isBlank()) {
+                showInfo("Property type is required.");
+                return;
             }
+
+            BigDecimal pr = parseBigDecimalOrNull(price.getText(), "Price");
+            if (pr == null && !price.getText().trim().isEmpty()) return;
+
+            BigDecimal sqm = parseBigDecimalOrNull(squareMeters.getText(), "Square meters");
+            if (sqm == null && !squareMeters.getText().trim().isEmpty()) return;
+
+            Double lat = parseDoubleOrNull(latitude.getText(), "Latitude", 90);
+            if (lat == null && !latitude.getText().trim().isEmpty()) return;
+
+            Double lon = parseDoubleOrNull(longitude.getText(), "Longitude", 180);
+            if (lon == null && !longitude.getText().trim().isEmpty()) return;
+
+            Long oid = parseLongOrNull(ownerId.getText(), "Owner ID");
+            if (oid == null && !ownerId.getText().trim().isEmpty()) return;
+
+            Property updated = new Property(
+                    selected.propertyId(),
+                    pr,
+                    sqm,
+                    lat,
+                    lon,
+                    city.getText().trim(),
+                    type,
+                    oid
+            );
+
+            tasks.execute(() -> dao.update(updated), () -> {
+                if (!filters.query().isAll() || !patcher.replace(updated)) refresh.run();
+            }, "DB error while updating property");
         });
 
         btnDelete.setOnAction(e -> {
@@ -213,16 +250,16 @@ public final class PropertyTab {
             }
             if (!confirm("Delete property " + selected.propertyId() + "?")) return;
 
-            try {
-                dao.delete(selected.propertyId());
-                refresh.run();
+            tasks.execute(() -> dao.delete(selected.propertyId()), () -> {
+                if (!patcher.remove(selected)) refresh.run();
                 clearForm.run();
-            } catch (SQLException ex) {
-                showError("DB error while deleting property", ex);
-            }
+            }, "DB error while deleting property");
         });
 
-        refresh.run();
+        if (!WarmStart.fromSnapshot(Property.class, load::call, patcher::show,
+                () -> filters.query().isAll())) {
+            refresh.run();
+        }
 
         Tab tab = new Tab("Properties", root);
         tab.setClosable(false);
@@ -243,6 +280,26 @@ public final class PropertyTab {
         }
     }
 
+    private static Double parseDoubleOrNull(String s, String field, double maxAbs) {
+        String t = s.trim();
+        if (t.isEmpty()) return null;
+        try {
+            double v = Double.parseDouble(t);
+            if (!Double.isFinite(v)) {
+                showInfo(field + " must be a number (or blank).");
+                return null;
+            }
+            if (Math.abs(v) > maxAbs) {
+                showInfo(field + " must be between -" + (int) maxAbs + " and " + (int) maxAbs + ".");
+                return null;
+            }
+            return v;
+        } catch (NumberFormatException ex) {
+            showInfo(field + " must be a number (or blank).");
+            return null;
+        }
+    }
+
     private static Long parseLongOrNull(String s, String field) {
         String t = s.trim();
         if (t.isEmpty()) return null;
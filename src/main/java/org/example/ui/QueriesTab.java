@@ -1,23 +1,41 @@
 package org.example.ui;
 
+import javafx.application.Platform;
 import javafx.beans.property.SimpleLongProperty;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.Node;
 import javafx.scene.control.*;
 import javafx.scene.layout.*;
+import javafx.stage.FileChooser;
+import org.example.analytics.PriceStats;
 import org.example.dao.QueryDao;
+import org.example.dao.QueryDao.Report;
+import org.example.export.Exporter;
+import org.example.matching.MatchingEngine;
 import org.example.model.AgentSalesRow;
 import org.example.model.ClientBudgetMatchRow;
+import org.example.model.PreferenceMatchRow;
+import org.example.model.PriceStatsRow;
 import org.example.model.PropertyOwnerRow;
 import org.example.model.AvgSaleByTypeRow;
 import org.example.model.ClientDealsRow;
 import org.example.model.UnsoldPropertyRow;
 
+import java.io.File;
+import java.io.IOException;
 import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.function.Supplier;
 
 public final class QueriesTab {
 
+    private static final int MATCH_LIMIT = 200;
+
     private QueriesTab() {}
 
     private enum QueryType {
@@ -26,9 +44,20 @@ public final class QueriesTab {
         PROPERTIES_UNDER_CLIENT_BUDGET,
         AVG_SALE_PRICE_BY_TYPE,
         TOP_CLIENTS_BY_DEALS,
-        UNSOLD_PROPERTIES
+        UNSOLD_PROPERTIES,
+        MATCHES_FOR_CLIENT,
+        CLIENTS_INTERESTED_IN_PROPERTY,
+        PRICE_PERCENTILES_BY_CITY_AND_TYPE,
+        PRICE_PERCENTILES_BY_TYPE,
+        AD_HOC_PIVOT
     }
 
+    private static final Set<QueryType> DEAL_WINDOW_QUERIES = EnumSet.of(
+            QueryType.TOP_AGENTS_BY_SALES,
+            QueryType.AVG_SALE_PRICE_BY_TYPE,
+            QueryType.TOP_CLIENTS_BY_DEALS
+    );
+
     public static Tab build() {
         var dao = new QueryDao();
 
@@ -40,13 +69,29 @@ public final class QueriesTab {
         clientId.setPromptText("Client ID (for budget query)");
         clientId.setDisable(true);
 
+        TextField propertyId = new TextField();
+        propertyId.setPromptText("Property ID (for interest query)");
+        propertyId.setDisable(true);
+
+        // Deal date window for the deal-based reports; both ends inclusive, blank = open
+        DatePicker fromDate = new DatePicker();
+        fromDate.setPromptText("From");
+        fromDate.setPrefWidth(120);
+        DatePicker toDate = new DatePicker();
+        toDate.setPromptText("To");
+        toDate.setPrefWidth(120);
+        setWindowEnabled(fromDate, toDate, queryPicker.getValue());
+
         Button btnRun = new Button("Run");
         Button btnClear = new Button("Clear results");
+        Button btnExport = new Button("Export...");
 
         HBox top = new HBox(10,
                 new Label("Query:"), queryPicker,
                 new Label("Client ID:"), clientId,
-                btnRun, btnClear
+                new Label("Property ID:"), propertyId,
+                new Label("Deal dates:"), fromDate, toDate,
+                btnRun, btnClear, btnExport
         );
         top.setPadding(new Insets(10));
 
@@ -57,51 +102,141 @@ public final class QueriesTab {
         Label hint = new Label("Run a query to see results.");
         resultsPane.getChildren().add(hint);
 
-        // Enable clientId only for relevant query
+        // The pivot has its own controls; it keeps its snapshot while the tab lives
+        var pivotPane = PivotPane.build();
+
+        // Enable clientId / propertyId only for relevant queries
         queryPicker.valueProperty().addListener((obs, oldV, v) -> {
-            clientId.setDisable(v != QueryType.PROPERTIES_UNDER_CLIENT_BUDGET);
+            clientId.setDisable(v != QueryType.PROPERTIES_UNDER_CLIENT_BUDGET && v != QueryType.MATCHES_FOR_CLIENT);
+            propertyId.setDisable(v != QueryType.CLIENTS_INTERESTED_IN_PROPERTY);
+            setWindowEnabled(fromDate, toDate, v);
+            btnRun.setDisable(v == QueryType.AD_HOC_PIVOT);
+            btnExport.setDisable(reportFor(v) == null);
+            if (v == QueryType.AD_HOC_PIVOT) resultsPane.getChildren().setAll(pivotPane);
         });
 
-        btnClear.setOnAction(e -> resultsPane.getChildren().setAll(new Label("Run a query to see results.")));
+        TabTasks tasks = new TabTasks("Queries", resultsPane, () -> shownRows(resultsPane), QueriesTab::showError)
+                .disableWhileBusy(top);
+        HBox topBar = new HBox(top, tasks.indicator());
+        topBar.setAlignment(Pos.CENTER_LEFT);
+
+        btnClear.setOnAction(e -> {
+            tasks.supersedeRefresh();
+            resultsPane.getChildren().setAll(new Label("Run a query to see results."));
+        });
 
         btnRun.setOnAction(e -> {
             QueryType qt = queryPicker.getValue();
-            try {
-                switch (qt) {
-                    case PROPERTIES_WITH_OPTIONAL_OWNER -> {
-                        var data = dao.propertiesWithOptionalOwner();
-                        resultsPane.getChildren().setAll(buildPropertiesOwnerTable(data));
-                    }
-                    case TOP_AGENTS_BY_SALES -> {
-                        var data = dao.topAgentsBySales();
-                        resultsPane.getChildren().setAll(buildAgentSalesTable(data));
-                    }
-                    case PROPERTIES_UNDER_CLIENT_BUDGET -> {
-                        Long cid = parseLong(clientId.getText(), "Client ID");
-                        if (cid == null) return;
-                        var data = dao.propertiesUnderClientBudget(cid);
-                        resultsPane.getChildren().setAll(buildClientBudgetTable(data));
-                    }
-                    case AVG_SALE_PRICE_BY_TYPE -> {
-                        var data = dao.avgSalePriceByPropertyType();
-                        resultsPane.getChildren().setAll(buildAvgSaleByTypeTable(data));
-                    }
-                    case TOP_CLIENTS_BY_DEALS -> {
-                        var data = dao.topClientsByDeals();
-                        resultsPane.getChildren().setAll(buildTopClientsTable(data));
-                    }
-                    case UNSOLD_PROPERTIES -> {
-                        var data = dao.unsoldProperties();
-                        resultsPane.getChildren().setAll(buildUnsoldPropertiesTable(data));
-                    }
+            LocalDate from = fromDate.getValue();
+            LocalDate to = toDate.getValue() == null ? null : toDate.getValue().plusDays(1);
+            if (from != null && to != null && !from.isBefore(to)) {
+                showInfo("The 'from' date must not be after the 'to' date.");
+                return;
+            }
+            Long cid = null;
+            Long pid = null;
+            if (qt == QueryType.PROPERTIES_UNDER_CLIENT_BUDGET || qt == QueryType.MATCHES_FOR_CLIENT) {
+                cid = parseLong(clientId.getText(), "Client ID");
+                if (cid == null) return;
+            }
+            if (qt == QueryType.CLIENTS_INTERESTED_IN_PROPERTY) {
+                pid = parseLong(propertyId.getText(), "Property ID");
+                if (pid == null) return;
+            }
+            if (qt == QueryType.AD_HOC_PIVOT) {
+                resultsPane.getChildren().setAll(pivotPane);
+                return;
+            }
+            Long queryClientId = cid;
+            Long queryPropertyId = pid;
+            // the rows are loaded in the background, the table is built on the FX thread
+            tasks.refresh(() -> switch (qt) {
+                case PROPERTIES_WITH_OPTIONAL_OWNER -> {
+                    var data = dao.propertiesWithOptionalOwner();
+                    yield () -> buildPropertiesOwnerTable(data);
+                }
+                case TOP_AGENTS_BY_SALES -> {
+                    var data = dao.topAgentsBySales(from, to);
+                    yield () -> buildAgentSalesTable(data);
+                }
+                case PROPERTIES_UNDER_CLIENT_BUDGET -> {
+                    var data = dao.propertiesUnderClientBudget(queryClientId);
+                    yield () -> buildClientBudgetTable(data);
+                }
+                case AVG_SALE_PRICE_BY_TYPE -> {
+                    var data = dao.avgSalePriceByPropertyType(from, to);
+                    yield () -> buildAvgSaleByTypeTable(data);
+                }
+                case TOP_CLIENTS_BY_DEALS -> {
+                    var data = dao.topClientsByDeals(from, to);
+                    yield () -> buildTopClientsTable(data);
+                }
+                case UNSOLD_PROPERTIES -> {
+                    var data = dao.unsoldProperties();
+                    yield () -> buildUnsoldPropertiesTable(data);
+                }
+                case MATCHES_FOR_CLIENT -> {
+                    var data = MatchingEngine.shared().matchesForClient(queryClientId, MATCH_LIMIT);
+                    yield () -> buildPreferenceMatchTable(data);
                 }
-            } catch (SQLException ex) {
-                showError("DB error while running query", ex);
+                case CLIENTS_INTERESTED_IN_PROPERTY -> {
+                    var data = MatchingEngine.shared().clientsInterestedIn(queryPropertyId, MATCH_LIMIT);
+                    yield () -> buildPreferenceMatchTable(data);
+                }
+                case PRICE_PERCENTILES_BY_CITY_AND_TYPE -> {
+                    var data = PriceStats.shared().rows(true, true);
+                    yield () -> buildPriceStatsTable(data);
+                }
+                case PRICE_PERCENTILES_BY_TYPE -> {
+                    var data = PriceStats.shared().rows(false, true);
+                    yield () -> buildPriceStatsTable(data);
+                }
+                case AD_HOC_PIVOT -> () -> pivotPane;
+            }, (Supplier<Node> table) -> resultsPane.getChildren().setAll(table.get()), "DB error while running query");
+        });
+
+        // Streams the report straight to a file on a worker thread; the table view is not involved
+        btnExport.setOnAction(e -> {
+            QueryType qt = queryPicker.getValue();
+            Report report = reportFor(qt);
+            if (report == null) return;
+
+            Long cid = null;
+            if (qt == QueryType.PROPERTIES_UNDER_CLIENT_BUDGET) {
+                cid = parseLong(clientId.getText(), "Client ID");
+                if (cid == null) return;
             }
+            LocalDate from = fromDate.getValue();
+            LocalDate to = toDate.getValue() == null ? null : toDate.getValue().plusDays(1);
+
+            FileChooser chooser = new FileChooser();
+            chooser.setTitle("Export " + qt);
+            chooser.setInitialFileName(qt.name().toLowerCase() + ".csv");
+            chooser.getExtensionFilters().addAll(
+                    new FileChooser.ExtensionFilter("CSV", "*.csv"),
+                    new FileChooser.ExtensionFilter("Columnar", "*.col")
+            );
+            File file = chooser.showSaveDialog(btnExport.getScene().getWindow());
+            if (file == null) return;
+
+            Long exportClientId = cid;
+            btnExport.setDisable(true);
+            Thread worker = new Thread(() -> {
+                try {
+                    long rows = Exporter.exportReport(report, exportClientId, from, to, file.toPath());
+                    Platform.runLater(() -> showInfo(String.format("Exported %,d rows to %s", rows, file)));
+                } catch (SQLException | IOException ex) {
+                    Platform.runLater(() -> showError("Export failed", ex));
+                } finally {
+                    Platform.runLater(() -> btnExport.setDisable(reportFor(queryPicker.getValue()) == null));
+                }
+            }, "report-export");
+            worker.setDaemon(true);
+            worker.start();
         });
 
         BorderPane root = new BorderPane();
-        root.setTop(top);
+        root.setTop(topBar);
         root.setCenter(resultsPane);
 
         Tab tab = new Tab("Queries", root);
@@ -109,6 +244,11 @@ public final class QueriesTab {
         return tab;
     }
 
+    private static int shownRows(StackPane resultsPane) {
+        if (resultsPane.getChildren().isEmpty()) return 0;
+        return resultsPane.getChildren().get(0) instanceof TableView<?> t ? t.getItems().size() : 0;
+    }
+
     // ----------------------------
     // Tables
     // ----------------------------
@@ -257,12 +397,99 @@ public final class QueriesTab {
         return t;
     }
 
+    private static TableView<PreferenceMatchRow> buildPreferenceMatchTable(java.util.List<PreferenceMatchRow> rows) {
+        TableView<PreferenceMatchRow> t = new TableView<>();
+        t.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
+
+        TableColumn<PreferenceMatchRow, Long> c1 = new TableColumn<>("Client ID");
+        c1.setCellValueFactory(v -> new SimpleLongProperty(v.getValue().clientId()).asObject());
+
+        TableColumn<PreferenceMatchRow, Long> c2 = new TableColumn<>("Property ID");
+        c2.setCellValueFactory(v -> new SimpleLongProperty(v.getValue().propertyId()).asObject());
+
+        TableColumn<PreferenceMatchRow, String> c3 = new TableColumn<>("City");
+        c3.setCellValueFactory(v -> new SimpleStringProperty(nvl(v.getValue().city())));
+
+        TableColumn<PreferenceMatchRow, String> c4 = new TableColumn<>("Type");
+        c4.setCellValueFactory(v -> new SimpleStringProperty(nvl(v.getValue().propertyType())));
+
+        TableColumn<PreferenceMatchRow, String> c5 = new TableColumn<>("Price");
+        c5.setCellValueFactory(v -> new SimpleStringProperty(
+                v.getValue().price() == null ? "" : v.getValue().price().toPlainString()
+        ));
+
+        TableColumn<PreferenceMatchRow, String> c6 = new TableColumn<>("Matched");
+        c6.setCellValueFactory(v -> new SimpleStringProperty(v.getValue().matched() + " / " + v.getValue().required()));
+
+        TableColumn<PreferenceMatchRow, String> c7 = new TableColumn<>("Score");
+        c7.setCellValueFactory(v -> new SimpleStringProperty(String.format("%.0f%%", v.getValue().score() * 100)));
+
+        t.getColumns().addAll(c1, c2, c3, c4, c5, c6, c7);
+        t.setItems(FXCollections.observableArrayList(rows));
+        return t;
+    }
+
+    private static TableView<PriceStatsRow> buildPriceStatsTable(java.util.List<PriceStatsRow> rows) {
+        TableView<PriceStatsRow> t = new TableView<>();
+        t.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
+
+        TableColumn<PriceStatsRow, String> c1 = new TableColumn<>("City");
+        c1.setCellValueFactory(v -> new SimpleStringProperty(v.getValue().city() == null ? "(all)" : v.getValue().city()));
+
+        TableColumn<PriceStatsRow, String> c2 = new TableColumn<>("Type");
+        c2.setCellValueFactory(v -> new SimpleStringProperty(v.getValue().propertyType() == null ? "(all)" : v.getValue().propertyType()));
+
+        TableColumn<PriceStatsRow, Long> c3 = new TableColumn<>("Deals");
+        c3.setCellValueFactory(v -> new SimpleLongProperty(v.getValue().deals()).asObject());
+
+        TableColumn<PriceStatsRow, String> c4 = new TableColumn<>("~Distinct clients");
+        c4.setCellValueFactory(v -> new SimpleStringProperty(String.valueOf(v.getValue().distinctClients())));
+
+        TableColumn<PriceStatsRow, String> c5 = new TableColumn<>("Median price");
+        c5.setCellValueFactory(v -> new SimpleStringProperty(formatAmount(v.getValue().medianPrice())));
+
+        TableColumn<PriceStatsRow, String> c6 = new TableColumn<>("P90 price");
+        c6.setCellValueFactory(v -> new SimpleStringProperty(formatAmount(v.getValue().p90Price())));
+
+        TableColumn<PriceStatsRow, String> c7 = new TableColumn<>("Median price/m2");
+        c7.setCellValueFactory(v -> new SimpleStringProperty(formatAmount(v.getValue().medianPricePerSqm())));
+
+        TableColumn<PriceStatsRow, String> c8 = new TableColumn<>("P90 price/m2");
+        c8.setCellValueFactory(v -> new SimpleStringProperty(formatAmount(v.getValue().p90PricePerSqm())));
+
+        t.getColumns().addAll(c1, c2, c3, c4, c5, c6, c7, c8);
+        t.setItems(FXCollections.observableArrayList(rows));
+        return t;
+    }
+
 
     // ----------------------------
     // Helpers
     // ----------------------------
     private static String nvl(String s) { return s == null ? "" : s; }
 
+    private static Report reportFor(QueryType qt) {
+        return switch (qt) {
+            case PROPERTIES_WITH_OPTIONAL_OWNER -> Report.PROPERTIES_WITH_OPTIONAL_OWNER;
+            case TOP_AGENTS_BY_SALES -> Report.TOP_AGENTS_BY_SALES;
+            case PROPERTIES_UNDER_CLIENT_BUDGET -> Report.PROPERTIES_UNDER_CLIENT_BUDGET;
+            case AVG_SALE_PRICE_BY_TYPE -> Report.AVG_SALE_PRICE_BY_TYPE;
+            case TOP_CLIENTS_BY_DEALS -> Report.TOP_CLIENTS_BY_DEALS;
+            case UNSOLD_PROPERTIES -> Report.UNSOLD_PROPERTIES;
+            default -> null;
+        };
+    }
+
+    private static void setWindowEnabled(DatePicker from, DatePicker to, QueryType qt) {
+        boolean windowed = DEAL_WINDOW_QUERIES.contains(qt);
+        from.setDisable(!windowed);
+        to.setDisable(!windowed);
+    }
+
+    private static String formatAmount(double v) {
+        return Double.isNaN(v) ? "" : String.format("%,.2f", v);
+    }
+
     private static Long parseLong(String s, String field) {
         try {
             String t = s == null ? "" : s.trim();
@@ -0,0 +1,49 @@
+package org.example.ui;
+
+import javafx.application.Platform;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+import org.example.metrics.TabRefreshEvent;
+
+/**
+ * One tab refresh as a JFR {@link TabRefreshEvent}: started when the refresh is requested, ended
+ * when its rows are shown on the FX thread (query included), with the render time up to the next
+ * layout pulse. Costs nothing when the event is off.
+ */
+final class TabRefresh {
+
+    private final TabRefreshEvent event = new TabRefreshEvent();
+
+    private TabRefresh(String tab) {
+        event.tab = tab;
+        event.begin();
+    }
+
+    static TabRefresh start(String tab) {
+        return new TabRefresh(tab);
+    }
+
+    /** Call on the FX thread right after the rows were put into the view. */
+    void shown(Node view, int items) {
+        if (!event.isEnabled()) return;
+        event.end();
+        event.items = items;
+        Scene scene = view.getScene();
+        if (scene == null) {
+            event.commit();
+            return;
+        }
+        // committed after the layout pulse that shows the new rows
+        long ended = System.nanoTime();
+        boolean[] done = {false};
+        Runnable[] listener = new Runnable[1];
+        listener[0] = () -> {
+            if (done[0]) return;
+            done[0] = true;
+            event.renderTime = System.nanoTime() - ended;
+            event.commit();
+            Platform.runLater(() -> scene.removePostLayoutPulseListener(listener[0]));
+        };
+        scene.addPostLayoutPulseListener(listener[0]);
+    }
+}
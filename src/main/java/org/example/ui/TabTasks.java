@@ -0,0 +1,179 @@
+package org.example.ui;
+
+import javafx.application.Platform;
+import javafx.scene.Node;
+import javafx.scene.control.ProgressIndicator;
+import javafx.scene.control.TableView;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+
+/**
+ * A tab's database work, run on a background thread so the window never waits for a query.
+ * While anything is in flight the tab's busy controls are disabled and its progress indicator
+ * shows; results and errors are handed back on the FX thread.
+ *
+ * A refresh supersedes the one before it: an older refresh that has not started yet never
+ * queries, and the rows of one still running are dropped when they arrive. All methods are
+ * called on the FX thread.
+ */
+final class TabTasks {
+
+    @FunctionalInterface
+    interface Call<T> {
+        T call() throws SQLException;
+    }
+
+    @FunctionalInterface
+    interface Action {
+        void run() throws SQLException;
+    }
+
+    @FunctionalInterface
+    interface ErrorHandler {
+        void show(String title, Exception ex);
+    }
+
+    private static final AtomicInteger THREADS = new AtomicInteger();
+    private static final ExecutorService POOL = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "tab-db-" + THREADS.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final String tab;
+    private final Node view;
+    private final IntSupplier items;
+    private final ErrorHandler errors;
+    private final ProgressIndicator indicator = new ProgressIndicator();
+    private final List<Node> busyControls = new ArrayList<>();
+    private int inFlight;
+    private volatile long refreshes;    // written on the FX thread only
+
+    TabTasks(String tab, Node view, IntSupplier items, ErrorHandler errors) {
+        this.tab = tab;
+        this.view = view;
+        this.items = items;
+        this.errors = errors;
+        indicator.setPrefSize(18, 18);
+        indicator.setVisible(false);
+    }
+
+    static TabTasks forTable(String tab, TableView<?> table, ErrorHandler errors) {
+        return new TabTasks(tab, table, () -> table.getItems() == null ? 0 : table.getItems().size(), errors);
+    }
+
+    /** Spins while a call is in flight; the tab places it, usually next to its buttons. */
+    ProgressIndicator indicator() {
+        return indicator;
+    }
+
+    /**
+     * Disabled while a call is in flight: pass the containers of the buttons and forms (not search
+     * fields the user is typing in). Disabling a container leaves its children's own disable
+     * state alone, so buttons the tab enables and disables itself keep working.
+     */
+    TabTasks disableWhileBusy(Node... controls) {
+        busyControls.addAll(List.of(controls));
+        return this;
+    }
+
+    boolean isBusy() {
+        return inFlight > 0;
+    }
+
+    /** Loads rows and shows them, unless a newer refresh has been started in the meantime. */
+    <T> void refresh(Call<T> load, Consumer<T> show, String errorTitle) {
+        long ticket = ++refreshes;
+        TabRefresh timing = TabRefresh.start(tab);
+        started();
+        POOL.execute(() -> {
+            if (ticket != refreshes) {
+                Platform.runLater(this::finished);
+                return;
+            }
+            try {
+                T result = load.call();
+                Platform.runLater(() -> {
+                    finished();
+                    if (ticket != refreshes) return;
+                    show.accept(result);
+                    timing.shown(view, items.getAsInt());
+                });
+            } catch (SQLException | RuntimeException ex) {
+                Platform.runLater(() -> {
+                    finished();
+                    if (ticket == refreshes) errors.show(errorTitle, ex);
+                });
+            }
+        });
+    }
+
+    /**
+     * Runs work on the tabs' shared pool without marking any tab busy, for loads that already have
+     * rows on screen (see {@link WarmStart}). The work hands its own results back to the FX thread.
+     */
+    static void background(Runnable work) {
+        POOL.execute(work);
+    }
+
+    /** Drops the rows of a refresh in flight, e.g. when search results the tab loads itself take over the view. */
+    void supersedeRefresh() {
+        refreshes++;
+    }
+
+    /** Runs a call and hands its result to then; on failure shows errorTitle instead. */
+    <T> void submit(Call<T> call, Consumer<T> then, String errorTitle) {
+        submit(call, then, ex -> errors.show(errorTitle, ex));
+    }
+
+    /** As above, with the tab's own handling of a failure. */
+    <T> void submit(Call<T> call, Consumer<T> then, Consumer<Exception> onError) {
+        started();
+        POOL.execute(() -> {
+            try {
+                T result = call.call();
+                Platform.runLater(() -> {
+                    finished();
+                    then.accept(result);
+                });
+            } catch (SQLException | RuntimeException ex) {
+                Platform.runLater(() -> {
+                    finished();
+                    onError.accept(ex);
+                });
+            }
+        });
+    }
+
+    /** {@link #submit} for calls without a result, e.g. updates and deletes. */
+    void execute(Action action, Runnable then, String errorTitle) {
+        execute(action, then, ex -> errors.show(errorTitle, ex));
+    }
+
+    void execute(Action action, Runnable then, Consumer<Exception> onError) {
+        submit(() -> {
+            action.run();
+            return null;
+        }, ignored -> then.run(), onError);
+    }
+
+    private void started() {
+        if (inFlight++ == 0) setBusy(true);
+    }
+
+    private void finished() {
+        if (--inFlight == 0) setBusy(false);
+    }
+
+    private void setBusy(boolean busy) {
+        indicator.setVisible(busy);
+        for (Node n : busyControls) n.setDisable(busy);
+    }
+}
@@ -0,0 +1,67 @@
+package org.example.ui;
+
+import javafx.application.Platform;
+import org.example.snapshot.SnapshotStore;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * First load of a tab: rows from the last session's snapshot are shown immediately, and the
+ * database is queried on the tabs' shared pool; the fresh rows replace them when they arrive.
+ * A refresh made in the meantime wins over the background result, and so does a filter or sort
+ * the user applied: those reload through the tab's own query and do not touch the snapshot.
+ */
+final class WarmStart {
+
+    interface Query<R> {
+        List<R> load() throws SQLException;
+    }
+
+    private static final Logger LOG = Logger.getLogger(WarmStart.class.getName());
+
+    private WarmStart() {}
+
+    /** Returns false when there is no snapshot for this type; the caller then loads synchronously as before. */
+    static <R extends Record> boolean fromSnapshot(Class<R> type, Query<R> query, Consumer<List<R>> show) {
+        return fromSnapshot(type, query, show, () -> true);
+    }
+
+    /**
+     * unfiltered is read on the FX thread when the rows arrive; while it is false the tab shows
+     * the rows of another query (a filter, a sort) and the background result is dropped.
+     */
+    static <R extends Record> boolean fromSnapshot(Class<R> type, Query<R> query, Consumer<List<R>> show,
+                                                   BooleanSupplier unfiltered) {
+        SnapshotStore store = SnapshotStore.shared();
+        List<R> cached = store.get(type);
+        if (cached == null) return false;
+        long version = store.version(type);
+        show.accept(cached);
+
+        TabTasks.background(() -> {
+            try {
+                List<R> fresh = query.load();
+                Platform.runLater(() -> {
+                    if (!unfiltered.getAsBoolean()) return;
+                    if (fresh instanceof LazyRowList) {
+                        // the table has grown too large to snapshot; the paged rows replace the old ones
+                        if (store.version(type) != version) return;
+                        store.remove(type);
+                        show.accept(fresh);
+                    } else if (store.putIfVersion(type, fresh, version)) {
+                        show.accept(fresh);
+                    }
+                });
+            } catch (SQLException ex) {
+                // the snapshot stays on screen; the Refresh button reports the error
+                LOG.log(Level.WARNING, "Background load of " + type.getSimpleName() + " failed", ex);
+            }
+        });
+        return true;
+    }
+}
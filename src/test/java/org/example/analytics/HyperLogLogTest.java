@@ -0,0 +1,71 @@
+package org.example.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class HyperLogLogTest {
+
+    /** Three standard errors at precision 14 (1.04 / sqrt(16384) is about 0.81%). */
+    private static final double BOUND = 3 * 1.04 / Math.sqrt(1 << 14);
+
+    @Test
+    void emptyAndSmallCountsAreExactOrNearly() {
+        HyperLogLog h = new HyperLogLog();
+        assertEquals(0, h.estimate());
+        for (long i = 1; i <= 100; i++) h.add(i);
+        assertEquals(100, h.estimate(), 1);
+    }
+
+    @Test
+    void duplicatesAreNotCounted() {
+        HyperLogLog h = new HyperLogLog();
+        for (int round = 0; round < 5; round++) {
+            for (long i = 0; i < 10_000; i++) h.add(i);
+        }
+        assertEquals(10_000, h.estimate(), 10_000 * BOUND);
+    }
+
+    @Test
+    void sequentialIdsWithinThreeStandardErrors() {
+        for (int n : new int[]{1_000, 50_000, 1_000_000}) {
+            HyperLogLog h = new HyperLogLog();
+            for (long i = 1; i <= n; i++) h.add(i);
+            assertEquals(n, h.estimate(), n * BOUND, "n = " + n);
+        }
+    }
+
+    @Test
+    void randomIdsWithinThreeStandardErrors() {
+        Random random = new Random(7);
+        HyperLogLog h = new HyperLogLog();
+        Set<Long> exact = new HashSet<>();
+        for (int i = 0; i < 300_000; i++) {
+            long id = random.nextLong();
+            h.add(id);
+            exact.add(id);
+        }
+        assertEquals(exact.size(), h.estimate(), exact.size() * BOUND);
+    }
+
+    @Test
+    void mergeIsTheUnion() {
+        HyperLogLog a = new HyperLogLog();
+        HyperLogLog b = new HyperLogLog();
+        for (long i = 0; i < 60_000; i++) a.add(i);
+        for (long i = 40_000; i < 100_000; i++) b.add(i);   // 20,000 ids in both
+        a.merge(b);
+        assertEquals(100_000, a.estimate(), 100_000 * BOUND);
+    }
+
+    @Test
+    void rejectsMixedPrecision() {
+        assertThrows(IllegalArgumentException.class, () -> new HyperLogLog(14).merge(new HyperLogLog(12)));
+        assertThrows(IllegalArgumentException.class, () -> new HyperLogLog(3));
+    }
+}
@@ -0,0 +1,149 @@
+package org.example.analytics;
+
+import org.example.analytics.DealColumns.Dimension;
+import org.example.analytics.PivotQuery.Aggregate;
+import org.example.analytics.PivotQuery.Measure;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PivotEngineTest {
+
+    /** dealId, finalPrice, sqm, city, type, agent, client; list price is final price + 10 */
+    private static DealColumns small() {
+        DealColumns.Builder b = new DealColumns.Builder();
+        b.add(1, 101, 100_000, 100_010, 50, "Sofia", "apartment", 7, 20);
+        b.add(2, 102, 200_000, 200_010, 100, "Sofia", "apartment", 7, 21);
+        b.add(3, 103, 300_000, 300_010, 150, "Sofia", "house", 8, 20);
+        b.add(4, 104, 120_000, 120_010, Double.NaN, "Varna", "apartment", 8, 22);
+        b.add(5, 105, 80_000, 80_010, 40, "Burgas", "garage", 9, 23);
+        return b.build();
+    }
+
+    private static PivotQuery query(Dimension rows, Dimension columns, Measure m, Aggregate a) {
+        return new PivotQuery(rows, columns, m, a, null, null, null, null, null, null);
+    }
+
+    @Test
+    void groupsByOneDimensionInLabelOrder() {
+        PivotResult r = PivotEngine.run(small(), query(Dimension.CITY, null, Measure.FINAL_PRICE, Aggregate.SUM));
+
+        assertArrayEquals(new String[]{"Burgas", "Sofia", "Varna"}, r.rowLabels());
+        assertArrayEquals(new String[]{"SUM FINAL_PRICE"}, r.columnLabels());
+        assertEquals(80_000, r.values()[0][0]);
+        assertEquals(600_000, r.values()[1][0]);
+        assertEquals(120_000, r.values()[2][0]);
+        assertEquals(5, r.rowsScanned());
+        assertEquals(5, r.rowsMatched());
+    }
+
+    @Test
+    void everyAggregate() {
+        DealColumns d = small();
+        assertEquals(3, value(d, Aggregate.COUNT));
+        assertEquals(600_000, value(d, Aggregate.SUM));
+        assertEquals(200_000, value(d, Aggregate.AVG));
+        assertEquals(100_000, value(d, Aggregate.MIN));
+        assertEquals(300_000, value(d, Aggregate.MAX));
+    }
+
+    private static double value(DealColumns d, Aggregate a) {
+        PivotQuery q = new PivotQuery(Dimension.CITY, null, Measure.FINAL_PRICE, a, "Sofia", null, null, null, null, null);
+        return PivotEngine.run(d, q).values()[0][0];
+    }
+
+    @Test
+    void twoDimensionsLeaveEmptyCellsNaN() {
+        PivotResult r = PivotEngine.run(small(), query(Dimension.CITY, Dimension.PROPERTY_TYPE, Measure.FINAL_PRICE, Aggregate.COUNT));
+
+        assertArrayEquals(new String[]{"Burgas", "Sofia", "Varna"}, r.rowLabels());
+        assertArrayEquals(new String[]{"apartment", "garage", "house"}, r.columnLabels());
+        assertArrayEquals(new double[]{Double.NaN, 1, Double.NaN}, r.values()[0]);
+        assertArrayEquals(new double[]{2, Double.NaN, 1}, r.values()[1]);
+        assertArrayEquals(new double[]{1, Double.NaN, Double.NaN}, r.values()[2]);
+    }
+
+    @Test
+    void idDimensionsSortNumerically() {
+        DealColumns.Builder b = new DealColumns.Builder();
+        b.add(1, 1, 10, 10, 1, "A", "t", 100, 1);
+        b.add(2, 2, 10, 10, 1, "A", "t", 9, 1);
+        b.add(3, 3, 10, 10, 1, "A", "t", 20, 1);
+        PivotResult r = PivotEngine.run(b.build(), query(Dimension.AGENT, null, Measure.FINAL_PRICE, Aggregate.COUNT));
+
+        assertArrayEquals(new String[]{"9", "20", "100"}, r.rowLabels());
+    }
+
+    @Test
+    void pricePerSqmSkipsUnknownSizes() {
+        PivotResult r = PivotEngine.run(small(), query(Dimension.CITY, null, Measure.PRICE_PER_SQM, Aggregate.AVG));
+
+        assertEquals(2_000, r.values()[0][0]);      // Burgas: 80000 / 40
+        assertEquals(2_000, r.values()[1][0]);      // Sofia: 2000 each
+        assertTrue(Double.isNaN(r.values()[2][0]));  // Varna: size unknown, counted but no value
+        assertEquals(5, r.rowsMatched());
+    }
+
+    @Test
+    void filtersApplyBeforeGrouping() {
+        DealColumns d = small();
+        PivotQuery byType = new PivotQuery(Dimension.CITY, null, Measure.FINAL_PRICE, Aggregate.COUNT,
+                null, "apartment", null, null, 110_000.0, null);
+        PivotResult r = PivotEngine.run(d, byType);
+        assertArrayEquals(new String[]{"Sofia", "Varna"}, r.rowLabels());
+        assertEquals(2, r.rowsMatched());
+
+        // NaN square meters never pass an active size filter
+        PivotQuery bySize = new PivotQuery(Dimension.CITY, null, Measure.FINAL_PRICE, Aggregate.COUNT,
+                null, null, 0.0, 1_000.0, null, null);
+        assertArrayEquals(new String[]{"Burgas", "Sofia"}, PivotEngine.run(d, bySize).rowLabels());
+
+        PivotQuery unknownCity = new PivotQuery(Dimension.CITY, null, Measure.FINAL_PRICE, Aggregate.COUNT,
+                "Plovdiv", null, null, null, null, null);
+        PivotResult none = PivotEngine.run(d, unknownCity);
+        assertEquals(0, none.rowLabels().length);
+        assertEquals(0, none.rowsMatched());
+    }
+
+    /** Enough rows for several parallel slices, and agent x client cells past the dense limit. */
+    @Test
+    void parallelSlicesAndSparseCellsMatchASerialSum() {
+        Random random = new Random(42);
+        DealColumns.Builder b = new DealColumns.Builder();
+        Map<String, double[]> expected = new HashMap<>();
+        for (int i = 0; i < 200_000; i++) {
+            long agent = random.nextInt(300);
+            long client = random.nextInt(300);
+            double price = 1_000 + random.nextInt(100_000);
+            b.add(i, i, price, price, 50, "City", "type", agent, client);
+            double[] cell = expected.computeIfAbsent(agent + "/" + client, k -> new double[2]);
+            cell[0]++;
+            cell[1] += price;
+        }
+        DealColumns d = b.build();
+
+        PivotResult sums = PivotEngine.run(d, query(Dimension.AGENT, Dimension.CLIENT, Measure.FINAL_PRICE, Aggregate.SUM));
+        PivotResult counts = PivotEngine.run(d, query(Dimension.AGENT, Dimension.CLIENT, Measure.FINAL_PRICE, Aggregate.COUNT));
+        assertEquals(200_000, sums.rowsMatched());
+        int cells = 0;
+        for (int r = 0; r < sums.rowLabels().length; r++) {
+            for (int c = 0; c < sums.columnLabels().length; c++) {
+                double[] e = expected.get(sums.rowLabels()[r] + "/" + sums.columnLabels()[c]);
+                if (e == null) {
+                    assertTrue(Double.isNaN(sums.values()[r][c]));
+                    continue;
+                }
+                cells++;
+                assertEquals(e[0], counts.values()[r][c]);
+                assertEquals(e[1], sums.values()[r][c], 1e-6);
+            }
+        }
+        assertEquals(expected.size(), cells);
+    }
+}
@@ -0,0 +1,142 @@
+package org.example.analytics;
+
+import org.example.dao.AnalyticsDao;
+import org.example.model.PriceStatsRow;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PriceStatsTest {
+
+    private record Deal(long id, String city, String type, double price, double sqm, long client) {}
+
+    /** Serves the deals from memory and counts the full and per-group loads. */
+    private static final class FakeDao extends AnalyticsDao {
+        final List<Deal> deals = new ArrayList<>();
+        int fullLoads;
+        final List<String> groupLoads = new ArrayList<>();
+
+        @Override
+        public DealColumns loadDealColumns() {
+            fullLoads++;
+            return columns(null, null, true);
+        }
+
+        @Override
+        public DealColumns loadDealColumns(String city, String propertyType) {
+            groupLoads.add(city + "/" + propertyType);
+            return columns(city, propertyType, false);
+        }
+
+        private DealColumns columns(String city, String type, boolean all) {
+            DealColumns.Builder b = new DealColumns.Builder();
+            for (Deal d : deals) {
+                if (!all && !(d.city().equals(city) && d.type().equals(type))) continue;
+                b.add(d.id(), d.id(), d.price(), d.price(), d.sqm(), d.city(), d.type(), 1, d.client());
+            }
+            return b.build();
+        }
+    }
+
+    private static PriceStatsRow row(List<PriceStatsRow> rows, String city, String type) {
+        for (PriceStatsRow r : rows) if (r.city().equals(city) && r.propertyType().equals(type)) return r;
+        throw new AssertionError("no row " + city + "/" + type + " in " + rows);
+    }
+
+    private static FakeDao dao() {
+        FakeDao dao = new FakeDao();
+        dao.deals.add(new Deal(1, "Sofia", "apartment", 100_000, 50, 1));
+        dao.deals.add(new Deal(2, "Sofia", "apartment", 200_000, 100, 2));
+        dao.deals.add(new Deal(3, "Varna", "house", 300_000, 150, 3));
+        return dao;
+    }
+
+    @Test
+    void insertedDealsAreAddedWithoutAQuery() throws SQLException {
+        FakeDao dao = dao();
+        PriceStats stats = new PriceStats(dao);
+        stats.rows(true, true);
+
+        stats.dealInserted(4, "Varna", "house", 500_000, 100, 4);
+        List<PriceStatsRow> rows = stats.rows(true, true);
+
+        assertEquals(2, row(rows, "Varna", "house").deals());
+        assertEquals(2, row(rows, "Sofia", "apartment").deals());
+        assertEquals(1, dao.fullLoads);
+        assertEquals(List.of(), dao.groupLoads);
+    }
+
+    @Test
+    void aDealAlreadyLoadedIsNotCountedTwice() throws SQLException {
+        FakeDao dao = dao();
+        PriceStats stats = new PriceStats(dao);
+        stats.rows(true, true);
+
+        stats.dealInserted(3, "Varna", "house", 300_000, 150, 3);
+
+        assertEquals(1, row(stats.rows(true, true), "Varna", "house").deals());
+    }
+
+    @Test
+    void aChangedGroupIsRebuiltAlone() throws SQLException {
+        FakeDao dao = dao();
+        PriceStats stats = new PriceStats(dao);
+        stats.rows(true, true);
+
+        // deal 2 moves to a property in Varna
+        dao.deals.set(1, new Deal(2, "Varna", "house", 200_000, 100, 2));
+        stats.groupChanged("Sofia", "apartment");
+        stats.groupChanged("Varna", "house");
+        List<PriceStatsRow> rows = stats.rows(true, true);
+
+        assertEquals(1, row(rows, "Sofia", "apartment").deals());
+        assertEquals(2, row(rows, "Varna", "house").deals());
+        assertEquals(1, dao.fullLoads);
+        assertEquals(2, dao.groupLoads.size());
+
+        stats.rows(true, true);
+        assertEquals(2, dao.groupLoads.size());
+    }
+
+    @Test
+    void anInsertIntoAStaleGroupWaitsForItsRebuild() throws SQLException {
+        FakeDao dao = dao();
+        PriceStats stats = new PriceStats(dao);
+        stats.rows(true, true);
+
+        stats.groupChanged("Sofia", "apartment");
+        dao.deals.add(new Deal(4, "Sofia", "apartment", 150_000, 75, 4));
+        stats.dealInserted(4, "Sofia", "apartment", 150_000, 75, 4);
+
+        assertEquals(3, row(stats.rows(true, true), "Sofia", "apartment").deals());
+    }
+
+    @Test
+    void invalidateRebuildsEverything() throws SQLException {
+        FakeDao dao = dao();
+        PriceStats stats = new PriceStats(dao);
+        stats.rows(true, true);
+
+        stats.invalidate();
+        stats.rows(false, false);
+
+        assertEquals(2, dao.fullLoads);
+        assertEquals(List.of(), dao.groupLoads);
+    }
+
+    @Test
+    void groupsWithoutACityMatchTheLoadedOnes() throws SQLException {
+        FakeDao dao = dao();
+        dao.deals.add(new Deal(4, "", "garage", 20_000, 15, 4));
+        PriceStats stats = new PriceStats(dao);
+        stats.rows(true, true);
+
+        stats.dealInserted(5, null, "garage", 30_000, 15, 5);
+
+        assertEquals(2, row(stats.rows(true, true), "", "garage").deals());
+    }
+}
@@ -0,0 +1,103 @@
+package org.example.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TDigestTest {
+
+    private static final double[] QUANTILES = {0.001, 0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.99, 0.999};
+
+    @Test
+    void emptyAndSingleValue() {
+        TDigest d = new TDigest();
+        assertTrue(Double.isNaN(d.quantile(0.5)));
+        d.add(42);
+        assertEquals(42, d.quantile(0));
+        assertEquals(42, d.quantile(0.5));
+        assertEquals(42, d.quantile(1));
+        assertEquals(1, d.count());
+    }
+
+    @Test
+    void ignoresNaNAndInfinity() {
+        TDigest d = new TDigest();
+        d.add(Double.NaN);
+        d.add(Double.POSITIVE_INFINITY);
+        d.add(1);
+        d.add(3);
+        assertEquals(2, d.count());
+        assertEquals(1, d.quantile(0));
+        assertEquals(3, d.quantile(1));
+    }
+
+    @Test
+    void uniformValuesWithinRankError() {
+        Random random = new Random(1);
+        double[] values = new double[200_000];
+        for (int i = 0; i < values.length; i++) values[i] = random.nextDouble() * 1_000_000;
+        TDigest d = new TDigest();
+        for (double v : values) d.add(v);
+        assertRankError(d, values);
+    }
+
+    /** Prices are skewed: a long right tail, where a digest without the arcsine scale goes wrong. */
+    @Test
+    void skewedValuesWithinRankError() {
+        Random random = new Random(2);
+        double[] values = new double[200_000];
+        for (int i = 0; i < values.length; i++) values[i] = Math.exp(12 + random.nextGaussian() * 0.8);
+        TDigest d = new TDigest();
+        for (double v : values) d.add(v);
+        assertRankError(d, values);
+        assertEquals(values.length, d.count());
+    }
+
+    @Test
+    void mergedDigestsMatchOneDigestOverAllValues() {
+        Random random = new Random(3);
+        double[] values = new double[100_000];
+        TDigest merged = new TDigest();
+        TDigest[] parts = new TDigest[10];
+        for (int p = 0; p < parts.length; p++) parts[p] = new TDigest();
+        for (int i = 0; i < values.length; i++) {
+            // each part gets its own range, so the merge has to interleave them
+            values[i] = (i % parts.length) * 1_000 + random.nextDouble() * 5_000;
+            parts[i % parts.length].add(values[i]);
+        }
+        for (TDigest p : parts) merged.merge(p);
+
+        assertEquals(values.length, merged.count());
+        assertRankError(merged, values);
+        assertEquals(10_000, parts[0].count());     // merge leaves the source alone
+    }
+
+    /**
+     * The value the digest returns must sit at a rank close to the one asked for: within 0.5% in
+     * the middle and 0.1% in the outer tails (compression 100).
+     */
+    private static void assertRankError(TDigest d, double[] values) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        for (double q : QUANTILES) {
+            double estimate = d.quantile(q);
+            int below = lowerBound(sorted, estimate);
+            double rank = (double) below / sorted.length;
+            double allowed = q < 0.01 || q > 0.99 ? 0.001 : 0.005;
+            assertEquals(q, rank, allowed, "rank of the estimated p" + q * 100);
+        }
+        assertEquals(sorted[0], d.quantile(0));
+        assertEquals(sorted[sorted.length - 1], d.quantile(1));
+    }
+
+    private static int lowerBound(double[] sorted, double v) {
+        int i = Arrays.binarySearch(sorted, v);
+        if (i < 0) return -i - 1;
+        while (i > 0 && sorted[i - 1] == v) i--;
+        return i;
+    }
+}
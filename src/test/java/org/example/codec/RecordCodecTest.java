@@ -0,0 +1,110 @@
+package org.example.codec;
+
+import org.example.model.Person;
+import org.example.model.Property;
+import org.example.model.PropertyImage;
+import org.example.model.SuccessfulDeal;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RecordCodecTest {
+
+    public record Everything(long l, int i, double d, boolean b, Long boxedLong, Integer boxedInt,
+                             Double boxedDouble, Boolean boxedBoolean, String s, BigDecimal decimal,
+                             LocalDate date, byte[] bytes) {}
+
+    public record Unsupported(List<String> names) {}
+
+    private static <R extends Record> R roundTrip(R r) {
+        @SuppressWarnings("unchecked")
+        RecordCodec<R> codec = RecordCodec.of((Class<R>) r.getClass());
+        return codec.fromBytes(codec.toBytes(r));
+    }
+
+    @Test
+    void modelRecordsRoundTrip() {
+        Property p = new Property(9_000_000_001L, new BigDecimal("249999.99"), new BigDecimal("84.5"),
+                42.6977, 23.3219, "Sofia", "apartment", 17L);
+        assertEquals(p, roundTrip(p));
+
+        Property bare = new Property(1, new BigDecimal("1"), null, null, null, null, "garage", null);
+        assertEquals(bare, roundTrip(bare));
+
+        SuccessfulDeal d = new SuccessfulDeal(5, LocalDate.of(1969, 12, 31), 6, new BigDecimal("-0.001"), 7, 8);
+        assertEquals(d, roundTrip(d));
+
+        Person person = new Person(3, "Ана", "Иванова", "ana@example.org", "");
+        assertEquals(person, roundTrip(person));
+    }
+
+    @Test
+    void byteArraysRoundTrip() {
+        PropertyImage img = new PropertyImage(1, 2, new byte[]{0, -1, 127, -128}, "https://example.org/1.jpg");
+        PropertyImage back = roundTrip(img);
+        assertArrayEquals(img.imageData(), back.imageData());
+        assertEquals(img.imageUrl(), back.imageUrl());
+
+        PropertyImage none = roundTrip(new PropertyImage(1, 2, null, null));
+        assertNull(none.imageData());
+        assertNull(none.imageUrl());
+    }
+
+    @Test
+    void everyKindAtItsLimits() {
+        Everything max = new Everything(Long.MAX_VALUE, Integer.MIN_VALUE, -0.0, true, Long.MIN_VALUE,
+                Integer.MAX_VALUE, Double.NaN, false, "\u0000😀",
+                new BigDecimal("123456789012345678901234567890.000000001"), LocalDate.MIN, new byte[0]);
+        Everything back = roundTrip(max);
+        assertEquals(max.l(), back.l());
+        assertEquals(max.i(), back.i());
+        assertEquals(Double.doubleToRawLongBits(max.d()), Double.doubleToRawLongBits(back.d()));
+        assertEquals(max.b(), back.b());
+        assertEquals(max.boxedLong(), back.boxedLong());
+        assertEquals(max.boxedInt(), back.boxedInt());
+        assertEquals(max.boxedDouble(), back.boxedDouble());
+        assertEquals(max.boxedBoolean(), back.boxedBoolean());
+        assertEquals(max.s(), back.s());
+        assertEquals(max.decimal(), back.decimal());     // same scale, so equals holds
+        assertEquals(max.date(), back.date());
+        assertArrayEquals(max.bytes(), back.bytes());
+
+        Everything nulls = roundTrip(new Everything(0, 0, 0, false, null, null, null, null, null, null, null, null));
+        assertNull(nulls.boxedLong());
+        assertNull(nulls.boxedInt());
+        assertNull(nulls.boxedDouble());
+        assertNull(nulls.boxedBoolean());
+        assertNull(nulls.s());
+        assertNull(nulls.decimal());
+        assertNull(nulls.date());
+        assertNull(nulls.bytes());
+    }
+
+    @Test
+    void recordsFollowEachOtherInOneStream() {
+        RecordCodec<SuccessfulDeal> codec = RecordCodec.of(SuccessfulDeal.class);
+        BinaryWriter out = new BinaryWriter(16);
+        for (int i = 0; i < 1_000; i++) {
+            codec.encode(new SuccessfulDeal(i, LocalDate.of(2024, 1, 1).plusDays(i), i * 3L,
+                    BigDecimal.valueOf(i * 1_000L, 2), -i, i), out);
+        }
+        BinaryReader in = new BinaryReader(out.toByteArray());
+        for (int i = 0; i < 1_000; i++) {
+            assertEquals(new SuccessfulDeal(i, LocalDate.of(2024, 1, 1).plusDays(i), i * 3L,
+                    BigDecimal.valueOf(i * 1_000L, 2), -i, i), codec.decode(in));
+        }
+        assertEquals(out.size(), in.position());
+    }
+
+    @Test
+    void rejectsUnsupportedComponents() {
+        assertThrows(IllegalArgumentException.class, () -> RecordCodec.of(Unsupported.class));
+    }
+}
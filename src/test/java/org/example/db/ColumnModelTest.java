@@ -0,0 +1,139 @@
+package org.example.db;
+
+import org.example.db.ColumnModel.Kind;
+import org.example.db.ColumnModel.Sql;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ColumnModelTest {
+
+    record Row(long id, String city, BigDecimal price) {}
+
+    private static final ColumnModel<Row> MODEL = new ColumnModel<Row>("t", "id, city, price", "id", Row::id)
+            .add("id", "id", Kind.INTEGER, false, Row::id)
+            .add("city", "city", Kind.TEXT, false, Row::city)
+            .add("price", "price", Kind.DECIMAL, true, Row::price);
+
+    /** Ties and nulls spread over the key range, in no particular order. */
+    private static List<Row> rows() {
+        List<Row> rows = new ArrayList<>();
+        String[] prices = {"300", null, "100", "200", null, "100", "300", "250", null, "100", "200", "50", null};
+        for (int i = 0; i < prices.length; i++) {
+            rows.add(new Row(i + 1, i % 2 == 0 ? "Sofia" : "Varna", prices[i] == null ? null : new BigDecimal(prices[i])));
+        }
+        Collections.shuffle(rows, new Random(5));
+        return rows;
+    }
+
+    private static List<Long> ids(List<Row> rows) {
+        return rows.stream().map(Row::id).toList();
+    }
+
+    /** Every page read by keyset after the last row of the one before. */
+    private static List<Row> walk(List<Row> rows, RowQuery q, int pageSize) {
+        List<Row> out = new ArrayList<>();
+        Row after = null;
+        while (true) {
+            List<Row> page = MODEL.findPage(rows, q, after, 0, pageSize);
+            out.addAll(page);
+            if (page.size() < pageSize) return out;
+            after = page.get(page.size() - 1);
+        }
+    }
+
+    @Test
+    void nullsComeLastAscendingAndFirstDescending() {
+        RowQuery asc = new RowQuery(List.of(), new RowQuery.Sort("price", false));
+        RowQuery desc = new RowQuery(List.of(), new RowQuery.Sort("price", true));
+
+        assertEquals(List.of(12L, 3L, 6L, 10L, 4L, 11L, 8L, 1L, 7L, 2L, 5L, 9L, 13L), ids(MODEL.findAll(rows(), asc)));
+        assertEquals(List.of(13L, 9L, 5L, 2L, 7L, 1L, 8L, 11L, 4L, 10L, 6L, 3L, 12L), ids(MODEL.findAll(rows(), desc)));
+    }
+
+    @Test
+    void keysetPagesOverANullableColumnMatchTheFullOrder() {
+        for (boolean descending : new boolean[]{false, true}) {
+            RowQuery q = new RowQuery(List.of(), new RowQuery.Sort("price", descending));
+            List<Row> all = MODEL.findAll(rows(), q);
+            // page sizes that end pages inside a run of ties, on the last value and inside the nulls
+            for (int size = 1; size <= all.size() + 1; size++) {
+                assertEquals(ids(all), ids(walk(rows(), q, size)), "descending " + descending + ", page " + size);
+            }
+        }
+    }
+
+    @Test
+    void keysetPagesInKeyOrderAndWithFilters() {
+        List<Row> rows = rows();
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L, 11L, 12L, 13L), ids(walk(rows, RowQuery.ALL, 4)));
+
+        RowQuery sofiaDesc = new RowQuery(List.of(MODEL.filter("city", "Sofia")), new RowQuery.Sort("id", true));
+        assertEquals(List.of(13L, 11L, 9L, 7L, 5L, 3L, 1L), ids(walk(rows, sofiaDesc, 2)));
+
+        // a filter on the sort column drops the nulls, as in SQL
+        RowQuery cheap = new RowQuery(List.of(MODEL.filter("price", "<=200")), new RowQuery.Sort("price", true));
+        assertEquals(List.of(11L, 4L, 10L, 6L, 3L, 12L), ids(walk(rows, cheap, 4)));
+    }
+
+    @Test
+    void skipBridgesUnloadedPages() {
+        RowQuery q = new RowQuery(List.of(), new RowQuery.Sort("price", true));
+        List<Row> all = MODEL.findAll(rows(), q);
+        assertEquals(ids(all.subList(5, 8)), ids(MODEL.findPage(rows(), q, all.get(1), 3, 3)));
+    }
+
+    @Test
+    void sqlKeysetAfterANonNullValue() {
+        Row row = new Row(7, "Sofia", new BigDecimal("300"));
+
+        List<Sql> asc = MODEL.after(new RowQuery.Sort("price", false), row);
+        assertEquals(2, asc.size());
+        assertEquals(new Sql("(price, id) > (?, ?)", List.of(new BigDecimal("300"), 7L)), asc.get(0));
+        assertEquals(new Sql("price IS NULL", List.of()), asc.get(1));
+
+        // descending, the nulls came first and are behind us
+        List<Sql> desc = MODEL.after(new RowQuery.Sort("price", true), row);
+        assertEquals(List.of(new Sql("(price, id) < (?, ?)", List.of(new BigDecimal("300"), 7L))), desc);
+    }
+
+    @Test
+    void sqlKeysetAfterANull() {
+        Row row = new Row(5, "Varna", null);
+
+        // ascending, only more nulls can follow
+        assertEquals(List.of(new Sql("price IS NULL AND id > ?", List.of(5L))),
+                MODEL.after(new RowQuery.Sort("price", false), row));
+
+        List<Sql> desc = MODEL.after(new RowQuery.Sort("price", true), row);
+        assertEquals(2, desc.size());
+        assertEquals(new Sql("price IS NULL AND id < ?", List.of(5L)), desc.get(0));
+        assertEquals(new Sql("price IS NOT NULL", List.of()), desc.get(1));
+    }
+
+    @Test
+    void sqlKeysetOnKeyAndNotNullColumns() {
+        Row row = new Row(4, "Sofia", null);
+        assertEquals(List.of(new Sql("id > ?", List.of(4L))), MODEL.after(null, row));
+        assertEquals(List.of(new Sql("id < ?", List.of(4L))), MODEL.after(new RowQuery.Sort("id", true), row));
+        assertEquals(List.of(new Sql("(city, id) > (?, ?)", List.of("Sofia", 4L))),
+                MODEL.after(new RowQuery.Sort("city", false), row));
+    }
+
+    @Test
+    void unknownColumnsAndBadValuesAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> MODEL.filter("owner; DROP TABLE t", "1"));
+        assertThrows(IllegalArgumentException.class, () -> MODEL.filter("price", ">abc"));
+        RowQuery.Filter k = MODEL.filter("price", ">= 250k");
+        assertEquals(RowQuery.Op.GE, k.op());
+        assertEquals(0, new BigDecimal("250000").compareTo((BigDecimal) k.value()));
+        assertEquals(new RowQuery.Filter("city", RowQuery.Op.PREFIX, "So"), MODEL.filter("city", "So*"));
+    }
+}
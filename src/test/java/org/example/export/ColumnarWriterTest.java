@@ -0,0 +1,98 @@
+package org.example.export;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ColumnarWriterTest {
+
+    private static final String[] LABELS = {"id", "lat", "price", "deal_date", "is_sold", "city"};
+    private static final int[] TYPES = {Types.BIGINT, Types.DOUBLE, Types.NUMERIC, Types.DATE, Types.BOOLEAN, Types.VARCHAR};
+
+    @TempDir
+    Path dir;
+
+    private Path write(List<Object[]> rows) throws Exception {
+        Path file = dir.resolve("t.col");
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            new Rows(LABELS, TYPES, rows).writeTo(new ColumnarWriter(ch));
+        }
+        return file;
+    }
+
+    private static List<Object[]> read(ColumnarReader reader) {
+        List<Object[]> out = new ArrayList<>();
+        reader.forEachRow(row -> out.add(row.clone()));
+        return out;
+    }
+
+    private static void assertRows(List<Object[]> expected, List<Object[]> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertArrayEquals(expected.get(i), actual.get(i), "row " + i);
+        }
+    }
+
+    @Test
+    void everyTypeAndNullReadsBack() throws Exception {
+        List<Object[]> rows = List.of(
+                new Object[]{7L, 42.6977, new BigDecimal("125000.50"), LocalDate.of(2024, 2, 29), true, "Sofia"},
+                new Object[]{null, null, null, null, null, null},
+                new Object[]{-3L, -0.5, new BigDecimal("-1E+3"), LocalDate.of(1969, 12, 31), false, ""},
+                new Object[]{Long.MAX_VALUE, Double.NaN, new BigDecimal("123456789012345678901234567890.123"),
+                        LocalDate.of(2100, 1, 1), false, "Пловдив, \"център\"\n"});
+
+        ColumnarReader reader = ColumnarReader.open(write(rows));
+
+        assertArrayEquals(LABELS, reader.columnNames());
+        assertEquals(4, reader.rowCount());
+        assertRows(rows, read(reader));
+    }
+
+    @Test
+    void rowsSpanSeveralGroups() throws Exception {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < ColumnarWriter.ROW_GROUP_SIZE * 2 + 10; i++) {
+            rows.add(new Object[]{i % 5 == 0 ? null : (long) i * 3, (double) i, BigDecimal.valueOf(i, 2),
+                    LocalDate.of(2024, 1, 1).plusDays(i % 400), i % 2 == 0, "c" + i % 7});
+        }
+
+        ColumnarReader reader = ColumnarReader.open(write(rows));
+
+        assertEquals(rows.size(), reader.rowCount());
+        assertRows(rows, read(reader));
+    }
+
+    @Test
+    void anEmptyResultHasOnlyTheHeader() throws Exception {
+        ColumnarReader reader = ColumnarReader.open(write(List.of()));
+
+        assertArrayEquals(LABELS, reader.columnNames());
+        assertEquals(0, reader.rowCount());
+        assertEquals(List.of(), read(reader));
+    }
+
+    @Test
+    void truncatedFilesAreRefused() throws Exception {
+        Path file = write(List.<Object[]>of(new Object[]{1L, 1.0, BigDecimal.ONE, LocalDate.of(2024, 1, 1), true, "x"}));
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 3));
+
+        assertThrows(IOException.class, () -> ColumnarReader.open(file));
+    }
+}
@@ -0,0 +1,54 @@
+package org.example.export;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CsvSinkTest {
+
+    private static String csv(String[] labels, List<Object[]> rows) throws Exception {
+        int[] types = new int[labels.length];
+        Arrays.fill(types, Types.VARCHAR);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new Rows(labels, types, rows).writeTo(new CsvSink(Channels.newChannel(bytes)));
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void plainFieldsAreNotQuoted() throws Exception {
+        assertEquals("id,city\n1,Sofia\n2,Стара Загора\n",
+                csv(new String[]{"id", "city"}, List.of(new Object[]{1L, "Sofia"}, new Object[]{2L, "Стара Загора"})));
+    }
+
+    @Test
+    void nullIsEmptyAndTheEmptyStringIsQuoted() throws Exception {
+        assertEquals("a,b\n,\"\"\n", csv(new String[]{"a", "b"}, List.<Object[]>of(new Object[]{null, ""})));
+    }
+
+    @Test
+    void separatorsQuotesAndLineBreaksAreQuoted() throws Exception {
+        assertEquals("notes\n\"a, b\"\n\"say \"\"hi\"\"\"\n\"line 1\nline 2\"\n\"cr\r\"\n",
+                csv(new String[]{"notes"}, List.of(new Object[]{"a, b"}, new Object[]{"say \"hi\""},
+                        new Object[]{"line 1\nline 2"}, new Object[]{"cr\r"})));
+    }
+
+    @Test
+    void headersAreQuotedLikeValues() throws Exception {
+        assertEquals("\"a,b\",c\n", csv(new String[]{"a,b", "c"}, List.of()));
+    }
+
+    @Test
+    void fieldsLargerThanTheBufferAreWrittenWhole() throws Exception {
+        String big = "x".repeat(200_000);
+
+        assertEquals("a,b\n1," + big + "\n2,y\n",
+                csv(new String[]{"a", "b"}, List.of(new Object[]{1L, big}, new Object[]{2L, "y"})));
+    }
+}
@@ -0,0 +1,62 @@
+package org.example.export;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.time.LocalDate;
+import java.util.List;
+
+/** An in-memory ResultSet for the sinks, holding only what they call. Values are given in Java types. */
+final class Rows {
+
+    private final String[] labels;
+    private final int[] types;
+    private final List<Object[]> rows;
+    private int current = -1;
+    private boolean wasNull;
+
+    Rows(String[] labels, int[] types, List<Object[]> rows) {
+        this.labels = labels;
+        this.types = types;
+        this.rows = rows;
+    }
+
+    ResultSetMetaData metaData() {
+        return (ResultSetMetaData) Proxy.newProxyInstance(Rows.class.getClassLoader(),
+                new Class<?>[]{ResultSetMetaData.class}, (proxy, m, args) -> switch (m.getName()) {
+                    case "getColumnCount" -> labels.length;
+                    case "getColumnLabel" -> labels[(Integer) args[0] - 1];
+                    case "getColumnType" -> types[(Integer) args[0] - 1];
+                    default -> throw new UnsupportedOperationException(m.getName());
+                });
+    }
+
+    /** Writes the header and every row to the sink, then closes it. */
+    void writeTo(RowSink sink) throws Exception {
+        ResultSet rs = resultSet();
+        sink.begin(metaData());
+        while (rs.next()) sink.row(rs);
+        sink.close();
+    }
+
+    private ResultSet resultSet() {
+        return (ResultSet) Proxy.newProxyInstance(Rows.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class}, (proxy, m, args) -> {
+                    if (m.getName().equals("next")) return ++current < rows.size();
+                    if (m.getName().equals("wasNull")) return wasNull;
+                    Object v = rows.get(current)[(Integer) args[0] - 1];
+                    wasNull = v == null;
+                    return switch (m.getName()) {
+                        case "getLong" -> v == null ? 0L : ((Number) v).longValue();
+                        case "getDouble" -> v == null ? 0.0 : ((Number) v).doubleValue();
+                        case "getBoolean" -> v != null && (Boolean) v;
+                        case "getBigDecimal" -> (BigDecimal) v;
+                        case "getDate" -> v == null ? null : Date.valueOf((LocalDate) v);
+                        case "getString" -> v == null ? null : v.toString();
+                        default -> throw new UnsupportedOperationException(m.getName());
+                    };
+                });
+    }
+}
@@ -0,0 +1,84 @@
+package org.example.importer;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CsvTest {
+
+    private static List<List<String>> records(String text) throws IOException {
+        Csv csv = new Csv(new StringReader(text));
+        List<List<String>> out = new ArrayList<>();
+        String[] r;
+        while ((r = csv.next()) != null) out.add(Arrays.asList(r));
+        return out;
+    }
+
+    private static List<String> fields(String... values) {
+        return Arrays.asList(values);
+    }
+
+    @Test
+    void plainRecords() throws IOException {
+        assertEquals(List.of(fields("a", "b"), fields("1", "2")), records("a,b\n1,2\n"));
+        assertEquals(List.of(fields("1", "2")), records("1,2"));
+    }
+
+    @Test
+    void anUnquotedEmptyFieldIsNullAndQuotesMakeAnEmptyString() throws IOException {
+        assertEquals(List.of(fields(null, "", null)), records(",\"\",\n"));
+    }
+
+    @Test
+    void quotedFieldsHoldSeparatorsQuotesAndLineBreaks() throws IOException {
+        assertEquals(List.of(fields("a, b", "say \"hi\"", "line 1\nline 2\r\nline 3"), fields("next")),
+                records("\"a, b\",\"say \"\"hi\"\"\",\"line 1\nline 2\r\nline 3\"\nnext\n"));
+    }
+
+    @Test
+    void crlfEndsARecord() throws IOException {
+        assertEquals(List.of(fields("a", "b"), fields("c", "d")), records("a,b\r\nc,d\r\n"));
+    }
+
+    @Test
+    void aBlankLineIsOneNullField() throws IOException {
+        assertEquals(List.of(fields("a"), fields((String) null), fields("b")), records("a\n\nb\n"));
+    }
+
+    @Test
+    void textAfterAClosingQuoteIsKept() throws IOException {
+        assertEquals(List.of(fields("ab c", "d")), records("\"ab\" c,d\n"));
+    }
+
+    @Test
+    void anUnterminatedQuoteFails() {
+        assertThrows(IOException.class, () -> records("a,\"open\n"));
+    }
+
+    @Test
+    void fieldsMayCrossTheReadBuffer() throws IOException {
+        String big = "x".repeat(100_000) + ",\"" + "y".repeat(100_000);
+
+        assertEquals(List.of(fields("x".repeat(100_000), "y".repeat(100_000) + "\n"), fields("z")),
+                records(big + "\n\"\nz\n"));
+    }
+
+    @Test
+    void appendFieldWritesWhatNextReads() throws IOException {
+        String[] values = {"plain", null, "", "a,b", "q\"q", "two\nlines", "cr\r"};
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) line.append(',');
+            Csv.appendField(line, values[i]);
+        }
+
+        assertEquals(List.of(Arrays.asList(values)), records(line + "\n"));
+    }
+}
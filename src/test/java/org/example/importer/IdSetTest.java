@@ -0,0 +1,100 @@
+package org.example.importer;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IdSetTest {
+
+    /** A connection whose every query returns the ids first, first + step, ... (count of them). */
+    private static Connection connection(long first, long step, int count) {
+        int[] row = {-1};
+        ResultSet rs = (ResultSet) Proxy.newProxyInstance(IdSetTest.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class}, (proxy, m, args) -> switch (m.getName()) {
+                    case "next" -> ++row[0] < count;
+                    case "getLong" -> first + row[0] * step;
+                    case "close" -> null;
+                    default -> throw new UnsupportedOperationException(m.getName());
+                });
+        PreparedStatement ps = (PreparedStatement) Proxy.newProxyInstance(IdSetTest.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, (proxy, m, args) -> switch (m.getName()) {
+                    case "executeQuery" -> rs;
+                    case "setFetchSize", "close" -> null;
+                    default -> throw new UnsupportedOperationException(m.getName());
+                });
+        boolean[] autoCommit = {true};
+        return (Connection) Proxy.newProxyInstance(IdSetTest.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, m, args) -> switch (m.getName()) {
+                    case "prepareStatement" -> ps;
+                    case "getAutoCommit" -> autoCommit[0];
+                    case "setAutoCommit" -> {
+                        autoCommit[0] = (Boolean) args[0];
+                        yield null;
+                    }
+                    case "rollback" -> null;
+                    default -> throw new UnsupportedOperationException(m.getName());
+                });
+    }
+
+    @Test
+    void loadGrowsPastItsFirstBuffer() throws SQLException {
+        Connection c = connection(1, 1, 5_000);
+
+        IdSet ids = IdSet.load(c, "SELECT person_id FROM person");
+
+        assertEquals(5_000, ids.size());
+        assertTrue(ids.contains(1));
+        assertTrue(ids.contains(1_025));
+        assertTrue(ids.contains(5_000));
+        assertFalse(ids.contains(0));
+        assertFalse(ids.contains(5_001));
+        assertTrue(c.getAutoCommit());
+    }
+
+    @Test
+    void sparseIdsLoadToo() throws SQLException {
+        IdSet ids = IdSet.load(connection(-1_000_000_000L, 1_000_003, 3_000), "SELECT 1");
+
+        assertEquals(3_000, ids.size());
+        assertTrue(ids.contains(-1_000_000_000L + 2_999L * 1_000_003));
+        assertFalse(ids.contains(-1_000_000_000L + 1));
+    }
+
+    @Test
+    void denseIdsAreCountedOnce() {
+        IdSet ids = IdSet.of(new long[]{7, 3, 5, 3, 100, 7});
+
+        assertEquals(4, ids.size());
+        for (long id : new long[]{3, 5, 7, 100}) assertTrue(ids.contains(id));
+        for (long id : new long[]{-1, 2, 4, 6, 99, 101, 64 + 3, Long.MIN_VALUE, Long.MAX_VALUE}) {
+            assertFalse(ids.contains(id), "id " + id);
+        }
+    }
+
+    @Test
+    void sparseIdsUseTheSortedArray() {
+        IdSet ids = IdSet.of(new long[]{Long.MAX_VALUE, 1, Long.MIN_VALUE, 1L << 40});
+
+        assertEquals(4, ids.size());
+        assertTrue(ids.contains(Long.MIN_VALUE));
+        assertTrue(ids.contains(Long.MAX_VALUE));
+        assertTrue(ids.contains(1L << 40));
+        assertFalse(ids.contains(0));
+    }
+
+    @Test
+    void anEmptySetContainsNothing() {
+        IdSet ids = IdSet.of(new long[0]);
+
+        assertEquals(0, ids.size());
+        assertFalse(ids.contains(0));
+    }
+}
@@ -0,0 +1,146 @@
+package org.example.importer;
+
+import org.example.importer.ImportTable.Ref;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RowValidatorTest {
+
+    private static Map<Ref, IdSet> ids() {
+        Map<Ref, IdSet> ids = new EnumMap<>(Ref.class);
+        ids.put(Ref.PERSON, IdSet.of(new long[]{1, 2, 3, 4}));
+        ids.put(Ref.CLIENT, IdSet.of(new long[]{2}));
+        ids.put(Ref.AGENT, IdSet.of(new long[]{3}));
+        ids.put(Ref.PROPERTY, IdSet.of(new long[]{10}));
+        return ids;
+    }
+
+    private static RowValidator validator(ImportTable table, String... header) {
+        return new RowValidator(table, table.columnsFor(header), ids());
+    }
+
+    private static Batch.Row check(RowValidator v, String... fields) throws SQLException {
+        Batch.Row row = new Batch.Row(1, fields);
+        v.check(row);
+        return row;
+    }
+
+    private static String reason(RowValidator v, String... fields) throws SQLException {
+        Batch.Row row = check(v, fields);
+        assertTrue(row.rejected(), () -> "accepted " + Arrays.toString(row.values));
+        assertNull(row.values);
+        return row.reason;
+    }
+
+    private static final String[] PROPERTY_HEADER =
+            {"price", "square_meters", "latitude", "longitude", "city", "property_type", "owner_id", "is_sold"};
+
+    @Test
+    void aValidRowIsTyped() throws SQLException {
+        Batch.Row row = check(validator(ImportTable.PROPERTY, PROPERTY_HEADER),
+                "125000.50", " 80 ", "42.69", "23.32", "Sofia", "apartment", "1", "f");
+
+        assertFalse(row.rejected());
+        assertEquals(Arrays.asList(new BigDecimal("125000.50"), new BigDecimal("80"), 42.69, 23.32, "Sofia",
+                "apartment", 1L, false), Arrays.asList(row.values));
+    }
+
+    @Test
+    void emptyValuesAreNullUnlessTheColumnIsText() throws SQLException {
+        Batch.Row row = check(validator(ImportTable.PROPERTY, PROPERTY_HEADER),
+                " ", null, "", "", " ", null, null, "no");
+
+        assertFalse(row.rejected());
+        assertEquals(Arrays.asList(null, null, null, null, " ", null, null, false), Arrays.asList(row.values));
+    }
+
+    @Test
+    void theFieldCountMustMatchTheHeader() throws SQLException {
+        assertEquals("expected 8 fields, got 2", reason(validator(ImportTable.PROPERTY, PROPERTY_HEADER), "1", "2"));
+    }
+
+    @Test
+    void notNullColumnsMustHaveAValue() throws SQLException {
+        RowValidator v = validator(ImportTable.PROPERTY, PROPERTY_HEADER);
+
+        assertEquals("is_sold is required", reason(v, "1", "1", "1", "1", "Sofia", "house", "1", " "));
+    }
+
+    @Test
+    void unreadableValuesNameTheirKind() throws SQLException {
+        RowValidator v = validator(ImportTable.PROPERTY, PROPERTY_HEADER);
+
+        assertEquals("price: cannot read '12k' as numeric", reason(v, "12k", "1", "1", "1", "S", "house", "1", "t"));
+        assertEquals("owner_id: cannot read '1.5' as bigint", reason(v, "1", "1", "1", "1", "S", "house", "1.5", "t"));
+        assertEquals("is_sold: cannot read 'maybe' as boolean", reason(v, "1", "1", "1", "1", "S", "house", "1", "maybe"));
+        assertEquals("hire_date: cannot read '2024-02-30' as date",
+                reason(validator(ImportTable.AGENT, "person_id", "hire_date"), "3", "2024-02-30"));
+    }
+
+    @Test
+    void booleansTakePostgresSpellings() throws SQLException {
+        RowValidator v = validator(ImportTable.PROPERTY, "is_sold");
+        for (String yes : new String[]{"t", "TRUE", "y", "yes", "on", "1"}) assertEquals(true, check(v, yes).values[0]);
+        for (String no : new String[]{"f", "False", "n", "NO", "off", "0"}) assertEquals(false, check(v, no).values[0]);
+    }
+
+    @Test
+    void textLengthCountsCodePoints() throws SQLException {
+        RowValidator v = validator(ImportTable.PROPERTY, "city");
+
+        assertFalse(check(v, "Стара Загора").rejected());
+        assertFalse(check(v, "🏠".repeat(20)).rejected());
+        assertEquals("city is longer than 20 characters", reason(v, "x".repeat(21)));
+    }
+
+    @Test
+    void enumeratedTextMustBeAllowed() throws SQLException {
+        assertEquals("property_type must be one of [garage, house, apartment]",
+                reason(validator(ImportTable.PROPERTY, "property_type"), "villa"));
+    }
+
+    @Test
+    void coordinatesMustBeFiniteAndInRange() throws SQLException {
+        RowValidator v = validator(ImportTable.PROPERTY, "latitude", "longitude");
+
+        assertFalse(check(v, "-90", "180").rejected());
+        assertEquals("latitude must be between -90.0 and 90.0", reason(v, "90.5", "0"));
+        assertEquals("longitude must be between -180.0 and 180.0", reason(v, "0", "NaN"));
+    }
+
+    @Test
+    void referencesMustExist() throws SQLException {
+        RowValidator v = validator(ImportTable.PREFERENCES, "client_id", "preference_type");
+
+        assertFalse(check(v, "2", "garden").rejected());
+        assertEquals("client_id 3 does not exist in client", reason(v, "3", "garden"));
+        assertEquals("client_id is required", reason(v, "", "garden"));
+    }
+
+    @Test
+    void naturalKeysMustBeNewAndUniqueInTheFile() throws SQLException {
+        RowValidator v = validator(ImportTable.CLIENT, "person_id", "budget");
+
+        assertEquals("duplicate person_id 2", reason(v, "2", "1000"));
+        assertFalse(check(v, "1", "1000").rejected());
+        assertEquals("duplicate person_id 1", reason(v, "1", "2000"));
+    }
+
+    @Test
+    void headersMustNameKnownColumnsOnce() {
+        assertThrows(IllegalArgumentException.class, () -> ImportTable.PROPERTY.columnsFor(new String[]{"property_id"}));
+        assertThrows(IllegalArgumentException.class, () -> ImportTable.PROPERTY.columnsFor(new String[]{"city", "City"}));
+        assertThrows(IllegalArgumentException.class, () -> ImportTable.CLIENT.columnsFor(new String[]{"budget"}));
+    }
+}
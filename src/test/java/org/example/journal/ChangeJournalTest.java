@@ -0,0 +1,167 @@
+package org.example.journal;
+
+import org.example.model.Person;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChangeJournalTest {
+
+    private static final int SEGMENT_BYTES = 4_096;
+
+    @TempDir
+    Path dir;
+
+    private ChangeJournal open() throws IOException {
+        return ChangeJournal.open(dir, SEGMENT_BYTES, 10);
+    }
+
+    private static Person person(long id) {
+        return new Person(id, "First" + id, "Last" + id, "p" + id + "@example.org", null);
+    }
+
+    private List<ChangeRecord> readAll() throws IOException {
+        List<ChangeRecord> out = new ArrayList<>();
+        try (JournalReader r = JournalReader.open(dir, 0)) {
+            for (ChangeRecord c; (c = r.poll()) != null; ) out.add(c);
+        }
+        return out;
+    }
+
+    @Test
+    void appendsReadBackInOrder() throws IOException {
+        try (ChangeJournal j = open()) {
+            j.append(ChangeType.INSERT, "person", 1, person(1));
+            j.append(ChangeType.UPDATE, "person", 1, person(1));
+            j.append(ChangeType.DELETE, "person", 1, null);
+        }
+        List<ChangeRecord> all = readAll();
+        assertEquals(3, all.size());
+        assertEquals(List.of(ChangeType.INSERT, ChangeType.UPDATE, ChangeType.DELETE),
+                all.stream().map(ChangeRecord::type).toList());
+        assertEquals(person(1), all.get(0).row(Person.class));
+        assertNull(all.get(2).row(Person.class));
+        assertEquals("person", all.get(2).table());
+        assertEquals(all.get(0).nextOffset(), all.get(1).offset());
+    }
+
+    @Test
+    void reopenContinuesAfterTheLastRecord() throws IOException {
+        long end;
+        try (ChangeJournal j = open()) {
+            for (long i = 0; i < 10; i++) j.append(ChangeType.INSERT, "person", i, person(i));
+            end = j.endOffset();
+        }
+        try (ChangeJournal j = open()) {
+            assertEquals(end, j.endOffset());
+            j.append(ChangeType.INSERT, "person", 10, person(10));
+        }
+        List<ChangeRecord> all = readAll();
+        assertEquals(11, all.size());
+        for (int i = 0; i < all.size(); i++) assertEquals(i, all.get(i).key());
+    }
+
+    @Test
+    void recordsSpanSegments() throws IOException {
+        try (ChangeJournal j = open()) {
+            for (long i = 0; i < 500; i++) j.append(ChangeType.INSERT, "person", i, person(i));
+            assertTrue(j.endOffset() > 2L * SEGMENT_BYTES);
+        }
+        assertTrue(Segments.bases(dir).size() > 2);
+        List<ChangeRecord> all = readAll();
+        assertEquals(500, all.size());
+        assertEquals(person(499), all.get(499).row(Person.class));
+
+        // a reader resumes from any record's nextOffset, in another segment or not
+        try (JournalReader r = JournalReader.open(dir, all.get(250).nextOffset())) {
+            assertEquals(251, r.poll().key());
+        }
+    }
+
+    @Test
+    void aFrameWithABadCrcIsClearedOnReopen() throws IOException {
+        try (ChangeJournal j = open()) {
+            for (long i = 0; i < 5; i++) j.append(ChangeType.INSERT, "person", i, person(i));
+        }
+        ChangeRecord last = readAll().get(4);
+        // flip a byte in the last record's body, as a crash between the body and its flush would
+        overwrite(last.offset() + Segments.FRAME_HEADER + 10, new byte[]{(byte) 0xFF});
+
+        List<ChangeRecord> before = readAll();
+        assertEquals(4, before.size());         // a reader stops at the bad frame
+
+        try (ChangeJournal j = open()) {
+            assertEquals(last.offset(), j.endOffset());
+            j.append(ChangeType.INSERT, "person", 99, person(99));
+        }
+        List<ChangeRecord> after = readAll();
+        assertEquals(5, after.size());
+        assertEquals(99, after.get(4).key());
+    }
+
+    @Test
+    void aTornTailIsClearedOnReopen() throws IOException {
+        long end;
+        try (ChangeJournal j = open()) {
+            for (long i = 0; i < 3; i++) j.append(ChangeType.INSERT, "person", i, person(i));
+            end = j.endOffset();
+        }
+        // a length and part of a body, the rest never written: the crc no longer matches
+        ByteBuffer frame = ByteBuffer.allocate(Segments.FRAME_HEADER + 6);
+        frame.putInt(200).putInt(12345).put(new byte[]{1, 2, 3, 4, 5, 6});
+        overwrite(end, frame.array());
+
+        try (ChangeJournal j = open()) {
+            assertEquals(end, j.endOffset());
+            j.append(ChangeType.UPDATE, "person", 3, person(3));
+        }
+        List<ChangeRecord> all = readAll();
+        assertEquals(4, all.size());
+        assertEquals(ChangeType.UPDATE, all.get(3).type());
+        assertEquals(person(3), all.get(3).row(Person.class));
+    }
+
+    @Test
+    void aLengthPastTheSegmentEndIsCleared() throws IOException {
+        long end;
+        try (ChangeJournal j = open()) {
+            j.append(ChangeType.INSERT, "person", 1, person(1));
+            end = j.endOffset();
+        }
+        overwrite(end, ByteBuffer.allocate(4).putInt(SEGMENT_BYTES).array());
+
+        try (ChangeJournal j = open()) {
+            assertEquals(end, j.endOffset());
+        }
+        assertEquals(1, readAll().size());
+    }
+
+    @Test
+    void aSecondWriterIsRefusedUntilTheFirstCloses() throws IOException {
+        ChangeJournal first = open();
+        IOException ex = assertThrows(IOException.class, this::open);
+        assertTrue(ex.getMessage().contains("already open"));
+        first.close();
+        open().close();
+    }
+
+    /** Writes bytes into the (single) segment file behind the journal's back. */
+    private void overwrite(long offset, byte[] bytes) throws IOException {
+        try (FileChannel ch = FileChannel.open(Segments.path(dir, 0), StandardOpenOption.WRITE)) {
+            ch.write(ByteBuffer.wrap(bytes), offset);
+            ch.force(true);
+        }
+    }
+}
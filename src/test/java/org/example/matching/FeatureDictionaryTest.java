@@ -0,0 +1,92 @@
+package org.example.matching;
+
+import org.example.model.PropertyProfile;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class FeatureDictionaryTest {
+
+    private static List<String> features(String text) {
+        return new FeatureDictionary().preferenceFeatures(text);
+    }
+
+    private static BigDecimal n(int v) {
+        return BigDecimal.valueOf(v);
+    }
+
+    @Test
+    void roomCountsInDigitsOrWords() {
+        assertEquals(List.of("rooms>=3"), features("3 bedrooms"));
+        assertEquals(List.of("rooms>=2", "type:apartment"), features("Two-bedroom apartment"));
+        assertEquals(List.of("bathrooms>=2"), features("2 bathrooms"));
+        assertEquals(List.of("floors>=2", "type:house"), features("2 storey house"));
+    }
+
+    @Test
+    void countsAreCapped() {
+        assertEquals(List.of("rooms>=" + FeatureDictionary.MAX_ROOMS), features("12 rooms"));
+        assertEquals(List.of("rooms>=" + FeatureDictionary.MAX_ROOMS), features("99999999999 rooms"));
+    }
+
+    @Test
+    void gardenSizesNeedAUnitAndRoundDown() {
+        assertEquals(List.of("garden>=200", "type:house"), features("Garden of 200 sqm"));
+        assertEquals(List.of("garden>=100", "type:house"), features("150 m2 garden"));
+        assertEquals(List.of("rooms>=3", "garden>=1", "type:house"), features("garden, 3 rooms"));
+    }
+
+    @Test
+    void floorsAndTypes() {
+        assertEquals(List.of("floor:high", "type:apartment"), features("top floor flat"));
+        assertEquals(List.of("type:garage"), features("garage"));
+        assertEquals(List.of("type:house"), features("house with garage"));
+    }
+
+    @Test
+    void textIsNormalizedBeforeLookup() {
+        FeatureDictionary d = new FeatureDictionary();
+
+        assertEquals(List.of(), d.preferenceFeatures("  Near Metro "));
+        assertEquals(List.of(), d.preferenceFeatures("near metro"));
+        assertEquals(List.of(), d.preferenceFeatures(null));
+        assertEquals(Set.of("near metro"), d.unknownPreferences());
+    }
+
+    @Test
+    void idsAreDenseAndStable() {
+        FeatureDictionary d = new FeatureDictionary();
+
+        assertEquals(0, d.id("type:house"));
+        assertEquals(1, d.id("rooms>=2"));
+        assertEquals(0, d.id("type:house"));
+        assertEquals("rooms>=2", d.name(1));
+        assertEquals(2, d.size());
+    }
+
+    @Test
+    void citiesDropTheDistrict() {
+        assertEquals("city:sofia", FeatureDictionary.cityFeature("Sofia - Lozenets"));
+        assertEquals("city:plovdiv", FeatureDictionary.cityFeature("Plovdiv (center)"));
+        assertNull(FeatureDictionary.cityFeature(" - "));
+        assertNull(FeatureDictionary.cityFeature(null));
+    }
+
+    @Test
+    void propertiesExpandIntoThresholds() {
+        PropertyProfile flat = new PropertyProfile(1, n(100_000), "Sofia", "Apartment", false,
+                n(0), n(2), null, null, null);
+        assertEquals(List.of("type:apartment", "city:sofia", "rooms>=1", "rooms>=2", "floor:ground", "floor:low"),
+                FeatureDictionary.propertyFeatures(flat));
+
+        PropertyProfile house = new PropertyProfile(2, null, null, "house", false,
+                null, null, n(1), n(2), n(120));
+        assertEquals(List.of("type:house", "bathrooms>=1", "floors>=1", "floors>=2", "garden>=1", "garden>=50",
+                "garden>=100"), FeatureDictionary.propertyFeatures(house));
+    }
+}
@@ -0,0 +1,128 @@
+package org.example.matching;
+
+import org.example.dao.MatchingDao;
+import org.example.model.ClientProfile;
+import org.example.model.PreferenceMatchRow;
+import org.example.model.PropertyProfile;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MatchingEngineTest {
+
+    /** Serves profiles from memory and records the ids of every partial read. */
+    private static final class FakeDao extends MatchingDao {
+        final Map<Long, PropertyProfile> properties = new TreeMap<>();
+        final Map<Long, ClientProfile> clients = new TreeMap<>();
+        final List<List<Long>> propertyReads = new ArrayList<>();
+
+        @Override
+        public List<PropertyProfile> findPropertyProfiles() {
+            return new ArrayList<>(properties.values());
+        }
+
+        @Override
+        public List<PropertyProfile> findPropertyProfiles(Collection<Long> ids) {
+            propertyReads.add(List.copyOf(ids));
+            return ids.stream().filter(properties::containsKey).map(properties::get).toList();
+        }
+
+        @Override
+        public List<ClientProfile> findClientProfiles() {
+            return new ArrayList<>(clients.values());
+        }
+
+        @Override
+        public List<ClientProfile> findClientProfiles(Collection<Long> ids) {
+            return ids.stream().filter(clients::containsKey).map(clients::get).toList();
+        }
+    }
+
+    private static PropertyProfile flat(long id, String city, int rooms, int price, boolean sold) {
+        return new PropertyProfile(id, BigDecimal.valueOf(price), city, "apartment", sold,
+                BigDecimal.valueOf(3), BigDecimal.valueOf(rooms), null, null, null);
+    }
+
+    private static FakeDao dao() {
+        FakeDao dao = new FakeDao();
+        // requires rooms>=2 and city:sofia; "near metro" is not understood and not required
+        dao.clients.put(1L, new ClientProfile(1, BigDecimal.valueOf(200_000), "Sofia - Center",
+                new ArrayList<>(List.of("2 rooms", "near metro"))));
+        dao.properties.put(10L, flat(10, "Sofia", 3, 150_000, false));
+        dao.properties.put(11L, flat(11, "Sofia", 1, 100_000, false));
+        dao.properties.put(12L, flat(12, "Sofia", 3, 250_000, false));
+        dao.properties.put(13L, flat(13, "Varna", 2, 90_000, false));
+        dao.properties.put(14L, flat(14, "Sofia", 4, 180_000, true));
+        return dao;
+    }
+
+    private static List<Long> propertyIds(List<PreferenceMatchRow> rows) {
+        return rows.stream().map(PreferenceMatchRow::propertyId).toList();
+    }
+
+    @Test
+    void scoreIsTheShareOfRequiredFeatures() throws SQLException {
+        MatchingEngine engine = new MatchingEngine(dao());
+
+        List<PreferenceMatchRow> rows = engine.matchesForClient(1, 10);
+
+        // 12 is over budget, 14 is sold
+        assertEquals(List.of(10L, 11L, 13L), propertyIds(rows));
+        assertEquals(List.of(1.0, 0.5, 0.5), rows.stream().map(PreferenceMatchRow::score).toList());
+        assertEquals(2, rows.get(0).required());
+        assertEquals(List.of(10L, 11L), propertyIds(engine.matchesForClient(1, 2)));
+        assertEquals(Set.of("near metro"), engine.unknownPreferences());
+    }
+
+    @Test
+    void soldPropertiesStillFindInterestedClients() throws SQLException {
+        MatchingEngine engine = new MatchingEngine(dao());
+
+        List<PreferenceMatchRow> rows = engine.clientsInterestedIn(14, 10);
+
+        assertEquals(1, rows.size());
+        assertEquals(1L, rows.get(0).clientId());
+        assertEquals(1.0, rows.get(0).score());
+    }
+
+    @Test
+    void changedRowsAreReadTogetherByTheNextQuery() throws SQLException {
+        FakeDao dao = dao();
+        MatchingEngine engine = new MatchingEngine(dao);
+        engine.matchesForClient(1, 10);
+
+        dao.properties.put(11L, flat(11, "Sofia", 2, 100_000, false));
+        dao.properties.remove(13L);
+        engine.propertyChanged(11);
+        engine.propertyChanged(13);
+        List<PreferenceMatchRow> rows = engine.matchesForClient(1, 10);
+
+        assertEquals(List.of(List.of(11L, 13L)), dao.propertyReads);
+        assertEquals(List.of(10L, 11L), propertyIds(rows));
+        assertEquals(1.0, rows.get(1).score());
+
+        engine.matchesForClient(1, 10);
+        assertEquals(1, dao.propertyReads.size());
+    }
+
+    @Test
+    void removedPropertiesDropOutAtOnce() throws SQLException {
+        FakeDao dao = dao();
+        MatchingEngine engine = new MatchingEngine(dao);
+        engine.matchesForClient(1, 10);
+
+        engine.propertyRemoved(10);
+
+        assertEquals(List.of(11L, 13L), propertyIds(engine.matchesForClient(1, 10)));
+        assertEquals(List.of(), dao.propertyReads);
+    }
+}
@@ -0,0 +1,149 @@
+package org.example.offline;
+
+import org.example.model.Agent;
+import org.example.model.Person;
+import org.example.model.Property;
+import org.example.model.PropertyOwner;
+import org.example.model.SuccessfulDeal;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EntityTest {
+
+    private static final LocalDate DATE = LocalDate.of(2024, 3, 15);
+
+    /** A PreparedStatement that only records the parameters set on it, by position. */
+    private static final class Params {
+        final Map<Integer, Object> values = new TreeMap<>();
+        final PreparedStatement ps = (PreparedStatement) Proxy.newProxyInstance(
+                EntityTest.class.getClassLoader(), new Class<?>[]{PreparedStatement.class}, (proxy, m, args) -> {
+                    switch (m.getName()) {
+                        case "setObject" -> values.put((Integer) args[0], args[1]);
+                        case "setNull" -> values.put((Integer) args[0], null);
+                        default -> throw new UnsupportedOperationException(m.getName());
+                    }
+                    return null;
+                });
+
+        List<Object> list() {
+            return new ArrayList<>(values.values());
+        }
+    }
+
+    private static SuccessfulDeal deal(long id, LocalDate date, long propertyId) {
+        return new SuccessfulDeal(id, date, propertyId, new BigDecimal("99000"), 4, 5);
+    }
+
+    @Test
+    void singleColumnKeysAreTheValue() {
+        assertEquals(7L, Entity.PERSON.key(new Person(7, "A", "B", null, null)));
+        assertEquals(7L, Entity.AGENT.key(new Agent(7, null, DATE)));
+    }
+
+    @Test
+    void compositeKeysAreLists() {
+        assertEquals(List.of(3L, 9L), Entity.PROPERTY_OWNER.key(new PropertyOwner(3, 9)));
+        assertEquals(List.of(11L, DATE), Entity.SUCCESSFUL_DEALS.key(deal(11, DATE, 2)));
+        assertEquals(11L, Entity.SUCCESSFUL_DEALS.journalKey(deal(11, DATE, 2)));
+        assertEquals(3L, Entity.PROPERTY_OWNER.journalKey(new PropertyOwner(3, 9)));
+    }
+
+    @Test
+    void ofFindsTheEntityOfAModel() {
+        assertEquals(Entity.SUCCESSFUL_DEALS, Entity.of(SuccessfulDeal.class));
+        assertThrows(IllegalArgumentException.class, () -> Entity.of(Conflict.class));
+    }
+
+    @Test
+    void generatedKeysAreLeftOutOfInserts() throws SQLException {
+        assertEquals("INSERT INTO successful_deals (deal_date, property_id, final_price, agent_id, client_id)"
+                + " VALUES (?, ?, ?, ?, ?)", Entity.SUCCESSFUL_DEALS.insertSql());
+        assertEquals("INSERT INTO property_owner (person_id, property_id) VALUES (?, ?)",
+                Entity.PROPERTY_OWNER.insertSql());
+
+        Params p = new Params();
+        Entity.SUCCESSFUL_DEALS.bindInsert(p.ps, deal(-1, DATE, 2));
+        assertEquals(Arrays.asList(DATE, 2L, new BigDecimal("99000"), 4L, 5L), p.list());
+    }
+
+    @Test
+    void updatesSetTheRowAndFindTheBase() throws SQLException {
+        assertEquals("UPDATE successful_deals SET deal_date = ?, property_id = ?, final_price = ?, agent_id = ?,"
+                + " client_id = ? WHERE deal_id = ? AND deal_date = ?", Entity.SUCCESSFUL_DEALS.updateSql());
+
+        LocalDate moved = DATE.plusMonths(1);
+        Params p = new Params();
+        Entity.SUCCESSFUL_DEALS.bindUpdate(p.ps, deal(11, moved, 3), deal(11, DATE, 2));
+        assertEquals(Arrays.asList(moved, 3L, new BigDecimal("99000"), 4L, 5L, 11L, DATE), p.list());
+    }
+
+    @Test
+    void nullsAreBoundAsNull() throws SQLException {
+        Params p = new Params();
+        Entity.PERSON.bindUpdate(p.ps, new Person(7, "A", "B", null, "123"), new Person(7, "A", "B", "a@b", null));
+        assertEquals(Arrays.asList("A", "B", null, "123", 7L), p.list());
+    }
+
+    @Test
+    void keysBindFromTheGivenPosition() throws SQLException {
+        Params p = new Params();
+        int next = Entity.SUCCESSFUL_DEALS.bindKey(p.ps, 3, deal(11, DATE, 2));
+        assertEquals(5, next);
+        assertEquals(Map.of(3, 11L, 4, DATE), p.values);
+        assertEquals("DELETE FROM successful_deals WHERE deal_id = ? AND deal_date = ?", Entity.SUCCESSFUL_DEALS.deleteSql());
+    }
+
+    @Test
+    void compositeKeyLookupsUnnestTheKeyColumns() {
+        assertEquals("SELECT person_id, first_name, last_name, email, phone_number FROM person"
+                + " WHERE person_id = ANY(?)", Entity.PERSON.selectByKeysSql());
+        assertTrue(Entity.SUCCESSFUL_DEALS.lockByKeysSql().endsWith(
+                " WHERE (deal_id, deal_date) IN (SELECT * FROM unnest(?, ?)) ORDER BY deal_id, deal_date FOR UPDATE"));
+    }
+
+    @Test
+    void withIdReplacesOnlyTheGeneratedColumn() {
+        assertEquals(deal(42, DATE, 2), Entity.SUCCESSFUL_DEALS.withId(deal(-1, DATE, 2), 42));
+    }
+
+    @Test
+    void remapReplacesReferencedIds() {
+        Map<Long, Long> persons = Map.of(-1L, 100L);
+        Map<Long, Long> properties = Map.of(-2L, 200L);
+
+        Record deal = Entity.SUCCESSFUL_DEALS.remap(new SuccessfulDeal(-5, DATE, -2, null, -1, 6),
+                id -> persons.getOrDefault(id, id), id -> properties.getOrDefault(id, id));
+        // the deal's own provisional id is not a reference
+        assertEquals(new SuccessfulDeal(-5, DATE, 200, null, 100, 6), deal);
+
+        Property owned = new Property(-2, null, null, null, null, "Sofia", "house", -1L);
+        assertEquals(new Property(-2, null, null, null, null, "Sofia", "house", 100L), Entity.PROPERTY.remap(owned,
+                id -> persons.getOrDefault(id, id), id -> properties.getOrDefault(id, id)));
+    }
+
+    @Test
+    void remapKeepsUnchangedRowsAndNullReferences() {
+        Property unowned = new Property(5, null, null, null, null, "Sofia", "house", null);
+        assertSame(unowned, Entity.PROPERTY.remap(unowned, id -> id + 1, id -> id + 1));
+
+        PropertyOwner owner = new PropertyOwner(3, 9);
+        assertSame(owner, Entity.PROPERTY_OWNER.remap(owner, id -> id, id -> id));
+        assertFalse(owner.equals(Entity.PROPERTY_OWNER.remap(owner, id -> id, id -> -id)));
+    }
+}
@@ -0,0 +1,148 @@
+package org.example.offline;
+
+import org.example.journal.ChangeType;
+import org.example.model.Person;
+import org.example.model.SuccessfulDeal;
+import org.example.snapshot.SnapshotStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** The offline queue: how writes to the same row coalesce. Nothing here reaches a database. */
+class OfflineEngineTest {
+
+    private static final LocalDate DATE = LocalDate.of(2024, 3, 15);
+
+    @TempDir
+    Path dir;
+
+    private SnapshotStore store;
+    private OfflineEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        store = SnapshotStore.open(dir.resolve("snapshot.bin"));
+        store.put(Person.class, List.of(person(1, "a@example.org"), person(2, "b@example.org")));
+        engine = new OfflineEngine(new Outbox(dir.resolve("outbox.bin")), store);
+    }
+
+    private static Person person(long id, String email) {
+        return new Person(id, "First" + id, "Last" + id, email, null);
+    }
+
+    private static SuccessfulDeal deal(long id, LocalDate date, BigDecimal price) {
+        return new SuccessfulDeal(id, date, 1, price, 2, 3);
+    }
+
+    @Test
+    void insertsGetDecreasingProvisionalIds() throws SQLException {
+        long first = engine.insert(person(0, "x@example.org"));
+        long second = engine.insert(person(0, "y@example.org"));
+
+        assertEquals(-1, first);
+        assertEquals(-2, second);
+        assertEquals("y@example.org", engine.findByKey(Person.class, -2L).email());
+        assertEquals(4, engine.findAll(Person.class).size());
+    }
+
+    @Test
+    void anUpdateOfAnInsertStaysOneInsert() throws SQLException {
+        long id = engine.insert(person(0, "x@example.org"));
+        engine.update(person(id, "z@example.org"));
+
+        assertEquals(List.of(new PendingWrite(ChangeType.INSERT, Entity.PERSON, null, person(id, "z@example.org"))),
+                engine.pending());
+    }
+
+    @Test
+    void aDeleteOfAnInsertCancelsIt() throws SQLException {
+        long id = engine.insert(person(0, "x@example.org"));
+        engine.delete(Person.class, id);
+
+        assertEquals(List.of(), engine.pending());
+        assertNull(engine.findByKey(Person.class, id));
+    }
+
+    @Test
+    void updatesKeepTheFirstBase() throws SQLException {
+        engine.update(person(1, "b1@example.org"));
+        engine.update(person(1, "b2@example.org"));
+
+        assertEquals(List.of(new PendingWrite(ChangeType.UPDATE, Entity.PERSON,
+                person(1, "a@example.org"), person(1, "b2@example.org"))), engine.pending());
+        assertEquals(person(1, "b2@example.org"), engine.findByKey(Person.class, 1L));
+    }
+
+    @Test
+    void aDeleteAfterAnUpdateDeletesTheOriginal() throws SQLException {
+        engine.update(person(1, "b1@example.org"));
+        engine.delete(Person.class, 1L);
+
+        assertEquals(List.of(new PendingWrite(ChangeType.DELETE, Entity.PERSON, person(1, "a@example.org"), null)),
+                engine.pending());
+        assertNull(engine.findByKey(Person.class, 1L));
+    }
+
+    @Test
+    void aDeletedRowCannotBeUpdated() throws SQLException {
+        engine.delete(Person.class, 2L);
+
+        assertThrows(SQLException.class, () -> engine.update(person(2, "c@example.org")));
+        assertEquals(1, engine.pendingCount());
+    }
+
+    @Test
+    void rowsNotHeldLocallyCannotBeChanged() {
+        assertThrows(SQLException.class, () -> engine.update(person(9, "c@example.org")));
+        assertThrows(SQLException.class, () -> engine.delete(Person.class, 9L));
+        assertEquals(0, engine.pendingCount());
+    }
+
+    @Test
+    void aDealUpdateMayMoveItsDate() throws SQLException {
+        SuccessfulDeal original = deal(5, DATE, new BigDecimal("100"));
+        engine.remember(SuccessfulDeal.class, List.of(original));
+
+        LocalDate moved = DATE.plusMonths(2);
+        engine.update(List.of(5L, DATE), deal(5, moved, new BigDecimal("110")));
+        engine.update(List.of(5L, moved), deal(5, moved, new BigDecimal("120")));
+
+        assertEquals(List.of(new PendingWrite(ChangeType.UPDATE, Entity.SUCCESSFUL_DEALS,
+                original, deal(5, moved, new BigDecimal("120")))), engine.pending());
+        assertNull(engine.findByKey(SuccessfulDeal.class, List.of(5L, DATE)));
+        assertEquals(deal(5, moved, new BigDecimal("120")), engine.findByKey(SuccessfulDeal.class, List.of(5L, moved)));
+    }
+
+    @Test
+    void rememberedRowsAreOnlyForTablesWithoutASnapshot() {
+        engine.remember(Person.class, List.of(person(7, "g@example.org")));
+        assertNull(engine.findByKey(Person.class, 7L));
+        assertEquals(List.of(), engine.partialTables());
+
+        engine.remember(SuccessfulDeal.class, List.of(deal(8, DATE, null), deal(6, DATE, null)));
+        assertEquals(List.of(deal(6, DATE, null), deal(8, DATE, null)), engine.findAll(SuccessfulDeal.class));
+        assertEquals(List.of("successful_deals"), engine.partialTables());
+    }
+
+    @Test
+    void theQueueSurvivesARestart() throws SQLException, IOException {
+        engine.update(person(1, "b1@example.org"));
+        long id = engine.insert(person(0, "x@example.org"));
+
+        List<PendingWrite> saved = new Outbox(dir.resolve("outbox.bin")).load();
+        assertEquals(engine.pending(), saved);
+        assertTrue(saved.stream().anyMatch(w -> w.key().equals(id)));
+    }
+}
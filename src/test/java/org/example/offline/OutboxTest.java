@@ -0,0 +1,87 @@
+package org.example.offline;
+
+import org.example.journal.ChangeType;
+import org.example.model.Person;
+import org.example.model.PropertyOwner;
+import org.example.model.SuccessfulDeal;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OutboxTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void writesReadBackInOrder() throws IOException {
+        Person before = new Person(7, "Ivan", "Petrov", "ivan@example.org", null);
+        Person after = new Person(7, "Ivan", "Petrov", "ivan.petrov@example.org", "+359 888 123");
+        SuccessfulDeal deal = new SuccessfulDeal(-3, LocalDate.of(2024, 5, 31), -2, new BigDecimal("125000.50"), 4, 7);
+        List<PendingWrite> writes = List.of(
+                new PendingWrite(ChangeType.INSERT, Entity.SUCCESSFUL_DEALS, null, deal),
+                new PendingWrite(ChangeType.UPDATE, Entity.PERSON, before, after),
+                new PendingWrite(ChangeType.DELETE, Entity.PROPERTY_OWNER, new PropertyOwner(7, 9), null));
+
+        Outbox outbox = new Outbox(dir.resolve("outbox.bin"));
+        outbox.save(writes);
+
+        assertEquals(writes, outbox.load());
+        assertEquals(writes, new Outbox(dir.resolve("outbox.bin")).load());
+    }
+
+    @Test
+    void nullValuesSurvive() throws IOException {
+        SuccessfulDeal deal = new SuccessfulDeal(1, null, 2, null, 3, 4);
+        List<PendingWrite> writes = List.of(new PendingWrite(ChangeType.INSERT, Entity.SUCCESSFUL_DEALS, null, deal));
+
+        Outbox outbox = new Outbox(dir.resolve("outbox.bin"));
+        outbox.save(writes);
+
+        assertEquals(writes, outbox.load());
+    }
+
+    @Test
+    void anEmptyQueueRemovesTheFile() throws IOException {
+        Path file = dir.resolve("outbox.bin");
+        Outbox outbox = new Outbox(file);
+        outbox.save(List.of(new PendingWrite(ChangeType.DELETE, Entity.PERSON,
+                new Person(1, "A", "B", null, null), null)));
+        assertTrue(Files.exists(file));
+
+        outbox.save(List.of());
+
+        assertFalse(Files.exists(file));
+        assertEquals(List.of(), outbox.load());
+    }
+
+    @Test
+    void missingDirectoriesAreCreated() throws IOException {
+        Outbox outbox = new Outbox(dir.resolve("a").resolve("b").resolve("outbox.bin"));
+        List<PendingWrite> writes = List.of(new PendingWrite(ChangeType.DELETE, Entity.PERSON,
+                new Person(1, "A", "B", null, null), null));
+
+        outbox.save(writes);
+
+        assertEquals(writes, outbox.load());
+    }
+
+    @Test
+    void otherFilesAreRefused() throws IOException {
+        Path file = dir.resolve("outbox.bin");
+        Files.write(file, new byte[]{'R', 'E', 'S', 'N', 'A', 'P', 0, 0, 0});
+
+        assertThrows(IOException.class, () -> new Outbox(file).load());
+    }
+}
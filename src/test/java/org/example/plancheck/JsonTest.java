@@ -0,0 +1,47 @@
+package org.example.plancheck;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JsonTest {
+
+    @Test
+    void objectsArraysAndNumbers() {
+        Object v = Json.parse(" { \"Plan\" : { \"Plan Rows\": 12, \"Total Cost\": 1.5e2, \"Plans\": [ ] }, \"n\": -3 } ");
+
+        assertEquals(Map.of("Plan", Map.of("Plan Rows", 12.0, "Total Cost", 150.0, "Plans", List.of()), "n", -3.0), v);
+    }
+
+    @Test
+    void keysKeepTheirOrder() {
+        @SuppressWarnings("unchecked")
+        Map<String, Object> m = (Map<String, Object>) Json.parse("{\"b\": 1, \"a\": 2, \"c\": 3}");
+
+        assertEquals(List.of("b", "a", "c"), List.copyOf(m.keySet()));
+    }
+
+    @Test
+    void literals() {
+        assertEquals(Arrays.asList(true, false, null), Json.parse("[true, false, null]"));
+    }
+
+    @Test
+    void stringEscapes() {
+        assertEquals("a \"b\"\n\tc\\d/é", Json.parse("\"a \\\"b\\\"\\n\\tc\\\\d\\/\\u00e9\""));
+    }
+
+    @Test
+    void malformedInputIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> Json.parse("[1, 2] x"));
+        assertThrows(IllegalArgumentException.class, () -> Json.parse("\"open"));
+        assertThrows(IllegalArgumentException.class, () -> Json.parse("{\"a\" 1}"));
+        assertThrows(IllegalArgumentException.class, () -> Json.parse("[1, 2"));
+        assertThrows(IllegalArgumentException.class, () -> Json.parse(""));
+    }
+}
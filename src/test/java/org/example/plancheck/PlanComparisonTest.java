@@ -0,0 +1,117 @@
+package org.example.plancheck;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PlanComparisonTest {
+
+    private static final Map<String, Double> ROWS = Map.of("property", 50_000.0, "agent", 200.0);
+    private static final long LARGE = 10_000;
+    private static final double FACTOR = 10;
+
+    private static PlanLine line(int depth, String label, double rows) {
+        return new PlanLine(depth, label, rows);
+    }
+
+    private static PlanComparison.Outcome compare(List<PlanLine> baseline, List<PlanLine> current) {
+        return PlanComparison.compare(baseline, current, ROWS, LARGE, FACTOR);
+    }
+
+    private static final List<PlanLine> BY_KEY = List.of(
+            line(0, "Limit", 10),
+            line(1, "Index Scan using property_pkey on property", 10));
+
+    @Test
+    void theSamePlanPasses() {
+        PlanComparison.Outcome o = compare(BY_KEY, BY_KEY);
+
+        assertTrue(o.ok());
+        assertEquals("", o.diff());
+    }
+
+    @Test
+    void aSeqScanReplacingAnIndexFailsEveryRule() {
+        List<PlanLine> current = List.of(line(0, "Limit", 10), line(1, "Seq Scan on property", 50_000));
+
+        PlanComparison.Outcome o = compare(BY_KEY, current);
+
+        assertEquals(List.of("new Seq Scan on property (50,000 rows)", "index property_pkey no longer used",
+                "plan shape changed"), o.problems());
+        assertEquals("""
+                  Limit  (rows=10)
+                -   Index Scan using property_pkey on property  (rows=10)
+                +   Seq Scan on property  (rows=50000)
+                """, o.diff());
+    }
+
+    @Test
+    void seqScansOnSmallTablesOrInTheBaselineAreAllowed() {
+        List<PlanLine> small = List.of(line(0, "Seq Scan on agent", 200));
+        assertTrue(compare(small, small).ok());
+
+        List<PlanLine> large = List.of(line(0, "Seq Scan on property", 50_000));
+        assertTrue(compare(large, large).ok());
+    }
+
+    @Test
+    void rowEstimatesMayMoveWithinTheFactor() {
+        List<PlanLine> within = List.of(line(0, "Limit", 90), line(1, "Index Scan using property_pkey on property", 2));
+        assertTrue(compare(BY_KEY, within).ok());
+
+        List<PlanLine> beyond = List.of(line(0, "Limit", 200), line(1, "Index Scan using property_pkey on property", 10));
+        assertEquals(List.of("row estimate of 'Limit' is 200, baseline 10"), compare(BY_KEY, beyond).problems());
+    }
+
+    @Test
+    void theDiffAlignsOnTheLongestCommonSubsequence() {
+        List<PlanLine> baseline = List.of(
+                line(0, "Hash Join (Inner)", 100),
+                line(1, "Index Scan using property_pkey on property", 100),
+                line(1, "Hash", 10),
+                line(2, "Seq Scan on agent", 10));
+        List<PlanLine> current = List.of(
+                line(0, "Hash Join (Inner)", 100),
+                line(1, "Sort", 100),
+                line(1, "Index Scan using property_pkey on property", 100),
+                line(1, "Hash", 10),
+                line(2, "Seq Scan on agent", 10));
+
+        PlanComparison.Outcome o = compare(baseline, current);
+
+        assertEquals(List.of("plan shape changed"), o.problems());
+        assertEquals("""
+                  Hash Join (Inner)  (rows=100)
+                +   Sort  (rows=100)
+                    Index Scan using property_pkey on property  (rows=100)
+                    Hash  (rows=10)
+                      Seq Scan on agent  (rows=10)
+                """, o.diff());
+    }
+
+    @Test
+    void estimatesAreComparedOnlyBetweenMatchedNodes() {
+        List<PlanLine> baseline = List.of(line(0, "Sort", 10), line(1, "Seq Scan on agent", 200));
+        List<PlanLine> current = List.of(line(0, "Seq Scan on agent", 150));
+
+        assertEquals(List.of("plan shape changed"), compare(baseline, current).problems());
+    }
+
+    @Test
+    void withoutABaselineOnlyLargeSeqScansFail() {
+        assertTrue(PlanComparison.withoutBaseline(BY_KEY, ROWS, LARGE).ok());
+        assertTrue(PlanComparison.withoutBaseline(List.of(line(0, "Seq Scan on agent", 200)), ROWS, LARGE).ok());
+
+        PlanComparison.Outcome o = PlanComparison.withoutBaseline(
+                List.of(line(0, "Limit", 10), line(1, "Parallel Seq Scan on property", 50_000)), ROWS, LARGE);
+        assertEquals(List.of("Seq Scan on property (50,000 rows)"), o.problems());
+        assertEquals("""
+                + Limit  (rows=10)
+                +   Parallel Seq Scan on property  (rows=50000)
+                """, o.diff());
+    }
+}
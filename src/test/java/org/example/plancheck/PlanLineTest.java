@@ -0,0 +1,89 @@
+package org.example.plancheck;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class PlanLineTest {
+
+    private static final String EXPLAIN = """
+        [
+          {
+            "Plan": {
+              "Node Type": "Aggregate",
+              "Strategy": "Hashed",
+              "Parallel Aware": false,
+              "Plan Rows": 40,
+              "Plans": [
+                {
+                  "Node Type": "Nested Loop",
+                  "Join Type": "Inner",
+                  "Plan Rows": 1200,
+                  "Plans": [
+                    {
+                      "Node Type": "Seq Scan",
+                      "Parallel Aware": true,
+                      "Relation Name": "successful_deals_y2024m03",
+                      "Plan Rows": 300
+                    },
+                    {
+                      "Node Type": "Index Scan",
+                      "Index Name": "property_pkey",
+                      "Relation Name": "property",
+                      "Plan Rows": 1
+                    }
+                  ]
+                },
+                {
+                  "Node Type": "Aggregate",
+                  "Strategy": "Plain",
+                  "Subplan Name": "InitPlan 1 (returns $0)",
+                  "Plan Rows": 1
+                }
+              ]
+            }
+          }
+        ]
+        """;
+
+    @Test
+    void explainBecomesAnIndentedTree() {
+        List<PlanLine> plan = PlanLine.fromExplain(EXPLAIN);
+
+        assertEquals(List.of(
+                new PlanLine(0, "Aggregate (Hashed)", 40),
+                new PlanLine(1, "Nested Loop (Inner)", 1200),
+                new PlanLine(2, "Parallel Seq Scan on successful_deals_y2024m03", 300),
+                new PlanLine(2, "Index Scan using property_pkey on property", 1),
+                new PlanLine(1, "Aggregate [InitPlan 1 (returns $0)]", 1)), plan);
+    }
+
+    @Test
+    void textParsesBack() {
+        for (PlanLine l : PlanLine.fromExplain(EXPLAIN)) assertEquals(l, PlanLine.parse(l.text()));
+        assertEquals("    Index Scan using property_pkey on property  (rows=1)",
+                new PlanLine(2, "Index Scan using property_pkey on property", 1).text());
+    }
+
+    @Test
+    void linesWithoutAnEstimateParse() {
+        assertEquals(new PlanLine(1, "Hash", 0), PlanLine.parse("  Hash"));
+    }
+
+    @Test
+    void seqScansNameTheirTable() {
+        assertEquals("property", new PlanLine(0, "Seq Scan on property", 1).seqScanOf());
+        assertEquals("person", new PlanLine(0, "Parallel Seq Scan on person", 1).seqScanOf());
+        assertNull(new PlanLine(0, "Index Scan using property_pkey on property", 1).seqScanOf());
+    }
+
+    @Test
+    void indexScansNameTheirIndex() {
+        assertEquals("property_pkey", new PlanLine(0, "Index Only Scan using property_pkey on property", 1).index());
+        assertEquals("idx_property_city_type_price", new PlanLine(0, "Bitmap Index Scan using idx_property_city_type_price", 1).index());
+        assertNull(new PlanLine(0, "Seq Scan on property", 1).index());
+    }
+}
@@ -0,0 +1,132 @@
+package org.example.search;
+
+import org.example.model.Person;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PersonSearchIndexTest {
+
+    private static final Person IVAN = new Person(1, "Ivan", "Petrov", "ivan.petrov@example.org", "+359 888 123456");
+    private static final Person MARIA = new Person(2, "Maria", "Ivanova", "maria@mail.bg", null);
+    private static final Person GEORGI = new Person(3, "Georgi", "Vasilev", null, "0887 555 010");
+
+    private static PersonSearchIndex loaded(Person... people) throws SQLException {
+        PersonSearchIndex index = new PersonSearchIndex();
+        index.rebuild(List.of(people)::forEach);
+        return index;
+    }
+
+    private static List<Long> ids(List<Person> people) {
+        return people.stream().map(Person::personId).toList();
+    }
+
+    @Test
+    void fieldsGiveTrigramsAndWordPrefixes() {
+        Set<String> grams = PersonSearchIndex.grams(new Person(1, "Ivan", null, "iv.pe@x", null));
+
+        assertTrue(grams.containsAll(Set.of("iva", "van", "iv.", "v.p", ".pe", "pe@", "e@x")));
+        assertTrue(grams.containsAll(Set.of("\u0001i", "\u0001iv", "\u0001p", "\u0001pe", "\u0001x")));
+        assertFalse(grams.contains("\u0001va"));
+        assertFalse(grams.contains("\u0001."));
+        assertEquals(List.of(), List.copyOf(PersonSearchIndex.grams(new Person(4, null, "", null, null))));
+    }
+
+    @Test
+    void termsAreLowercaseWords() {
+        assertEquals(List.of("ivan", "petrov"), PersonSearchIndex.terms("  Ivan\tPETROV "));
+        assertEquals(List.of(), PersonSearchIndex.terms(null));
+    }
+
+    @Test
+    void shortTermsMatchOnlyAtTheStartOfAWord() throws SQLException {
+        PersonSearchIndex index = loaded(IVAN, MARIA, GEORGI);
+
+        assertEquals(List.of(1L, 2L), ids(index.search("iv", 10)));
+        assertEquals(List.of(1L), ids(index.search("pe", 10)));
+        assertEquals(List.of(2L), ids(index.search("bg", 10)));
+        assertEquals(List.of(3L), ids(index.search("va", 10)));
+        assertEquals(List.of(), index.search("tr", 10));
+    }
+
+    @Test
+    void longerTermsMatchAnywhere() throws SQLException {
+        PersonSearchIndex index = loaded(IVAN, MARIA, GEORGI);
+
+        assertEquals(List.of(1L, 2L), ids(index.search("van", 10)));
+        assertEquals(List.of(1L), ids(index.search("trov@ex", 10)));
+        assertEquals(List.of(3L), ids(index.search("555", 10)));
+    }
+
+    @Test
+    void everyTermMustMatch() throws SQLException {
+        PersonSearchIndex index = loaded(IVAN, MARIA, GEORGI);
+
+        assertEquals(List.of(2L), ids(index.search("ivan MA", 10)));
+        assertEquals(List.of(), index.search("ivan georgi", 10));
+        assertEquals(List.of(1L), ids(index.search("iv", 1)));
+        assertEquals(List.of(), index.search("   ", 10));
+    }
+
+    @Test
+    void candidatesSharingEveryTrigramAreVerified() throws SQLException {
+        PersonSearchIndex index = loaded(new Person(5, "abcxbcd", null, null, null));
+
+        assertEquals(List.of(), index.search("abcd", 10));
+        assertEquals(List.of(5L), ids(index.search("bcd", 10)));
+    }
+
+    @Test
+    void putReplacesThePersonsOldGrams() throws SQLException {
+        PersonSearchIndex index = loaded(IVAN, MARIA);
+
+        index.put(new Person(1, "Ivan", "Dimitrov", "ivan@example.org", null));
+        index.put(GEORGI);
+
+        assertEquals(List.of(), index.search("petrov", 10));
+        assertEquals(List.of(1L), ids(index.search("dimitrov", 10)));
+        assertEquals(List.of(3L), ids(index.search("georgi", 10)));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void removeDropsThePerson() throws SQLException {
+        PersonSearchIndex index = loaded(IVAN, MARIA);
+
+        index.remove(2);
+        index.remove(99);
+
+        assertEquals(List.of(1L), ids(index.search("iv", 10)));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void writesBeforeTheFirstLoadAreIgnored() {
+        PersonSearchIndex index = new PersonSearchIndex();
+
+        index.put(IVAN);
+
+        assertFalse(index.isLoaded());
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void aFailedRebuildKeepsTheOldIndex() throws SQLException {
+        PersonSearchIndex index = loaded(IVAN);
+
+        assertThrows(SQLException.class, () -> index.rebuild(sink -> {
+            sink.accept(MARIA);
+            throw new SQLException("connection lost");
+        }));
+
+        assertTrue(index.isLoaded());
+        assertEquals(List.of(1L), ids(index.search("ivan", 10)));
+    }
+}
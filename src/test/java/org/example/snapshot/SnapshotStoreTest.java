@@ -0,0 +1,142 @@
+package org.example.snapshot;
+
+import org.example.model.Agent;
+import org.example.model.Person;
+import org.example.model.Property;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SnapshotStoreTest {
+
+    private static final List<Person> PEOPLE = List.of(
+            new Person(1, "Ivan", "Petrov", "ivan@example.org", null),
+            new Person(2, "Мария", "Иванова", null, "+359 888 123"));
+    private static final List<Agent> AGENTS = List.of(new Agent(2, new BigDecimal("2500.00"), LocalDate.of(2020, 3, 1)));
+    private static final List<Property> PROPERTIES = List.of(
+            new Property(5, new BigDecimal("99000"), new BigDecimal("64.5"), 42.69, 23.32, "Sofia", "apartment", 1L),
+            new Property(6, null, null, null, null, null, "garage", null));
+
+    @TempDir
+    Path dir;
+
+    private Path file() {
+        return dir.resolve("snapshot.bin");
+    }
+
+    @Test
+    void rowsSurviveASaveAndReopen() throws IOException {
+        SnapshotStore store = SnapshotStore.open(file());
+        store.put(Person.class, PEOPLE);
+        store.put(Property.class, PROPERTIES);
+        store.save();
+
+        SnapshotStore reopened = SnapshotStore.open(file());
+
+        assertEquals(PEOPLE, reopened.get(Person.class));
+        assertEquals(PROPERTIES, reopened.get(Property.class));
+        assertNull(reopened.get(Agent.class));
+    }
+
+    @Test
+    void sectionsNotReadThisSessionAreCarriedOver() throws IOException {
+        SnapshotStore first = SnapshotStore.open(file());
+        first.put(Person.class, PEOPLE);
+        first.put(Property.class, PROPERTIES);
+        first.save();
+
+        // Person is never decoded here, and the file it is mapped from gets replaced
+        SnapshotStore second = SnapshotStore.open(file());
+        second.put(Agent.class, AGENTS);
+        second.put(Property.class, PROPERTIES.subList(0, 1));
+        second.save();
+
+        SnapshotStore third = SnapshotStore.open(file());
+        assertEquals(PEOPLE, third.get(Person.class));
+        assertEquals(AGENTS, third.get(Agent.class));
+        assertEquals(PROPERTIES.subList(0, 1), third.get(Property.class));
+    }
+
+    @Test
+    void removedTypesLeaveTheNextFile() throws IOException {
+        SnapshotStore store = SnapshotStore.open(file());
+        store.put(Person.class, PEOPLE);
+        store.put(Agent.class, AGENTS);
+        store.save();
+
+        SnapshotStore reopened = SnapshotStore.open(file());
+        reopened.remove(Person.class);
+        assertNull(reopened.get(Person.class));
+        reopened.save();
+
+        assertNull(SnapshotStore.open(file()).get(Person.class));
+        assertEquals(AGENTS, SnapshotStore.open(file()).get(Agent.class));
+    }
+
+    @Test
+    void putIfVersionLosesToAnEarlierPut() {
+        SnapshotStore store = SnapshotStore.open(file());
+        long version = store.version(Person.class);
+
+        store.put(Person.class, PEOPLE.subList(0, 1));
+
+        assertFalse(store.putIfVersion(Person.class, PEOPLE, version));
+        assertEquals(PEOPLE.subList(0, 1), store.get(Person.class));
+        assertTrue(store.putIfVersion(Person.class, PEOPLE, store.version(Person.class)));
+        assertEquals(PEOPLE, store.get(Person.class));
+
+        long beforeRemove = store.version(Person.class);
+        store.remove(Person.class);
+        assertFalse(store.putIfVersion(Person.class, PEOPLE, beforeRemove));
+    }
+
+    @Test
+    void storedListsAreCopies() {
+        SnapshotStore store = SnapshotStore.open(file());
+        List<Person> rows = new ArrayList<>(PEOPLE);
+        store.put(Person.class, rows);
+
+        rows.clear();
+
+        assertEquals(PEOPLE, store.get(Person.class));
+    }
+
+    @Test
+    void anUnreadableFileGivesAnEmptyStore() throws IOException {
+        Files.writeString(file(), "not a snapshot");
+
+        SnapshotStore store = SnapshotStore.open(file());
+        assertNull(store.get(Person.class));
+
+        store.put(Person.class, PEOPLE);
+        store.save();
+        assertEquals(PEOPLE, SnapshotStore.open(file()).get(Person.class));
+    }
+
+    @Test
+    void theFileIsPrivateAndSavedInTheBackground() throws Exception {
+        Path nested = dir.resolve("a").resolve("snapshot.bin");
+        SnapshotStore store = SnapshotStore.open(nested);
+        store.put(Person.class, PEOPLE);
+
+        store.saveInBackground().join();
+
+        assertEquals(PEOPLE, SnapshotStore.open(nested).get(Person.class));
+        if (nested.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(nested)));
+        }
+    }
+}
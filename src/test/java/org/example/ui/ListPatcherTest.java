@@ -0,0 +1,139 @@
+package org.example.ui;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/** The reload diff on a plain ObservableList; nothing here needs the FX toolkit. */
+class ListPatcherTest {
+
+    private record Row(long id, String value) {}
+
+    /** Counts the rows each kind of change touched. */
+    private static final class Changes implements ListChangeListener<Row> {
+        int events;
+        int removed;
+        int added;
+
+        @Override
+        public void onChanged(Change<? extends Row> c) {
+            while (c.next()) {
+                events++;
+                removed += c.getRemovedSize();
+                added += c.getAddedSize();
+            }
+        }
+    }
+
+    private static List<Row> rows(int from, int to) {
+        List<Row> out = new ArrayList<>();
+        for (int i = from; i <= to; i++) out.add(new Row(i, "v" + i));
+        return out;
+    }
+
+    private static Changes patch(ObservableList<Row> items, List<Row> rows) {
+        Changes changes = new Changes();
+        items.addListener(changes);
+        ListPatcher.patch(items, rows, Row::id);
+        items.removeListener(changes);
+        assertEquals(rows, items);
+        return changes;
+    }
+
+    @Test
+    void theFirstLoadIsOneChange() {
+        ObservableList<Row> items = FXCollections.observableArrayList();
+
+        Changes c = patch(items, rows(1, 5));
+
+        assertEquals(1, c.events);
+        assertEquals(5, c.added);
+    }
+
+    @Test
+    void anUnchangedReloadChangesNothing() {
+        ObservableList<Row> items = FXCollections.observableArrayList(rows(1, 10));
+
+        Changes c = patch(items, rows(1, 10));
+
+        assertEquals(0, c.events);
+    }
+
+    @Test
+    void aSmallDiffTouchesOnlyTheChangedRows() {
+        List<Row> before = rows(1, 10);
+        ObservableList<Row> items = FXCollections.observableArrayList(before);
+        List<Row> after = new ArrayList<>(rows(1, 10));
+        after.set(4, new Row(5, "edited"));
+        after.remove(2);
+        after.add(new Row(11, "new"));
+
+        Changes c = patch(items, after);
+
+        // row 3 removed, row 5 replaced, row 11 added
+        assertEquals(2, c.removed);
+        assertEquals(2, c.added);
+        assertSame(before.get(0), items.get(0));
+        assertSame(before.get(9), items.get(8));
+    }
+
+    @Test
+    void rowsInsertedInTheMiddleKeepTheirPlace() {
+        ObservableList<Row> items = FXCollections.observableArrayList(rows(1, 10));
+        items.remove(1);
+
+        Changes c = patch(items, rows(1, 10));
+
+        assertEquals(0, c.removed);
+        assertEquals(1, c.added);
+    }
+
+    @Test
+    void aReorderReplacesEverything() {
+        ObservableList<Row> items = FXCollections.observableArrayList(rows(1, 10));
+        List<Row> reversed = new ArrayList<>(rows(1, 10));
+        Collections.reverse(reversed);
+
+        Changes c = patch(items, reversed);
+
+        assertEquals(1, c.events);
+        assertEquals(10, c.removed);
+    }
+
+    @Test
+    void replacingMostRowsIsOneChange() {
+        ObservableList<Row> items = FXCollections.observableArrayList(rows(1, 10));
+
+        Changes c = patch(items, rows(5, 14));
+
+        assertEquals(1, c.events);
+        assertEquals(10, c.removed);
+        assertEquals(10, c.added);
+    }
+
+    @Test
+    void pastMaxPatchedRowsTheItemsAreReplaced() {
+        int n = ListPatcher.MAX_PATCHED_ROWS * 4;
+        ObservableList<Row> items = FXCollections.observableArrayList(rows(1, n));
+        List<Row> within = rows(1, n);
+        for (int i = 0; i < ListPatcher.MAX_PATCHED_ROWS; i++) within.set(i * 2, new Row(i * 2 + 1, "edited"));
+
+        Changes small = patch(items, within);
+        assertEquals(ListPatcher.MAX_PATCHED_ROWS, small.removed);
+
+        List<Row> beyond = rows(1, n);
+        for (int i = 0; i <= ListPatcher.MAX_PATCHED_ROWS; i++) beyond.set(i * 3, new Row(i * 3 + 1, "again"));
+
+        Changes large = patch(items, beyond);
+        assertEquals(1, large.events);
+        assertEquals(n, large.removed);
+    }
+}